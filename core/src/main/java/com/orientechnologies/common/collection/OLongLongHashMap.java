@@ -0,0 +1,215 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+package com.orientechnologies.common.collection;
+
+import java.util.Arrays;
+
+/**
+ * Hash map of primitive <code>long</code> keys to primitive <code>long</code> values, based on open addressing with linear
+ * probing. Neither keys nor values are boxed and all the entries are kept in a single array, so the map takes several times less
+ * memory than a {@link java.util.HashMap} of the same size and does not produce garbage on lookups.
+ * <p>
+ * {@link Long#MIN_VALUE} is used to mark free slots, so it can not be used as a key. Entries can not be removed, the map is
+ * intended to be filled during a single computation and then dropped or cleared. The map is not thread safe.
+ */
+public class OLongLongHashMap {
+  private static final long FREE_KEY         = Long.MIN_VALUE;
+  private static final int  MIN_CAPACITY     = 16;
+  private static final int  MAX_CAPACITY     = 1 << 29;
+  private static final long GOLDEN_RATIO_MIX = 0x9E3779B97F4A7C15L;
+
+  private final long noEntryValue;
+
+  /**
+   * Keys are stored at even and values at odd positions, so the key and the value of the entry are on the same cache line.
+   */
+  private long[] entries;
+  private int    mask;
+  private int    shift;
+  private int    size;
+  private int    resizeThreshold;
+
+  /**
+   * @param expectedSize amount of entries which can be put into the map without resize
+   * @param noEntryValue value which is returned for the absent keys
+   */
+  public OLongLongHashMap(final int expectedSize, final long noEntryValue) {
+    this.noEntryValue = noEntryValue;
+
+    int capacity = MIN_CAPACITY;
+    while (capacity < MAX_CAPACITY && capacity < 2L * expectedSize) {
+      capacity <<= 1;
+    }
+    allocate(capacity);
+  }
+
+  public long getNoEntryValue() {
+    return noEntryValue;
+  }
+
+  /**
+   * @return value associated with the key or {@link #getNoEntryValue()} if there is no such key in the map
+   */
+  public long get(final long key) {
+    checkKey(key);
+
+    int index = slot(key);
+    while (true) {
+      final long current = entries[index];
+      if (current == key) {
+        return entries[index + 1];
+      }
+      if (current == FREE_KEY) {
+        return noEntryValue;
+      }
+      index = (index + 2) & mask;
+    }
+  }
+
+  public boolean containsKey(final long key) {
+    checkKey(key);
+
+    int index = slot(key);
+    while (true) {
+      final long current = entries[index];
+      if (current == key) {
+        return true;
+      }
+      if (current == FREE_KEY) {
+        return false;
+      }
+      index = (index + 2) & mask;
+    }
+  }
+
+  /**
+   * @return previous value associated with the key or {@link #getNoEntryValue()} if there was no such key in the map
+   */
+  public long put(final long key, final long value) {
+    checkKey(key);
+
+    int index = slot(key);
+    while (true) {
+      final long current = entries[index];
+      if (current == key) {
+        final long previous = entries[index + 1];
+        entries[index + 1] = value;
+        return previous;
+      }
+      if (current == FREE_KEY) {
+        insert(index, key, value);
+        return noEntryValue;
+      }
+      index = (index + 2) & mask;
+    }
+  }
+
+  /**
+   * Associates the value with the key only if the key is not present in the map yet, so it can be used to check and mark visited
+   * entries by a single lookup.
+   *
+   * @return <code>true</code> if the entry was added
+   */
+  public boolean putIfAbsent(final long key, final long value) {
+    checkKey(key);
+
+    int index = slot(key);
+    while (true) {
+      final long current = entries[index];
+      if (current == key) {
+        return false;
+      }
+      if (current == FREE_KEY) {
+        insert(index, key, value);
+        return true;
+      }
+      index = (index + 2) & mask;
+    }
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public void clear() {
+    Arrays.fill(entries, FREE_KEY);
+    size = 0;
+  }
+
+  private void insert(final int index, final long key, final long value) {
+    entries[index] = key;
+    entries[index + 1] = value;
+    size++;
+
+    if (size > resizeThreshold) {
+      rehash();
+    }
+  }
+
+  private void rehash() {
+    final long[] oldEntries = entries;
+    final int capacity = oldEntries.length; // DOUBLES THE AMOUNT OF SLOTS, EVERY SLOT TAKES TWO ARRAY ITEMS
+    if (capacity / 2 >= MAX_CAPACITY) {
+      throw new IllegalStateException("Map can not contain more than " + (MAX_CAPACITY / 2) + " entries");
+    }
+
+    allocate(capacity);
+
+    for (int i = 0; i < oldEntries.length; i += 2) {
+      final long key = oldEntries[i];
+      if (key == FREE_KEY) {
+        continue;
+      }
+
+      int index = slot(key);
+      while (entries[index] != FREE_KEY) {
+        index = (index + 2) & mask;
+      }
+      entries[index] = key;
+      entries[index + 1] = oldEntries[i + 1];
+    }
+  }
+
+  private void allocate(final int capacity) {
+    entries = new long[capacity * 2];
+    Arrays.fill(entries, FREE_KEY);
+
+    mask = capacity * 2 - 1;
+    shift = 64 - Integer.numberOfTrailingZeros(capacity);
+    resizeThreshold = capacity / 2;
+  }
+
+  /**
+   * Fibonacci hashing spreads sequential keys (eg. positions of records in the same cluster) over the whole table.
+   */
+  private int slot(final long key) {
+    return (int) ((key * GOLDEN_RATIO_MIX) >>> shift) << 1;
+  }
+
+  private static void checkKey(final long key) {
+    if (key == FREE_KEY) {
+      throw new IllegalArgumentException("Key " + key + " is reserved and can not be used");
+    }
+  }
+}
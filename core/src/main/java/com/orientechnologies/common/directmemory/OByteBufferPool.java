@@ -23,7 +23,10 @@ import com.orientechnologies.common.log.OLogManager;
 import com.orientechnologies.orient.core.config.OContextConfiguration;
 import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -34,6 +37,12 @@ import java.util.concurrent.atomic.AtomicReference;
  * Object of this class works at the same time as factory for <code>DirectByteBuffer</code> objects and pool for
  * <code>DirectByteBuffer</code> objects which were used and now are free to be reused by other parts of the code.
  * All <code>DirectByteBuffer</code> objects have the same size which is specified in objects constructor as "page size".
+ * <p>
+ * To avoid contention on the shared pool each thread may keep its own cache of released pages. Pages are moved between the
+ * thread local cache and the shared pool by batches (magazines) of fixed size, so the shared pool is accessed only once per batch.
+ * Pages cached by the threads are counted against the limit of the pool too: every thread cache reserves space in the pool by
+ * whole batches before it keeps released pages. Caches of the dead threads are freed once their threads are collected, or once
+ * the pool is full.
  *
  * @see ODirectMemoryAllocator
  */
@@ -95,9 +104,35 @@ public final class OByteBufferPool implements OByteBufferPoolMXBean {
 
   /**
    * Size of the pool of pages is kept in separate counter because it is slow to ask pool itself and count all links in the pool.
+   * If thread local caches are enabled it includes the space reserved by the thread caches.
    */
   private final AtomicInteger pointersPoolSize = new AtomicInteger();
 
+  /**
+   * Amount of pages which are moved between thread local caches and the shared pool at once, 0 if thread local caches are disabled.
+   */
+  private final int batchSize;
+
+  /**
+   * Shared pool of batches of pages, used instead of {@link #pointersPool} if thread local caches are enabled.
+   */
+  private final ConcurrentLinkedQueue<OPointer[]> batchesPool = new ConcurrentLinkedQueue<>();
+
+  /**
+   * Cache of pages of the current thread, <code>null</code> if thread local caches are disabled.
+   */
+  private final ThreadLocal<ThreadCache> threadCache;
+
+  /**
+   * All thread local caches, they are needed to gather statistics, to free pages of the dead threads and to clear the pool.
+   */
+  private final ConcurrentLinkedQueue<ThreadCache> threadCaches = new ConcurrentLinkedQueue<>();
+
+  /**
+   * Caches of the threads which were collected by GC.
+   */
+  private final ReferenceQueue<Thread> deadThreads = new ReferenceQueue<>();
+
   /**
    * Direct memory allocator.
    */
@@ -107,9 +142,8 @@ public final class OByteBufferPool implements OByteBufferPoolMXBean {
    * @param pageSize Size of single page (instance of <code>DirectByteBuffer</code>) returned by pool.
    */
   public OByteBufferPool(int pageSize) {
-    this.pageSize = pageSize;
-    this.allocator = ODirectMemoryAllocator.instance();
-    this.poolSize = OGlobalConfiguration.DIRECT_MEMORY_POOL_LIMIT.getValueAsInteger();
+    this(pageSize, ODirectMemoryAllocator.instance(), OGlobalConfiguration.DIRECT_MEMORY_POOL_LIMIT.getValueAsInteger(),
+        OGlobalConfiguration.DIRECT_MEMORY_POOL_THREAD_CACHE.getValueAsInteger());
   }
 
   /**
@@ -118,9 +152,29 @@ public final class OByteBufferPool implements OByteBufferPoolMXBean {
    * @param poolSize  Size of the page pool
    */
   public OByteBufferPool(int pageSize, ODirectMemoryAllocator allocator, int poolSize) {
+    this(pageSize, allocator, poolSize, 0);
+  }
+
+  /**
+   * @param allocator Direct memory allocator to use.
+   * @param pageSize  Size of single page (instance of <code>DirectByteBuffer</code>) returned by pool.
+   * @param poolSize  Size of the shared page pool
+   * @param batchSize Amount of pages which are moved between thread local caches and the shared pool at once, 0 disables thread
+   *                  local caches
+   *
+   * @see OGlobalConfiguration#DIRECT_MEMORY_POOL_THREAD_CACHE
+   */
+  public OByteBufferPool(int pageSize, ODirectMemoryAllocator allocator, int poolSize, int batchSize) {
     this.pageSize = pageSize;
     this.allocator = allocator;
     this.poolSize = poolSize;
+    this.batchSize = Math.max(batchSize, 0);
+
+    if (this.batchSize > 0) {
+      this.threadCache = ThreadLocal.withInitial(this::registerThreadCache);
+    } else {
+      this.threadCache = null;
+    }
   }
 
   /**
@@ -135,11 +189,17 @@ public final class OByteBufferPool implements OByteBufferPoolMXBean {
   public final OPointer acquireDirect(boolean clear) {
     OPointer pointer;
 
-    pointer = pointersPool.poll();
-
-    if (pointer != null) {
-      pointersPoolSize.decrementAndGet();
+    if (threadCache != null) {
+      pointer = acquireFromThreadCache();
     } else {
+      pointer = pointersPool.poll();
+
+      if (pointer != null) {
+        pointersPoolSize.decrementAndGet();
+      }
+    }
+
+    if (pointer == null) {
       pointer = allocator.allocate(pageSize, -1);
     }
 
@@ -169,6 +229,11 @@ public final class OByteBufferPool implements OByteBufferPoolMXBean {
       pointerMapping.remove(pointer);
     }
 
+    if (threadCache != null) {
+      releaseToThreadCache(pointer);
+      return;
+    }
+
     long poolSize = pointersPoolSize.incrementAndGet();
     if (poolSize > this.poolSize) {
       pointersPoolSize.decrementAndGet();
@@ -183,7 +248,220 @@ public final class OByteBufferPool implements OByteBufferPoolMXBean {
    */
   @Override
   public final int getPoolSize() {
-    return pointersPoolSize.get();
+    int size = pointersPoolSize.get();
+    for (ThreadCache cache : threadCaches) {
+      size += cache.size - cache.reserved;
+    }
+
+    return size;
+  }
+
+  /**
+   * @inheritDoc
+   */
+  @Override
+  public int getSharedPoolSize() {
+    int size = pointersPoolSize.get();
+    for (ThreadCache cache : threadCaches) {
+      size -= cache.reserved;
+    }
+
+    return size;
+  }
+
+  /**
+   * @inheritDoc
+   */
+  @Override
+  public int[] getThreadCacheSizes() {
+    return threadCaches.stream().mapToInt(cache -> cache.size).toArray();
+  }
+
+  /**
+   * @inheritDoc
+   */
+  @Override
+  public long[] getThreadCacheRefills() {
+    return threadCaches.stream().mapToLong(cache -> cache.refills).toArray();
+  }
+
+  /**
+   * @inheritDoc
+   */
+  @Override
+  public long[] getThreadCacheReturns() {
+    return threadCaches.stream().mapToLong(cache -> cache.returns).toArray();
+  }
+
+  private OPointer acquireFromThreadCache() {
+    final ThreadCache cache = getThreadCache();
+
+    if (cache.size == 0) {
+      final OPointer[] batch = batchesPool.poll();
+      if (batch == null) {
+        return null;
+      }
+
+      // pages of the batch are moved into the space reserved by the cache, the space of the batch is not needed any more
+      if (cache.reserved > 0) {
+        pointersPoolSize.addAndGet(-batch.length);
+      } else {
+        cache.reserved = batch.length;
+      }
+
+      System.arraycopy(batch, 0, cache.pointers, 0, batch.length);
+      cache.size = batch.length;
+      cache.refills++;
+    }
+
+    final int size = cache.size - 1;
+    final OPointer pointer = cache.pointers[size];
+
+    cache.pointers[size] = null;
+    cache.size = size;
+
+    // the space of the single batch is kept to avoid reservation on every release
+    if (size == 0 && cache.reserved > batchSize) {
+      pointersPoolSize.addAndGet(batchSize - cache.reserved);
+      cache.reserved = batchSize;
+    }
+
+    return pointer;
+  }
+
+  private void releaseToThreadCache(OPointer pointer) {
+    final ThreadCache cache = getThreadCache();
+
+    if (cache.size == cache.pointers.length) {
+      // the oldest pages are returned, the most recently used ones are still warm in CPU caches
+      final OPointer[] batch = Arrays.copyOfRange(cache.pointers, 0, batchSize);
+
+      System.arraycopy(cache.pointers, batchSize, cache.pointers, 0, cache.size - batchSize);
+      Arrays.fill(cache.pointers, cache.size - batchSize, cache.size, null);
+
+      cache.size -= batchSize;
+      cache.returns++;
+
+      releaseBatch(batch);
+    } else if (cache.size == cache.reserved && !reserve(batchSize)) {
+      // pool is full
+      allocator.deallocate(pointer);
+      return;
+    }
+
+    if (cache.size == cache.reserved) {
+      cache.reserved += batchSize;
+    }
+
+    cache.pointers[cache.size] = pointer;
+    cache.size++;
+  }
+
+  private void releaseBatch(OPointer[] batch) {
+    if (reserve(batch.length)) {
+      batchesPool.add(batch);
+    } else {
+      for (OPointer pointer : batch) {
+        allocator.deallocate(pointer);
+      }
+    }
+  }
+
+  /**
+   * Reserves space for the pages in the pool. If the pool is full, caches of the dead threads are freed before the second
+   * attempt.
+   *
+   * @return <code>false</code> if the pool is full
+   */
+  private boolean reserve(int pages) {
+    freeCollectedThreadCaches();
+
+    if (pointersPoolSize.addAndGet(pages) <= this.poolSize) {
+      return true;
+    }
+
+    pointersPoolSize.addAndGet(-pages);
+    if (!freeDeadThreadCaches()) {
+      return false;
+    }
+
+    if (pointersPoolSize.addAndGet(pages) <= this.poolSize) {
+      return true;
+    }
+
+    pointersPoolSize.addAndGet(-pages);
+    return false;
+  }
+
+  private ThreadCache getThreadCache() {
+    final ThreadCache cache = threadCache.get();
+
+    // pages of the cache were dropped by clear(), they are freed by the owner because only owner may access them
+    if (cache.cleared) {
+      cache.cleared = false;
+      freeThreadCache(cache);
+    }
+
+    return cache;
+  }
+
+  private ThreadCache registerThreadCache() {
+    // new threads usually replace the dead ones, so pages cached by the dead threads are freed here
+    freeDeadThreadCaches();
+
+    final ThreadCache cache = new ThreadCache(Thread.currentThread(), deadThreads, 2 * batchSize);
+    threadCaches.add(cache);
+
+    return cache;
+  }
+
+  /**
+   * Frees caches of the threads which are collected by GC, it is cheap enough to be done on every batch operation.
+   */
+  private void freeCollectedThreadCaches() {
+    ThreadCache cache;
+    while ((cache = (ThreadCache) deadThreads.poll()) != null) {
+      if (threadCaches.remove(cache)) {
+        freeThreadCache(cache);
+      }
+    }
+  }
+
+  /**
+   * Frees caches of all dead threads, including the threads which are not collected by GC yet.
+   *
+   * @return <code>true</code> if at least one cache was freed
+   */
+  private boolean freeDeadThreadCaches() {
+    boolean freed = false;
+
+    for (ThreadCache cache : threadCaches) {
+      final Thread owner = cache.get();
+
+      // termination of the thread happens before isAlive() returns false, so the state of the cache is visible here
+      if ((owner == null || !owner.isAlive()) && threadCaches.remove(cache)) {
+        freeThreadCache(cache);
+        freed = true;
+      }
+    }
+
+    return freed;
+  }
+
+  /**
+   * Frees pages of the cache and space reserved by it. Should be called either by the owner of the cache or once the owner is
+   * dead.
+   */
+  private void freeThreadCache(ThreadCache cache) {
+    for (int i = 0; i < cache.size; i++) {
+      allocator.deallocate(cache.pointers[i]);
+      cache.pointers[i] = null;
+    }
+
+    pointersPoolSize.addAndGet(-cache.reserved);
+
+    cache.size = 0;
+    cache.reserved = 0;
   }
 
   /**
@@ -204,18 +482,41 @@ public final class OByteBufferPool implements OByteBufferPoolMXBean {
   }
 
   /**
-   * Clears pool and dealocates memory.
+   * Clears pool and dealocates memory. Pages cached by the other live threads can not be freed by the current thread, they are
+   * freed by their owners on the next access to the pool or once the owners are dead.
    */
   public void clear() {
-    for (OPointer pointer : pointersPool) {
+    OPointer pointer;
+    while ((pointer = pointersPool.poll()) != null) {
+      pointersPoolSize.decrementAndGet();
       allocator.deallocate(pointer);
     }
 
-    pointersPool.clear();
-    pointersPoolSize.set(0);
+    OPointer[] batch;
+    while ((batch = batchesPool.poll()) != null) {
+      pointersPoolSize.addAndGet(-batch.length);
 
-    for (OPointer pointer : pointerMapping.keySet()) {
-      allocator.deallocate(pointer);
+      for (OPointer batchPointer : batch) {
+        allocator.deallocate(batchPointer);
+      }
+    }
+
+    if (threadCache != null) {
+      freeCollectedThreadCaches();
+      freeDeadThreadCaches();
+
+      final Thread currentThread = Thread.currentThread();
+      for (ThreadCache cache : threadCaches) {
+        if (cache.get() == currentThread) {
+          freeThreadCache(cache);
+        } else {
+          cache.cleared = true;
+        }
+      }
+    }
+
+    for (OPointer trackedPointer : pointerMapping.keySet()) {
+      allocator.deallocate(trackedPointer);
     }
 
     pointerMapping.clear();
@@ -232,6 +533,33 @@ public final class OByteBufferPool implements OByteBufferPoolMXBean {
     }
   }
 
+  /**
+   * Pages cached by a single thread, referent of the cache is the owner thread. Fields are changed only by the owner thread, other
+   * threads read them only to gather statistics or once the owner is dead.
+   */
+  private static final class ThreadCache extends WeakReference<Thread> {
+    private final OPointer[] pointers;
+
+    private int  size;
+    private long refills;
+    private long returns;
+
+    /**
+     * Space reserved by the cache in the pool, it is never less than the amount of cached pages.
+     */
+    private int reserved;
+
+    /**
+     * Set by {@link #clear()} if the cache should be freed by its owner.
+     */
+    private volatile boolean cleared;
+
+    ThreadCache(Thread owner, ReferenceQueue<Thread> deadThreads, int capacity) {
+      super(owner, deadThreads);
+      this.pointers = new OPointer[capacity];
+    }
+  }
+
   private PointerTracker generatePointer() {
     return new PointerTracker(new Exception());
   }
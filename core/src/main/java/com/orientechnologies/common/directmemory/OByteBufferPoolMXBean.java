@@ -28,4 +28,24 @@ public interface OByteBufferPoolMXBean {
    * @return Current size of the memory pool
    */
   int getPoolSize();
+
+  /**
+   * @return Current size of the memory pool which is shared between all threads
+   */
+  int getSharedPoolSize();
+
+  /**
+   * @return Amount of pages cached by each of the thread local caches
+   */
+  int[] getThreadCacheSizes();
+
+  /**
+   * @return Amount of batches of pages taken from the shared pool by each of the thread local caches
+   */
+  long[] getThreadCacheRefills();
+
+  /**
+   * @return Amount of batches of pages returned to the shared pool by each of the thread local caches
+   */
+  long[] getThreadCacheReturns();
 }
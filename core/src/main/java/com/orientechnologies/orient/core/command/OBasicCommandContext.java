@@ -43,6 +43,10 @@ public class OBasicCommandContext implements OCommandContext {
   public static final String TIMEOUT_MS            = "TIMEOUT_MS";
   public static final String TIMEOUT_STRATEGY      = "TIMEOUT_STARTEGY";
   public static final String INVALID_COMPARE_COUNT = "INVALID_COMPARE_COUNT";
+  /**
+   * Set to true in the context of the statements executed by query(), functions which write to the database refuse to run there
+   */
+  public static final String IDEMPOTENT            = "IDEMPOTENT";
 
   protected ODatabase database;
   protected Object[]  args;
@@ -24,6 +24,7 @@ import com.orientechnologies.common.exception.OException;
 import com.orientechnologies.common.log.OLogManager;
 import com.orientechnologies.orient.core.compression.impl.OGZIPCompression;
 import com.orientechnologies.orient.core.compression.impl.OHighZIPCompression;
+import com.orientechnologies.orient.core.compression.impl.OLZ4Compression;
 import com.orientechnologies.orient.core.compression.impl.OLowZIPCompression;
 import com.orientechnologies.orient.core.compression.impl.ONothingCompression;
 import com.orientechnologies.orient.core.exception.OSecurityException;
@@ -51,6 +52,7 @@ public class OCompressionFactory {
     register(new OHighZIPCompression());
     register(new OLowZIPCompression());
     register(new OGZIPCompression());
+    register(new OLZ4Compression());
     register(new ONothingCompression());
   }
 
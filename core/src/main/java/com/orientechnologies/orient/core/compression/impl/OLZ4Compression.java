@@ -0,0 +1,320 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.orient.core.compression.impl;
+
+/**
+ * Pure Java implementation of the LZ4 block format. It trades compression ratio for speed, so it is suitable for compression of
+ * the pages on the write path of the storage.
+ * <p>
+ * Content compressed by {@link #compress(byte[], int, int)} is prefixed by its uncompressed length, static methods work with raw
+ * LZ4 blocks and are used when the length of the uncompressed content is known to the caller.
+ */
+public class OLZ4Compression extends OAbstractCompression {
+  public static final OLZ4Compression INSTANCE = new OLZ4Compression();
+  public static final String          NAME     = "lz4";
+
+  private static final int MIN_MATCH     = 4;
+  private static final int LAST_LITERALS = 5;
+  private static final int MF_LIMIT      = 12;
+  private static final int MIN_LENGTH    = MF_LIMIT + 1;
+  private static final int MAX_DISTANCE  = (1 << 16) - 1;
+  private static final int SKIP_STRENGTH = 6;
+
+  private static final int ML_BITS = 4;
+  private static final int ML_MASK = (1 << ML_BITS) - 1;
+  private static final int RUN_MASK = ML_MASK;
+
+  private static final int HASH_LOG        = 12;
+  private static final int HASH_TABLE_SIZE = 1 << HASH_LOG;
+
+  @Override
+  public byte[] compress(final byte[] content, final int offset, final int length) {
+    final byte[] buffer = new byte[4 + maxCompressedLength(length)];
+    buffer[0] = (byte) (length >>> 24);
+    buffer[1] = (byte) (length >>> 16);
+    buffer[2] = (byte) (length >>> 8);
+    buffer[3] = (byte) length;
+
+    final int compressedLength = compress(content, offset, length, buffer, 4);
+
+    final byte[] result = new byte[4 + compressedLength];
+    System.arraycopy(buffer, 0, result, 0, result.length);
+    return result;
+  }
+
+  @Override
+  public byte[] uncompress(final byte[] content, final int offset, final int length) {
+    final int uncompressedLength =
+        ((content[offset] & 0xFF) << 24) | ((content[offset + 1] & 0xFF) << 16) | ((content[offset + 2] & 0xFF) << 8) | (
+            content[offset + 3] & 0xFF);
+
+    final byte[] result = new byte[uncompressedLength];
+    final int decompressed = decompress(content, offset + 4, length - 4, result, 0, uncompressedLength);
+    if (decompressed != uncompressedLength) {
+      throw new IllegalArgumentException("Malformed LZ4 content, " + decompressed + " bytes are decompressed instead of expected "
+          + uncompressedLength + " bytes");
+    }
+
+    return result;
+  }
+
+  @Override
+  public String name() {
+    return NAME;
+  }
+
+  /**
+   * @return maximum length of LZ4 block which may be produced from the content of the given length
+   */
+  public static int maxCompressedLength(final int length) {
+    return length + length / 255 + 16;
+  }
+
+  /**
+   * Compresses content into the raw LZ4 block.
+   *
+   * @param dest       buffer for the block, it should have at least {@link #maxCompressedLength(int)} bytes after
+   *                   <code>destOffset</code>
+   * @param destOffset offset of the block inside of <code>dest</code>
+   *
+   * @return length of the block
+   */
+  public static int compress(final byte[] src, final int srcOffset, final int srcLength, final byte[] dest, final int destOffset) {
+    final int srcEnd = srcOffset + srcLength;
+    final int matchLimit = srcEnd - LAST_LITERALS;
+    final int mfLimit = srcEnd - MF_LIMIT;
+
+    int dOff = destOffset;
+    int anchor = srcOffset;
+
+    if (srcLength >= MIN_LENGTH) {
+      // positions are stored relatively to the start of the content, so zero filled table points to the first byte
+      final int[] hashTable = new int[HASH_TABLE_SIZE];
+
+      int sOff = srcOffset + 1;
+
+      main:
+      while (true) {
+        int forwardOff = sOff;
+        int ref;
+        int step = 1;
+        int searchMatchNb = 1 << SKIP_STRENGTH;
+
+        do {
+          sOff = forwardOff;
+          forwardOff += step;
+          step = searchMatchNb++ >>> SKIP_STRENGTH;
+
+          if (forwardOff > mfLimit) {
+            break main;
+          }
+
+          final int hash = hash(readInt(src, sOff));
+          ref = srcOffset + hashTable[hash];
+          hashTable[hash] = sOff - srcOffset;
+        } while (sOff - ref > MAX_DISTANCE || readInt(src, ref) != readInt(src, sOff));
+
+        while (sOff > anchor && ref > srcOffset && src[sOff - 1] == src[ref - 1]) {
+          sOff--;
+          ref--;
+        }
+
+        final int literalLength = sOff - anchor;
+        int tokenOff = dOff++;
+
+        if (literalLength >= RUN_MASK) {
+          dest[tokenOff] = (byte) (RUN_MASK << ML_BITS);
+          dOff = writeLength(literalLength - RUN_MASK, dest, dOff);
+        } else {
+          dest[tokenOff] = (byte) (literalLength << ML_BITS);
+        }
+
+        System.arraycopy(src, anchor, dest, dOff, literalLength);
+        dOff += literalLength;
+
+        while (true) {
+          final int distance = sOff - ref;
+          dest[dOff++] = (byte) distance;
+          dest[dOff++] = (byte) (distance >>> 8);
+
+          sOff += MIN_MATCH;
+          ref += MIN_MATCH;
+
+          int matchLength = 0;
+          while (sOff + matchLength < matchLimit && src[sOff + matchLength] == src[ref + matchLength]) {
+            matchLength++;
+          }
+          sOff += matchLength;
+
+          if (matchLength >= ML_MASK) {
+            dest[tokenOff] |= ML_MASK;
+            dOff = writeLength(matchLength - ML_MASK, dest, dOff);
+          } else {
+            dest[tokenOff] |= matchLength;
+          }
+
+          anchor = sOff;
+
+          if (sOff > mfLimit) {
+            break main;
+          }
+
+          hashTable[hash(readInt(src, sOff - 2))] = sOff - 2 - srcOffset;
+
+          final int hash = hash(readInt(src, sOff));
+          ref = srcOffset + hashTable[hash];
+          hashTable[hash] = sOff - srcOffset;
+
+          if (sOff - ref > MAX_DISTANCE || readInt(src, sOff) != readInt(src, ref)) {
+            break;
+          }
+
+          tokenOff = dOff++;
+          dest[tokenOff] = 0;
+        }
+
+        sOff = anchor + 1;
+      }
+    }
+
+    final int literalLength = srcEnd - anchor;
+    if (literalLength >= RUN_MASK) {
+      dest[dOff++] = (byte) (RUN_MASK << ML_BITS);
+      dOff = writeLength(literalLength - RUN_MASK, dest, dOff);
+    } else {
+      dest[dOff++] = (byte) (literalLength << ML_BITS);
+    }
+
+    System.arraycopy(src, anchor, dest, dOff, literalLength);
+    dOff += literalLength;
+
+    return dOff - destOffset;
+  }
+
+  /**
+   * Decompresses raw LZ4 block.
+   *
+   * @param destLength maximum amount of bytes which may be written into <code>dest</code>
+   *
+   * @return amount of decompressed bytes
+   *
+   * @throws IllegalArgumentException if the block is malformed or its content does not fit into <code>destLength</code> bytes
+   */
+  public static int decompress(final byte[] src, final int srcOffset, final int srcLength, final byte[] dest, final int destOffset,
+      final int destLength) {
+    final int srcEnd = srcOffset + srcLength;
+    final int destEnd = destOffset + destLength;
+
+    int sOff = srcOffset;
+    int dOff = destOffset;
+
+    while (sOff < srcEnd) {
+      final int token = src[sOff++] & 0xFF;
+
+      int literalLength = token >>> ML_BITS;
+      if (literalLength == RUN_MASK) {
+        int len;
+        do {
+          if (sOff >= srcEnd) {
+            throw new IllegalArgumentException("Malformed LZ4 block, literal length is truncated");
+          }
+
+          len = src[sOff++] & 0xFF;
+          literalLength += len;
+        } while (len == 0xFF);
+      }
+
+      if (literalLength > srcEnd - sOff || literalLength > destEnd - dOff) {
+        throw new IllegalArgumentException("Malformed LZ4 block, literals are out of bounds");
+      }
+
+      System.arraycopy(src, sOff, dest, dOff, literalLength);
+      sOff += literalLength;
+      dOff += literalLength;
+
+      if (sOff == srcEnd) {
+        break;
+      }
+
+      if (srcEnd - sOff < 2) {
+        throw new IllegalArgumentException("Malformed LZ4 block, match offset is truncated");
+      }
+
+      final int distance = (src[sOff] & 0xFF) | ((src[sOff + 1] & 0xFF) << 8);
+      sOff += 2;
+
+      int ref = dOff - distance;
+      if (distance == 0 || ref < destOffset) {
+        throw new IllegalArgumentException("Malformed LZ4 block, match offset is out of bounds");
+      }
+
+      int matchLength = token & ML_MASK;
+      if (matchLength == ML_MASK) {
+        int len;
+        do {
+          if (sOff >= srcEnd) {
+            throw new IllegalArgumentException("Malformed LZ4 block, match length is truncated");
+          }
+
+          len = src[sOff++] & 0xFF;
+          matchLength += len;
+        } while (len == 0xFF);
+      }
+      matchLength += MIN_MATCH;
+
+      if (matchLength > destEnd - dOff) {
+        throw new IllegalArgumentException("Malformed LZ4 block, match is out of bounds");
+      }
+
+      if (distance >= matchLength) {
+        System.arraycopy(dest, ref, dest, dOff, matchLength);
+        dOff += matchLength;
+      } else {
+        // overlapped match repeats the last bytes
+        final int matchEnd = dOff + matchLength;
+        while (dOff < matchEnd) {
+          dest[dOff++] = dest[ref++];
+        }
+      }
+    }
+
+    return dOff - destOffset;
+  }
+
+  private static int writeLength(int length, final byte[] dest, int dOff) {
+    while (length >= 0xFF) {
+      dest[dOff++] = (byte) 0xFF;
+      length -= 0xFF;
+    }
+
+    dest[dOff++] = (byte) length;
+    return dOff;
+  }
+
+  private static int readInt(final byte[] buffer, final int offset) {
+    return (buffer[offset] & 0xFF) | ((buffer[offset + 1] & 0xFF) << 8) | ((buffer[offset + 2] & 0xFF) << 16) | (
+        (buffer[offset + 3] & 0xFF) << 24);
+  }
+
+  private static int hash(final int value) {
+    return (value * -1640531535) >>> (32 - HASH_LOG);
+  }
+}
@@ -90,6 +90,12 @@ public enum OGlobalConfiguration {// ENVIRONMENT
   DIRECT_MEMORY_POOL_LIMIT("memory.pool.limit",
       "Limit of the pages cached inside of direct memory pool to avoid frequent reallocation of memory in OS", Integer.class, 256),
 
+  DIRECT_MEMORY_POOL_THREAD_CACHE("memory.pool.threadCache",
+      "Amount of the pages which are passed between the thread local caches and the shared direct memory pool by a single batch. "
+          + "Each thread caches up to twice this amount of pages, which reduces contention on the shared pool. Cached pages are counted "
+          + "against memory.pool.limit. 0 disables thread local caches",
+      Integer.class, 16),
+
   DIRECT_MEMORY_TRACK_MODE("memory.directMemory.trackMode",
       "Activates the direct memory pool [leak detector](Leak-Detector.md). This detector causes a large overhead and should be used for debugging "
           + "purposes only. It's also a good idea to pass the "
@@ -149,6 +155,14 @@ public enum OGlobalConfiguration {// ENVIRONMENT
   DISK_WRITE_CACHE_PAGE_FLUSH_INTERVAL("storage.diskCache.writeCachePageFlushInterval",
       "Interval between flushing of pages from write cache (in ms)", Integer.class, 25),
 
+  DISK_CACHE_CHECKPOINT_LAG("storage.diskCache.checkpointLag",
+      "Amount of WAL segments which may contain changes not flushed to the data files. Background flush of the pages with the "
+          + "oldest changes is paced to keep the amount of WAL which is replayed after a crash within this limit", Integer.class, 2),
+
+  DISK_CACHE_FLUSH_BANDWIDTH("storage.diskCache.flushBandwidth",
+      "Maximum rate of background flush of the pages with the oldest changes (in megabytes per second, 0 means no limit)",
+      Integer.class, 0),
+
   DISK_WRITE_CACHE_FLUSH_WRITE_INACTIVITY_INTERVAL("storage.diskCache.writeCacheFlushInactivityInterval",
       "Interval between 2 writes to the disk cache,"
           + " if writes are done with an interval more than provided, all files will be fsynced before the next write,"
@@ -205,6 +219,12 @@ public enum OGlobalConfiguration {// ENVIRONMENT
   STORAGE_ENCRYPTION_KEY("storage.encryptionKey", "Contains the storage encryption key. This setting is hidden", String.class, null,
       false, true),
 
+  STORAGE_PAGE_ENCRYPTION("storage.pageEncryption",
+      "Encrypt the pages of the data files and of the write ahead log by AES/CTR with the key from storage.encryptionKey, "
+          + "instead of encryption of the content of every record. Setting is applied only when the storage is created. "
+          + "Requires storage.useWAL, can not be used together with file.pageCompression.enabled",
+      Boolean.class, false),
+
   STORAGE_MAKE_FULL_CHECKPOINT_AFTER_CREATE("storage.makeFullCheckpointAfterCreate",
       "Indicates whether a full checkpoint should be performed, if storage was created", Boolean.class, false),
 
@@ -279,6 +299,14 @@ public enum OGlobalConfiguration {// ENVIRONMENT
 
   WAL_COMMIT_TIMEOUT("storage.wal.commitTimeout", "Maximum interval between WAL commits (in ms.)", Integer.class, 1000),
 
+  WAL_SYNC_ON_COMMIT("storage.wal.syncOnCommit", "Indicates whether each transaction commit should wait till its changes are "
+      + "written and synced to the WAL. Concurrent commits share the same fsync (group commit). Disabled by default, so commits "
+      + "are made durable by the periodic WAL flush only. Has no effect if storage.callFsync is false", Boolean.class, false),
+
+  WAL_GROUP_COMMIT_MAX_DELAY("storage.wal.groupCommitMaxDelay", "Maximum interval (in microseconds) a group commit waits for "
+      + "concurrent commits before the WAL fsync. The actual interval is adapted to fsync latency and to the rate of commits",
+      Integer.class, 2000),
+
   WAL_SHUTDOWN_TIMEOUT("storage.wal.shutdownTimeout", "Maximum wait interval between events, when the background flush thread"
       + "receives a shutdown command and when the background flush will be stopped (in ms.)", Integer.class, 10000),
 
@@ -292,6 +320,11 @@ public enum OGlobalConfiguration {// ENVIRONMENT
   WAL_RESTORE_BATCH_SIZE("storage.wal.restore.batchSize",
       "Amount of WAL records, which are read at once in a single batch during a restore procedure", Integer.class, 1000),
 
+  WAL_RESTORE_THREADS("storage.wal.restore.threads",
+      "Number of threads which apply changes of pages during a restore procedure. Changes of the same page are always applied by the "
+          + "same thread in the order of the log, 1 or less restores data in the single thread", Integer.class,
+      Runtime.getRuntime().availableProcessors()),
+
   @Deprecated WAL_READ_CACHE_SIZE("storage.wal.readCacheSize", "Size of WAL read cache in amount of pages", Integer.class, 1000),
 
   WAL_FUZZY_CHECKPOINT_SHUTDOWN_TIMEOUT("storage.wal.fuzzyCheckpointShutdownWait",
@@ -307,6 +340,10 @@ public enum OGlobalConfiguration {// ENVIRONMENT
   DISK_CACHE_PAGE_SIZE("storage.diskCache.pageSize", "Size of page of disk buffer (in kilobytes). !!! NEVER CHANGE THIS VALUE !!!",
       Integer.class, 64),
 
+  DISK_CACHE_SCAN_PERCENT("storage.diskCache.scanPercent",
+      "Percent of disk cache reserved to the pages loaded by full scans. These pages are evicted first and do not push out of the "
+          + "cache the pages used by the rest of the workload (Use 0 to cache them as all other pages)", Integer.class, 2),
+
   DISK_CACHE_PRINT_CACHE_STATISTICS("storage.diskCache.printCacheStatistics",
       "Print information about write cache performance metrics", Boolean.class, false),
 
@@ -443,6 +480,18 @@ public enum OGlobalConfiguration {// ENVIRONMENT
 
   INDEX_CURSOR_PREFETCH_SIZE("index.cursor.prefetchSize", "Default prefetch size of index cursor", Integer.class, 10000),
 
+  INDEX_BULK_LOAD("index.bulkLoad",
+      "Build automatic indexes from keys extracted in parallel and sorted externally during index creation and rebuild. Unique and dictionary indexes are written bottom-up in fully packed pages",
+      Boolean.class, true),
+
+  INDEX_BULK_LOAD_BUFFER_SIZE("index.bulkLoadBufferSize",
+      "Maximum number of index entries kept in memory during bulk load of index. Beyond this threshold sorted runs are written to temporary files and merged at the end",
+      Integer.class, 1000000),
+
+  INDEX_BLOOM_FILTER_BITS_PER_KEY("index.bloomFilter.bitsPerKey",
+      "Amount of bits per key in Bloom filters of indexes created with 'bloomFilter' metadata property. More bits decrease the rate of false positive checks which lead to look up of absent keys in index pages",
+      Integer.class, 10),
+
   // SBTREE
   SBTREE_MAX_DEPTH("sbtree.maxDepth",
       "Maximum depth of sbtree, which will be traversed during key look up until it will be treated as broken (64 by default)",
@@ -492,6 +541,24 @@ public enum OGlobalConfiguration {// ENVIRONMENT
 
   FILE_DELETE_RETRY("file.deleteRetry", "Number of retries to delete a locked file", Integer.class, 50),
 
+  FILE_MMAP_ENABLED("file.mmap.enabled",
+      "Read the pages of the data files listed in file.mmap.extensions through memory mapping, instead of a system call for each page. Suitable for read-mostly databases on 64 bit platforms",
+      Boolean.class, false),
+
+  FILE_MMAP_EXTENSIONS("file.mmap.extensions",
+      "Comma separated list of the extensions of the files read through memory mapping when file.mmap.enabled is true",
+      String.class, ".pcl,.cpm,.sbt,.cbt,.nbt"),
+
+  FILE_PAGE_COMPRESSION_ENABLED("file.pageCompression.enabled",
+      "Store the pages of the data files listed in file.pageCompression.extensions compressed by LZ4 algorithm. "
+          + "Setting affects only files created after it is changed, compressed files are never read through memory mapping. "
+          + "Pages of storages with storage.pageEncryption are never compressed",
+      Boolean.class, false),
+
+  FILE_PAGE_COMPRESSION_EXTENSIONS("file.pageCompression.extensions",
+      "Comma separated list of the extensions of the files which pages are stored compressed when file.pageCompression.enabled is true",
+      String.class, ".pcl,.sbt,.cbt,.nbt,.sbc"),
+
   // SECURITY
   SECURITY_USER_PASSWORD_SALT_ITERATIONS("security.userPasswordSaltIterations",
       "Number of iterations to generate the salt or user password. Changing this setting does not affect stored passwords",
@@ -700,10 +767,21 @@ public enum OGlobalConfiguration {// ENVIRONMENT
       "Size of the queue that holds results on parallel execution. The queue is blocking, so in case the queue is full, the query threads will be in a wait state",
       Integer.class, 20000),
 
+  QUERY_PARALLEL_TRAVERSE_THRESHOLD("query.parallelTraverseThreshold",
+      "Minimum number of records at the same depth of a breadth-first TRAVERSE or of a MATCH pattern with while/maxDepth to expand them concurrently, one thread per core. TRAVERSE expands the level in slices of this size. (Use 0 to disable)",
+      Integer.class, 2000),
+
   QUERY_SCAN_PREFETCH_PAGES("query.scanPrefetchPages",
       "Pages to prefetch during scan. Setting this value higher makes scans faster, because it reduces the number of I/O operations, though it consumes more memory. (Use 0 to disable)",
       Integer.class, 20),
 
+  QUERY_SCAN_ASYNC_PREFETCH("query.scanAsyncPrefetch",
+      "Load in background the pages that follow the ones read by cluster scans and index range scans, so that scans do not wait for each page to be read from disk. query.scanPrefetchPages is the number of pages read ahead. Used only by the disk cache based on CHM (storage.useCHMCache)",
+      Boolean.class, true),
+
+  QUERY_SCAN_PREFETCH_THREADS("query.scanPrefetchThreads", "Number of threads which load pages in background for scans",
+      Integer.class, 4),
+
   QUERY_SCAN_BATCH_SIZE("query.scanBatchSize",
       "Scan clusters in blocks of records. This setting reduces the lock time on the cluster during scans. A high value mean a faster execution, but also a lower concurrency level. Set to 0 to disable batch scanning. Disabling batch scanning is suggested for read-only databases only",
       Long.class, 1000),
@@ -715,6 +793,26 @@ public enum OGlobalConfiguration {// ENVIRONMENT
   QUERY_LIMIT_THRESHOLD_TIP("query.limitThresholdTip",
       "If the total number of returned records exceeds this value, then a warning is given. (Use 0 to disable)", Long.class, 10000),
 
+  QUERY_ORDER_BY_MAX_IN_MEMORY("query.orderByMaxInMemoryRecords",
+      "Maximum number of records that an ORDER BY without LIMIT keeps in memory. Beyond this threshold sorted runs are written to temporary files and merged at the end. The limit counts records regardless of their size, lower it for queries that return large records. (Use 0 to disable)",
+      Integer.class, 500000),
+
+  QUERY_HASH_JOIN_MINIMUM_RECORDS("query.hashJoinMinimumRecords",
+      "Minimum number of records on both sides of a correlated LET subquery (eg. LET $a = (SELECT FROM Foo WHERE bar = $parent.$current.baz)) to execute it once as a hash join, instead of executing it again for each record",
+      Long.class, 10000),
+
+  QUERY_HASH_JOIN_MAX_IN_MEMORY("query.hashJoinMaxInMemoryRecords",
+      "Maximum number of records of the build side of a hash join that are kept in memory. Beyond this threshold both sides of the join are partitioned to temporary files and joined one partition at a time",
+      Integer.class, 500000),
+
+  QUERY_DISTINCT_OFF_HEAP_THRESHOLD("query.distinctOffHeapThreshold",
+      "Number of distinct projections that a DISTINCT keeps on the heap. Beyond this threshold the projections already returned are tracked by fingerprint in direct memory",
+      Integer.class, 10000),
+
+  QUERY_DISTINCT_MAX_MEMORY("query.distinctMaxMemory",
+      "Maximum amount of direct memory (in bytes) used by a DISTINCT to store the projections already returned. Beyond this limit the projections are written to a temporary file and only their fingerprints are kept in memory",
+      Long.class, 64 * 1024 * 1024),
+
   QUERY_LIVE_SUPPORT("query.live.support", "Enable/Disable the support of live query. (Use false to disable)", Boolean.class, true),
 
   STATEMENT_CACHE_SIZE("statement.cacheSize", "Number of parsed SQL statements kept in cache", Integer.class, 100),
@@ -28,6 +28,7 @@ import com.orientechnologies.orient.core.Orient;
 import com.orientechnologies.orient.core.cache.OCommandCacheHook;
 import com.orientechnologies.orient.core.cache.OLocalRecordCache;
 import com.orientechnologies.orient.core.command.OBasicCommandContext;
+import com.orientechnologies.orient.core.command.OCommandContext;
 import com.orientechnologies.orient.core.command.OCommandManager;
 import com.orientechnologies.orient.core.command.OScriptExecutor;
 import com.orientechnologies.orient.core.config.OGlobalConfiguration;
@@ -540,7 +541,7 @@ public class ODatabaseDocumentEmbedded extends ODatabaseDocumentAbstract impleme
     if (!statement.isIdempotent()) {
       throw new OCommandExecutionException("Cannot execute query on non idempotent statement: " + query);
     }
-    OResultSet original = statement.execute(this, args, true);
+    OResultSet original = statement.execute(this, args, createQueryContext(), true);
     OLocalResultSetLifecycleDecorator result = new OLocalResultSetLifecycleDecorator(original);
     this.queryStarted(result.getQueryId(), result);
     result.addLifecycleListener(this);
@@ -556,13 +557,23 @@ public class ODatabaseDocumentEmbedded extends ODatabaseDocumentAbstract impleme
     if (!statement.isIdempotent()) {
       throw new OCommandExecutionException("Cannot execute query on non idempotent statement: " + query);
     }
-    OResultSet original = statement.execute(this, args, true);
+    OResultSet original = statement.execute(this, args, createQueryContext(), true);
     OLocalResultSetLifecycleDecorator result = new OLocalResultSetLifecycleDecorator(original);
     this.queryStarted(result.getQueryId(), result);
     result.addLifecycleListener(this);
     return result;
   }
 
+  /**
+   * @return parent context of the statements executed by query(), it marks them as idempotent for the functions they call
+   */
+  private OCommandContext createQueryContext() {
+    OBasicCommandContext ctx = new OBasicCommandContext();
+    ctx.setDatabase(this);
+    ctx.setVariable(OBasicCommandContext.IDEMPOTENT, true);
+    return ctx;
+  }
+
   @Override
   public OResultSet command(String query, Object[] args) {
     checkOpenness();
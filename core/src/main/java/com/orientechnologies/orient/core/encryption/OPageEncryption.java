@@ -0,0 +1,245 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.orient.core.encryption;
+
+import com.orientechnologies.common.exception.OException;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.exception.OInvalidStorageEncryptionKeyException;
+import com.orientechnologies.orient.core.exception.OSecurityException;
+
+import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+
+import static java.lang.String.format;
+
+/**
+ * Encryption of the pages of the storage files and of the write ahead log by AES in CTR mode.
+ * <p>
+ * Unlike {@link OEncryption} implementations, which encrypt content of the records, pages are encrypted in place inside of the
+ * (direct) buffers on the way to and from the disk, so encryption does not change the size of the data and does not require
+ * copies of it. Counter mode allows to use intrinsics of the CPU for AES which are available for the JVM.
+ * <p>
+ * Version of the page content consists of the segment and of the position, which are the parts of the LSN of the page. Pages
+ * are encrypted by the key which is derived from the key of the storage, from the random salt of the storage and from the
+ * segment, the initialization vector of the page consists of the identity of the page and of the position. Neither of them is
+ * hashed or truncated, so the key stream is never reused as long as the version changes on every change of the page content.
+ */
+public final class OPageEncryption {
+  public static final int SALT_SIZE = 16;
+
+  private static final String ALGORITHM_NAME = "AES";
+  private static final String TRANSFORMATION = "AES/CTR/NoPadding";
+  private static final String KEY_DERIVATION_TRANSFORMATION = "AES/ECB/NoPadding";
+
+  // Cipher.getInstance is slow, so instances are reused by the threads
+  private static final ThreadLocal<Cipher> CIPHER = ThreadLocal.withInitial(() -> getCipherInstance(TRANSFORMATION));
+  private static final ThreadLocal<Cipher> KEY_DERIVATION_CIPHER = ThreadLocal
+      .withInitial(() -> getCipherInstance(KEY_DERIVATION_TRANSFORMATION));
+
+  /**
+   * Low bits of the initialization vector which are used as a counter of the blocks inside of the page, enough for pages up to 1
+   * megabyte.
+   */
+  private static final int COUNTER_BITS = 16;
+
+  /**
+   * Maximum position of the version of the page, the rest of the initialization vector is occupied by the counter of the blocks.
+   */
+  public static final long MAX_POSITION = (1L << (Long.SIZE - COUNTER_BITS)) - 1;
+
+  private static final String MISSING_KEY_ERROR = "Storage is encrypted, but no key was found. Please configure it by passing the key as property at database create/open. The property key is: '%s'";
+  private static final String INVALID_KEY_ERROR = "Failed to initialize page encryption. Assure the key is a 128, 192 or 256 bits long BASE64 value";
+  private static final String WRONG_KEY_ERROR   = "Key does not match the key which was used to encrypt the storage";
+
+  private final SecretKeySpec key;
+  private final int           keyLength;
+
+  private final long saltHigh;
+  private final long saltLow;
+
+  /**
+   * Key of the last segment used by the thread, pages are written mostly in the order of their LSNs, so the key is rarely
+   * derived.
+   */
+  private final ThreadLocal<SegmentKey> segmentKey = new ThreadLocal<>();
+
+  private static final class SegmentKey {
+    private final long          segment;
+    private final SecretKeySpec key;
+
+    private SegmentKey(final long segment, final SecretKeySpec key) {
+      this.segment = segment;
+      this.key = key;
+    }
+  }
+
+  private OPageEncryption(final SecretKeySpec key, final int keyLength, final byte[] salt) {
+    this.key = key;
+    this.keyLength = keyLength;
+
+    final ByteBuffer saltBuffer = ByteBuffer.wrap(salt);
+    this.saltHigh = saltBuffer.getLong();
+    this.saltLow = saltBuffer.getLong();
+  }
+
+  /**
+   * @param base64EncodedKey key of the storage, see {@link OGlobalConfiguration#STORAGE_ENCRYPTION_KEY}
+   * @param salt             random salt of the storage, it should be generated by {@link #generateSalt()} once the storage is
+   *                         created
+   */
+  public static OPageEncryption create(final String base64EncodedKey, final byte[] salt) {
+    if (base64EncodedKey == null) {
+      throw new OSecurityException(format(MISSING_KEY_ERROR, OGlobalConfiguration.STORAGE_ENCRYPTION_KEY.getKey()));
+    }
+
+    if (salt.length != SALT_SIZE) {
+      throw new IllegalArgumentException("Salt should be " + SALT_SIZE + " bytes long");
+    }
+
+    final byte[] keyBytes;
+    try {
+      keyBytes = Base64.getDecoder().decode(base64EncodedKey.getBytes());
+    } catch (final IllegalArgumentException e) {
+      throw OException.wrapException(new OInvalidStorageEncryptionKeyException(INVALID_KEY_ERROR), e);
+    }
+
+    if (keyBytes.length != 16 && keyBytes.length != 24 && keyBytes.length != 32) {
+      throw new OInvalidStorageEncryptionKeyException(INVALID_KEY_ERROR);
+    }
+
+    final OPageEncryption encryption = new OPageEncryption(new SecretKeySpec(keyBytes, ALGORITHM_NAME), keyBytes.length, salt);
+    // fail early if key is not accepted by the cipher
+    encryption.keyCheck();
+
+    return encryption;
+  }
+
+  public static byte[] generateSalt() {
+    final byte[] salt = new byte[SALT_SIZE];
+    new SecureRandom().nextBytes(salt);
+    return salt;
+  }
+
+  /**
+   * @return value which depends only on the key and the salt, it is stored together with the salt to detect on open of the storage
+   * that wrong key is provided
+   */
+  public byte[] keyCheck() {
+    final ByteBuffer buffer = ByteBuffer.allocate(16);
+    crypt(-1, -1, 0, buffer, 0, buffer.capacity());
+    return buffer.array();
+  }
+
+  /**
+   * @throws OInvalidStorageEncryptionKeyException if the key check was calculated for the other key
+   * @see #keyCheck()
+   */
+  public void verifyKeyCheck(final byte[] keyCheck) {
+    if (!Arrays.equals(keyCheck, keyCheck())) {
+      throw new OInvalidStorageEncryptionKeyException(WRONG_KEY_ERROR);
+    }
+  }
+
+  /**
+   * Encrypts or decrypts the part of the page in place, in counter mode both operations are the same. Position and limit of the
+   * buffer are not changed.
+   *
+   * @param pageId   identity of the page, unique among all pages encrypted by the storage, negative values are reserved for the
+   *                 pages of the write ahead log
+   * @param segment  segment of the version of the content of the page
+   * @param position position of the version of the content of the page, from 0 to {@link #MAX_POSITION}
+   */
+  public void crypt(final long pageId, final long segment, final long position, final ByteBuffer buffer, final int offset,
+      final int length) {
+    assert position >= 0 && position <= MAX_POSITION;
+
+    final ByteBuffer iv = ByteBuffer.allocate(16);
+    iv.putLong(pageId);
+    iv.putLong(position << COUNTER_BITS);
+
+    final ByteBuffer input = buffer.duplicate();
+    input.limit(offset + length);
+    input.position(offset);
+
+    final ByteBuffer output = buffer.duplicate();
+    output.limit(offset + length);
+    output.position(offset);
+
+    try {
+      final Cipher cipher = CIPHER.get();
+      cipher.init(Cipher.ENCRYPT_MODE, getSegmentKey(segment), new IvParameterSpec(iv.array()));
+
+      // ciphers are copy safe, so input and output may share the same memory
+      final int processed = cipher.doFinal(input, output);
+      assert processed == length;
+    } catch (final ShortBufferException e) {
+      throw new IllegalStateException("Unexpected exception during page encryption", e);
+    } catch (final GeneralSecurityException e) {
+      throw OException.wrapException(new OInvalidStorageEncryptionKeyException(e.getMessage()), e);
+    }
+  }
+
+  private SecretKeySpec getSegmentKey(final long segment) throws GeneralSecurityException {
+    SegmentKey cached = segmentKey.get();
+    if (cached == null || cached.segment != segment) {
+      cached = new SegmentKey(segment, deriveKey(segment));
+      segmentKey.set(cached);
+    }
+
+    return cached.key;
+  }
+
+  /**
+   * Key of the segment is the encryption of the salt combined with the segment by the key of the storage, the key of the storage
+   * itself is used only to derive the keys of the segments.
+   */
+  private SecretKeySpec deriveKey(final long segment) throws GeneralSecurityException {
+    final int blocks = (keyLength + 15) / 16;
+    final ByteBuffer input = ByteBuffer.allocate(blocks * 16);
+    for (int i = 0; i < blocks; i++) {
+      input.putLong(saltHigh ^ segment);
+      input.putLong(saltLow ^ i);
+    }
+
+    final Cipher cipher = KEY_DERIVATION_CIPHER.get();
+    cipher.init(Cipher.ENCRYPT_MODE, key);
+    final byte[] derived = cipher.doFinal(input.array());
+
+    return new SecretKeySpec(derived, 0, keyLength, ALGORITHM_NAME);
+  }
+
+  private static Cipher getCipherInstance(final String transformation) {
+    try {
+      return Cipher.getInstance(transformation);
+    } catch (final NoSuchAlgorithmException | NoSuchPaddingException e) {
+      throw OException.wrapException(new OSecurityException(transformation + " not supported."), e);
+    }
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.graph.analytics;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Weakly connected components of {@link OGraphSnapshot}, directions of the links are ignored. Links are processed concurrently by
+ * the lock-free union-find: the root with the greater index is attached to the root with the lesser one by compare-and-set, so
+ * every component is identified by the least index of its vertices regardless of the order of the links.
+ */
+public class OConnectedComponents {
+  private int componentCount;
+
+  /**
+   * @return by index of the vertex the least index of the vertex of the same component
+   */
+  public int[] compute(final OGraphSnapshot graph) {
+    final OParallelRanges parallel = graph.getParallel();
+    final int vertexCount = graph.getVertexCount();
+    final int[] offsets = graph.getOffsets();
+    final int[] targets = graph.getTargets();
+
+    final AtomicIntegerArray parents = new AtomicIntegerArray(vertexCount);
+    parallel.forEach(vertexCount, (range, from, to) -> {
+      for (int vertex = from; vertex < to; vertex++) {
+        parents.set(vertex, vertex);
+      }
+    });
+
+    parallel.forEach(vertexCount, (range, from, to) -> {
+      for (int vertex = from; vertex < to; vertex++) {
+        for (int link = offsets[vertex]; link < offsets[vertex + 1]; link++) {
+          union(parents, vertex, targets[link]);
+        }
+      }
+    });
+
+    final int[] components = new int[vertexCount];
+    final int[] partialCounts = new int[parallel.getRanges(vertexCount)];
+    parallel.forEach(vertexCount, (range, from, to) -> {
+      int count = 0;
+      for (int vertex = from; vertex < to; vertex++) {
+        components[vertex] = find(parents, vertex);
+        if (components[vertex] == vertex) {
+          count++;
+        }
+      }
+      partialCounts[range] = count;
+    });
+
+    componentCount = 0;
+    for (int count : partialCounts) {
+      componentCount += count;
+    }
+    return components;
+  }
+
+  /**
+   * @return amount of components found by the last computation
+   */
+  public int getComponentCount() {
+    return componentCount;
+  }
+
+  private static void union(final AtomicIntegerArray parents, final int first, final int second) {
+    int firstRoot = find(parents, first);
+    int secondRoot = find(parents, second);
+
+    while (firstRoot != secondRoot) {
+      if (firstRoot < secondRoot) {
+        final int root = firstRoot;
+        firstRoot = secondRoot;
+        secondRoot = root;
+      }
+
+      // ATTACH ONLY A ROOT, OTHERWISE ANOTHER THREAD HAS ATTACHED IT ALREADY AND ROOTS ARE FOUND AGAIN
+      if (parents.compareAndSet(firstRoot, firstRoot, secondRoot)) {
+        return;
+      }
+      firstRoot = find(parents, firstRoot);
+      secondRoot = find(parents, secondRoot);
+    }
+  }
+
+  /**
+   * Finds the root halving the path to it, parents only decrease, so concurrent halving does not break the trees.
+   */
+  private static int find(final AtomicIntegerArray parents, int vertex) {
+    int parent = parents.get(vertex);
+    while (parent != vertex) {
+      final int grandParent = parents.get(parent);
+      if (grandParent != parent) {
+        parents.compareAndSet(vertex, parent, grandParent);
+      }
+      vertex = grandParent;
+      parent = parents.get(vertex);
+    }
+    return vertex;
+  }
+}
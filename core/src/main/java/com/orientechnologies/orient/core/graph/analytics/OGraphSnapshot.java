@@ -0,0 +1,470 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.graph.analytics;
+
+import com.orientechnologies.common.concur.ONeedRetryException;
+import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
+import com.orientechnologies.orient.core.exception.ODatabaseException;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.iterator.ORecordIteratorCluster;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.record.ODirection;
+import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.record.impl.OAdjacentVertexIterator;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/**
+ * Read only snapshot of the vertices of a class and of the links between them, used by the bulk graph algorithms of this package.
+ * <p>
+ * Vertices get dense indexes, ordered by cluster and by position inside of the cluster, and outgoing links are kept in the
+ * compressed sparse row format: targets of the links of the vertex <code>v</code> are the indexes of the vertices stored in
+ * <code>targets[offsets[v]]..targets[offsets[v + 1] - 1]</code>. So the whole graph takes 4 bytes per link and 8 bytes per vertex
+ * and algorithms iterate it without any record loading or hash lookup. Incoming links are built on demand by transposing the
+ * outgoing ones.
+ * <p>
+ * The snapshot is created by scanning the clusters of the class concurrently, every cluster is scanned on its own copy of the
+ * database. Links to the vertices which are not in the snapshot (eg. to the vertices of other classes) are ignored. Changes made
+ * after the scan are not visible to the snapshot, as well as changes of the transaction which is active during the scan.
+ */
+public class OGraphSnapshot {
+  private static final int NO_VERTEX = -1;
+
+  /**
+   * Local caches of the scanning databases are cleared after this amount of vertices, records are not needed once their links are
+   * read.
+   */
+  private static final int CACHE_CLEAR_INTERVAL = 10000;
+
+  private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+  /**
+   * Times a batch of written vertices is retried if the vertices are changed concurrently.
+   */
+  private static final int MAX_BATCH_RETRIES = 10;
+
+  private final OParallelRanges parallel;
+
+  private final int[]    clusterIds;
+  /**
+   * index of the first vertex of every cluster, the last item is amount of vertices
+   */
+  private final int[]    clusterOffsets;
+  /**
+   * positions of the vertices of every cluster in ascending order
+   */
+  private final long[][] clusterPositions;
+  /**
+   * cluster id -> index of the cluster in {@link #clusterIds}
+   */
+  private final int[]    clusterSlots;
+
+  private final int[] offsets;
+  private final int[] targets;
+
+  private int[] incomingOffsets;
+  private int[] incomingSources;
+
+  private static final class OClusterScan {
+    long[] positions = new long[1024];
+    int[]  degrees   = new int[1024];
+    int    size;
+
+    long[] links = new long[4096];
+    int    linksSize;
+  }
+
+  private OGraphSnapshot(final OParallelRanges parallel, final int[] clusterIds, final OClusterScan[] scans) {
+    this.parallel = parallel;
+    this.clusterIds = clusterIds;
+
+    int maxClusterId = 0;
+    for (int clusterId : clusterIds) {
+      maxClusterId = Math.max(maxClusterId, clusterId);
+    }
+    clusterSlots = new int[maxClusterId + 1];
+    Arrays.fill(clusterSlots, NO_VERTEX);
+
+    clusterOffsets = new int[clusterIds.length + 1];
+    clusterPositions = new long[clusterIds.length][];
+    long vertices = 0;
+    long links = 0;
+    for (int i = 0; i < clusterIds.length; i++) {
+      clusterSlots[clusterIds[i]] = i;
+      clusterOffsets[i] = (int) vertices;
+      clusterPositions[i] = Arrays.copyOf(scans[i].positions, scans[i].size);
+
+      vertices += scans[i].size;
+      links += scans[i].linksSize;
+      if (vertices > MAX_ARRAY_SIZE || links > MAX_ARRAY_SIZE) {
+        throw new ODatabaseException("Graph is too large for the snapshot, it contains more than " + MAX_ARRAY_SIZE + " vertices or links");
+      }
+    }
+    clusterOffsets[clusterIds.length] = (int) vertices;
+
+    final int vertexCount = (int) vertices;
+
+    // OFFSETS OF THE LINKS AS THEY ARE READ, INCLUDING LINKS TO THE VERTICES WHICH ARE NOT IN THE SNAPSHOT
+    final int[] scanOffsets = new int[vertexCount + 1];
+    int offset = 0;
+    for (int i = 0; i < clusterIds.length; i++) {
+      final OClusterScan scan = scans[i];
+      for (int j = 0; j < scan.size; j++) {
+        scanOffsets[clusterOffsets[i] + j] = offset;
+        offset += scan.degrees[j];
+      }
+    }
+    scanOffsets[vertexCount] = offset;
+
+    final int[] resolved = new int[offset];
+    final int[] degrees = new int[vertexCount];
+    parallel.forEach(vertexCount, (range, from, to) -> {
+      if (from == to) {
+        return;
+      }
+
+      int cluster = clusterOf(from);
+      for (int vertex = from; vertex < to; vertex++) {
+        while (vertex >= clusterOffsets[cluster + 1]) {
+          cluster++;
+        }
+
+        final long[] clusterLinks = scans[cluster].links;
+        final int clusterLinksStart = scanOffsets[clusterOffsets[cluster]];
+
+        int degree = 0;
+        for (int link = scanOffsets[vertex]; link < scanOffsets[vertex + 1]; link++) {
+          final int target = indexOf(clusterLinks[link - clusterLinksStart]);
+          resolved[link] = target;
+          if (target != NO_VERTEX) {
+            degree++;
+          }
+        }
+        degrees[vertex] = degree;
+      }
+    });
+
+    long resolvedLinks = 0;
+    for (int degree : degrees) {
+      resolvedLinks += degree;
+    }
+
+    if (resolvedLinks == offset) {
+      // ALL THE LINKS ARE BETWEEN THE VERTICES OF THE SNAPSHOT
+      offsets = scanOffsets;
+      targets = resolved;
+    } else {
+      offsets = prefixSum(degrees);
+      targets = new int[offsets[vertexCount]];
+      parallel.forEach(vertexCount, (range, from, to) -> {
+        for (int vertex = from; vertex < to; vertex++) {
+          int target = offsets[vertex];
+          for (int link = scanOffsets[vertex]; link < scanOffsets[vertex + 1]; link++) {
+            if (resolved[link] != NO_VERTEX) {
+              targets[target++] = resolved[link];
+            }
+          }
+        }
+      });
+    }
+  }
+
+  /**
+   * Creates snapshot of the graph using one thread per available processor.
+   *
+   * @param vertexClass class of the vertices, including its subclasses
+   * @param edgeLabels  classes of the edges, including their subclasses, all the edges are taken if there are no labels
+   */
+  public static OGraphSnapshot create(final ODatabaseDocumentInternal db, final String vertexClass, final String... edgeLabels) {
+    return create(db, Runtime.getRuntime().availableProcessors(), vertexClass, edgeLabels);
+  }
+
+  /**
+   * @param parallelism amount of threads used to create the snapshot and to run the algorithms on it
+   * @param vertexClass class of the vertices, including its subclasses
+   * @param edgeLabels  classes of the edges, including their subclasses, all the edges are taken if there are no labels
+   */
+  public static OGraphSnapshot create(final ODatabaseDocumentInternal db, final int parallelism, final String vertexClass,
+      final String... edgeLabels) {
+    if (db.getTransaction().isActive()) {
+      throw new IllegalStateException("Graph snapshot cannot be created inside of a transaction");
+    }
+
+    final OClass clazz = db.getMetadata().getImmutableSchemaSnapshot().getClass(vertexClass);
+    if (clazz == null || !clazz.isVertexType()) {
+      throw new IllegalArgumentException("Class '" + vertexClass + "' is not a vertex class");
+    }
+
+    final int[] clusterIds = clazz.getPolymorphicClusterIds();
+    final OClusterScan[] scans = new OClusterScan[clusterIds.length];
+
+    final OParallelRanges parallel = new OParallelRanges(parallelism);
+    parallel.forEach(db, clusterIds.length, (item, database) -> scans[item] = scan(database, clusterIds[item], edgeLabels));
+
+    return new OGraphSnapshot(parallel, clusterIds, scans);
+  }
+
+  /**
+   * Reads positions of the vertices of the cluster and identities of the vertices linked by their outgoing edges. The cluster is
+   * browsed in the ascending order of positions, so positions can be binary searched later.
+   */
+  private static OClusterScan scan(final ODatabaseDocumentInternal database, final int clusterId, final String[] edgeLabels) {
+    final OClusterScan scan = new OClusterScan();
+
+    final ORecordIteratorCluster<ORecord> iterator = new ORecordIteratorCluster<ORecord>(database, clusterId);
+    while (iterator.hasNext()) {
+      final ORecord record = iterator.next();
+      if (!(record instanceof ODocument)) {
+        continue;
+      }
+
+      if (scan.size == scan.positions.length) {
+        scan.positions = Arrays.copyOf(scan.positions, scan.size << 1);
+        scan.degrees = Arrays.copyOf(scan.degrees, scan.size << 1);
+      }
+
+      int degree = 0;
+      final OAdjacentVertexIterator neighbors = new OAdjacentVertexIterator((ODocument) record, ODirection.OUT, edgeLabels);
+      while (neighbors.hasNext()) {
+        if (scan.linksSize == scan.links.length) {
+          if (scan.linksSize >= MAX_ARRAY_SIZE) {
+            throw new ODatabaseException("Cluster " + clusterId + " contains too many links for the snapshot");
+          }
+          scan.links = Arrays.copyOf(scan.links, (int) Math.min(MAX_ARRAY_SIZE, (long) scan.linksSize << 1));
+        }
+        scan.links[scan.linksSize++] = ORecordId.pack(neighbors.next());
+        degree++;
+      }
+
+      scan.positions[scan.size] = record.getIdentity().getClusterPosition();
+      scan.degrees[scan.size] = degree;
+      scan.size++;
+
+      if (scan.size % CACHE_CLEAR_INTERVAL == 0) {
+        database.getLocalCache().clear();
+      }
+    }
+    database.getLocalCache().clear();
+
+    return scan;
+  }
+
+  public int getVertexCount() {
+    return clusterOffsets[clusterIds.length];
+  }
+
+  public long getEdgeCount() {
+    return targets.length;
+  }
+
+  /**
+   * @return index of the vertex, <code>-1</code> if the vertex is not in the snapshot
+   */
+  public int indexOf(final ORID vertex) {
+    return indexOf(vertex.getClusterId(), vertex.getClusterPosition());
+  }
+
+  public ORID getIdentity(final int vertex) {
+    final int cluster = clusterOf(vertex);
+    return new ORecordId(clusterIds[cluster], clusterPositions[cluster][vertex - clusterOffsets[cluster]]);
+  }
+
+  public int getOutDegree(final int vertex) {
+    return offsets[vertex + 1] - offsets[vertex];
+  }
+
+  public int getInDegree(final int vertex) {
+    final int[] incomingOffsets = getIncomingOffsets();
+    return incomingOffsets[vertex + 1] - incomingOffsets[vertex];
+  }
+
+  /**
+   * Writes the value calculated for every vertex of the snapshot into the property of the vertex. Clusters are written
+   * concurrently, every cluster by its own copy of the database, committing a transaction after every <code>batchSize</code>
+   * vertices. A batch which conflicts with concurrent changes of its vertices is written again. Local cache of the given database
+   * is cleared, so it does not return outdated versions of the vertices.
+   *
+   * @param values value of the property by index of the vertex, <code>null</code> removes the property
+   */
+  public void write(final ODatabaseDocumentInternal db, final String property, final IntFunction<Object> values,
+      final int batchSize) {
+    if (db.getTransaction().isActive()) {
+      throw new IllegalStateException("Graph analytics results cannot be written inside of a transaction");
+    }
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("Batch size should be positive: " + batchSize);
+    }
+
+    parallel.forEach(db, clusterIds.length, (cluster, database) -> {
+      final int size = clusterPositions[cluster].length;
+      int from = 0;
+      while (from < size) {
+        final int to = size - from > batchSize ? from + batchSize : size;
+        writeBatch(database, cluster, from, to, property, values);
+        from = to;
+      }
+    });
+
+    db.getLocalCache().clear();
+  }
+
+  /**
+   * Writes the vertices <code>[from, to)</code> of the cluster in one transaction. If the vertices are changed concurrently the
+   * transaction is retried on top of their new versions.
+   */
+  private void writeBatch(final ODatabaseDocumentInternal database, final int cluster, final int from, final int to,
+      final String property, final IntFunction<Object> values) {
+    final long[] positions = clusterPositions[cluster];
+    for (int retry = 0; ; retry++) {
+      database.begin();
+      try {
+        for (int i = from; i < to; i++) {
+          final ORecord record = database.load(new ORecordId(clusterIds[cluster], positions[i]));
+          if (record instanceof ODocument) {
+            final Object value = values.apply(clusterOffsets[cluster] + i);
+            if (value != null) {
+              ((ODocument) record).field(property, value);
+            } else {
+              ((ODocument) record).removeField(property);
+            }
+            database.save(record);
+          }
+        }
+        database.commit();
+        return;
+      } catch (ONeedRetryException e) {
+        if (retry >= MAX_BATCH_RETRIES) {
+          throw e;
+        }
+      } finally {
+        // FAILED COMMIT ROLLS BACK BY ITSELF, BUT OTHER FAILURES LEAVE THE TRANSACTION OPEN
+        if (database.getTransaction().isActive()) {
+          database.rollback();
+        }
+        // OUTDATED VERSIONS ARE NOT LOADED ON RETRY, AND RECORDS ARE NOT NEEDED ONCE THEY ARE WRITTEN
+        database.getLocalCache().clear();
+      }
+    }
+  }
+
+  OParallelRanges getParallel() {
+    return parallel;
+  }
+
+  int[] getOffsets() {
+    return offsets;
+  }
+
+  int[] getTargets() {
+    return targets;
+  }
+
+  /**
+   * @return offsets of the incoming links, sources of the incoming links of the vertex <code>v</code> are the items of {@link
+   * #getIncomingSources()} in <code>[incomingOffsets[v], incomingOffsets[v + 1])</code>
+   */
+  synchronized int[] getIncomingOffsets() {
+    if (incomingOffsets == null) {
+      transpose();
+    }
+    return incomingOffsets;
+  }
+
+  synchronized int[] getIncomingSources() {
+    if (incomingSources == null) {
+      transpose();
+    }
+    return incomingSources;
+  }
+
+  /**
+   * Builds incoming links from the outgoing ones. Sources of the incoming links of every vertex are ordered by their indexes, so
+   * the result does not depend on the order of the computation.
+   */
+  private void transpose() {
+    final int vertexCount = getVertexCount();
+
+    final int[] inDegrees = new int[vertexCount];
+    for (int target : targets) {
+      inDegrees[target]++;
+    }
+
+    final int[] inOffsets = prefixSum(inDegrees);
+    final int[] sources = new int[targets.length];
+    final int[] cursors = Arrays.copyOf(inOffsets, vertexCount);
+    for (int vertex = 0; vertex < vertexCount; vertex++) {
+      for (int link = offsets[vertex]; link < offsets[vertex + 1]; link++) {
+        sources[cursors[targets[link]]++] = vertex;
+      }
+    }
+
+    incomingOffsets = inOffsets;
+    incomingSources = sources;
+  }
+
+  private int indexOf(final int clusterId, final long clusterPosition) {
+    if (clusterId < 0 || clusterId >= clusterSlots.length) {
+      return NO_VERTEX;
+    }
+
+    final int cluster = clusterSlots[clusterId];
+    if (cluster == NO_VERTEX) {
+      return NO_VERTEX;
+    }
+
+    final int position = Arrays.binarySearch(clusterPositions[cluster], clusterPosition);
+    return position >= 0 ? clusterOffsets[cluster] + position : NO_VERTEX;
+  }
+
+  private int indexOf(final long packedVertex) {
+    final ORID vertex = ORecordId.unpack(packedVertex);
+    return indexOf(vertex.getClusterId(), vertex.getClusterPosition());
+  }
+
+  private int clusterOf(final int vertex) {
+    if (vertex < 0 || vertex >= getVertexCount()) {
+      throw new IndexOutOfBoundsException("Vertex " + vertex + " is not in the snapshot");
+    }
+
+    // THE LAST CLUSTER WHOSE FIRST VERTEX IS NOT AFTER THE GIVEN ONE, EMPTY CLUSTERS ARE SKIPPED
+    int low = 0;
+    int high = clusterIds.length - 1;
+    while (low < high) {
+      final int middle = (low + high + 1) >>> 1;
+      if (clusterOffsets[middle] <= vertex) {
+        low = middle;
+      } else {
+        high = middle - 1;
+      }
+    }
+    return low;
+  }
+
+  private static int[] prefixSum(final int[] degrees) {
+    final int[] result = new int[degrees.length + 1];
+    for (int i = 0; i < degrees.length; i++) {
+      result[i + 1] = result[i] + degrees[i];
+    }
+    return result;
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.graph.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Communities of {@link OGraphSnapshot} detected by the label propagation, directions of the links are ignored. Initially every
+ * vertex has its own label. On every iteration every vertex takes the label which is the most frequent among its neighbors, it
+ * keeps its current label if that one is among the most frequent ones, otherwise the least of them is taken. Labels are updated
+ * synchronously, so the result does not depend on the order in which vertices are processed.
+ */
+public class OLabelPropagation {
+  public static final int DEFAULT_MAX_ITERATIONS = 20;
+
+  private final int maxIterations;
+
+  private int iterations;
+
+  public OLabelPropagation() {
+    this(DEFAULT_MAX_ITERATIONS);
+  }
+
+  public OLabelPropagation(final int maxIterations) {
+    if (maxIterations < 1) {
+      throw new IllegalArgumentException("Amount of iterations should be positive: " + maxIterations);
+    }
+    this.maxIterations = maxIterations;
+  }
+
+  /**
+   * @return label by index of the vertex, the label is index of the vertex which community has spread
+   */
+  public int[] compute(final OGraphSnapshot graph) {
+    final OParallelRanges parallel = graph.getParallel();
+    final int vertexCount = graph.getVertexCount();
+    final int[] offsets = graph.getOffsets();
+    final int[] targets = graph.getTargets();
+    final int[] incomingOffsets = graph.getIncomingOffsets();
+    final int[] incomingSources = graph.getIncomingSources();
+
+    int[] labels = new int[vertexCount];
+    int[] nextLabels = new int[vertexCount];
+    for (int vertex = 0; vertex < vertexCount; vertex++) {
+      labels[vertex] = vertex;
+    }
+
+    final int[] partialChanges = new int[parallel.getRanges(vertexCount)];
+
+    iterations = 0;
+    while (iterations < maxIterations) {
+      final int[] currentLabels = labels;
+      final int[] updatedLabels = nextLabels;
+      parallel.forEach(vertexCount, (range, from, to) -> {
+        int[] neighborLabels = new int[16];
+        int changes = 0;
+        for (int vertex = from; vertex < to; vertex++) {
+          final int outDegree = offsets[vertex + 1] - offsets[vertex];
+          final int degree = outDegree + incomingOffsets[vertex + 1] - incomingOffsets[vertex];
+          if (degree > neighborLabels.length) {
+            neighborLabels = new int[Math.max(degree, neighborLabels.length << 1)];
+          }
+
+          for (int i = 0; i < outDegree; i++) {
+            neighborLabels[i] = currentLabels[targets[offsets[vertex] + i]];
+          }
+          for (int i = outDegree; i < degree; i++) {
+            neighborLabels[i] = currentLabels[incomingSources[incomingOffsets[vertex] + i - outDegree]];
+          }
+
+          final int label = mostFrequent(neighborLabels, degree, currentLabels[vertex]);
+          if (label != currentLabels[vertex]) {
+            changes++;
+          }
+          updatedLabels[vertex] = label;
+        }
+        partialChanges[range] = changes;
+      });
+
+      nextLabels = labels;
+      labels = updatedLabels;
+      iterations++;
+
+      int changes = 0;
+      for (int partialChange : partialChanges) {
+        changes += partialChange;
+      }
+      if (changes == 0) {
+        break;
+      }
+    }
+
+    return labels;
+  }
+
+  /**
+   * @return amount of iterations made by the last computation
+   */
+  public int getIterations() {
+    return iterations;
+  }
+
+  private static int mostFrequent(final int[] labels, final int size, final int currentLabel) {
+    if (size == 0) {
+      return currentLabel;
+    }
+
+    Arrays.sort(labels, 0, size);
+
+    int result = labels[0];
+    int resultFrequency = 0;
+    int currentFrequency = 0;
+    for (int start = 0; start < size; ) {
+      int end = start + 1;
+      while (end < size && labels[end] == labels[start]) {
+        end++;
+      }
+
+      final int frequency = end - start;
+      if (frequency > resultFrequency) {
+        result = labels[start];
+        resultFrequency = frequency;
+      }
+      if (labels[start] == currentLabel) {
+        currentFrequency = frequency;
+      }
+      start = end;
+    }
+
+    return currentFrequency == resultFrequency ? currentLabel : result;
+  }
+}
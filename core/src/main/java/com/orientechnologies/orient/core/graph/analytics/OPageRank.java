@@ -0,0 +1,144 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.graph.analytics;
+
+import java.util.Arrays;
+
+/**
+ * PageRank of the vertices of {@link OGraphSnapshot}. Every iteration pulls the ranks of the vertices through their incoming links,
+ * so vertices are updated concurrently without any synchronization. Rank of the vertices without outgoing links is distributed
+ * among all the vertices. Ranks sum up to 1.
+ */
+public class OPageRank {
+  public static final double DEFAULT_DAMPING_FACTOR = 0.85;
+  public static final int    DEFAULT_MAX_ITERATIONS = 20;
+  public static final double DEFAULT_TOLERANCE      = 1e-6;
+
+  private final double dampingFactor;
+  private final int    maxIterations;
+  private final double tolerance;
+
+  private int iterations;
+
+  public OPageRank() {
+    this(DEFAULT_DAMPING_FACTOR, DEFAULT_MAX_ITERATIONS, DEFAULT_TOLERANCE);
+  }
+
+  /**
+   * @param tolerance computation stops once the sum of the changes of the ranks during the iteration is below this value
+   */
+  public OPageRank(final double dampingFactor, final int maxIterations, final double tolerance) {
+    if (dampingFactor < 0 || dampingFactor > 1) {
+      throw new IllegalArgumentException("Damping factor should be in [0, 1]: " + dampingFactor);
+    }
+    if (maxIterations < 1) {
+      throw new IllegalArgumentException("Amount of iterations should be positive: " + maxIterations);
+    }
+
+    this.dampingFactor = dampingFactor;
+    this.maxIterations = maxIterations;
+    this.tolerance = tolerance;
+  }
+
+  /**
+   * @return rank by index of the vertex
+   */
+  public double[] compute(final OGraphSnapshot graph) {
+    final OParallelRanges parallel = graph.getParallel();
+    final int vertexCount = graph.getVertexCount();
+    iterations = 0;
+    if (vertexCount == 0) {
+      return new double[0];
+    }
+
+    final int[] offsets = graph.getOffsets();
+    final int[] incomingOffsets = graph.getIncomingOffsets();
+    final int[] incomingSources = graph.getIncomingSources();
+
+    double[] ranks = new double[vertexCount];
+    double[] nextRanks = new double[vertexCount];
+    // RANK OF THE VERTEX DIVIDED BY ITS OUT DEGREE, SO EVERY LINK IS FOLLOWED WITH A SINGLE READ
+    final double[] contributions = new double[vertexCount];
+    Arrays.fill(ranks, 1.0 / vertexCount);
+
+    // PARTIAL SUMS ARE REDUCED IN THE ORDER OF THE RANGES, SO THE RESULT DOES NOT DEPEND ON THE SCHEDULING OF THE THREADS
+    final double[] partialSums = new double[parallel.getRanges(vertexCount)];
+
+    while (iterations < maxIterations) {
+      final double[] currentRanks = ranks;
+      parallel.forEach(vertexCount, (range, from, to) -> {
+        double danglingRank = 0;
+        for (int vertex = from; vertex < to; vertex++) {
+          final int outDegree = offsets[vertex + 1] - offsets[vertex];
+          if (outDegree == 0) {
+            danglingRank += currentRanks[vertex];
+            contributions[vertex] = 0;
+          } else {
+            contributions[vertex] = currentRanks[vertex] / outDegree;
+          }
+        }
+        partialSums[range] = danglingRank;
+      });
+
+      final double base = (1 - dampingFactor + dampingFactor * sum(partialSums)) / vertexCount;
+
+      final double[] updatedRanks = nextRanks;
+      parallel.forEach(vertexCount, (range, from, to) -> {
+        double change = 0;
+        for (int vertex = from; vertex < to; vertex++) {
+          double rank = 0;
+          for (int link = incomingOffsets[vertex]; link < incomingOffsets[vertex + 1]; link++) {
+            rank += contributions[incomingSources[link]];
+          }
+          rank = base + dampingFactor * rank;
+
+          change += Math.abs(rank - currentRanks[vertex]);
+          updatedRanks[vertex] = rank;
+        }
+        partialSums[range] = change;
+      });
+
+      nextRanks = ranks;
+      ranks = updatedRanks;
+      iterations++;
+
+      if (sum(partialSums) < tolerance) {
+        break;
+      }
+    }
+
+    return ranks;
+  }
+
+  /**
+   * @return amount of iterations made by the last computation
+   */
+  public int getIterations() {
+    return iterations;
+  }
+
+  private static double sum(final double[] values) {
+    double result = 0;
+    for (double value : values) {
+      result += value;
+    }
+    return result;
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.graph.analytics;
+
+import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
+import com.orientechnologies.orient.core.sql.executor.ParallelWorkers;
+
+/**
+ * Runs the steps of the graph analytics on the workers of {@link ParallelWorkers} and waits for their completion, so every step is
+ * a barrier of the bulk-synchronous computation.
+ */
+final class OParallelRanges {
+  /**
+   * Ranges are smaller than the amount of items per thread, so threads which complete their ranges earlier take the rest of the
+   * work.
+   */
+  private static final int RANGES_PER_THREAD = 4;
+
+  interface ORangeTask {
+    /**
+     * Processes the items in the <code>[from, to)</code> range.
+     *
+     * @param range index of the range, ranges are ordered by their items
+     */
+    void execute(int range, int from, int to);
+  }
+
+  interface ODatabaseTask {
+    /**
+     * Processes the item using the database which is active on the current thread, the calling thread uses its own database and the
+     * other workers use copies of it.
+     */
+    void execute(int item, ODatabaseDocumentInternal database);
+  }
+
+  private final int parallelism;
+
+  OParallelRanges(final int parallelism) {
+    this.parallelism = Math.max(1, parallelism);
+  }
+
+  int getParallelism() {
+    return parallelism;
+  }
+
+  /**
+   * @return amount of ranges the items are split to by {@link #forEach(int, ORangeTask)}
+   */
+  int getRanges(final int size) {
+    return Math.max(1, Math.min(size, parallelism * RANGES_PER_THREAD));
+  }
+
+  /**
+   * Splits <code>[0, size)</code> into {@link #getRanges(int)} ranges and processes them concurrently.
+   */
+  void forEach(final int size, final ORangeTask task) {
+    final int ranges = getRanges(size);
+    ParallelWorkers.forEach(null, ranges, parallelism,
+        database -> range -> task.execute(range, from(size, ranges, range), from(size, ranges, range + 1)));
+  }
+
+  /**
+   * Processes <code>[0, size)</code> items concurrently, every worker but the calling thread uses its own copy of the database.
+   * Copies are closed once all the items are processed.
+   */
+  void forEach(final ODatabaseDocumentInternal db, final int size, final ODatabaseTask task) {
+    ParallelWorkers.forEach(db, size, parallelism, database -> item -> task.execute(item, database));
+  }
+
+  private static int from(final int size, final int ranges, final int range) {
+    return (int) ((long) size * range / ranges);
+  }
+}
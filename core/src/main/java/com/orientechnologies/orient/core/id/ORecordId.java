@@ -42,6 +42,9 @@ public class ORecordId implements ORID {
   public static final  byte[]    EMPTY_RECORD_ID_STREAM = EMPTY_RECORD_ID.toStream();
   public static final  int       PERSISTENT_SIZE        = OBinaryProtocol.SIZE_SHORT + OBinaryProtocol.SIZE_LONG;
   private static final long      serialVersionUID       = 247070594054408657L;
+  private static final long      PACKED_POSITION_MASK   = 0xFFFFFFFFFFFFL;
+  private static final long      PACKED_POSITION_MIN    = -(1L << 47);
+  private static final long      PACKED_POSITION_MAX    = (1L << 47) - 1;
   // INT TO AVOID JVM PENALTY, BUT IT'S STORED AS SHORT
   private              int       clusterId              = CLUSTER_ID_INVALID;
   private              long      clusterPosition        = CLUSTER_POS_INVALID;
@@ -103,6 +106,30 @@ public class ORecordId implements ORID {
     return OPatternConst.PATTERN_RID.matcher(iString).matches();
   }
 
+  /**
+   * Packs the record id into a single <code>long</code>, 16 bits of the cluster id followed by 48 bits of the cluster position, so
+   * record ids can be kept in primitive collections. {@link Long#MIN_VALUE} is never returned, so it can be used as a "no record"
+   * marker.
+   *
+   * @see #unpack(long)
+   */
+  public static long pack(final ORID rid) {
+    final int clusterId = rid.getClusterId();
+    final long clusterPosition = rid.getClusterPosition();
+
+    if (clusterPosition < PACKED_POSITION_MIN || clusterPosition > PACKED_POSITION_MAX)
+      throw new ODatabaseException("RecordId " + rid + " can not be packed, cluster position is out of 48 bits range");
+
+    return ((long) (clusterId & 0xFFFF) << 48) | (clusterPosition & PACKED_POSITION_MASK);
+  }
+
+  /**
+   * @return record id packed by {@link #pack(ORID)}
+   */
+  public static ORecordId unpack(final long packed) {
+    return new ORecordId((short) (packed >>> 48), (packed << 16) >> 16);
+  }
+
   public void reset() {
     clusterId = CLUSTER_ID_INVALID;
     clusterPosition = CLUSTER_POS_INVALID;
@@ -27,6 +27,7 @@ import com.orientechnologies.common.exception.OException;
 import com.orientechnologies.common.listener.OProgressListener;
 import com.orientechnologies.common.log.OLogManager;
 import com.orientechnologies.common.serialization.types.OBinarySerializer;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
 import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
@@ -34,12 +35,16 @@ import com.orientechnologies.orient.core.exception.OCommandExecutionException;
 import com.orientechnologies.orient.core.exception.OConfigurationException;
 import com.orientechnologies.orient.core.exception.OInvalidIndexEngineIdException;
 import com.orientechnologies.orient.core.exception.OTooBigIndexKeyException;
+import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.index.engine.OBaseIndexEngine;
+import com.orientechnologies.orient.core.index.engine.v1.OCellBTreeSingleValueIndexEngine;
 import com.orientechnologies.orient.core.intent.OIntentMassiveInsert;
 import com.orientechnologies.orient.core.metadata.schema.OType;
 import com.orientechnologies.orient.core.record.ORecord;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.record.impl.ODocumentInternal;
+import com.orientechnologies.orient.core.serialization.serializer.binary.OBinarySerializerFactory;
+import com.orientechnologies.orient.core.sql.executor.ParallelWorkers;
 import com.orientechnologies.orient.core.storage.OStorage;
 import com.orientechnologies.orient.core.storage.cache.OReadCache;
 import com.orientechnologies.orient.core.storage.cache.OWriteCache;
@@ -52,10 +57,13 @@ import com.orientechnologies.orient.core.tx.OTransactionIndexChangesPerKey;
 
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.NoSuchElementException;
@@ -413,6 +421,12 @@ public abstract class OIndexAbstract<T> implements OIndexInternal<T> {
 
     final boolean intentInstalled = getDatabase().declareIntent(new OIntentMassiveInsert());
 
+    // BULK LOAD REQUIRES EMPTY INDEX WHICH IS NOT CHANGED CONCURRENTLY, SO EXCLUSIVE LOCK IS KEPT TILL THE END OF THE LOAD. KEYS
+    // ARE EXTRACTED UNDER THE SAME LOCK: THERE IS NO LOG OF CHANGES, SO CHANGES OF RECORDS MADE AFTER EXTRACTION WOULD BE LOST
+    final boolean bulkLoad = isBulkLoadEnabled();
+    if (bulkLoad)
+      acquireExclusiveLock();
+
     acquireExclusiveLock();
     try {
       // DO NOT REORDER 2 assignments bellow
@@ -446,6 +460,10 @@ public abstract class OIndexAbstract<T> implements OIndexInternal<T> {
       }
 
       rebuilding = false;
+
+      if (bulkLoad)
+        releaseExclusiveLock();
+
       throw OException.wrapException(new OIndexException("Error on rebuilding the index for clusters: " + clustersToIndex), e);
     } finally {
       releaseExclusiveLock();
@@ -472,6 +490,9 @@ public abstract class OIndexAbstract<T> implements OIndexInternal<T> {
         getDatabase().declareIntent(null);
 
       releaseSharedLock();
+
+      if (bulkLoad)
+        releaseExclusiveLock();
     }
 
     return documentIndexed;
@@ -489,11 +510,15 @@ public abstract class OIndexAbstract<T> implements OIndexInternal<T> {
       if (iProgressListener != null)
         iProgressListener.onBegin(this, documentTotal, rebuild);
 
-      // INDEX ALL CLUSTERS
-      for (final String clusterName : clustersToIndex) {
-        final long[] metrics = indexCluster(clusterName, iProgressListener, documentNum, documentIndexed, documentTotal);
-        documentNum = metrics[0];
-        documentIndexed = metrics[1];
+      if (apiVersion == 1 && isBulkLoadEnabled()) {
+        documentIndexed = bulkLoadIndex(iProgressListener, documentTotal);
+      } else {
+        // INDEX ALL CLUSTERS
+        for (final String clusterName : clustersToIndex) {
+          final long[] metrics = indexCluster(clusterName, iProgressListener, documentNum, documentIndexed, documentTotal);
+          documentNum = metrics[0];
+          documentIndexed = metrics[1];
+        }
       }
 
       if (iProgressListener != null)
@@ -948,6 +973,165 @@ public abstract class OIndexAbstract<T> implements OIndexInternal<T> {
     return new long[] { documentNum, documentIndexed };
   }
 
+  /**
+   * @return <code>true</code> if index may be filled by entries which are extracted from records and sorted before insertion.
+   * Indexes which do not store keys as they are passed to {@link #put(Object, OIdentifiable)} should return <code>false</code>.
+   */
+  protected boolean isBulkLoadSupported() {
+    return false;
+  }
+
+  /**
+   * Chooses value which is kept in the index if several records have the same key during bulk load of index. By default the
+   * last value is kept, the same as it is done by consequent {@link #put(Object, OIdentifiable)} calls.
+   */
+  protected ORID resolveBulkLoadDuplicate(final Object key, final ORID value, final ORID newValue) {
+    return newValue;
+  }
+
+  private boolean isBulkLoadEnabled() {
+    if (!OGlobalConfiguration.INDEX_BULK_LOAD.getValueAsBoolean() || !isBulkLoadSupported())
+      return false;
+
+    final OIndexDefinition definition = indexDefinition;
+    if (definition == null || definition instanceof ORuntimeKeyIndexDefinition)
+      return false;
+
+    if (getDatabase().getTransaction().isActive())
+      return false;
+
+    // KEYS ARE SPILLED TO DISK DURING SORTING, SO ALL OF THEM SHOULD HAVE BINARY SERIALIZER
+    final OType[] types = definition.getTypes();
+    if (types == null || types.length == 0)
+      return false;
+
+    final OBinarySerializerFactory serializerFactory = OBinarySerializerFactory.getInstance();
+    for (final OType type : types) {
+      if (type == null || serializerFactory.getObjectSerializer(type) == null)
+        return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * Fills index by entries which are extracted from records of all indexed clusters in parallel by {@link ParallelWorkers}, one
+   * cluster per worker at a time, and sorted by {@link OIndexKeySorter}. Engines which support bulk load build the index bottom-up from sorted entries, other
+   * engines get sorted entries one by one, so pages of the index are still accessed sequentially.
+   */
+  private long bulkLoadIndex(final OProgressListener iProgressListener, final long documentTotal) {
+    final ODatabaseDocumentInternal database = getDatabase();
+    final List<String> clusters = new ArrayList<>(clustersToIndex);
+    final int bufferSize = OGlobalConfiguration.INDEX_BULK_LOAD_BUFFER_SIZE.getValueAsInteger() / Math.max(clusters.size(), 1);
+
+    final BulkLoadProgress progress = new BulkLoadProgress(iProgressListener, documentTotal);
+
+    try (final OIndexKeySorter sorter = new OIndexKeySorter(indexDefinition.getTypes(), bufferSize)) {
+      ParallelWorkers.forEach(database, clusters.size(), Runtime.getRuntime().availableProcessors(),
+          localDatabase -> cluster -> extractClusterEntries(clusters.get(cluster), localDatabase, sorter.createBuffer(), progress));
+
+      while (true)
+        try {
+          final boolean loaded = storage.callIndexEngine(false, false, indexId, engine -> {
+            if (engine instanceof OCellBTreeSingleValueIndexEngine) {
+              ((OCellBTreeSingleValueIndexEngine) engine).bulkLoad(sorter.sortedUniqueEntries(this::resolveBulkLoadDuplicate));
+              return true;
+            }
+
+            return false;
+          });
+
+          if (!loaded) {
+            final Iterator<Map.Entry<Object, ORID>> entries = sorter.sortedEntries();
+            while (entries.hasNext()) {
+              final Map.Entry<Object, ORID> entry = entries.next();
+              put(entry.getKey(), entry.getValue());
+            }
+          }
+          break;
+        } catch (OInvalidIndexEngineIdException ignore) {
+          doReloadIndexEngine();
+        }
+    }
+
+    for (final ORID value : progress.nullKeyValues) {
+      put(null, value);
+    }
+
+    return progress.documentIndexed.get();
+  }
+
+  private void extractClusterEntries(final String clusterName, final ODatabaseDocumentInternal localDatabase,
+      final OIndexKeySorter.Buffer buffer, final BulkLoadProgress progress) {
+    try {
+      try {
+        for (final ORecord record : localDatabase.browseCluster(clusterName)) {
+          if (progress.cancelled)
+            return;
+
+          if (record instanceof ODocument) {
+            final ODocument doc = (ODocument) record;
+            final Object fieldValue = indexDefinition.getDocumentValueToIndex(doc);
+
+            if (fieldValue != null || !indexDefinition.isNullValuesIgnored()) {
+              if (fieldValue instanceof Collection) {
+                for (final Object fieldValueItem : (Collection<?>) fieldValue) {
+                  addBulkLoadEntry(buffer, fieldValueItem, doc.getIdentity(), progress);
+                }
+              } else
+                addBulkLoadEntry(buffer, fieldValue, doc.getIdentity(), progress);
+
+              progress.documentIndexed.incrementAndGet();
+            }
+          }
+
+          progress.documentProcessed(this);
+        }
+      } catch (NoSuchElementException ignore) {
+        // END OF CLUSTER REACHED, IGNORE IT
+      }
+
+      buffer.complete();
+    } catch (RuntimeException | Error e) {
+      // WORKERS WHICH ARE EXTRACTING OTHER CLUSTERS STOP AS WELL
+      progress.cancelled = true;
+      throw e;
+    }
+  }
+
+  private void addBulkLoadEntry(final OIndexKeySorter.Buffer buffer, final Object key, final ORID value,
+      final BulkLoadProgress progress) {
+    final Object collatedKey = getCollatingValue(key);
+
+    if (collatedKey == null)
+      progress.nullKeyValues.add(value);
+    else
+      buffer.add(collatedKey, value);
+  }
+
+  private static final class BulkLoadProgress {
+    private final OProgressListener listener;
+    private final long              documentTotal;
+    private       long              documentNum;
+
+    private final AtomicLong documentIndexed = new AtomicLong();
+    private final List<ORID> nullKeyValues   = Collections.synchronizedList(new ArrayList<>());
+
+    private volatile boolean cancelled;
+
+    private BulkLoadProgress(final OProgressListener listener, final long documentTotal) {
+      this.listener = listener;
+      this.documentTotal = documentTotal;
+    }
+
+    private synchronized void documentProcessed(final OIndexAbstract<?> index) {
+      documentNum++;
+
+      if (listener != null)
+        listener.onProgress(index, documentNum, (float) (documentNum * 100.0 / documentTotal));
+    }
+  }
+
   protected void releaseExclusiveLock() {
     rwLock.releaseWriteLock();
   }
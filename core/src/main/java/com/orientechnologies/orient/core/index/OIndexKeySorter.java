@@ -0,0 +1,325 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.index;
+
+import com.orientechnologies.common.comparator.ODefaultComparator;
+import com.orientechnologies.common.exception.OException;
+import com.orientechnologies.common.log.OLogManager;
+import com.orientechnologies.orient.core.Orient;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.serialization.serializer.binary.impl.index.OCompositeKeySerializer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * External sort of index entries which are extracted from records during bulk load of index.
+ * <p>
+ * Entries are collected in buffers, one buffer per thread which extracts keys. Full buffers are sorted and written to temporary
+ * files as sorted runs, the last not full buffer of each thread is kept in memory. Runs are merged when sorted entries are read.
+ * Keys are written to the files by {@link OCompositeKeySerializer}, single keys are wrapped into composite keys for that.
+ * <p>
+ * Files are created under {@link Orient#getTempPath()} and are deleted on {@link #close()}.
+ */
+final class OIndexKeySorter implements Closeable {
+  private static final Comparator<Map.Entry<Object, ORID>> ENTRY_COMPARATOR = (first, second) -> ODefaultComparator.INSTANCE
+      .compare(first.getKey(), second.getKey());
+
+  private final OType[] keyTypes;
+  private final boolean compositeKeys;
+  private final int     bufferSize;
+
+  private final List<File>                          files      = Collections.synchronizedList(new ArrayList<>());
+  private final List<List<Map.Entry<Object, ORID>>> memoryRuns = Collections.synchronizedList(new ArrayList<>());
+
+  private final List<RunReader> readers = new ArrayList<>();
+
+  /**
+   * Chooses value which is kept if several entries have the same key.
+   */
+  interface ValueResolver {
+    ORID resolve(Object key, ORID value, ORID newValue);
+  }
+
+  OIndexKeySorter(final OType[] keyTypes, final int bufferSize) {
+    this.keyTypes = keyTypes;
+    this.compositeKeys = keyTypes.length > 1;
+    this.bufferSize = Math.max(bufferSize, 1);
+  }
+
+  Buffer createBuffer() {
+    return new Buffer();
+  }
+
+  /**
+   * @return entries of all completed buffers in ascending order of keys
+   */
+  Iterator<Map.Entry<Object, ORID>> sortedEntries() {
+    final PriorityQueue<PeekingIterator> queue = new PriorityQueue<>(
+        (first, second) -> ENTRY_COMPARATOR.compare(first.peek(), second.peek()));
+
+    synchronized (memoryRuns) {
+      for (final List<Map.Entry<Object, ORID>> run : memoryRuns) {
+        if (!run.isEmpty()) {
+          queue.add(new PeekingIterator(run.iterator()));
+        }
+      }
+    }
+
+    synchronized (files) {
+      for (final File file : files) {
+        final RunReader reader = new RunReader(file);
+        readers.add(reader);
+
+        if (reader.hasNext()) {
+          queue.add(new PeekingIterator(reader));
+        }
+      }
+    }
+
+    return new Iterator<Map.Entry<Object, ORID>>() {
+      @Override
+      public boolean hasNext() {
+        return !queue.isEmpty();
+      }
+
+      @Override
+      public Map.Entry<Object, ORID> next() {
+        final PeekingIterator iterator = queue.poll();
+        if (iterator == null) {
+          throw new NoSuchElementException();
+        }
+
+        final Map.Entry<Object, ORID> entry = iterator.next();
+        if (iterator.hasNext()) {
+          queue.add(iterator);
+        }
+
+        return entry;
+      }
+    };
+  }
+
+  /**
+   * @return entries of all completed buffers in ascending order of keys, entries with the same key are merged into single entry
+   */
+  Iterator<Map.Entry<Object, ORID>> sortedUniqueEntries(final ValueResolver resolver) {
+    final PeekingIterator entries = new PeekingIterator(sortedEntries());
+
+    return new Iterator<Map.Entry<Object, ORID>>() {
+      @Override
+      public boolean hasNext() {
+        return entries.hasNext();
+      }
+
+      @Override
+      public Map.Entry<Object, ORID> next() {
+        final Map.Entry<Object, ORID> entry = entries.next();
+
+        final Object key = entry.getKey();
+        ORID value = entry.getValue();
+
+        while (entries.hasNext() && ODefaultComparator.INSTANCE.compare(key, entries.peek().getKey()) == 0) {
+          value = resolver.resolve(key, value, entries.next().getValue());
+        }
+
+        if (value == entry.getValue()) {
+          return entry;
+        }
+
+        return new AbstractMap.SimpleImmutableEntry<>(key, value);
+      }
+    };
+  }
+
+  @Override
+  public void close() {
+    for (final RunReader reader : readers) {
+      reader.close();
+    }
+    readers.clear();
+
+    synchronized (files) {
+      for (final File file : files) {
+        if (file.exists() && !file.delete()) {
+          OLogManager.instance().warn(this, "Cannot delete temporary file %s of sorted index keys", file);
+        }
+      }
+      files.clear();
+    }
+
+    memoryRuns.clear();
+  }
+
+  private void writeRun(final List<Map.Entry<Object, ORID>> entries) {
+    try {
+      final File dir = new File(Orient.getTempPath());
+      //noinspection ResultOfMethodCallIgnored
+      dir.mkdirs();
+
+      final File file = File.createTempFile("index-keys-", ".tmp", dir);
+      files.add(file);
+
+      try (final DataOutputStream out = new DataOutputStream(
+          new BufferedOutputStream(new FileOutputStream(file), 64 * 1024))) {
+        out.writeInt(entries.size());
+
+        for (final Map.Entry<Object, ORID> entry : entries) {
+          final OCompositeKey compositeKey = compositeKeys ? (OCompositeKey) entry.getKey() : new OCompositeKey(entry.getKey());
+          final byte[] serializedKey = OCompositeKeySerializer.INSTANCE.serializeNativeAsWhole(compositeKey, (Object[]) keyTypes);
+
+          out.writeInt(serializedKey.length);
+          out.write(serializedKey);
+
+          final ORID value = entry.getValue();
+          out.writeShort(value.getClusterId());
+          out.writeLong(value.getClusterPosition());
+        }
+      }
+    } catch (final IOException e) {
+      throw OException.wrapException(new OIndexException("Cannot write sorted index keys to temporary file"), e);
+    }
+  }
+
+  /**
+   * Collects entries of single thread.
+   */
+  final class Buffer {
+    private List<Map.Entry<Object, ORID>> entries = new ArrayList<>();
+
+    void add(final Object key, final ORID value) {
+      entries.add(new AbstractMap.SimpleImmutableEntry<>(key, value));
+
+      if (entries.size() >= bufferSize) {
+        entries.sort(ENTRY_COMPARATOR);
+        writeRun(entries);
+        entries = new ArrayList<>();
+      }
+    }
+
+    /**
+     * Makes entries of the buffer visible for {@link #sortedEntries()}.
+     */
+    void complete() {
+      entries.sort(ENTRY_COMPARATOR);
+      memoryRuns.add(entries);
+      entries = new ArrayList<>();
+    }
+  }
+
+  private final class RunReader implements Iterator<Map.Entry<Object, ORID>>, Closeable {
+    private final DataInputStream in;
+    private       int             remaining;
+
+    private RunReader(final File file) {
+      try {
+        in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 64 * 1024));
+        remaining = in.readInt();
+      } catch (final IOException e) {
+        throw OException.wrapException(new OIndexException("Cannot read sorted index keys from temporary file"), e);
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return remaining > 0;
+    }
+
+    @Override
+    public Map.Entry<Object, ORID> next() {
+      if (remaining <= 0) {
+        throw new NoSuchElementException();
+      }
+
+      try {
+        final byte[] serializedKey = new byte[in.readInt()];
+        in.readFully(serializedKey);
+
+        final OCompositeKey compositeKey = OCompositeKeySerializer.INSTANCE.deserializeNativeObject(serializedKey, 0);
+        final ORID value = new ORecordId(in.readShort(), in.readLong());
+
+        remaining--;
+        if (remaining == 0) {
+          close();
+        }
+
+        return new AbstractMap.SimpleImmutableEntry<>(compositeKeys ? compositeKey : compositeKey.getKeys().get(0), value);
+      } catch (final IOException e) {
+        throw OException.wrapException(new OIndexException("Cannot read sorted index keys from temporary file"), e);
+      }
+    }
+
+    @Override
+    public void close() {
+      try {
+        in.close();
+      } catch (final IOException ignore) {
+        // TEMPORARY FILE IS DELETED ANYWAY
+      }
+    }
+  }
+
+  private static final class PeekingIterator implements Iterator<Map.Entry<Object, ORID>> {
+    private final Iterator<Map.Entry<Object, ORID>> delegate;
+    private       Map.Entry<Object, ORID>           next;
+
+    private PeekingIterator(final Iterator<Map.Entry<Object, ORID>> delegate) {
+      this.delegate = delegate;
+    }
+
+    private Map.Entry<Object, ORID> peek() {
+      if (next == null) {
+        next = delegate.next();
+      }
+
+      return next;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next != null || delegate.hasNext();
+    }
+
+    @Override
+    public Map.Entry<Object, ORID> next() {
+      final Map.Entry<Object, ORID> result = peek();
+      next = null;
+      return result;
+    }
+  }
+}
@@ -56,4 +56,9 @@ public class OIndexNotUnique extends OIndexMultiValues {
       OTransactionIndexChangesPerKey changes) {
     return changes.interpret(OTransactionIndexChangesPerKey.Interpretation.NonUnique);
   }
+
+  @Override
+  protected boolean isBulkLoadSupported() {
+    return true;
+  }
 }
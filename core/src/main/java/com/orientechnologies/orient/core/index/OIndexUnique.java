@@ -81,6 +81,16 @@ public class OIndexUnique extends OIndexOneValue {
     }
   }
 
+  @Override
+  protected ORID resolveBulkLoadDuplicate(final Object key, final ORID value, final ORID newValue) {
+    final Object result = UNIQUE_VALIDATOR.validate(key, value, newValue);
+    if (result == OBaseIndexEngine.Validator.IGNORE) {
+      return value;
+    }
+
+    return (ORID) result;
+  }
+
   @Override
   public boolean canBeUsedInEqualityOperators() {
     return true;
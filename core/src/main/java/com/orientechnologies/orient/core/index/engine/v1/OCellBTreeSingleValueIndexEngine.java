@@ -23,15 +23,29 @@ import java.util.Map;
 import java.util.Set;
 
 public final class OCellBTreeSingleValueIndexEngine implements OSingleValueIndexEngine, OCellBTreeIndexEngine {
-  private static final String DATA_FILE_EXTENSION        = ".cbt";
-  private static final String NULL_BUCKET_FILE_EXTENSION = ".nbt";
+  private static final String DATA_FILE_EXTENSION         = ".cbt";
+  private static final String NULL_BUCKET_FILE_EXTENSION  = ".nbt";
+  public static final  String BLOOM_FILTER_FILE_EXTENSION = ".bfl";
+
+  /**
+   * Name of the index metadata property which switches on prefix compression of keys stored in the index pages. Supported by
+   * unique indexes only, pages of the multi-value indexes are always stored in the plain format.
+   */
+  public static final String KEY_PREFIX_COMPRESSION = "keyPrefixCompression";
+
+  /**
+   * Name of the index metadata property which switches on Bloom filter of the index keys, which allows to skip look up of the
+   * absent keys without traversal of the index pages.
+   */
+  public static final String BLOOM_FILTER = "bloomFilter";
 
   private final OCellBTreeSingleValue<Object> sbTree;
   private final String                        name;
 
   public OCellBTreeSingleValueIndexEngine(String name, OAbstractPaginatedStorage storage) {
     this.name = name;
-    this.sbTree = new OCellBTreeSingleValue<>(name, DATA_FILE_EXTENSION, NULL_BUCKET_FILE_EXTENSION, storage);
+    this.sbTree = new OCellBTreeSingleValue<>(name, DATA_FILE_EXTENSION, NULL_BUCKET_FILE_EXTENSION, BLOOM_FILTER_FILE_EXTENSION,
+        storage);
   }
 
   @Override
@@ -52,8 +66,12 @@ public final class OCellBTreeSingleValueIndexEngine implements OSingleValueIndex
       OBinarySerializer keySerializer, int keySize, Set<String> clustersToIndex, Map<String, String> engineProperties,
       ODocument metadata, OEncryption encryption) {
     try {
+      final boolean keyPrefixCompression =
+          metadata != null && Boolean.parseBoolean(String.valueOf(metadata.<Object>field(KEY_PREFIX_COMPRESSION)));
+      final boolean bloomFilter = metadata != null && Boolean.parseBoolean(String.valueOf(metadata.<Object>field(BLOOM_FILTER)));
+
       //noinspection unchecked
-      sbTree.create(keySerializer, keyTypes, keySize, encryption);
+      sbTree.create(keySerializer, keyTypes, keySize, encryption, keyPrefixCompression, bloomFilter);
     } catch (IOException e) {
       throw OException.wrapException(new OIndexException("Error of creation of index " + name), e);
     }
@@ -158,6 +176,19 @@ public final class OCellBTreeSingleValueIndexEngine implements OSingleValueIndex
     }
   }
 
+  /**
+   * Fills empty index by entries sorted in ascending order of keys.
+   *
+   * @see OCellBTreeSingleValue#bulkLoad(Iterator)
+   */
+  public long bulkLoad(Iterator<? extends Map.Entry<Object, ORID>> entries) {
+    try {
+      return sbTree.bulkLoad(entries);
+    } catch (IOException e) {
+      throw OException.wrapException(new OIndexException("Error during bulk load of index " + name), e);
+    }
+  }
+
   @Override
   public boolean validatedPut(Object key, ORID value, Validator<Object, ORID> validator) {
     try {
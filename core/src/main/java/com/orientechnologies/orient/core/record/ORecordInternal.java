@@ -157,4 +157,13 @@ public class ORecordInternal {
   public static ORecordSerializer getRecordSerializer(ORecord iRecord) {
     return ((ORecordAbstract) iRecord)._recordFormat;
   }
+
+  /**
+   * Returns the serialized content of the record as it was loaded, without serializing it again.
+   *
+   * @return the serialized content, null if the record was modified or fully unmarshalled
+   */
+  public static byte[] getSource(ORecord iRecord) {
+    return ((ORecordAbstract) iRecord)._source;
+  }
 }
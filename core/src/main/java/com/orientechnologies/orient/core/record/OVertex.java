@@ -31,6 +31,17 @@ public interface OVertex extends OElement{
   Iterable<OEdge> getEdges(ODirection direction, String... type);
   Iterable<OEdge> getEdges(ODirection direction, OClass... type);
 
+  /**
+   * Returns edges of the class whose property is within the range, ordered by the property. Edges are fetched by the range scan of
+   * the vertex-centric index on the edge class if there is one.
+   *
+   * @param from lower bound of the property, inclusive, <code>null</code> if there is no lower bound
+   * @param to   upper bound of the property, inclusive, <code>null</code> if there is no upper bound
+   *
+   * @see com.orientechnologies.orient.core.record.impl.OVertexCentricIndexes
+   */
+  Iterable<OEdge> getEdges(ODirection direction, String type, String property, Object from, Object to, boolean ascending);
+
   Iterable<OVertex> getVertices(ODirection direction);
   Iterable<OVertex> getVertices(ODirection direction, String... type);
   Iterable<OVertex> getVertices(ODirection direction, OClass... type);
@@ -0,0 +1,298 @@
+/*
+ *
+ *  *  Copyright 2016 OrientDB LTD (info(at)orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.record.impl;
+
+import com.orientechnologies.common.log.OLogManager;
+import com.orientechnologies.common.util.OPair;
+import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
+import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.db.record.ORecordLazyMultiValue;
+import com.orientechnologies.orient.core.db.record.ridbag.ORidBag;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OImmutableSchema;
+import com.orientechnologies.orient.core.record.ODirection;
+import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.record.ORecordInternal;
+import com.orientechnologies.orient.core.serialization.serializer.record.binary.ORecordSerializerBinary;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over identities of the vertices adjacent to the given one. Only the link fields (<code>out_*</code>/<code>in_*</code>)
+ * of the vertex are deserialized and link bags are iterated by their raw identities, so neither adjacent vertices nor lightweight
+ * edges are loaded. Regular edges are loaded only to read the identity of the opposite vertex, which is deserialized directly from
+ * the serialized content of the edge.
+ * <p>
+ * Identity of the edge which connects the last returned vertex is provided by {@link #getEdgeIdentity()}.
+ *
+ * @see OAdjacentVerticesIterable
+ */
+public class OAdjacentVertexIterator implements Iterator<ORID> {
+  private static final String CONNECTION_OUT_PREFIX = "out_";
+  private static final String CONNECTION_IN_PREFIX  = "in_";
+
+  private final ODocument                           vertex;
+  private final Iterator<OPair<ODirection, String>> connections;
+  private final OImmutableSchema                    schema;
+
+  private ODirection  currentDirection;
+  private Iterator<?> currentLinks;
+
+  private ORID nextVertex;
+  private ORID nextEdge;
+  private ORID edge;
+
+  public OAdjacentVertexIterator(final ODocument vertex, final ODirection direction, final String... labels) {
+    this.vertex = vertex;
+    this.connections = getConnections(vertex, direction, labels).iterator();
+
+    final ODatabaseDocumentInternal db = ODatabaseRecordThreadLocal.instance().getIfDefined();
+    this.schema = db != null ? db.getMetadata().getImmutableSchemaSnapshot() : null;
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (nextVertex == null) {
+      fetchNext();
+    }
+    return nextVertex != null;
+  }
+
+  @Override
+  public ORID next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+
+    final ORID result = nextVertex;
+    edge = nextEdge;
+    nextVertex = null;
+    nextEdge = null;
+    return result;
+  }
+
+  /**
+   * @return identity of the edge which connects the vertex returned by the last call of {@link #next()}, or <code>null</code> if
+   * vertices are connected by a lightweight edge
+   */
+  public ORID getEdgeIdentity() {
+    return edge;
+  }
+
+  /**
+   * @return amount of the adjacent vertices, calculated without loading of any edge or vertex
+   */
+  public static int size(final ODocument vertex, final ODirection direction, final String... labels) {
+    int size = 0;
+    for (OPair<ODirection, String> connection : getConnections(vertex, direction, labels)) {
+      final Object value = vertex.rawField(connection.getValue());
+      if (value instanceof OIdentifiable) {
+        size++;
+      } else if (value instanceof ORidBag) {
+        size += ((ORidBag) value).size();
+      } else if (value instanceof Collection<?>) {
+        size += ((Collection<?>) value).size();
+      }
+    }
+    return size;
+  }
+
+  private void fetchNext() {
+    while (true) {
+      while (currentLinks == null || !currentLinks.hasNext()) {
+        if (!connections.hasNext()) {
+          return;
+        }
+
+        final OPair<ODirection, String> connection = connections.next();
+        currentDirection = connection.getKey();
+        currentLinks = getLinks(vertex.rawField(connection.getValue()));
+      }
+
+      final Object link = currentLinks.next();
+      if (link instanceof OIdentifiable && resolve((OIdentifiable) link)) {
+        return;
+      }
+    }
+  }
+
+  private static Iterator<?> getLinks(final Object value) {
+    if (value instanceof OIdentifiable) {
+      return Collections.singleton(value).iterator();
+    }
+    if (value instanceof ORidBag) {
+      return ((ORidBag) value).rawIterator();
+    }
+    if (value instanceof ORecordLazyMultiValue) {
+      return ((ORecordLazyMultiValue) value).rawIterator();
+    }
+    if (value instanceof Collection<?>) {
+      return ((Collection<?>) value).iterator();
+    }
+    return null;
+  }
+
+  /**
+   * Finds the vertex which is connected by the link. The class of the linked record is taken from the schema by its cluster, so
+   * the record is loaded only if it is a regular edge or if its class can not be found.
+   *
+   * @return <code>true</code> if the vertex is found
+   */
+  private boolean resolve(final OIdentifiable link) {
+    final ORID rid = link.getIdentity();
+
+    OClass clazz = null;
+    if (link instanceof ODocument) {
+      clazz = ((ODocument) link).getSchemaClass();
+    } else if (schema != null && rid.getClusterId() >= 0) {
+      clazz = schema.getClassByClusterId(rid.getClusterId());
+    }
+
+    if (clazz != null && clazz.isVertexType()) {
+      nextVertex = rid;
+      nextEdge = null;
+      return true;
+    }
+
+    final ORecord record = link.getRecord();
+    if (!(record instanceof ODocument)) {
+      // SKIP IT
+      OLogManager.instance().warn(this, "Record (%s) is null or it is not a document, source vertex : %s", rid, vertex.getIdentity());
+      return false;
+    }
+
+    final ODocument document = (ODocument) record;
+    if (clazz == null) {
+      clazz = document.getSchemaClass();
+    }
+
+    if (clazz != null && clazz.isVertexType()) {
+      nextVertex = rid;
+      nextEdge = null;
+      return true;
+    }
+
+    final ORID opposite = readEdgeVertex(document, currentDirection == ODirection.OUT ? "in" : "out");
+    if (opposite == null) {
+      return false;
+    }
+
+    nextVertex = opposite;
+    nextEdge = rid;
+    return true;
+  }
+
+  private static ORID readEdgeVertex(final ODocument edge, final String fieldName) {
+    final byte[] source = ORecordInternal.getSource(edge);
+
+    final Object value;
+    if (source != null && ORecordInternal.getRecordSerializer(edge) instanceof ORecordSerializerBinary) {
+      // READ THE ONLY FIELD WITHOUT DESERIALIZATION OF THE EDGE
+      value = ORecordSerializerBinary.INSTANCE.deserializeFieldFromRoot(source, fieldName);
+    } else {
+      value = edge.rawField(fieldName);
+    }
+
+    if (value instanceof OIdentifiable) {
+      return ((OIdentifiable) value).getIdentity();
+    }
+    return null;
+  }
+
+  /**
+   * @return names of the fields which contain links to the adjacent vertices or to the edges with the given labels, together with
+   * the direction of the links
+   */
+  private static List<OPair<ODirection, String>> getConnections(final ODocument vertex, final ODirection direction,
+      String... labels) {
+    if (labels != null && labels.length == 1 && labels[0] != null && labels[0].equalsIgnoreCase("E"))
+      // DEFAULT CLASS, TREAT IT AS NO CLASS/LABEL
+      labels = null;
+
+    final List<OPair<ODirection, String>> result = new ArrayList<>();
+
+    final ODatabaseDocumentInternal db = ODatabaseRecordThreadLocal.instance().getIfDefined();
+    if (labels != null && labels.length > 0 && db != null) {
+      final OImmutableSchema schema = db.getMetadata().getImmutableSchemaSnapshot();
+
+      final List<String> classNames = new ArrayList<>();
+      for (String label : labels) {
+        if (label == null || classNames.contains(label)) {
+          continue;
+        }
+        classNames.add(label);
+
+        final OClass clazz = schema.getClass(label);
+        if (clazz != null) {
+          for (OClass subClass : clazz.getAllSubclasses()) {
+            if (!classNames.contains(subClass.getName())) {
+              classNames.add(subClass.getName());
+            }
+          }
+        }
+      }
+
+      if (direction == ODirection.OUT || direction == ODirection.BOTH) {
+        for (String className : classNames) {
+          result.add(new OPair<>(ODirection.OUT, CONNECTION_OUT_PREFIX + className));
+        }
+      }
+      if (direction == ODirection.IN || direction == ODirection.BOTH) {
+        for (String className : classNames) {
+          result.add(new OPair<>(ODirection.IN, CONNECTION_IN_PREFIX + className));
+        }
+      }
+
+      final String[] fieldNames = new String[result.size()];
+      for (int i = 0; i < fieldNames.length; i++) {
+        fieldNames[i] = result.get(i).getValue();
+      }
+
+      // EARLY FETCH ALL THE FIELDS THAT MATTERS
+      vertex.deserializeFields(fieldNames);
+    } else {
+      // ONLY NAMES OF THE FIELDS ARE DESERIALIZED
+      final String[] fieldNames = vertex.fieldNames();
+      if (direction == ODirection.OUT || direction == ODirection.BOTH) {
+        for (String fieldName : fieldNames) {
+          if (fieldName.startsWith(CONNECTION_OUT_PREFIX)) {
+            result.add(new OPair<>(ODirection.OUT, fieldName));
+          }
+        }
+      }
+      if (direction == ODirection.IN || direction == ODirection.BOTH) {
+        for (String fieldName : fieldNames) {
+          if (fieldName.startsWith(CONNECTION_IN_PREFIX)) {
+            result.add(new OPair<>(ODirection.IN, fieldName));
+          }
+        }
+      }
+    }
+
+    return result;
+  }
+}
@@ -0,0 +1,78 @@
+package com.orientechnologies.orient.core.record.impl;
+
+import com.orientechnologies.common.log.OLogManager;
+import com.orientechnologies.common.util.OSizeable;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.record.ODirection;
+import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.record.OVertex;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Vertices adjacent to the given one. Vertices are loaded lazily during the iteration, while {@link #identities()} and {@link
+ * #size()} never load neither vertices nor edges, so they should be used whenever properties of the vertices are not needed.
+ *
+ * @see OAdjacentVertexIterator
+ */
+public class OAdjacentVerticesIterable implements Iterable<OVertex>, OSizeable {
+  private final ODocument  vertex;
+  private final ODirection direction;
+  private final String[]   labels;
+
+  public OAdjacentVerticesIterable(final ODocument vertex, final ODirection direction, final String... labels) {
+    this.vertex = vertex;
+    this.direction = direction;
+    this.labels = labels;
+  }
+
+  /**
+   * @return identities of the adjacent vertices
+   */
+  public Iterable<ORID> identities() {
+    return () -> new OAdjacentVertexIterator(vertex, direction, labels);
+  }
+
+  @Override
+  public Iterator<OVertex> iterator() {
+    final OAdjacentVertexIterator identities = new OAdjacentVertexIterator(vertex, direction, labels);
+
+    return new Iterator<OVertex>() {
+      private OVertex next;
+
+      @Override
+      public boolean hasNext() {
+        while (next == null && identities.hasNext()) {
+          final ORID rid = identities.next();
+          final ORecord record = rid.getRecord();
+
+          if (record instanceof ODocument && ((ODocument) record).isVertex()) {
+            next = ((ODocument) record).asVertex().get();
+          } else {
+            // SKIP IT
+            OLogManager.instance().warn(this, "Record (%s) is null or it is not a vertex, source vertex : %s", rid,
+                vertex.getIdentity());
+          }
+        }
+        return next != null;
+      }
+
+      @Override
+      public OVertex next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+
+        final OVertex result = next;
+        next = null;
+        return result;
+      }
+    };
+  }
+
+  @Override
+  public int size() {
+    return OAdjacentVertexIterator.size(vertex, direction, labels);
+  }
+}
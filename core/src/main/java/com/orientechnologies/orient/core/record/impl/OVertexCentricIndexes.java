@@ -0,0 +1,214 @@
+/*
+ *
+ *  *  Copyright 2016 OrientDB LTD (info(at)orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://www.orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.record.impl;
+
+import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
+import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.index.OIndex;
+import com.orientechnologies.orient.core.index.OIndexCursor;
+import com.orientechnologies.orient.core.index.OIndexDefinition;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.ODirection;
+import com.orientechnologies.orient.core.record.OEdge;
+import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.record.OVertex;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Vertex-centric indexes keep the edges of every vertex sorted by a property of the edges, so the edges of a supernode within a
+ * range of the property (eg. the most recent ones by timestamp) are fetched by a range scan instead of iterating the whole rid bag
+ * and loading every edge.
+ * <p>
+ * Vertex-centric index is an ordered composite index of the edge class on the <code>out</code> (or <code>in</code>) link and the
+ * property, eg. <code>CREATE INDEX Follows.out_since ON Follows (out, since) NOTUNIQUE</code>. Entries of every vertex are
+ * adjacent in such index and sorted by the property, and the index is maintained together with the edges. Indexes of the super
+ * classes of the edge class are used as well.
+ *
+ * @see OVertex#getEdges(ODirection, String, String, Object, Object, boolean)
+ */
+public final class OVertexCentricIndexes {
+  private OVertexCentricIndexes() {
+  }
+
+  /**
+   * Creates vertex-centric index on the edges of the class, the property should be defined in the schema.
+   *
+   * @param direction direction of the edges from the vertices which the index is used for, either OUT or IN
+   */
+  public static OIndex<?> createIndex(final OClass edgeClass, final ODirection direction, final String property) {
+    final String link = getLinkField(direction);
+    if (link == null) {
+      throw new IllegalArgumentException("Vertex-centric index can be created only for OUT or IN direction");
+    }
+
+    if (!edgeClass.existsProperty(link)) {
+      edgeClass.createProperty(link, OType.LINK);
+    }
+    return edgeClass.createIndex(edgeClass.getName() + "." + link + "_" + property, OClass.INDEX_TYPE.NOTUNIQUE, link, property);
+  }
+
+  /**
+   * @return ordered index of the edge class or of its super class on the link of the given direction and on the property,
+   * <code>null</code> if there is no such index
+   */
+  public static OIndex<?> getIndex(final OClass edgeClass, final ODirection direction, final String property) {
+    final String link = getLinkField(direction);
+    if (link == null) {
+      return null;
+    }
+
+    for (OIndex<?> index : edgeClass.getIndexes()) {
+      final OIndexDefinition definition = index.getDefinition();
+      if (definition == null || !index.supportsOrderedIterations()) {
+        continue;
+      }
+
+      final List<String> fields = definition.getFields();
+      if (fields.size() >= 2 && fields.get(0).equalsIgnoreCase(link) && fields.get(1).equalsIgnoreCase(property)) {
+        return index;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns edges of the vertex whose property is within the range, ordered by the property. Edges are fetched by the range scan of
+   * the vertex-centric index if there is one, otherwise all the edges of the class are loaded, filtered and sorted. Edges without
+   * the property are not returned.
+   *
+   * @param from lower bound of the property, <code>null</code> if there is no lower bound
+   * @param to   upper bound of the property, <code>null</code> if there is no upper bound
+   */
+  public static Iterable<OEdge> getEdges(final OVertex vertex, final ODirection direction, final String edgeClass,
+      final String property, final Object from, final boolean fromInclusive, final Object to, final boolean toInclusive,
+      final boolean ascending) {
+    final ODatabaseDocumentInternal db = ODatabaseRecordThreadLocal.instance().get();
+    final OClass clazz = db.getMetadata().getImmutableSchemaSnapshot().getClass(edgeClass);
+    if (clazz == null) {
+      throw new IllegalArgumentException("Class '" + edgeClass + "' not found");
+    }
+
+    final OIndex<?> index = getIndex(clazz, direction, property);
+    // KEYS OF THE NEW VERTICES ARE TEMPORARY, SO EDGES OF SUCH VERTICES ARE NOT LOOKED UP IN THE INDEX
+    if (index == null || !vertex.getIdentity().isPersistent()) {
+      return scanEdges(vertex, direction, clazz.getName(), property, from, fromInclusive, to, toInclusive, ascending);
+    }
+
+    final ORID identity = vertex.getIdentity();
+    final OIndexDefinition definition = index.getDefinition();
+    final Object fromKey = from != null ? definition.createValue(identity, from) : definition.createValue(identity);
+    final Object toKey = to != null ? definition.createValue(identity, to) : definition.createValue(identity);
+    if (fromKey == null || toKey == null) {
+      throw new IllegalArgumentException("Range of property '" + property + "' cannot be converted to the keys of " + index.getName());
+    }
+
+    // INDEX OF THE SUPER CLASS CONTAINS EDGES OF THE OTHER CLASSES AS WELL
+    final boolean checkClass = definition.getClassName() == null || !definition.getClassName().equalsIgnoreCase(clazz.getName());
+
+    return () -> new Iterator<OEdge>() {
+      private final OIndexCursor cursor = index
+          .iterateEntriesBetween(fromKey, from == null || fromInclusive, toKey, to == null || toInclusive, ascending);
+      private OEdge nextEdge;
+
+      @Override
+      public boolean hasNext() {
+        while (nextEdge == null && cursor.hasNext()) {
+          final OIdentifiable identifiable = cursor.next();
+          final ORecord record = identifiable != null ? identifiable.getRecord() : null;
+          if (record instanceof ODocument) {
+            final ODocument edge = (ODocument) record;
+            if (!checkClass || (edge.getSchemaClass() != null && edge.getSchemaClass().isSubClassOf(clazz))) {
+              nextEdge = edge.asEdge().orElse(null);
+            }
+          }
+        }
+        return nextEdge != null;
+      }
+
+      @Override
+      public OEdge next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        final OEdge result = nextEdge;
+        nextEdge = null;
+        return result;
+      }
+    };
+  }
+
+  private static Iterable<OEdge> scanEdges(final OVertex vertex, final ODirection direction, final String edgeClass,
+      final String property, final Object from, final boolean fromInclusive, final Object to, final boolean toInclusive,
+      final boolean ascending) {
+    final List<OEdge> result = new ArrayList<>();
+    for (OEdge edge : vertex.getEdges(direction, edgeClass)) {
+      final Object value = edge.getProperty(property);
+      if (value == null) {
+        continue;
+      }
+
+      if (from != null) {
+        final int comparison = compare(value, from);
+        if (comparison < 0 || (comparison == 0 && !fromInclusive)) {
+          continue;
+        }
+      }
+      if (to != null) {
+        final int comparison = compare(value, to);
+        if (comparison > 0 || (comparison == 0 && !toInclusive)) {
+          continue;
+        }
+      }
+      result.add(edge);
+    }
+
+    final Comparator<OEdge> comparator = (first, second) -> compare(first.getProperty(property), second.getProperty(property));
+    result.sort(ascending ? comparator : comparator.reversed());
+    return result;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static int compare(final Object value, final Object bound) {
+    final Object converted = OType.convert(bound, value.getClass());
+    if (!(value instanceof Comparable) || converted == null) {
+      throw new IllegalArgumentException("Value '" + value + "' cannot be compared with '" + bound + "'");
+    }
+    return ((Comparable<Object>) value).compareTo(converted);
+  }
+
+  private static String getLinkField(final ODirection direction) {
+    switch (direction) {
+    case OUT:
+      return OEdge.DIRECTION_OUT;
+    case IN:
+      return OEdge.DIRECTION_IN;
+    default:
+      return null;
+    }
+  }
+}
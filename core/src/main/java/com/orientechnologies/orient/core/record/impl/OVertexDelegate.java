@@ -144,6 +144,11 @@ public class OVertexDelegate implements OVertex {
 
   }
 
+  @Override
+  public Iterable<OEdge> getEdges(ODirection direction, String type, String property, Object from, Object to, boolean ascending) {
+    return OVertexCentricIndexes.getEdges(this, direction, type, property, from, true, to, true, ascending);
+  }
+
   @Override
   public Iterable<OVertex> getVertices(ODirection direction) {
 
@@ -149,6 +149,11 @@ public class OVertexDocument extends ODocument implements OVertex {
 
   }
 
+  @Override
+  public Iterable<OEdge> getEdges(ODirection direction, String type, String property, Object from, Object to, boolean ascending) {
+    return OVertexCentricIndexes.getEdges(this, direction, type, property, from, true, to, true, ascending);
+  }
+
   @Override
   public Iterable<OVertex> getVertices(ODirection direction) {
     return getVertices(direction, (String[]) null);
@@ -15,7 +15,29 @@ import java.util.*;
  */
 public class AggregateProjectionCalculationStep extends ProjectionCalculationStep {
 
+  /**
+   * metadata of the results of a {@link Mode#PARTIAL} aggregation, it contains the GROUP BY key of the result
+   */
+  public static final String GROUP_KEY_METADATA = "$groupKey";
+
+  public enum Mode {
+    /**
+     * aggregates all the records returned by the previous step and returns the final values
+     */
+    FULL,
+    /**
+     * aggregates a subset of the records (eg. a single cluster) and returns the aggregation contexts instead of the final values,
+     * so that they can be merged by a {@link #COMBINE} step
+     */
+    PARTIAL,
+    /**
+     * merges the results of {@link #PARTIAL} aggregations, by GROUP BY key, and returns the final values
+     */
+    COMBINE
+  }
+
   private final OGroupBy groupBy;
+  private final Mode     mode;
 
   //the key is the GROUP BY key, the value is the (partially) aggregated value
   private Map<List, OResultInternal> aggregateResults = new LinkedHashMap<>();
@@ -26,8 +48,18 @@ public class AggregateProjectionCalculationStep extends ProjectionCalculationSte
 
   public AggregateProjectionCalculationStep(OProjection projection, OGroupBy groupBy, OCommandContext ctx,
       boolean profilingEnabled) {
+    this(projection, groupBy, Mode.FULL, ctx, profilingEnabled);
+  }
+
+  public AggregateProjectionCalculationStep(OProjection projection, OGroupBy groupBy, Mode mode, OCommandContext ctx,
+      boolean profilingEnabled) {
     super(projection, ctx, profilingEnabled);
     this.groupBy = groupBy;
+    this.mode = mode;
+  }
+
+  public Mode getMode() {
+    return mode;
   }
 
   @Override
@@ -82,12 +114,24 @@ public class AggregateProjectionCalculationStep extends ProjectionCalculationSte
     OExecutionStepInternal prevStep = prev.get();
     OResultSet lastRs = prevStep.syncPull(ctx, nRecords);
     while (lastRs.hasNext()) {
-      aggregate(lastRs.next(), ctx);
+      if (mode == Mode.COMBINE) {
+        combine(lastRs.next());
+      } else {
+        aggregate(lastRs.next(), ctx);
+      }
       if (!lastRs.hasNext()) {
         lastRs = prevStep.syncPull(ctx, nRecords);
       }
     }
     finalResults = new ArrayList<>();
+    if (mode == Mode.PARTIAL) {
+      for (Map.Entry<List, OResultInternal> entry : aggregateResults.entrySet()) {
+        entry.getValue().setMetadata(GROUP_KEY_METADATA, entry.getKey());
+        finalResults.add(entry.getValue());
+      }
+      aggregateResults.clear();
+      return;
+    }
     finalResults.addAll(aggregateResults.values());
     aggregateResults.clear();
     for (OResultInternal item : finalResults) {
@@ -136,10 +180,41 @@ public class AggregateProjectionCalculationStep extends ProjectionCalculationSte
     }
   }
 
+  private void combine(OResult partial) {
+    long begin = profilingEnabled ? System.nanoTime() : 0;
+    try {
+      List key = (List) partial.getMetadata(GROUP_KEY_METADATA);
+      OResultInternal preAggr = aggregateResults.get(key);
+      if (preAggr == null) {
+        preAggr = new OResultInternal();
+        for (String name : partial.getPropertyNames()) {
+          preAggr.setProperty(name, partial.getProperty(name));
+        }
+        aggregateResults.put(key, preAggr);
+        return;
+      }
+
+      for (OProjectionItem proj : this.projection.getItems()) {
+        if (proj.isAggregate()) {
+          String alias = proj.getProjectionAlias().getStringValue();
+          AggregationContext aggrCtx = preAggr.getProperty(alias);
+          aggrCtx.combine(partial.getProperty(alias));
+        }
+      }
+    } finally {
+      if (profilingEnabled) {
+        cost += (System.nanoTime() - begin);
+      }
+    }
+  }
+
   @Override
   public String prettyPrint(int depth, int indent) {
     String spaces = OExecutionStepInternal.getIndent(depth, indent);
-    String result = spaces + "+ CALCULATE AGGREGATE PROJECTIONS";
+    String result = spaces + (mode == Mode.COMBINE ? "+ COMBINE PARTIAL AGGREGATES" : "+ CALCULATE AGGREGATE PROJECTIONS");
+    if (mode == Mode.PARTIAL) {
+      result += " (PARTIAL)";
+    }
     if (profilingEnabled) {
       result += " (" + getCostFormatted() + ")";
     }
@@ -152,4 +227,10 @@ public class AggregateProjectionCalculationStep extends ProjectionCalculationSte
   public long getCost() {
     return cost;
   }
+
+  @Override
+  public OExecutionStep copy(OCommandContext ctx) {
+    return new AggregateProjectionCalculationStep(projection.copy(), groupBy == null ? null : groupBy.copy(), mode, ctx,
+        profilingEnabled);
+  }
 }
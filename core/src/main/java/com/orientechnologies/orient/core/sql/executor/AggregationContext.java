@@ -11,4 +11,22 @@ public interface AggregationContext {
   public Object getFinalValue();
 
   void apply(OResult next, OCommandContext ctx);
+
+  /**
+   * @return true if the partial state of another context of the same aggregation can be merged into this one with {@link
+   * #combine(AggregationContext)}, eg. to aggregate in parallel disjoint subsets of the records
+   */
+  default boolean canCombine() {
+    return false;
+  }
+
+  /**
+   * merges into this context the partial state of another context of the same aggregation, that was applied to a disjoint subset
+   * of the records
+   *
+   * @param other the other (partial) aggregation context
+   */
+  default void combine(AggregationContext other) {
+    throw new UnsupportedOperationException();
+  }
 }
@@ -0,0 +1,304 @@
+package com.orientechnologies.orient.core.sql.executor;
+
+import com.orientechnologies.orient.core.collate.ODefaultCollate;
+import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.OElement;
+import com.orientechnologies.orient.core.record.ORecord;
+import com.orientechnologies.orient.core.record.ORecordInternal;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.serialization.serializer.record.binary.*;
+import com.orientechnologies.orient.core.sql.parser.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Batch evaluation of a WHERE condition made of a conjunction of simple comparisons between a property and a constant (eg.
+ * <code>age &gt; 18 AND name = 'foo'</code>), as used by {@link FilterStep} on full scans.
+ * <p>
+ * A batch of results goes in and a selection vector (the positions of the results that match the condition) comes out. The
+ * comparisons are evaluated one at a time on the whole batch, reading the values from the serialized record with the {@link
+ * OBinaryComparator} of the record serializer, so the records that do not match the condition are never unmarshalled. The
+ * conditions that cannot be evaluated in binary form are evaluated in the usual way on the results that match the binary ones;
+ * the same happens for single results that are not persistent, unmodified records (or whose property is missing, null, or has an
+ * incompatible type or a collate).
+ */
+class BinaryBatchFilter {
+
+  private enum Kind {
+    EQ, NE, LT, LE, GT, GE
+  }
+
+  private final List<BinaryComparison>   comparisons;
+  private final List<OBooleanExpression> residual;
+
+  private ODocument[] docs    = new ODocument[0];
+  private byte[][]    sources = new byte[0][];
+
+  private BinaryBatchFilter(List<BinaryComparison> comparisons, List<OBooleanExpression> residual) {
+    this.comparisons = comparisons;
+    this.residual = residual;
+  }
+
+  /**
+   * @return a batch filter for the where clause, null if no part of the where clause can be evaluated in binary form
+   */
+  static BinaryBatchFilter create(OWhereClause whereClause, OCommandContext ctx) {
+    if (whereClause == null || whereClause.getBaseExpression() == null) {
+      return null;
+    }
+    List<OAndBlock> flattened = whereClause.flatten();
+    if (flattened.size() != 1) {
+      return null;
+    }
+    List<BinaryComparison> comparisons = new ArrayList<>();
+    List<OBooleanExpression> residual = new ArrayList<>();
+    for (OBooleanExpression exp : flattened.get(0).getSubBlocks()) {
+      BinaryComparison comparison = exp instanceof OBinaryCondition ? BinaryComparison.create((OBinaryCondition) exp, ctx) : null;
+      if (comparison != null) {
+        comparisons.add(comparison);
+      } else {
+        residual.add(exp);
+      }
+    }
+    if (comparisons.isEmpty()) {
+      return null;
+    }
+    return new BinaryBatchFilter(comparisons, residual);
+  }
+
+  /**
+   * evaluates the condition on a batch of results
+   *
+   * @param batch     the results
+   * @param size      the number of results in the batch
+   * @param selection output, filled with the positions (in the batch) of the results that match the condition, in order
+   *
+   * @return the number of results that match the condition
+   */
+  int filter(OResult[] batch, int size, int[] selection, OCommandContext ctx) {
+    if (docs.length < size) {
+      docs = new ODocument[size];
+      sources = new byte[size][];
+    }
+    for (int i = 0; i < size; i++) {
+      selection[i] = i;
+      docs[i] = null;
+      sources[i] = null;
+      OResult item = batch[i];
+      if (!item.isElement()) {
+        continue;
+      }
+      Optional<OElement> element = item.getElement();
+      if (!element.isPresent() || !element.get().getIdentity().isPersistent()) {
+        continue;
+      }
+      ORecord record = element.get().getRecord();
+      if (record instanceof ODocument && !record.isDirty()
+          && ORecordInternal.getRecordSerializer(record) instanceof ORecordSerializerBinary) {
+        byte[] source = ORecordInternal.getSource(record);
+        if (source != null && source.length > 0) {
+          docs[i] = (ODocument) record;
+          sources[i] = source;
+        }
+      }
+    }
+
+    int selected = size;
+    for (BinaryComparison comparison : comparisons) {
+      int matching = 0;
+      for (int i = 0; i < selected; i++) {
+        int pos = selection[i];
+        if (comparison.matches(batch[pos], docs[pos], sources[pos], ctx)) {
+          selection[matching++] = pos;
+        }
+      }
+      selected = matching;
+    }
+    for (OBooleanExpression exp : residual) {
+      int matching = 0;
+      for (int i = 0; i < selected; i++) {
+        int pos = selection[i];
+        if (exp.evaluate(batch[pos], ctx)) {
+          selection[matching++] = pos;
+        }
+      }
+      selected = matching;
+    }
+
+    for (int i = 0; i < size; i++) {
+      docs[i] = null;
+      sources[i] = null;
+    }
+    return selected;
+  }
+
+  /**
+   * a comparison between a property and a constant, <code>property operator value</code>
+   */
+  private static class BinaryComparison {
+    private final OBinaryCondition condition;
+    private final String           propertyName;
+    private final Kind             kind;
+    private final Object           value;
+    private final OBinaryField     valueField;
+
+    private BinaryComparison(OBinaryCondition condition, String propertyName, Kind kind, Object value, OBinaryField valueField) {
+      this.condition = condition;
+      this.propertyName = propertyName;
+      this.kind = kind;
+      this.value = value;
+      this.valueField = valueField;
+    }
+
+    static BinaryComparison create(OBinaryCondition condition, OCommandContext ctx) {
+      Kind kind = toKind(condition.getOperator());
+      if (kind == null) {
+        return null;
+      }
+      OExpression property = condition.getLeft();
+      OExpression constant = condition.getRight();
+      if (!isProperty(property)) {
+        property = condition.getRight();
+        constant = condition.getLeft();
+        kind = reverse(kind);
+      }
+      if (!isProperty(property) || isProperty(constant) || !constant.isEarlyCalculated(ctx)) {
+        return null;
+      }
+      Object value = constant.execute((OResult) null, ctx);
+      OType type = typeOf(value);
+      if (type == null || (type == OType.BOOLEAN && kind != Kind.EQ && kind != Kind.NE)) {
+        return null;
+      }
+      ODocumentSerializer serializer = ORecordSerializerBinary.INSTANCE.getCurrentSerializer();
+      BytesContainer bytes = new BytesContainer();
+      serializer.serializeValue(bytes, value, type, null);
+      bytes.offset = 0;
+      return new BinaryComparison(condition, property.getDefaultAlias().getStringValue(), kind, value,
+          new OBinaryField(null, type, bytes, null));
+    }
+
+    private static boolean isProperty(OExpression exp) {
+      return exp.isBaseIdentifier() && !exp.getDefaultAlias().getStringValue().startsWith("@");
+    }
+
+    private static OType typeOf(Object value) {
+      if (value instanceof Integer) {
+        return OType.INTEGER;
+      }
+      if (value instanceof Long) {
+        return OType.LONG;
+      }
+      if (value instanceof Double) {
+        return OType.DOUBLE;
+      }
+      if (value instanceof String) {
+        return OType.STRING;
+      }
+      if (value instanceof Boolean) {
+        return OType.BOOLEAN;
+      }
+      return null;
+    }
+
+    private static Kind toKind(OBinaryCompareOperator operator) {
+      switch (operator.toString()) {
+      case "=":
+        return Kind.EQ;
+      case "!=":
+      case "<>":
+        return Kind.NE;
+      case "<":
+        return Kind.LT;
+      case "<=":
+        return Kind.LE;
+      case ">":
+        return Kind.GT;
+      case ">=":
+        return Kind.GE;
+      default:
+        return null;
+      }
+    }
+
+    private static Kind reverse(Kind kind) {
+      switch (kind) {
+      case LT:
+        return Kind.GT;
+      case LE:
+        return Kind.GE;
+      case GT:
+        return Kind.LT;
+      case GE:
+        return Kind.LE;
+      default:
+        return kind;
+      }
+    }
+
+    /**
+     * checks that the binary comparison of the property gives the same result as the comparison of the unmarshalled values: the
+     * equality of values of different types (eg. 1.5 = 1) depends on the conversion rules of the SQL operators
+     */
+    private boolean isCompatible(OBinaryField field) {
+      if (field.collate != null && !ODefaultCollate.NAME.equals(field.collate.getName())) {
+        return false;
+      }
+      boolean equality = kind == Kind.EQ || kind == Kind.NE;
+      switch (field.type) {
+      case BYTE:
+      case SHORT:
+      case INTEGER:
+      case LONG:
+        return value instanceof Integer || value instanceof Long || (!equality && value instanceof Double);
+      case DOUBLE:
+        return value instanceof Double || (!equality && (value instanceof Integer || value instanceof Long));
+      case STRING:
+        return value instanceof String;
+      case BOOLEAN:
+        return value instanceof Boolean;
+      default:
+        return false;
+      }
+    }
+
+    boolean matches(OResult item, ODocument doc, byte[] source, OCommandContext ctx) {
+      OBinaryField field = doc == null ? null : readField(doc, source);
+      if (field == null || !isCompatible(field)) {
+        return condition.evaluate(item, ctx);
+      }
+      OBinaryComparator comparator = ORecordSerializerBinary.INSTANCE.getCurrentSerializer().getComparator();
+      switch (kind) {
+      case EQ:
+        return comparator.isEqual(field, valueField);
+      case NE:
+        return !comparator.isEqual(field, valueField);
+      case LT:
+        return comparator.compare(field, valueField) < 0;
+      case LE:
+        return comparator.compare(field, valueField) <= 0;
+      case GT:
+        return comparator.compare(field, valueField) > 0;
+      default:
+        return comparator.compare(field, valueField) >= 0;
+      }
+    }
+
+    private OBinaryField readField(ODocument doc, byte[] source) {
+      OClass clazz = doc.getSchemaClass();
+      if (clazz == null) {
+        return null;
+      }
+      BytesContainer bytes = new BytesContainer(source);
+      ODocumentSerializer serializer = ORecordSerializerBinary.INSTANCE.getSerializer(bytes.bytes[bytes.offset++]);
+      if (serializer.isSerializingClassNameByDefault()) {
+        return serializer.deserializeFieldWithClassName(bytes, clazz, propertyName);
+      }
+      return serializer.deserializeField(bytes, clazz, propertyName);
+    }
+  }
+}
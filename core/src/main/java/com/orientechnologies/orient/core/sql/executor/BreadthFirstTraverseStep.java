@@ -3,16 +3,23 @@ package com.orientechnologies.orient.core.sql.executor;
 import com.orientechnologies.orient.core.command.OCommandContext;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
 import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.record.ORecord;
 import com.orientechnologies.orient.core.sql.parser.OInteger;
 import com.orientechnologies.orient.core.sql.parser.OTraverseProjectionItem;
 import com.orientechnologies.orient.core.sql.parser.OWhereClause;
 
 import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * Created by luigidellaquila on 26/10/16.
  */
 public class BreadthFirstTraverseStep extends AbstractTraverseStep {
+  /**
+   * depth of the level which is too small to be expanded concurrently, so the size of the level is not counted again for every
+   * entry point
+   */
+  private int sequentialDepth = -1;
 
   public BreadthFirstTraverseStep(List<OTraverseProjectionItem> projections, OWhereClause whileClause, OInteger maxDepth,
       OCommandContext ctx, boolean profilingEnabled) {
@@ -77,6 +84,12 @@ public class BreadthFirstTraverseStep extends AbstractTraverseStep {
   @Override
   protected void fetchNextResults(OCommandContext ctx, int nRecords) {
     if (!this.entryPoints.isEmpty()) {
+      int frontierSize = getParallelFrontierSize(ctx);
+      if (frontierSize > 0) {
+        expandFrontier(frontierSize, ctx);
+        return;
+      }
+
       OTraverseResult item = (OTraverseResult) this.entryPoints.remove(0);
       this.results.add(item);
       for (OTraverseProjectionItem proj : projections) {
@@ -88,6 +101,148 @@ public class BreadthFirstTraverseStep extends AbstractTraverseStep {
     }
   }
 
+  /**
+   * Levels are expanded concurrently in slices of {@link ParallelFrontierExpansion#getThreshold(OCommandContext)} entry points, so
+   * a query with a LIMIT does not expand the whole level before returning the first results.
+   *
+   * @return size of the slice of the level which starts at the first entry point if it has to be expanded concurrently, 0
+   * otherwise
+   */
+  private int getParallelFrontierSize(OCommandContext ctx) {
+    int depth = depthOf(this.entryPoints.get(0));
+    if (depth == sequentialDepth) {
+      return 0;
+    }
+
+    // ENTRY POINTS ARE ORDERED BY DEPTH, THE LEVEL IS COMPLETE AS SOON AS THE PREVIOUS ONE HAS BEEN EXPANDED
+    int threshold = ParallelFrontierExpansion.getThreshold(ctx);
+    int size = 0;
+    while (size < threshold && size < this.entryPoints.size() && depthOf(this.entryPoints.get(size)) == depth) {
+      size++;
+    }
+    if (ParallelFrontierExpansion.isEnabled(ctx, size)) {
+      return size;
+    }
+    sequentialDepth = depth;
+    return 0;
+  }
+
+  /**
+   * Expands a slice of the level of the traversal concurrently. Neighbors of the slice are collected by the workers, merged into
+   * the traversed set in the order of the level, so the result is the same of the sequential traversal, then loaded and filtered
+   * by the WHILE condition by the workers.
+   */
+  private void expandFrontier(int size, OCommandContext ctx) {
+    List<OResult> frontier = new ArrayList<>(this.entryPoints.subList(0, size));
+    this.entryPoints.subList(0, size).clear();
+    this.results.addAll(frontier);
+
+    int depth = depthOf(frontier.get(0));
+    if (this.maxDepth != null && this.maxDepth.getValue().intValue() <= depth) {
+      return;
+    }
+
+    List<List<ORID>> neighbors = ParallelFrontierExpansion.expand(ctx, frontier, x -> x.getIdentity().orElse(null), () -> {
+      List<OTraverseProjectionItem> workerProjections = projections.stream().map(x -> x.copy()).collect(Collectors.toList());
+      return (item, workerCtx) -> collectNeighbors(item, workerProjections, workerCtx);
+    });
+
+    List<OTraverseResult> candidates = new ArrayList<>();
+    List<ORID> candidateRids = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      List<OIdentifiable> path = (List<OIdentifiable>) frontier.get(i).getMetadata("$path");
+      for (ORID neighbor : neighbors.get(i)) {
+        if (this.traversed.contains(neighbor)) {
+          continue;
+        }
+        this.traversed.add(neighbor);
+
+        OTraverseResult res = new OTraverseResult();
+        setTraverseMetadata(res, depth + 1, path, neighbor);
+        candidates.add(res);
+        candidateRids.add(neighbor);
+      }
+    }
+
+    List<Integer> indexes = new ArrayList<>(candidates.size());
+    for (int i = 0; i < candidates.size(); i++) {
+      indexes.add(i);
+    }
+    List<Boolean> accepted = ParallelFrontierExpansion.expand(ctx, indexes, candidateRids::get, () -> {
+      OWhereClause workerWhileClause = whileClause == null ? null : whileClause.copy();
+      return (i, workerCtx) -> {
+        ORecord record = candidateRids.get(i).getRecord();
+        if (record == null) {
+          return false;
+        }
+        OTraverseResult candidate = candidates.get(i);
+        candidate.setElement(ParallelFrontierExpansion.deserialize(record));
+        return workerWhileClause == null || workerWhileClause.matchesFilters(candidate, workerCtx);
+      };
+    });
+
+    for (int i = 0; i < candidates.size(); i++) {
+      if (accepted.get(i)) {
+        this.entryPoints.add(candidates.get(i));
+      }
+    }
+  }
+
+  private List<ORID> collectNeighbors(OResult item, List<OTraverseProjectionItem> workerProjections, OCommandContext workerCtx) {
+    OResult workerItem = item;
+    ORID rid = item.getIdentity().orElse(null);
+    if (rid != null && rid.isPersistent()) {
+      // THE RECORD IS LOADED AGAIN BY THE DATABASE OF THE WORKER
+      OTraverseResult reloaded = new OTraverseResult();
+      reloaded.setElement(rid);
+      reloaded.depth = depthOf(item);
+      for (String key : item.getMetadataKeys()) {
+        reloaded.setMetadata(key, item.getMetadata(key));
+      }
+      workerItem = reloaded;
+    }
+
+    List<ORID> result = new ArrayList<>();
+    for (OTraverseProjectionItem proj : workerProjections) {
+      collectNeighbors(proj.execute(workerItem, workerCtx), result);
+    }
+    return result;
+  }
+
+  private void collectNeighbors(Object nextStep, List<ORID> result) {
+    if (nextStep instanceof OIdentifiable) {
+      result.add(((OIdentifiable) nextStep).getIdentity());
+    } else if (nextStep instanceof Iterable) {
+      for (Object item : (Iterable) nextStep) {
+        collectNeighbors(item, result);
+      }
+    } else if (nextStep instanceof OResult && ((OResult) nextStep).isElement()) {
+      result.add(((OResult) nextStep).getElement().get().getIdentity());
+    }
+  }
+
+  private static int depthOf(OResult item) {
+    Integer depth = item instanceof OTraverseResult ? ((OTraverseResult) item).depth : null;
+    return depth == null ? 0 : depth;
+  }
+
+  private static void setTraverseMetadata(OTraverseResult res, int depth, List<OIdentifiable> path, ORID rid) {
+    res.depth = depth;
+    res.setMetadata("$depth", depth);
+
+    List<OIdentifiable> newPath = new ArrayList<>();
+    newPath.addAll(path);
+    newPath.add(rid);
+    res.setMetadata("$path", newPath);
+
+    List reverseStack = new ArrayList();
+    reverseStack.addAll(newPath);
+    Collections.reverse(reverseStack);
+    List newStack = new ArrayList();
+    newStack.addAll(reverseStack);
+    res.setMetadata("$stack", newStack);
+  }
+
   private void addNextEntryPoints(Object nextStep, int depth, List<OIdentifiable> path, OCommandContext ctx) {
     if (nextStep instanceof OIdentifiable) {
       addNextEntryPoints(((OIdentifiable) nextStep), depth, path, ctx);
@@ -110,20 +265,7 @@ public class BreadthFirstTraverseStep extends AbstractTraverseStep {
     }
     OTraverseResult res = new OTraverseResult();
     res.setElement(nextStep);
-    res.depth = depth;
-    res.setMetadata("$depth", depth);
-
-    List<OIdentifiable> newPath = new ArrayList<>();
-    newPath.addAll(path);
-    newPath.add(res.getIdentity().get());
-    res.setMetadata("$path", newPath);
-
-    List reverseStack = new ArrayList();
-    reverseStack.addAll(newPath);
-    Collections.reverse(reverseStack);
-    List newStack = new ArrayList();
-    newStack.addAll(reverseStack);
-    res.setMetadata("$stack", newStack);
+    setTraverseMetadata(res, depth, path, res.getIdentity().get());
 
     tryAddEntryPoint(res, ctx);
 
@@ -2,6 +2,7 @@ package com.orientechnologies.orient.core.sql.executor;
 
 import com.orientechnologies.common.concur.OTimeoutException;
 import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 import com.orientechnologies.orient.core.id.ORID;
 
 import java.util.HashSet;
@@ -11,11 +12,16 @@ import java.util.Set;
 
 /**
  * Created by luigidellaquila on 08/07/16.
+ * <p>
+ * Records are tracked by RID in an {@link OCompactRidSet}. Projections are kept on the heap up to
+ * {@link OGlobalConfiguration#QUERY_DISTINCT_OFF_HEAP_THRESHOLD}, then they are tracked by a {@link ResultFingerprintSet} in direct
+ * memory, that spills to disk beyond {@link OGlobalConfiguration#QUERY_DISTINCT_MAX_MEMORY}.
  */
 public class DistinctExecutionStep extends AbstractExecutionStep {
 
-  Set<OResult> pastItems = new HashSet<>();
-  ORidSet      pastRids  = new ORidSet();
+  Set<OResult>         pastItems        = new HashSet<>();
+  OCompactRidSet       pastRids         = new OCompactRidSet();
+  ResultFingerprintSet pastFingerprints = null;
 
   OResultSet lastResult = null;
   OResult nextValue;
@@ -89,15 +95,15 @@ public class DistinctExecutionStep extends AbstractExecutionStep {
         lastResult = getPrev().get().syncPull(ctx, nRecords);
       }
       if (lastResult == null || !lastResult.hasNext()) {
+        // all the results were returned, the memory can be released
+        releaseVisited();
         return;
       }
       long begin = profilingEnabled ? System.nanoTime() : 0;
       try {
         nextValue = lastResult.next();
-        if (alreadyVisited(nextValue)) {
+        if (!markAsVisited(nextValue)) {
           nextValue = null;
-        } else {
-          markAsVisited(nextValue);
         }
       } finally {
         if (profilingEnabled) {
@@ -107,29 +113,55 @@ public class DistinctExecutionStep extends AbstractExecutionStep {
     }
   }
 
-  private void markAsVisited(OResult nextValue) {
+  /**
+   * @return true if the result was not visited yet
+   */
+  private boolean markAsVisited(OResult nextValue) {
     if (nextValue.isElement()) {
       ORID identity = nextValue.getElement().get().getIdentity();
       int cluster = identity.getClusterId();
       long pos = identity.getClusterPosition();
       if (cluster >= 0 && pos >= 0) {
-        pastRids.add(identity);
-        return;
+        return pastRids.add(identity);
+      }
+    }
+    if (pastItems.contains(nextValue)) {
+      return false;
+    }
+    if (nextValue.isProjection() && pastItems.size() >= getOffHeapThreshold()) {
+      byte[] key = ResultFingerprintSet.toKey(nextValue);
+      if (key != null) {
+        if (pastFingerprints == null) {
+          pastFingerprints = new ResultFingerprintSet(getMaxMemory());
+        }
+        return pastFingerprints.add(key);
       }
     }
     pastItems.add(nextValue);
+    return true;
   }
 
-  private boolean alreadyVisited(OResult nextValue) {
-    if (nextValue.isElement()) {
-      ORID identity = nextValue.getElement().get().getIdentity();
-      int cluster = identity.getClusterId();
-      long pos = identity.getClusterPosition();
-      if (cluster >= 0 && pos >= 0) {
-        return pastRids.contains(identity);
-      }
+  private int getOffHeapThreshold() {
+    if (ctx.getDatabase() != null) {
+      return ctx.getDatabase().getConfiguration().getValueAsInteger(OGlobalConfiguration.QUERY_DISTINCT_OFF_HEAP_THRESHOLD);
+    }
+    return OGlobalConfiguration.QUERY_DISTINCT_OFF_HEAP_THRESHOLD.getValueAsInteger();
+  }
+
+  private long getMaxMemory() {
+    if (ctx.getDatabase() != null) {
+      return ctx.getDatabase().getConfiguration().getValueAsLong(OGlobalConfiguration.QUERY_DISTINCT_MAX_MEMORY);
+    }
+    return OGlobalConfiguration.QUERY_DISTINCT_MAX_MEMORY.getValueAsLong();
+  }
+
+  private void releaseVisited() {
+    pastItems = new HashSet<>();
+    pastRids.close();
+    if (pastFingerprints != null) {
+      pastFingerprints.close();
+      pastFingerprints = null;
     }
-    return pastItems.contains(nextValue);
   }
 
   @Override
@@ -139,6 +171,7 @@ public class DistinctExecutionStep extends AbstractExecutionStep {
 
   @Override
   public void close() {
+    releaseVisited();
     prev.ifPresent(x -> x.close());
   }
 
@@ -66,10 +66,15 @@ public class FetchFromClusterExecutionStep extends AbstractExecutionStep {
             if (nFetched >= nRecords) {
               return false;
             }
-            if (ORDER_DESC == order) {
-              return iterator.hasPrevious();
-            } else {
-              return iterator.hasNext();
+            boolean prefetch = startScan(ctx);
+            try {
+              if (ORDER_DESC == order) {
+                return iterator.hasPrevious();
+              } else {
+                return iterator.hasNext();
+              }
+            } finally {
+              endScan(ctx, prefetch);
             }
           } finally {
             if (profilingEnabled) {
@@ -95,10 +100,15 @@ public class FetchFromClusterExecutionStep extends AbstractExecutionStep {
             }
 
             ORecord record = null;
-            if (ORDER_DESC == order) {
-              record = iterator.previous();
-            } else {
-              record = iterator.next();
+            boolean prefetch = startScan(ctx);
+            try {
+              if (ORDER_DESC == order) {
+                record = iterator.previous();
+              } else {
+                record = iterator.next();
+              }
+            } finally {
+              endScan(ctx, prefetch);
             }
             nFetched++;
             OResultInternal result = new OResultInternal();
@@ -137,6 +147,22 @@ public class FetchFromClusterExecutionStep extends AbstractExecutionStep {
 
   }
 
+  /**
+   * marks the reads of the iterator as part of a scan, so that the storage reads ahead the pages of the cluster
+   *
+   * @return the previous value of the flag, to be restored by {@link #endScan(OCommandContext, boolean)}
+   */
+  private static boolean startScan(OCommandContext ctx) {
+    ODatabaseDocumentInternal db = (ODatabaseDocumentInternal) ctx.getDatabase();
+    boolean prefetch = db.isPrefetchRecords();
+    db.setPrefetchRecords(true);
+    return prefetch;
+  }
+
+  private static void endScan(OCommandContext ctx, boolean prefetch) {
+    ((ODatabaseDocumentInternal) ctx.getDatabase()).setPrefetchRecords(prefetch);
+  }
+
   private long calculateMinClusterPosition() {
     if (queryPlanning == null || queryPlanning.ridRangeConditions == null || queryPlanning.ridRangeConditions.isEmpty()) {
       return -1;
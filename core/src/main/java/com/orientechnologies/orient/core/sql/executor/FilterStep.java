@@ -11,12 +11,24 @@ import java.util.Optional;
 
 /**
  * Created by luigidellaquila on 12/07/16.
+ * <p>
+ * When the where clause contains comparisons between properties and constants, the results are filtered in batches with a {@link
+ * BinaryBatchFilter}, that evaluates them on the serialized records.
  */
 public class FilterStep extends AbstractExecutionStep {
+  private static final int BATCH_SIZE = 256;
+
   private OWhereClause whereClause;
 
   OResultSet prevResult = null;
 
+  private boolean           batchFilterChecked = false;
+  private BinaryBatchFilter batchFilter;
+  private OResult[]         batch;
+  private int[]             selection;
+  private int               selectionSize      = 0;
+  private int               selectionPos       = 0;
+
   private long cost;
 
   public FilterStep(OWhereClause whereClause, OCommandContext ctx, boolean profilingEnabled) {
@@ -30,6 +42,14 @@ public class FilterStep extends AbstractExecutionStep {
       throw new IllegalStateException("filter step requires a previous step");
     }
     OExecutionStepInternal prevStep = prev.get();
+    if (!batchFilterChecked) {
+      batchFilterChecked = true;
+      batchFilter = BinaryBatchFilter.create(whereClause, ctx);
+      if (batchFilter != null) {
+        batch = new OResult[BATCH_SIZE];
+        selection = new int[BATCH_SIZE];
+      }
+    }
 
     return new OResultSet() {
       public boolean finished = false;
@@ -42,6 +62,10 @@ public class FilterStep extends AbstractExecutionStep {
         if (finished) {
           return;
         }
+        if (batchFilter != null) {
+          fetchNextFromBatch();
+          return;
+        }
         if (prevResult == null) {
           prevResult = prevStep.syncPull(ctx, nRecords);
           if (!prevResult.hasNext()) {
@@ -73,6 +97,34 @@ public class FilterStep extends AbstractExecutionStep {
         }
       }
 
+      private void fetchNextFromBatch() {
+        while (selectionPos >= selectionSize) {
+          int size = 0;
+          while (size == 0) {
+            if (prevResult == null || !prevResult.hasNext()) {
+              prevResult = prevStep.syncPull(ctx, nRecords);
+              if (!prevResult.hasNext()) {
+                finished = true;
+                return;
+              }
+            }
+            while (size < BATCH_SIZE && prevResult.hasNext()) {
+              batch[size++] = prevResult.next();
+            }
+          }
+          long begin = profilingEnabled ? System.nanoTime() : 0;
+          try {
+            selectionSize = batchFilter.filter(batch, size, selection, ctx);
+            selectionPos = 0;
+          } finally {
+            if (profilingEnabled) {
+              cost += (System.nanoTime() - begin);
+            }
+          }
+        }
+        nextItem = batch[selection[selectionPos++]];
+      }
+
       @Override
       public boolean hasNext() {
 
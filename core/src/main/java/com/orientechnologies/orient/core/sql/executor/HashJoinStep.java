@@ -0,0 +1,601 @@
+package com.orientechnologies.orient.core.sql.executor;
+
+import com.orientechnologies.common.concur.OTimeoutException;
+import com.orientechnologies.orient.core.command.OBasicCommandContext;
+import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.exception.OCommandExecutionException;
+import com.orientechnologies.orient.core.sql.operator.OQueryOperatorEquals;
+import com.orientechnologies.orient.core.sql.parser.OExpression;
+import com.orientechnologies.orient.core.sql.parser.OIdentifier;
+import com.orientechnologies.orient.core.sql.parser.OLocalResultSet;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * Equality join between the results of the previous step (probe side) and the results of a sub-plan (build side).
+ * <p>
+ * The sub-plan is executed only once and its results are hashed on the build key; then, for each record of the probe side, the
+ * probe key is calculated and the matching records are looked up in the hash table. Hash table candidates are checked with the
+ * SQL equality operator, so the result is the same as evaluating the original condition for each couple of records. Keys are
+ * hashed only against keys of the same kind (eg. numbers against numbers), keys of different kinds (eg. the string '1.0' and the
+ * number 1) can still be equal after the conversions of the operator, so they are always compared one by one.
+ * <p>
+ * The step works in two ways:
+ * <ul>
+ * <li>inner join (MATCH): each couple of matching records is merged in a single result</li>
+ * <li>LET join (correlated LET subqueries): the list of the matching build records is saved in a LET variable of the probe record,
+ * as {@link LetQueryStep} does executing the subquery for each record</li>
+ * </ul>
+ * When the build side exceeds {@link OGlobalConfiguration#QUERY_HASH_JOIN_MAX_IN_MEMORY} records, both the sides are partitioned by
+ * key to temporary files and then joined one partition at a time; in this case the results are not returned in the order of the
+ * probe side.
+ */
+public class HashJoinStep extends AbstractExecutionStep {
+
+  private static final int    SPILL_PARTITIONS = 32;
+  /**
+   * hash key of values that do not have a reliable hash code (eg. collections or embedded documents): they are all checked with the
+   * SQL equality operator
+   */
+  private static final Object UNHASHABLE       = new Object();
+
+  /**
+   * kinds of join keys: two keys of the same kind are equal for the SQL equality operator only if their hash keys are equal
+   */
+  enum KeyKind {
+    INTEGER, FLOATING, BIG_INTEGER, BIG_DECIMAL, STRING, BOOLEAN, DATE, LINK, OTHER
+  }
+
+  private final OInternalExecutionPlan buildPlan;
+  private final String                 buildAlias;
+  private final OExpression            buildKey;
+  private final OExpression            probeKey;
+  private final boolean                buildKeyOnLeft;
+  private final OIdentifier            letVarName;
+
+  private boolean                                     inited     = false;
+  private Map<KeyKind, Map<Object, List<BuildEntry>>> hashTable  = new EnumMap<>(KeyKind.class);
+  private final Set<KeyKind>                          buildKinds = EnumSet.noneOf(KeyKind.class);
+
+  private List<ResultSpillFile> buildPartitions;
+  private List<ResultSpillFile> probePartitions;
+  private int                   nextPartition = 0;
+  private Iterator<OResult>     currentProbePartition;
+  /**
+   * probe records whose key can be equal to build keys of other kinds, that are in any partition
+   */
+  private ResultSpillFile       crossKindProbes;
+  private Iterator<OResult>     crossKindProbeIterator;
+
+  private OBasicCommandContext probeCtx;
+  private OBasicCommandContext keyCtx;
+  private OResultSet           probeSource;
+  private Iterator<OResult>    pending = Collections.emptyIterator();
+  private OResult              nextResult;
+
+  private long cost = 0;
+
+  private static class BuildEntry {
+    private final Object  key;
+    private final OResult result;
+
+    BuildEntry(Object key, OResult result) {
+      this.key = key;
+      this.result = result;
+    }
+  }
+
+  /**
+   * creates an inner join, that returns the merge of each couple of matching records
+   *
+   * @param buildPlan      the execution plan of the build side
+   * @param buildAlias     if not null, the build key is calculated on this property of the build records (eg. a MATCH alias)
+   * @param buildKey       the key of the build records
+   * @param probeKey       the key of the probe records; it can refer to the probe record as $current or as $matched
+   * @param buildKeyOnLeft true if the build key is the left operand of the original equality condition
+   */
+  public HashJoinStep(OInternalExecutionPlan buildPlan, String buildAlias, OExpression buildKey, OExpression probeKey,
+      boolean buildKeyOnLeft, OCommandContext ctx, boolean profilingEnabled) {
+    this(buildPlan, buildAlias, buildKey, probeKey, buildKeyOnLeft, null, ctx, profilingEnabled);
+  }
+
+  /**
+   * creates a LET join, that saves the list of the matching build records in the letVarName variable of each probe record
+   *
+   * @param letVarName     the LET variable
+   * @param buildPlan      the execution plan of the build side (the subquery, without the correlated condition)
+   * @param buildKey       the key of the build records
+   * @param probeKey       the key of the probe records; it can refer to the probe record as $parent.$current
+   * @param buildKeyOnLeft true if the build key is the left operand of the original equality condition
+   */
+  public HashJoinStep(OIdentifier letVarName, OInternalExecutionPlan buildPlan, OExpression buildKey, OExpression probeKey,
+      boolean buildKeyOnLeft, OCommandContext ctx, boolean profilingEnabled) {
+    this(buildPlan, null, buildKey, probeKey, buildKeyOnLeft, letVarName, ctx, profilingEnabled);
+  }
+
+  private HashJoinStep(OInternalExecutionPlan buildPlan, String buildAlias, OExpression buildKey, OExpression probeKey,
+      boolean buildKeyOnLeft, OIdentifier letVarName, OCommandContext ctx, boolean profilingEnabled) {
+    super(ctx, profilingEnabled);
+    this.buildPlan = buildPlan;
+    this.buildAlias = buildAlias;
+    this.buildKey = buildKey;
+    this.probeKey = probeKey;
+    this.buildKeyOnLeft = buildKeyOnLeft;
+    this.letVarName = letVarName;
+  }
+
+  @Override
+  public OResultSet syncPull(OCommandContext ctx, int nRecords) throws OTimeoutException {
+    if (!getPrev().isPresent()) {
+      throw new OCommandExecutionException("Cannot execute a hash join without a previous result");
+    }
+    init(ctx, nRecords);
+    return new OResultSet() {
+      int localCount = 0;
+
+      @Override
+      public boolean hasNext() {
+        if (localCount >= nRecords) {
+          return false;
+        }
+        if (nextResult == null) {
+          nextResult = fetchNext(ctx, nRecords);
+        }
+        return nextResult != null;
+      }
+
+      @Override
+      public OResult next() {
+        if (!hasNext()) {
+          throw new IllegalStateException();
+        }
+        OResult result = nextResult;
+        nextResult = null;
+        localCount++;
+        return result;
+      }
+
+      @Override
+      public void close() {
+
+      }
+
+      @Override
+      public Optional<OExecutionPlan> getExecutionPlan() {
+        return null;
+      }
+
+      @Override
+      public Map<String, Long> getQueryStats() {
+        return null;
+      }
+    };
+  }
+
+  private void init(OCommandContext ctx, int nRecords) {
+    if (inited) {
+      return;
+    }
+    inited = true;
+    long begin = profilingEnabled ? System.nanoTime() : 0;
+    try {
+      probeCtx = new OBasicCommandContext();
+      probeCtx.setParentWithoutOverridingChild(ctx);
+      keyCtx = new OBasicCommandContext();
+      keyCtx.setParentWithoutOverridingChild(probeCtx);
+
+      //the first pull of the probe side also executes the steps before it (eg. MATCH prefetch), that the build side can depend on
+      probeSource = getPrev().get().syncPull(ctx, nRecords);
+
+      int maxInMemory = getMaxInMemory(ctx);
+      long inMemory = 0;
+      OLocalResultSet buildResult = new OLocalResultSet(buildPlan);
+      while (buildResult.hasNext()) {
+        OResult item = buildResult.next();
+        Object key = calculateBuildKey(item, ctx);
+        Object value = unwrapKey(key);
+        KeyKind kind = kindOf(value);
+        if (kind == null) {
+          //null never matches
+          continue;
+        }
+        buildKinds.add(kind);
+        if (buildPartitions != null) {
+          writeToPartition(buildPartitions, item, kind, toHashKey(value, kind));
+          continue;
+        }
+        addToHashTable(key, value, kind, item);
+        inMemory++;
+        if (maxInMemory > 0 && inMemory > maxInMemory) {
+          spillBuildSide();
+        }
+      }
+      buildResult.close();
+
+      if (buildPartitions != null) {
+        partitionProbeSide(ctx, nRecords);
+      }
+    } finally {
+      if (profilingEnabled) {
+        cost += (System.nanoTime() - begin);
+      }
+    }
+  }
+
+  private int getMaxInMemory(OCommandContext ctx) {
+    if (ctx.getDatabase() != null) {
+      return ctx.getDatabase().getConfiguration().getValueAsInteger(OGlobalConfiguration.QUERY_HASH_JOIN_MAX_IN_MEMORY);
+    }
+    return OGlobalConfiguration.QUERY_HASH_JOIN_MAX_IN_MEMORY.getValueAsInteger();
+  }
+
+  /**
+   * moves the content of the hash table to the build partitions; from now on the build records are written directly to the
+   * partitions
+   */
+  private void spillBuildSide() {
+    buildPartitions = createPartitions();
+    for (Map.Entry<KeyKind, Map<Object, List<BuildEntry>>> table : hashTable.entrySet()) {
+      for (Map.Entry<Object, List<BuildEntry>> entry : table.getValue().entrySet()) {
+        for (BuildEntry buildEntry : entry.getValue()) {
+          writeToPartition(buildPartitions, buildEntry.result, table.getKey(), entry.getKey());
+        }
+      }
+    }
+    hashTable = new EnumMap<>(KeyKind.class);
+  }
+
+  /**
+   * consumes the whole probe side and writes it to the probe partitions; records whose key can be equal to build keys of other
+   * kinds are written apart, they are joined with all the partitions
+   */
+  private void partitionProbeSide(OCommandContext ctx, int nRecords) {
+    probePartitions = createPartitions();
+    OExecutionStepInternal prevStep = getPrev().get();
+    OResultSet lastRs = probeSource;
+    while (lastRs.hasNext()) {
+      OResult item = lastRs.next();
+      Object value = unwrapKey(calculateProbeKey(item));
+      KeyKind kind = kindOf(value);
+      if (kind == null) {
+        if (letVarName != null) {
+          //for a LET join, records without a key are returned with an empty list
+          writeToPartition(probePartitions, item, null, null);
+        }
+      } else if (hasOtherBuildKinds(kind)) {
+        if (crossKindProbes == null) {
+          crossKindProbes = new ResultSpillFile();
+        }
+        crossKindProbes.write(item);
+      } else {
+        writeToPartition(probePartitions, item, kind, toHashKey(value, kind));
+      }
+      if (!lastRs.hasNext()) {
+        lastRs = prevStep.syncPull(ctx, nRecords);
+      }
+    }
+  }
+
+  private List<ResultSpillFile> createPartitions() {
+    List<ResultSpillFile> result = new ArrayList<>();
+    for (int i = 0; i < SPILL_PARTITIONS; i++) {
+      result.add(new ResultSpillFile());
+    }
+    return result;
+  }
+
+  private void writeToPartition(List<ResultSpillFile> partitions, OResult item, KeyKind kind, Object hashKey) {
+    int partition = kind == null ? 0 : Math.floorMod(31 * kind.ordinal() + hashKey.hashCode(), partitions.size());
+    partitions.get(partition).write(item);
+  }
+
+  /**
+   * @return true if the build side has keys of kinds other than the given one, that have to be compared one by one
+   */
+  private boolean hasOtherBuildKinds(KeyKind kind) {
+    return buildKinds.size() > (buildKinds.contains(kind) ? 1 : 0);
+  }
+
+  private OResult fetchNext(OCommandContext ctx, int nRecords) {
+    while (true) {
+      if (pending.hasNext()) {
+        return pending.next();
+      }
+      OResult probe = nextProbe(ctx, nRecords);
+      if (probe == null) {
+        return null;
+      }
+      long begin = profilingEnabled ? System.nanoTime() : 0;
+      try {
+        pending = currentProbePartition != null && currentProbePartition == crossKindProbeIterator ?
+            joinWithAllPartitions(probe, ctx) :
+            join(probe);
+      } finally {
+        if (profilingEnabled) {
+          cost += (System.nanoTime() - begin);
+        }
+      }
+    }
+  }
+
+  private OResult nextProbe(OCommandContext ctx, int nRecords) {
+    if (probePartitions != null) {
+      while (currentProbePartition == null || !currentProbePartition.hasNext()) {
+        if (nextPartition < probePartitions.size()) {
+          loadPartition(ctx, nextPartition);
+          nextPartition++;
+        } else if (crossKindProbes != null && crossKindProbeIterator == null) {
+          hashTable = new EnumMap<>(KeyKind.class);
+          crossKindProbeIterator = crossKindProbes.iterator();
+          currentProbePartition = crossKindProbeIterator;
+        } else {
+          closePartitions();
+          return null;
+        }
+      }
+      return currentProbePartition.next();
+    }
+    if (probeSource == null || !probeSource.hasNext()) {
+      probeSource = getPrev().get().syncPull(ctx, nRecords);
+      if (!probeSource.hasNext()) {
+        return null;
+      }
+    }
+    return probeSource.next();
+  }
+
+  private void loadPartition(OCommandContext ctx, int partition) {
+    long begin = profilingEnabled ? System.nanoTime() : 0;
+    try {
+      if (partition > 0) {
+        if (crossKindProbes == null) {
+          //otherwise build partitions are read again by the probe records of other kinds
+          buildPartitions.get(partition - 1).close();
+        }
+        probePartitions.get(partition - 1).close();
+      }
+      hashTable = new EnumMap<>(KeyKind.class);
+      Iterator<OResult> buildIterator = buildPartitions.get(partition).iterator();
+      while (buildIterator.hasNext()) {
+        OResult item = buildIterator.next();
+        Object key = calculateBuildKey(item, ctx);
+        Object value = unwrapKey(key);
+        KeyKind kind = kindOf(value);
+        if (kind != null) {
+          addToHashTable(key, value, kind, item);
+        }
+      }
+      currentProbePartition = probePartitions.get(partition).iterator();
+    } finally {
+      if (profilingEnabled) {
+        cost += (System.nanoTime() - begin);
+      }
+    }
+  }
+
+  private void addToHashTable(Object key, Object value, KeyKind kind, OResult item) {
+    hashTable.computeIfAbsent(kind, k -> new HashMap<>()).computeIfAbsent(toHashKey(value, kind), k -> new ArrayList<>())
+        .add(new BuildEntry(key, item));
+  }
+
+  private Iterator<OResult> join(OResult probe) {
+    Object key = calculateProbeKey(probe);
+    Object value = unwrapKey(key);
+    KeyKind kind = kindOf(value);
+    List<OResult> matches = new ArrayList<>();
+    if (kind != null) {
+      for (Map.Entry<KeyKind, Map<Object, List<BuildEntry>>> table : hashTable.entrySet()) {
+        if (table.getKey() == kind) {
+          addMatches(table.getValue().get(toHashKey(value, kind)), key, matches);
+        } else {
+          for (List<BuildEntry> candidates : table.getValue().values()) {
+            addMatches(candidates, key, matches);
+          }
+        }
+      }
+    }
+    return toResults(probe, matches);
+  }
+
+  /**
+   * joins a probe record whose key can be equal to build keys of other kinds, comparing its key with the key of every build
+   * record
+   */
+  private Iterator<OResult> joinWithAllPartitions(OResult probe, OCommandContext ctx) {
+    Object key = calculateProbeKey(probe);
+    List<OResult> matches = new ArrayList<>();
+    for (ResultSpillFile partition : buildPartitions) {
+      Iterator<OResult> buildIterator = partition.iterator();
+      while (buildIterator.hasNext()) {
+        OResult item = buildIterator.next();
+        if (keysEqual(calculateBuildKey(item, ctx), key)) {
+          matches.add(item);
+        }
+      }
+    }
+    return toResults(probe, matches);
+  }
+
+  private void addMatches(List<BuildEntry> candidates, Object probeKey, List<OResult> matches) {
+    if (candidates != null) {
+      for (BuildEntry candidate : candidates) {
+        if (keysEqual(candidate.key, probeKey)) {
+          matches.add(candidate.result);
+        }
+      }
+    }
+  }
+
+  private boolean keysEqual(Object buildKey, Object probeKey) {
+    return buildKeyOnLeft ? OQueryOperatorEquals.equals(buildKey, probeKey) : OQueryOperatorEquals.equals(probeKey, buildKey);
+  }
+
+  private Iterator<OResult> toResults(OResult probe, List<OResult> matches) {
+    if (letVarName != null) {
+      ((OResultInternal) probe).setMetadata(letVarName.getStringValue(), matches);
+      return Collections.singletonList(probe).iterator();
+    }
+    List<OResult> result = new ArrayList<>(matches.size());
+    for (OResult match : matches) {
+      OResultInternal merged = new OResultInternal();
+      for (String s : probe.getPropertyNames()) {
+        merged.setProperty(s, probe.getProperty(s));
+      }
+      for (String s : match.getPropertyNames()) {
+        merged.setProperty(s, match.getProperty(s));
+      }
+      result.add(merged);
+    }
+    return result.iterator();
+  }
+
+  private Object calculateBuildKey(OResult item, OCommandContext ctx) {
+    OResult target = item;
+    if (buildAlias != null) {
+      Object value = item.getProperty(buildAlias);
+      if (value instanceof OResult) {
+        target = (OResult) value;
+      } else if (value instanceof OIdentifiable) {
+        target = new OResultInternal((OIdentifiable) value);
+      } else {
+        return null;
+      }
+    }
+    return buildKey.execute(target, ctx);
+  }
+
+  private Object calculateProbeKey(OResult item) {
+    probeCtx.setVariable("$current", item);
+    probeCtx.setVariable("$matched", item);
+    return probeKey.execute(item, keyCtx);
+  }
+
+  private static Object unwrapKey(Object key) {
+    if (key instanceof OResult && ((OResult) key).isElement()) {
+      return ((OResult) key).getElement().get();
+    }
+    return key;
+  }
+
+  /**
+   * @return the kind of the join key, or null if the value cannot match any other value
+   */
+  static KeyKind kindOf(Object value) {
+    if (value == null) {
+      return null;
+    }
+    if (value instanceof OIdentifiable) {
+      return ((OIdentifiable) value).getIdentity().isPersistent() ? KeyKind.LINK : KeyKind.OTHER;
+    }
+    if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+      return KeyKind.INTEGER;
+    }
+    if (value instanceof Double || value instanceof Float) {
+      return KeyKind.FLOATING;
+    }
+    if (value instanceof BigInteger) {
+      return KeyKind.BIG_INTEGER;
+    }
+    if (value instanceof BigDecimal) {
+      return KeyKind.BIG_DECIMAL;
+    }
+    if (value instanceof String) {
+      return KeyKind.STRING;
+    }
+    if (value instanceof Boolean) {
+      return KeyKind.BOOLEAN;
+    }
+    if (value instanceof Date) {
+      return KeyKind.DATE;
+    }
+    return KeyKind.OTHER;
+  }
+
+  /**
+   * normalizes a join key, so that values of the same kind that are equal for the SQL equality operator (eg. 1 and 1L, or a
+   * record and its RID) fall in the same bucket of the hash table
+   */
+  static Object toHashKey(Object value, KeyKind kind) {
+    switch (kind) {
+    case LINK:
+      return ((OIdentifiable) value).getIdentity();
+    case INTEGER:
+      return ((Number) value).longValue();
+    case FLOATING:
+      return ((Number) value).doubleValue();
+    case DATE:
+      return ((Date) value).getTime();
+    case OTHER:
+      return UNHASHABLE;
+    default:
+      return value;
+    }
+  }
+
+  private void closePartitions() {
+    if (crossKindProbes != null) {
+      crossKindProbes.close();
+    }
+    if (buildPartitions != null) {
+      for (ResultSpillFile partition : buildPartitions) {
+        partition.close();
+      }
+    }
+    if (probePartitions != null) {
+      for (ResultSpillFile partition : probePartitions) {
+        partition.close();
+      }
+    }
+  }
+
+  @Override
+  public void sendTimeout() {
+    super.sendTimeout();
+    buildPlan.getSteps().forEach(x -> ((OExecutionStepInternal) x).sendTimeout());
+  }
+
+  @Override
+  public void close() {
+    closePartitions();
+    buildPlan.close();
+    super.close();
+  }
+
+  @Override
+  public List<OExecutionPlan> getSubExecutionPlans() {
+    return Collections.singletonList(buildPlan);
+  }
+
+  @Override
+  public String prettyPrint(int depth, int indent) {
+    String spaces = OExecutionStepInternal.getIndent(depth, indent);
+    StringBuilder result = new StringBuilder();
+    result.append(spaces);
+    result.append(letVarName == null ? "+ HASH JOIN" : "+ LET (hash join)");
+    if (profilingEnabled) {
+      result.append(" (" + getCostFormatted() + ")");
+    }
+    result.append("\n");
+    result.append(spaces);
+    result.append("  ");
+    if (letVarName != null) {
+      result.append(letVarName);
+      result.append(" ON ");
+    }
+    result.append(buildAlias == null ? buildKey : buildAlias + "." + buildKey);
+    result.append(" = ");
+    result.append(probeKey);
+    result.append("\n");
+    result.append(buildPlan.prettyPrint(depth + 1, indent));
+    return result.toString();
+  }
+
+  @Override
+  public long getCost() {
+    return cost;
+  }
+}
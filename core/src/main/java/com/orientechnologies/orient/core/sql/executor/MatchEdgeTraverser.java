@@ -1,16 +1,20 @@
 package com.orientechnologies.orient.core.sql.executor;
 
 import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
 import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.record.ODirection;
+import com.orientechnologies.orient.core.record.OEdge;
 import com.orientechnologies.orient.core.record.OElement;
-import com.orientechnologies.orient.core.sql.parser.OMatchPathItem;
-import com.orientechnologies.orient.core.sql.parser.ORid;
-import com.orientechnologies.orient.core.sql.parser.OWhereClause;
+import com.orientechnologies.orient.core.record.impl.OVertexCentricIndexes;
+import com.orientechnologies.orient.core.sql.parser.*;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
@@ -180,6 +184,10 @@ public class MatchEdgeTraverser {
         };
       };
 
+    } else if (isLevelTraversal(item, iCommandContext)) {
+      result = executeLevelTraversal(iCommandContext,
+          new TraversalConditions(filter, whileCondition, maxDepth, className, clusterId, targetRid), startingPoint, depth,
+          pathToHere);
     } else {// in this case also zero level (starting point) is considered and traversal depth is given by the while condition
       result = new ArrayList<>();
       iCommandContext.setVariable("$depth", depth);
@@ -231,6 +239,151 @@ public class MatchEdgeTraverser {
     return result;
   }
 
+  /**
+   * @return true if the traversal with while/maxDepth conditions can be executed level by level, expanding the large levels
+   * concurrently. Subclasses which traverse the pattern edges in a different way always use the recursive traversal.
+   */
+  private boolean isLevelTraversal(OMatchPathItem item, OCommandContext iCommandContext) {
+    return item == this.item && (getClass() == MatchEdgeTraverser.class || getClass() == OptionalMatchEdgeTraverser.class)
+        && ParallelFrontierExpansion.getThreshold(iCommandContext) > 0;
+  }
+
+  /**
+   * Executes the traversal with while/maxDepth conditions breadth-first, expanding concurrently the levels which are large enough.
+   * The result is the same of the recursive traversal: the traversal tree is built level by level, then it is visited depth-first.
+   */
+  private List<OResultInternal> executeLevelTraversal(OCommandContext iCommandContext, TraversalConditions conditions,
+      OIdentifiable startingPoint, int depth, List<OIdentifiable> pathToHere) {
+    TraversalNode root = new TraversalNode(startingPoint, depth, pathToHere);
+    List<TraversalNode> level = Collections.singletonList(root);
+    while (!level.isEmpty()) {
+      if (ParallelFrontierExpansion.isEnabled(iCommandContext, level.size())) {
+        ParallelFrontierExpansion.expand(iCommandContext, level, x -> x.element == null ? null : x.element.getIdentity(), () -> {
+          MatchEdgeTraverser worker = new MatchEdgeTraverser(sourceRecord, item.copy());
+          worker.edge = edge;
+          TraversalConditions workerConditions = conditions.copy();
+          return (node, workerCtx) -> {
+            worker.expandTraversalNode(node, reload(node.element), workerConditions, workerCtx);
+            for (TraversalNode child : node.children) {
+              ParallelFrontierExpansion.deserialize(child.element);
+            }
+            return null;
+          };
+        });
+      } else {
+        for (TraversalNode node : level) {
+          expandTraversalNode(node, node.element, conditions, iCommandContext);
+        }
+      }
+
+      List<TraversalNode> nextLevel = new ArrayList<>();
+      for (TraversalNode node : level) {
+        nextLevel.addAll(node.children);
+      }
+      level = nextLevel;
+    }
+
+    List<OResultInternal> result = new ArrayList<>();
+    Deque<TraversalNode> stack = new ArrayDeque<>();
+    stack.push(root);
+    while (!stack.isEmpty()) {
+      TraversalNode node = stack.pop();
+      if (node.included) {
+        OResultInternal rs = new OResultInternal(node.element);
+        // set traversal depth in the metadata
+        rs.setMetadata("$depth", node.depth);
+        // set traversal path in the metadata
+        rs.setMetadata("$matchPath", node.path == null ? Collections.EMPTY_LIST : node.path);
+        result.add(rs);
+      }
+      for (int i = node.children.size() - 1; i >= 0; i--) {
+        stack.push(node.children.get(i));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Evaluates the conditions of the node of the traversal and fetches its children if the traversal goes on.
+   *
+   * @param element the element of the node, loaded by the database of the current thread
+   */
+  private void expandTraversalNode(TraversalNode node, OIdentifiable element, TraversalConditions conditions,
+      OCommandContext iCommandContext) {
+    iCommandContext.setVariable("$depth", node.depth);
+    Object previousMatch = iCommandContext.getVariable("$currentMatch");
+    iCommandContext.setVariable("$currentMatch", element);
+
+    node.included = matchesFilters(iCommandContext, conditions.filter, element) && matchesClass(iCommandContext,
+        conditions.className, element) && matchesCluster(iCommandContext, conditions.clusterId, element) && matchesRid(
+        iCommandContext, conditions.targetRid, element);
+
+    if ((conditions.maxDepth == null || node.depth < conditions.maxDepth) && (conditions.whileCondition == null
+        || conditions.whileCondition.matchesFilters(element, iCommandContext))) {
+      node.children = new ArrayList<>();
+      for (OResultInternal origin : traversePatternEdge(element, iCommandContext)) {
+        List<OIdentifiable> newPath = new ArrayList<>();
+        if (node.path != null) {
+          newPath.addAll(node.path);
+        }
+
+        OElement elem = origin.toElement();
+        newPath.add(elem.getIdentity());
+        node.children.add(new TraversalNode(elem, node.depth + 1, newPath));
+      }
+    }
+    iCommandContext.setVariable("$currentMatch", previousMatch);
+  }
+
+  private static OIdentifiable reload(OIdentifiable element) {
+    if (element == null || !element.getIdentity().isPersistent()) {
+      return element;
+    }
+    OIdentifiable record = element.getIdentity().getRecord();
+    return record == null ? element : record;
+  }
+
+  private static final class TraversalNode {
+    private final OIdentifiable       element;
+    private final int                 depth;
+    private final List<OIdentifiable> path;
+    private boolean             included;
+    private List<TraversalNode> children = Collections.emptyList();
+
+    private TraversalNode(OIdentifiable element, int depth, List<OIdentifiable> path) {
+      this.element = element;
+      this.depth = depth;
+      this.path = path;
+    }
+  }
+
+  private static final class TraversalConditions {
+    private final OWhereClause filter;
+    private final OWhereClause whileCondition;
+    private final Integer      maxDepth;
+    private final String       className;
+    private final Integer      clusterId;
+    private final ORid         targetRid;
+
+    private TraversalConditions(OWhereClause filter, OWhereClause whileCondition, Integer maxDepth, String className,
+        Integer clusterId, ORid targetRid) {
+      this.filter = filter;
+      this.whileCondition = whileCondition;
+      this.maxDepth = maxDepth;
+      this.className = className;
+      this.clusterId = clusterId;
+      this.targetRid = targetRid;
+    }
+
+    /**
+     * @return a copy of the conditions for a worker thread, parsed conditions are not thread safe
+     */
+    private TraversalConditions copy() {
+      return new TraversalConditions(filter == null ? null : filter.copy(), whileCondition == null ? null : whileCondition.copy(),
+          maxDepth, className, clusterId, targetRid == null ? null : targetRid.copy());
+    }
+  }
+
   protected OWhereClause getTargetFilter(OMatchPathItem item) {
     return item.getFilter().getFilter();
   }
@@ -302,6 +455,111 @@ public class MatchEdgeTraverser {
     return filter == null || filter.matchesFilters(origin, iCommandContext);
   }
 
+  /**
+   * Fetches the edges of <code>outE()</code> and <code>inE()</code> by the range scan of the vertex-centric index if the filter of
+   * the edges restricts the range of the indexed property. The filter itself is still applied to the fetched edges.
+   *
+   * @return edges in the range or <code>null</code> if there is no suitable index
+   */
+  protected Iterable<OEdge> traverseVertexCentricIndex(OIdentifiable startingPoint, OCommandContext iCommandContext) {
+    OMethodCall method = this.item.getMethod();
+    if (method == null || method.getParams().size() != 1 || item.getFilter() == null || item.getFilter().getFilter() == null) {
+      return null;
+    }
+
+    ODirection direction;
+    String methodName = method.getMethodName().getStringValue();
+    if ("outE".equalsIgnoreCase(methodName)) {
+      direction = ODirection.OUT;
+    } else if ("inE".equalsIgnoreCase(methodName)) {
+      direction = ODirection.IN;
+    } else {
+      return null;
+    }
+
+    OExpression labelExpression = method.getParams().get(0);
+    if (!labelExpression.isEarlyCalculated(iCommandContext)) {
+      return null;
+    }
+    Object label = labelExpression.execute((OResult) null, iCommandContext);
+    if (!(label instanceof String)) {
+      return null;
+    }
+
+    OClass edgeClass = ((ODatabaseDocumentInternal) iCommandContext.getDatabase()).getMetadata().getImmutableSchemaSnapshot()
+        .getClass((String) label);
+    OElement vertex = startingPoint == null ? null : startingPoint.getRecord();
+    if (edgeClass == null || vertex == null || !vertex.isVertex()) {
+      return null;
+    }
+
+    List<OAndBlock> flattened = item.getFilter().getFilter().flatten();
+    if (flattened.size() != 1) {
+      return null;
+    }
+
+    for (OBooleanExpression condition : flattened.get(0).getSubBlocks()) {
+      String property = rangeProperty(condition, iCommandContext);
+      if (property == null || OVertexCentricIndexes.getIndex(edgeClass, direction, property) == null) {
+        continue;
+      }
+
+      // EVERY CONDITION OF THE SINGLE AND BLOCK HOLDS FOR THE MATCHING EDGES, SO THE FIRST BOUNDS FOUND ARE ENOUGH
+      Object from = null;
+      boolean fromInclusive = true;
+      Object to = null;
+      boolean toInclusive = true;
+      for (OBooleanExpression bound : flattened.get(0).getSubBlocks()) {
+        if (!property.equals(rangeProperty(bound, iCommandContext))) {
+          continue;
+        }
+
+        OBinaryCompareOperator operator = ((OBinaryCondition) bound).getOperator();
+        Object value = ((OBinaryCondition) bound).getRight().execute((OResult) null, iCommandContext);
+        if (value == null) {
+          continue;
+        }
+        if (from == null && (operator instanceof OGtOperator || operator instanceof OGeOperator
+            || operator instanceof OEqualsCompareOperator)) {
+          from = value;
+          fromInclusive = !(operator instanceof OGtOperator);
+        }
+        if (to == null && (operator instanceof OLtOperator || operator instanceof OLeOperator
+            || operator instanceof OEqualsCompareOperator)) {
+          to = value;
+          toInclusive = !(operator instanceof OLtOperator);
+        }
+      }
+
+      if (from != null || to != null) {
+        return OVertexCentricIndexes
+            .getEdges(vertex.asVertex().get(), direction, edgeClass.getName(), property, from, fromInclusive, to, toInclusive, true);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return property compared by the condition with a value which does not depend on the record, <code>null</code> for other
+   * conditions
+   */
+  private static String rangeProperty(OBooleanExpression condition, OCommandContext iCommandContext) {
+    if (!(condition instanceof OBinaryCondition)) {
+      return null;
+    }
+
+    OBinaryCondition binaryCondition = (OBinaryCondition) condition;
+    OBinaryCompareOperator operator = binaryCondition.getOperator();
+    if (!(operator instanceof OGtOperator || operator instanceof OGeOperator || operator instanceof OLtOperator
+        || operator instanceof OLeOperator || operator instanceof OEqualsCompareOperator)) {
+      return null;
+    }
+    if (!binaryCondition.getLeft().isBaseIdentifier() || !binaryCondition.getRight().isEarlyCalculated(iCommandContext)) {
+      return null;
+    }
+    return binaryCondition.getLeft().getDefaultAlias().getStringValue();
+  }
+
   //TODO refactor this method to receive the item.
 
   protected Iterable<OResultInternal> traversePatternEdge(OIdentifiable startingPoint, OCommandContext iCommandContext) {
@@ -323,7 +581,10 @@ public class MatchEdgeTraverser {
     iCommandContext.setVariable("$current", startingPoint);
     Object qR;
     try {
-      qR = this.item.getMethod().execute(startingPoint, possibleResults, iCommandContext);
+      qR = possibleResults == null ? traverseVertexCentricIndex(startingPoint, iCommandContext) : null;
+      if (qR == null) {
+        qR = this.item.getMethod().execute(startingPoint, possibleResults, iCommandContext);
+      }
     } finally {
       iCommandContext.setVariable("$current", prevCurrent);
     }
@@ -0,0 +1,418 @@
+package com.orientechnologies.orient.core.sql.executor;
+
+import com.orientechnologies.common.directmemory.ODirectMemoryAllocator;
+import com.orientechnologies.common.directmemory.OPointer;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * Set of RIDs stored as a compressed bitmap, with the same layout of a roaring bitmap: the positions of each cluster are split in
+ * chunks of 2^16, a chunk with few positions is stored as a sorted array of their lower 16 bits, a dense chunk is stored as a bitmap
+ * of 8KB allocated in direct memory with {@link ODirectMemoryAllocator}. Sparse sets use a few bytes per RID and dense sets one bit
+ * per position, without creating garbage on the heap.
+ * <p>
+ * As {@link ORidSet}, it does not store actual RIDs, so the iterator returns new instances; negative RIDs are not allowed.
+ * <p>
+ * The direct memory is released by {@link #close()} (or {@link #clear()}), that has to be invoked when the set is not needed
+ * anymore.
+ */
+public class OCompactRidSet extends AbstractSet<ORID> implements Closeable {
+
+  private static final int CHUNK_BITS          = 16;
+  private static final int CHUNK_MASK          = (1 << CHUNK_BITS) - 1;
+  private static final int ARRAY_CONTAINER_MAX = 4096;
+  private static final int BITMAP_WORDS        = (1 << CHUNK_BITS) / 64;
+
+  private final ODirectMemoryAllocator allocator;
+
+  private TreeMap<Long, Container>[] clusters = newClusterArray(8);
+  private long                       size     = 0;
+
+  // last accessed chunk, traversals and scans have a strong locality
+  private int       lastCluster   = -1;
+  private long      lastChunk     = -1;
+  private Container lastContainer = null;
+
+  public OCompactRidSet() {
+    this(ODirectMemoryAllocator.instance());
+  }
+
+  public OCompactRidSet(ODirectMemoryAllocator allocator) {
+    this.allocator = allocator;
+  }
+
+  @Override
+  public int size() {
+    return size <= Integer.MAX_VALUE ? (int) size : Integer.MAX_VALUE;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0L;
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    if (!(o instanceof ORID)) {
+      throw new IllegalArgumentException();
+    }
+    if (size == 0L) {
+      return false;
+    }
+    ORID rid = (ORID) o;
+    int cluster = rid.getClusterId();
+    long position = rid.getClusterPosition();
+    if (cluster < 0 || position < 0) {
+      return false;
+    }
+    Container container = getContainer(cluster, position >>> CHUNK_BITS);
+    return container != null && container.contains((int) (position & CHUNK_MASK));
+  }
+
+  @Override
+  public boolean add(ORID rid) {
+    if (rid == null) {
+      throw new IllegalArgumentException();
+    }
+    int cluster = rid.getClusterId();
+    long position = rid.getClusterPosition();
+    if (cluster < 0 || position < 0) {
+      throw new IllegalArgumentException("negative RID");
+    }
+    long chunk = position >>> CHUNK_BITS;
+    int low = (int) (position & CHUNK_MASK);
+
+    Container container = getContainer(cluster, chunk);
+    if (container == null) {
+      if (clusters.length <= cluster) {
+        TreeMap<Long, Container>[] newClusters = newClusterArray(Math.max(cluster + 1, clusters.length * 2));
+        System.arraycopy(clusters, 0, newClusters, 0, clusters.length);
+        clusters = newClusters;
+      }
+      if (clusters[cluster] == null) {
+        clusters[cluster] = new TreeMap<>();
+      }
+      container = new ArrayContainer();
+      clusters[cluster].put(chunk, container);
+      cacheContainer(cluster, chunk, container);
+    } else if (container.isFull() && !container.contains(low)) {
+      container = ((ArrayContainer) container).toBitmap(allocator);
+      clusters[cluster].put(chunk, container);
+      cacheContainer(cluster, chunk, container);
+    }
+
+    if (container.add(low)) {
+      size++;
+      return true;
+    }
+    return false;
+  }
+
+  @Override
+  public boolean remove(Object o) {
+    if (!(o instanceof ORID)) {
+      throw new IllegalArgumentException();
+    }
+    ORID rid = (ORID) o;
+    int cluster = rid.getClusterId();
+    long position = rid.getClusterPosition();
+    if (cluster < 0 || position < 0) {
+      return false;
+    }
+    long chunk = position >>> CHUNK_BITS;
+    Container container = getContainer(cluster, chunk);
+    if (container == null || !container.remove((int) (position & CHUNK_MASK))) {
+      return false;
+    }
+    size--;
+    if (container.cardinality() == 0) {
+      container.free(allocator);
+      clusters[cluster].remove(chunk);
+      lastCluster = -1;
+      lastContainer = null;
+    }
+    return true;
+  }
+
+  @Override
+  public Iterator<ORID> iterator() {
+    return new Iterator<ORID>() {
+      int cluster = -1;
+      Iterator<Map.Entry<Long, Container>> chunks = Collections.emptyIterator();
+      Map.Entry<Long, Container> currentChunk = null;
+      int nextLow = -1;
+
+      {
+        fetchNext(0);
+      }
+
+      private void fetchNext(int fromLow) {
+        if (currentChunk != null) {
+          nextLow = currentChunk.getValue().nextSetBit(fromLow);
+          if (nextLow >= 0) {
+            return;
+          }
+        }
+        while (true) {
+          while (chunks.hasNext()) {
+            currentChunk = chunks.next();
+            nextLow = currentChunk.getValue().nextSetBit(0);
+            if (nextLow >= 0) {
+              return;
+            }
+          }
+          cluster++;
+          if (cluster >= clusters.length) {
+            currentChunk = null;
+            nextLow = -1;
+            return;
+          }
+          chunks = clusters[cluster] == null ? Collections.emptyIterator() : clusters[cluster].entrySet().iterator();
+        }
+      }
+
+      @Override
+      public boolean hasNext() {
+        return nextLow >= 0;
+      }
+
+      @Override
+      public ORID next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        ORID result = new ORecordId(cluster, (currentChunk.getKey() << CHUNK_BITS) | nextLow);
+        if (nextLow == CHUNK_MASK) {
+          currentChunk = null;
+          fetchNext(0);
+        } else {
+          fetchNext(nextLow + 1);
+        }
+        return result;
+      }
+    };
+  }
+
+  /**
+   * removes all the RIDs and releases the direct memory used by the set
+   */
+  @Override
+  public void clear() {
+    for (TreeMap<Long, Container> chunks : clusters) {
+      if (chunks != null) {
+        for (Container container : chunks.values()) {
+          container.free(allocator);
+        }
+      }
+    }
+    clusters = newClusterArray(8);
+    size = 0;
+    lastCluster = -1;
+    lastChunk = -1;
+    lastContainer = null;
+  }
+
+  @Override
+  public void close() {
+    clear();
+  }
+
+  private Container getContainer(int cluster, long chunk) {
+    if (cluster == lastCluster && chunk == lastChunk) {
+      return lastContainer;
+    }
+    if (cluster >= clusters.length || clusters[cluster] == null) {
+      return null;
+    }
+    Container result = clusters[cluster].get(chunk);
+    if (result != null) {
+      cacheContainer(cluster, chunk, result);
+    }
+    return result;
+  }
+
+  private void cacheContainer(int cluster, long chunk, Container container) {
+    lastCluster = cluster;
+    lastChunk = chunk;
+    lastContainer = container;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static TreeMap<Long, Container>[] newClusterArray(int size) {
+    return new TreeMap[size];
+  }
+
+  private interface Container {
+    boolean contains(int low);
+
+    boolean add(int low);
+
+    boolean remove(int low);
+
+    int cardinality();
+
+    boolean isFull();
+
+    /**
+     * @return the first value greater or equal to fromLow, -1 if there is no such value
+     */
+    int nextSetBit(int fromLow);
+
+    void free(ODirectMemoryAllocator allocator);
+  }
+
+  /**
+   * sparse chunk, sorted array of the lower 16 bits of the positions
+   */
+  private static final class ArrayContainer implements Container {
+    private char[] values      = new char[4];
+    private int    cardinality = 0;
+
+    @Override
+    public boolean contains(int low) {
+      return Arrays.binarySearch(values, 0, cardinality, (char) low) >= 0;
+    }
+
+    @Override
+    public boolean add(int low) {
+      int pos = Arrays.binarySearch(values, 0, cardinality, (char) low);
+      if (pos >= 0) {
+        return false;
+      }
+      pos = -pos - 1;
+      if (cardinality == values.length) {
+        values = Arrays.copyOf(values, Math.min(values.length * 2, ARRAY_CONTAINER_MAX));
+      }
+      System.arraycopy(values, pos, values, pos + 1, cardinality - pos);
+      values[pos] = (char) low;
+      cardinality++;
+      return true;
+    }
+
+    @Override
+    public boolean remove(int low) {
+      int pos = Arrays.binarySearch(values, 0, cardinality, (char) low);
+      if (pos < 0) {
+        return false;
+      }
+      System.arraycopy(values, pos + 1, values, pos, cardinality - pos - 1);
+      cardinality--;
+      return true;
+    }
+
+    @Override
+    public int cardinality() {
+      return cardinality;
+    }
+
+    @Override
+    public boolean isFull() {
+      return cardinality >= ARRAY_CONTAINER_MAX;
+    }
+
+    @Override
+    public int nextSetBit(int fromLow) {
+      int pos = Arrays.binarySearch(values, 0, cardinality, (char) fromLow);
+      if (pos < 0) {
+        pos = -pos - 1;
+      }
+      return pos < cardinality ? values[pos] : -1;
+    }
+
+    BitmapContainer toBitmap(ODirectMemoryAllocator allocator) {
+      BitmapContainer result = new BitmapContainer(allocator);
+      for (int i = 0; i < cardinality; i++) {
+        result.add(values[i]);
+      }
+      return result;
+    }
+
+    @Override
+    public void free(ODirectMemoryAllocator allocator) {
+    }
+  }
+
+  /**
+   * dense chunk, one bit per position, stored in direct memory
+   */
+  private static final class BitmapContainer implements Container {
+    private final OPointer   pointer;
+    private final ByteBuffer words;
+    private       int        cardinality = 0;
+
+    BitmapContainer(ODirectMemoryAllocator allocator) {
+      pointer = allocator.allocate(BITMAP_WORDS * 8, -1);
+      pointer.clear();
+      words = pointer.getNativeByteBuffer();
+    }
+
+    @Override
+    public boolean contains(int low) {
+      return (words.getLong((low >>> 6) << 3) & (1L << low)) != 0;
+    }
+
+    @Override
+    public boolean add(int low) {
+      int index = (low >>> 6) << 3;
+      long word = words.getLong(index);
+      long mask = 1L << low;
+      if ((word & mask) != 0) {
+        return false;
+      }
+      words.putLong(index, word | mask);
+      cardinality++;
+      return true;
+    }
+
+    @Override
+    public boolean remove(int low) {
+      int index = (low >>> 6) << 3;
+      long word = words.getLong(index);
+      long mask = 1L << low;
+      if ((word & mask) == 0) {
+        return false;
+      }
+      words.putLong(index, word & ~mask);
+      cardinality--;
+      return true;
+    }
+
+    @Override
+    public int cardinality() {
+      return cardinality;
+    }
+
+    @Override
+    public boolean isFull() {
+      return false;
+    }
+
+    @Override
+    public int nextSetBit(int fromLow) {
+      int wordIndex = fromLow >>> 6;
+      if (wordIndex >= BITMAP_WORDS) {
+        return -1;
+      }
+      long word = words.getLong(wordIndex << 3) & (-1L << fromLow);
+      while (true) {
+        if (word != 0) {
+          return (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+        }
+        wordIndex++;
+        if (wordIndex >= BITMAP_WORDS) {
+          return -1;
+        }
+        word = words.getLong(wordIndex << 3);
+      }
+    }
+
+    @Override
+    public void free(ODirectMemoryAllocator allocator) {
+      allocator.deallocate(pointer);
+    }
+  }
+}
@@ -35,4 +35,12 @@ public class OFuncitonAggregationContext implements AggregationContext {
     }
     aggregateFunction.execute(next, null, null, paramValues.toArray(), ctx);
   }
+
+  @Override public boolean canCombine() {
+    return aggregateFunction.canCombine();
+  }
+
+  @Override public void combine(AggregationContext other) {
+    aggregateFunction.combine(((OFuncitonAggregationContext) other).aggregateFunction);
+  }
 }
@@ -46,6 +46,23 @@ public class OMatchExecutionPlanner {
   boolean foundOptional = false;
   private long threshold = 100;
 
+  /**
+   * a disjoint sub-pattern and the equality condition (on a $matched alias of the previous sub-patterns) that joins it to them
+   */
+  private static class PatternJoin {
+    private final Pattern          pattern;
+    private final String           alias;
+    private final OBinaryCondition condition;
+    private final boolean          buildKeyOnLeft;
+
+    PatternJoin(Pattern pattern, String alias, OBinaryCondition condition, boolean buildKeyOnLeft) {
+      this.pattern = pattern;
+      this.alias = alias;
+      this.condition = condition;
+      this.buildKeyOnLeft = buildKeyOnLeft;
+    }
+  }
+
   public OMatchExecutionPlanner(OMatchStatement stm) {
     this.matchExpressions = stm.getMatchExpressions().stream().map(x -> x.copy()).collect(Collectors.toList());
     this.notMatchExpressions = stm.getNotMatchExpressions().stream().map(x -> x.copy()).collect(Collectors.toList());
@@ -70,6 +87,7 @@ public class OMatchExecutionPlanner {
 
     buildPatterns(context);
     splitDisjointPatterns(context);
+    List<PatternJoin> patternJoins = subPatterns.size() > 1 ? planPatternJoins() : null;
 
     OSelectExecutionPlan result = new OSelectExecutionPlan(context);
     Map<String, Long> estimatedRootEntries = estimateRootEntries(aliasClasses, aliasClusters, aliasRids, aliasFilters, context);
@@ -84,7 +102,22 @@ public class OMatchExecutionPlanner {
 
     addPrefetchSteps(result, aliasesToPrefetch, context, enableProfiling);
 
-    if (subPatterns.size() > 1) {
+    if (patternJoins != null) {
+      PatternJoin first = patternJoins.get(0);
+      OInternalExecutionPlan plan = createPlanForPattern(first.pattern, context, estimatedRootEntries, aliasesToPrefetch,
+          enableProfiling);
+      for (OExecutionStep step : plan.getSteps()) {
+        result.chain((OExecutionStepInternal) step);
+      }
+      for (PatternJoin join : patternJoins.subList(1, patternJoins.size())) {
+        OInternalExecutionPlan buildPlan = createPlanForPattern(join.pattern, context, estimatedRootEntries, aliasesToPrefetch,
+            enableProfiling);
+        OExpression buildKey = join.buildKeyOnLeft ? join.condition.getLeft() : join.condition.getRight();
+        OExpression probeKey = join.buildKeyOnLeft ? join.condition.getRight() : join.condition.getLeft();
+        result.chain(
+            new HashJoinStep(buildPlan, join.alias, buildKey.copy(), probeKey.copy(), join.buildKeyOnLeft, context, enableProfiling));
+      }
+    } else if (subPatterns.size() > 1) {
       CartesianProductStep step = new CartesianProductStep(context, enableProfiling);
       for (Pattern subPattern : subPatterns) {
         step.addSubPlan(createPlanForPattern(subPattern, context, estimatedRootEntries, aliasesToPrefetch, enableProfiling));
@@ -472,6 +505,149 @@ public class OMatchExecutionPlanner {
     this.subPatterns = pattern.getDisjointPatterns();
   }
 
+  /**
+   * Disjoint sub-patterns are combined with a cartesian product, that cannot evaluate conditions between them. If each sub-pattern
+   * is bound to the previous ones by an equality condition on a $matched alias (eg. {class:A, as:a}, {class:B, as:b, where:(name =
+   * $matched.a.name)}), the sub-patterns are combined with hash joins instead: the condition is removed from the alias filter and
+   * used as join condition.
+   *
+   * @return the sub-patterns in join order, with their join conditions (the first one has no join condition), or null if the
+   * sub-patterns cannot be hash joined
+   */
+  private List<PatternJoin> planPatternJoins() {
+    List<Pattern> remaining = new ArrayList<>(subPatterns);
+    List<PatternJoin> result = new ArrayList<>();
+    Set<String> joinedAliases = new HashSet<>();
+    Map<String, List<OBooleanExpression>> newFilters = new HashMap<>();
+
+    for (Pattern candidate : remaining) {
+      if (!dependsOnOtherPatterns(candidate)) {
+        result.add(new PatternJoin(candidate, null, null, false));
+        joinedAliases.addAll(candidate.aliasToNode.keySet());
+        remaining.remove(candidate);
+        break;
+      }
+    }
+    if (result.isEmpty()) {
+      return null;
+    }
+
+    while (!remaining.isEmpty()) {
+      PatternJoin join = null;
+      for (Pattern candidate : remaining) {
+        join = findPatternJoin(candidate, joinedAliases, newFilters);
+        if (join != null) {
+          break;
+        }
+      }
+      if (join == null) {
+        return null;
+      }
+      result.add(join);
+      joinedAliases.addAll(join.pattern.aliasToNode.keySet());
+      remaining.remove(join.pattern);
+    }
+
+    for (Map.Entry<String, List<OBooleanExpression>> entry : newFilters.entrySet()) {
+      if (entry.getValue().isEmpty()) {
+        aliasFilters.remove(entry.getKey());
+      } else {
+        OAndBlock andBlock = new OAndBlock(-1);
+        andBlock.getSubBlocks().addAll(entry.getValue());
+        OWhereClause filter = new OWhereClause(-1);
+        filter.setBaseExpression(andBlock);
+        aliasFilters.put(entry.getKey(), filter);
+      }
+    }
+    rebindFilters(aliasFilters);
+    return result;
+  }
+
+  private boolean dependsOnOtherPatterns(Pattern pattern) {
+    for (String alias : pattern.aliasToNode.keySet()) {
+      OWhereClause filter = aliasFilters.get(alias);
+      if (filter != null && filter.getBaseExpression() != null) {
+        List<String> involvedAliases = filter.getBaseExpression().getMatchPatternInvolvedAliases();
+        if (involvedAliases != null && involvedAliases.stream().anyMatch(x -> !pattern.aliasToNode.containsKey(x))) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * looks for the condition that joins a sub-pattern to the sub-patterns already joined: a single equality between a plain
+   * $matched.alias.attribute of a joined alias and an expression on the current alias
+   *
+   * @param newFilters the alias filters without the join condition are added here
+   */
+  private PatternJoin findPatternJoin(Pattern pattern, Set<String> joinedAliases,
+      Map<String, List<OBooleanExpression>> newFilters) {
+    PatternJoin result = null;
+    List<OBooleanExpression> otherConditions = new ArrayList<>();
+    for (Map.Entry<String, PatternNode> entry : pattern.aliasToNode.entrySet()) {
+      if (entry.getValue().isOptionalNode()) {
+        return null;
+      }
+      String alias = entry.getKey();
+      OWhereClause filter = aliasFilters.get(alias);
+      if (filter == null || filter.getBaseExpression() == null) {
+        continue;
+      }
+      List<String> involvedAliases = filter.getBaseExpression().getMatchPatternInvolvedAliases();
+      if (involvedAliases == null || involvedAliases.stream().allMatch(x -> pattern.aliasToNode.containsKey(x))) {
+        continue;
+      }
+      if (result != null) {
+        return null;
+      }
+      List<OAndBlock> flattened = filter.flatten();
+      if (flattened.size() != 1) {
+        return null;
+      }
+      for (OBooleanExpression exp : flattened.get(0).getSubBlocks()) {
+        List<String> expAliases = exp.getMatchPatternInvolvedAliases();
+        if (expAliases == null || expAliases.stream().allMatch(x -> pattern.aliasToNode.containsKey(x))) {
+          otherConditions.add(exp);
+          continue;
+        }
+        if (result != null || !(exp instanceof OBinaryCondition) || !(((OBinaryCondition) exp)
+            .getOperator() instanceof OEqualsCompareOperator) || !joinedAliases.containsAll(expAliases)) {
+          return null;
+        }
+        OBinaryCondition condition = (OBinaryCondition) exp;
+        if (isMatchedAttribute(condition.getRight()) && isLocalExpression(condition.getLeft())) {
+          result = new PatternJoin(pattern, alias, condition, true);
+        } else if (isMatchedAttribute(condition.getLeft()) && isLocalExpression(condition.getRight())) {
+          result = new PatternJoin(pattern, alias, condition, false);
+        } else {
+          return null;
+        }
+      }
+    }
+    if (result != null) {
+      newFilters.put(result.alias, otherConditions);
+    }
+    return result;
+  }
+
+  /**
+   * @return true if the expression is a plain attribute of a matched alias, eg. $matched.foo.name
+   */
+  private static boolean isMatchedAttribute(OExpression expression) {
+    List<String> chain = expression.getAttributeChain();
+    return chain != null && chain.size() > 2 && chain.get(0).equalsIgnoreCase("$matched");
+  }
+
+  /**
+   * @return true if the expression only depends on the current record
+   */
+  private static boolean isLocalExpression(OExpression expression) {
+    String string = expression.toString().toLowerCase(Locale.ENGLISH);
+    return !expression.refersToParent() && !string.contains("$matched") && !string.contains("$currentmatch");
+  }
+
   private void addStepsFor(OSelectExecutionPlan plan, EdgeTraversal edge, OCommandContext context, boolean first,
       boolean profilingEnabled) {
     if (first) {
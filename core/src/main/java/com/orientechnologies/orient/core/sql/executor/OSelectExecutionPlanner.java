@@ -3,6 +3,7 @@ package com.orientechnologies.orient.core.sql.executor;
 import com.orientechnologies.common.util.OPair;
 import com.orientechnologies.orient.core.command.OBasicCommandContext;
 import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 import com.orientechnologies.orient.core.db.ODatabase;
 import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
 import com.orientechnologies.orient.core.db.ODatabaseInternal;
@@ -658,15 +659,23 @@ public class OSelectExecutionPlanner {
   private static void handleProjections(OSelectExecutionPlan result, QueryPlanningInfo info, OCommandContext ctx,
       boolean profilingEnabled) {
     if (!info.projectionsCalculated && info.projection != null) {
-      if (info.preAggregateProjection != null) {
-        result.chain(new ProjectionCalculationStep(info.preAggregateProjection, ctx, profilingEnabled));
-      }
-      if (info.aggregateProjection != null) {
-        result.chain(new AggregateProjectionCalculationStep(info.aggregateProjection, info.groupBy, ctx, profilingEnabled));
+      if (info.aggregateProjection != null && handleParallelAggregation(result, info, ctx, profilingEnabled)) {
+        //partial aggregates are calculated concurrently by the sub-plans, here they are only combined
+        result.chain(new AggregateProjectionCalculationStep(info.aggregateProjection, info.groupBy,
+            AggregateProjectionCalculationStep.Mode.COMBINE, ctx, profilingEnabled));
         if (isCountOnly(info) && info.groupBy == null) {
           result.chain(new GuaranteeEmptyCountStep(info.aggregateProjection.getItems().get(0), ctx, profilingEnabled));
         }
-
+      } else {
+        if (info.preAggregateProjection != null) {
+          result.chain(new ProjectionCalculationStep(info.preAggregateProjection, ctx, profilingEnabled));
+        }
+        if (info.aggregateProjection != null) {
+          result.chain(new AggregateProjectionCalculationStep(info.aggregateProjection, info.groupBy, ctx, profilingEnabled));
+          if (isCountOnly(info) && info.groupBy == null) {
+            result.chain(new GuaranteeEmptyCountStep(info.aggregateProjection.getItems().get(0), ctx, profilingEnabled));
+          }
+        }
       }
       result.chain(new ProjectionCalculationStep(info.projection, ctx, profilingEnabled));
 
@@ -674,6 +683,46 @@ public class OSelectExecutionPlanner {
     }
   }
 
+  /**
+   * if the records are fetched by a concurrent {@link ParallelExecStep} (one sub-plan per cluster) and all the aggregate functions
+   * can combine partial results, this method pushes the pre-aggregate projections and a partial aggregation down to the sub-plans,
+   * so that each cluster is aggregated by its own worker thread
+   *
+   * @return true if the aggregation was pushed down to the sub-plans, false otherwise
+   */
+  private static boolean handleParallelAggregation(OSelectExecutionPlan result, QueryPlanningInfo info, OCommandContext ctx,
+      boolean profilingEnabled) {
+    List<OExecutionStep> steps = result.getSteps();
+    if (steps.isEmpty()) {
+      return false;
+    }
+    OExecutionStep lastStep = steps.get(steps.size() - 1);
+    if (!(lastStep instanceof ParallelExecStep) || !((ParallelExecStep) lastStep).isConcurrent()) {
+      return false;
+    }
+    for (OProjectionItem item : info.aggregateProjection.getItems()) {
+      if (item.isAggregate() && !item.getAggregationContext(ctx).canCombine()) {
+        return false;
+      }
+    }
+    List<OExecutionPlan> subPlans = ((ParallelExecStep) lastStep).getSubExecutionPlans();
+    for (OExecutionPlan subPlan : subPlans) {
+      if (!(subPlan instanceof OSelectExecutionPlan)) {
+        return false;
+      }
+    }
+    for (OExecutionPlan subPlan : subPlans) {
+      OSelectExecutionPlan plan = (OSelectExecutionPlan) subPlan;
+      if (info.preAggregateProjection != null) {
+        plan.chain(new ProjectionCalculationStep(info.preAggregateProjection.copy(), ctx, profilingEnabled));
+      }
+      plan.chain(new AggregateProjectionCalculationStep(info.aggregateProjection.copy(),
+          info.groupBy == null ? null : info.groupBy.copy(), AggregateProjectionCalculationStep.Mode.PARTIAL, ctx,
+          profilingEnabled));
+    }
+    return true;
+  }
+
   protected static void optimizeQuery(QueryPlanningInfo info, OCommandContext ctx) {
     splitLet(info, ctx);
     rewriteIndexChainsAsSubqueries(info, ctx);
@@ -1457,7 +1506,7 @@ public class OSelectExecutionPlanner {
           if (item.getExpression() != null) {
             plan.chain(new LetExpressionStep(item.getVarName(), item.getExpression(), ctx, profilingEnabled));
           } else {
-            plan.chain(new LetQueryStep(item.getVarName(), item.getQuery(), ctx, profilingEnabled));
+            plan.chain(createLetQueryStep(item.getVarName(), item.getQuery(), info, ctx, profilingEnabled));
           }
         }
       } else {
@@ -1467,7 +1516,8 @@ public class OSelectExecutionPlanner {
               shardedPlan
                   .chain(new LetExpressionStep(item.getVarName().copy(), item.getExpression().copy(), ctx, profilingEnabled));
             } else {
-              shardedPlan.chain(new LetQueryStep(item.getVarName().copy(), item.getQuery().copy(), ctx, profilingEnabled));
+              shardedPlan.chain(
+                  createLetQueryStep(item.getVarName().copy(), item.getQuery().copy(), info, ctx, profilingEnabled));
             }
           }
         }
@@ -1475,6 +1525,115 @@ public class OSelectExecutionPlanner {
     }
   }
 
+  private OExecutionStepInternal createLetQueryStep(OIdentifier varName, OStatement query, QueryPlanningInfo info,
+      OCommandContext ctx, boolean profilingEnabled) {
+    HashJoinStep hashJoin = createLetHashJoin(varName, query, info, ctx, profilingEnabled);
+    if (hashJoin != null) {
+      return hashJoin;
+    }
+    return new LetQueryStep(varName, query, ctx, profilingEnabled);
+  }
+
+  /**
+   * a correlated LET subquery like (SELECT FROM Foo WHERE bar = $parent.$current.baz) is executed again for each record of the
+   * query. If both the query target and the subquery target are classes with at least {@link OGlobalConfiguration#QUERY_HASH_JOIN_MINIMUM_RECORDS}
+   * records, the subquery is executed only once, without the correlated condition, and it is joined to the records with a hash
+   * join on the equality condition.
+   *
+   * @return the hash join step, or null if the subquery cannot be executed as a hash join
+   */
+  private static HashJoinStep createLetHashJoin(OIdentifier varName, OStatement query, QueryPlanningInfo info,
+      OCommandContext ctx, boolean profilingEnabled) {
+    if (!(query instanceof OSelectStatement) || ctx == null || ctx.getDatabase() == null) {
+      return null;
+    }
+    OSelectStatement subQuery = (OSelectStatement) query;
+    if (subQuery.getWhereClause() == null || subQuery.getProjection() != null || subQuery.getGroupBy() != null
+        || subQuery.getOrderBy() != null || subQuery.getUnwind() != null || subQuery.getSkip() != null
+        || subQuery.getLimit() != null || subQuery.getLetClause() != null || subQuery.getLockRecord() != null) {
+      return null;
+    }
+
+    long threshold = ctx.getDatabase().getConfiguration().getValueAsLong(OGlobalConfiguration.QUERY_HASH_JOIN_MINIMUM_RECORDS);
+    if (estimateClassTargetSize(info.target, ctx) < threshold || estimateClassTargetSize(subQuery.getTarget(), ctx) < threshold) {
+      return null;
+    }
+
+    List<OAndBlock> flattened = subQuery.getWhereClause().flatten();
+    if (flattened.size() != 1) {
+      return null;
+    }
+    OBinaryCondition joinCondition = null;
+    boolean buildKeyOnLeft = false;
+    List<OBooleanExpression> otherConditions = new ArrayList<>();
+    for (OBooleanExpression exp : flattened.get(0).getSubBlocks()) {
+      if (joinCondition == null && exp instanceof OBinaryCondition
+          && ((OBinaryCondition) exp).getOperator() instanceof OEqualsCompareOperator) {
+        OBinaryCondition condition = (OBinaryCondition) exp;
+        if (isParentRecordAttribute(condition.getRight()) && !condition.getLeft().refersToParent()) {
+          joinCondition = condition;
+          buildKeyOnLeft = true;
+          continue;
+        }
+        if (isParentRecordAttribute(condition.getLeft()) && !condition.getRight().refersToParent()) {
+          joinCondition = condition;
+          buildKeyOnLeft = false;
+          continue;
+        }
+      }
+      if (exp.refersToParent()) {
+        return null;
+      }
+      otherConditions.add(exp.copy());
+    }
+    if (joinCondition == null) {
+      return null;
+    }
+
+    OSelectStatement buildStatement = subQuery.copy();
+    if (otherConditions.isEmpty()) {
+      buildStatement.setWhereClause(null);
+    } else {
+      OAndBlock andBlock = new OAndBlock(-1);
+      andBlock.getSubBlocks().addAll(otherConditions);
+      OWhereClause where = new OWhereClause(-1);
+      where.setBaseExpression(andBlock);
+      buildStatement.setWhereClause(where);
+    }
+    OBasicCommandContext subCtx = new OBasicCommandContext();
+    subCtx.setDatabase(ctx.getDatabase());
+    subCtx.setParentWithoutOverridingChild(ctx);
+    OInternalExecutionPlan buildPlan = buildStatement.createExecutionPlanNoCache(subCtx, profilingEnabled);
+
+    OExpression buildKey = buildKeyOnLeft ? joinCondition.getLeft() : joinCondition.getRight();
+    OExpression probeKey = buildKeyOnLeft ? joinCondition.getRight() : joinCondition.getLeft();
+    return new HashJoinStep(varName, buildPlan, buildKey.copy(), probeKey.copy(), buildKeyOnLeft, ctx, profilingEnabled);
+  }
+
+  /**
+   * @return true if the expression is a plain attribute of the parent query record, eg. $parent.$current.name
+   */
+  private static boolean isParentRecordAttribute(OExpression expression) {
+    List<String> chain = expression.getAttributeChain();
+    return chain != null && chain.size() > 2 && chain.get(0).equalsIgnoreCase("$parent") && chain.get(1)
+        .equalsIgnoreCase("$current");
+  }
+
+  /**
+   * @return the number of records of the target, if it is a class, -1 otherwise
+   */
+  private static long estimateClassTargetSize(OFromClause target, OCommandContext ctx) {
+    if (target == null || target.getItem() == null || target.getItem().getIdentifier() == null
+        || target.getItem().getModifier() != null) {
+      return -1;
+    }
+    OClass clazz = getSchemaFromContext(ctx).getClass(target.getItem().getIdentifier().getStringValue());
+    if (clazz == null) {
+      return -1;
+    }
+    return clazz.count();
+  }
+
   private List<OLetItem> sortLet(List<OLetItem> items, OLetClause letClause) {
     List<OLetItem> i = new ArrayList<>();
     i.addAll(items);
@@ -1571,6 +1730,11 @@ public class OSelectExecutionPlanner {
     String className = identifier.getStringValue();
     OSchema schema = getSchemaFromContext(ctx);
 
+    if (schema.getClass(className) != null && handleClassAsTargetInParallel(plan, filterClusters, className, orderByRidAsc, info,
+        ctx, profilingEnabled)) {
+      return;
+    }
+
     AbstractExecutionStep fetcher;
     if (schema.getClass(className) != null) {
       fetcher = new FetchFromClassExecutionStep(className, filterClusters, info, ctx, orderByRidAsc, profilingEnabled);
@@ -1586,6 +1750,62 @@ public class OSelectExecutionPlanner {
     plan.chain(fetcher);
   }
 
+  /**
+   * if the query is marked as PARALLEL (or {@link OGlobalConfiguration#QUERY_PARALLEL_AUTO} is enabled and the class is big enough),
+   * splits the class scan in one sub-plan per cluster and executes them concurrently. If there are no per-record LET clauses, the
+   * WHERE condition is evaluated concurrently in the sub-plans as well.
+   *
+   * @return true if the concurrent fetch was added to the plan
+   */
+  private boolean handleClassAsTargetInParallel(OSelectExecutionPlan plan, Set<String> filterClusters, String className,
+      Boolean orderByRidAsc, QueryPlanningInfo info, OCommandContext ctx, boolean profilingEnabled) {
+    if (orderByRidAsc != null || info.serverToClusters.size() != 1) {
+      return false;
+    }
+    ODatabaseDocumentInternal db = (ODatabaseDocumentInternal) ctx.getDatabase();
+    if (db.getTransaction().isActive()) {
+      return false;
+    }
+    int[] clusterIds = Arrays.stream(getSchemaFromContext(ctx).getClass(className).getPolymorphicClusterIds())
+        .filter(x -> filterClusters == null || filterClusters.contains(db.getClusterNameById(x))).toArray();
+    if (clusterIds.length < 2) {
+      return false;
+    }
+    if (!Boolean.TRUE.equals(statement.getParallel())) {
+      if (!db.getConfiguration().getValueAsBoolean(OGlobalConfiguration.QUERY_PARALLEL_AUTO)) {
+        return false;
+      }
+      if (db.getStorage().count(clusterIds) <= db.getConfiguration()
+          .getValueAsLong(OGlobalConfiguration.QUERY_PARALLEL_MINIMUM_RECORDS)) {
+        return false;
+      }
+    }
+
+    boolean pushDownWhere = info.whereClause != null && info.perRecordLetClause == null;
+    List<OInternalExecutionPlan> subPlans = new ArrayList<>();
+    for (int clusterId : clusterIds) {
+      OSelectExecutionPlan subPlan = new OSelectExecutionPlan(ctx);
+      subPlan.chain(new FetchFromClusterExecutionStep(clusterId, info, ctx, profilingEnabled));
+      if (pushDownWhere) {
+        subPlan.chain(new FilterStep(info.whereClause.copy(), ctx, profilingEnabled));
+      }
+      subPlans.add(subPlan);
+    }
+    //records created in the current transaction are not in the clusters yet. A cached plan can be reused in a transaction,
+    //ParallelExecStep then runs the sub-plans on the calling thread and this sub-plan returns them
+    OSelectExecutionPlan txPlan = new OSelectExecutionPlan(ctx);
+    txPlan.chain(new FetchTemporaryFromTxStep(ctx, className, profilingEnabled));
+    if (pushDownWhere) {
+      txPlan.chain(new FilterStep(info.whereClause.copy(), ctx, profilingEnabled));
+    }
+    subPlans.add(txPlan);
+    if (pushDownWhere) {
+      info.whereClause = null;//The WHERE clause won't be used anymore, the sub-plans do all the filtering
+    }
+    plan.chain(new ParallelExecStep(subPlans, ctx, profilingEnabled, true));
+    return true;
+  }
+
   private boolean handleClassAsTargetWithIndexedFunction(OSelectExecutionPlan plan, Set<String> filterClusters,
       OIdentifier queryTarget, QueryPlanningInfo info, OCommandContext ctx, boolean profilingEnabled) {
     if (queryTarget == null) {
@@ -2,12 +2,18 @@ package com.orientechnologies.orient.core.sql.executor;
 
 import com.orientechnologies.common.concur.OTimeoutException;
 import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 import com.orientechnologies.orient.core.sql.parser.OOrderBy;
 
 import java.util.*;
 
 /**
  * Created by luigidellaquila on 11/07/16.
+ * <p>
+ * If the number of results is bounded (ORDER BY + LIMIT) the step keeps only the top K results in a bounded heap. Otherwise all the
+ * results are buffered in memory; when their number exceeds {@link OGlobalConfiguration#QUERY_ORDER_BY_MAX_IN_MEMORY} the
+ * buffer is sorted and spilled to a temporary file as a sorted run, and the runs are merged when the results are fetched
+ * (external merge sort). Results with the same sort key are returned in the order they were received.
  */
 public class OrderByStep extends AbstractExecutionStep {
   private final OOrderBy orderBy;
@@ -18,6 +24,9 @@ public class OrderByStep extends AbstractExecutionStep {
   List<OResult> cachedResult = null;
   int           nextElement  = 0;
 
+  private List<ResultSpillFile> spilledRuns = new ArrayList<>();
+  private Iterator<OResult>     mergedResult;
+
   public OrderByStep(OOrderBy orderBy, OCommandContext ctx, boolean profilingEnabled) {
     this(orderBy, null, ctx, profilingEnabled);
   }
@@ -47,6 +56,9 @@ public class OrderByStep extends AbstractExecutionStep {
         if (currentBatchReturned >= nRecords) {
           return false;
         }
+        if (mergedResult != null) {
+          return mergedResult.hasNext();
+        }
         if (cachedResult.size() <= nextElement) {
           return false;
         }
@@ -60,10 +72,18 @@ public class OrderByStep extends AbstractExecutionStep {
           if (currentBatchReturned >= nRecords) {
             throw new IllegalStateException();
           }
-          if (cachedResult.size() <= nextElement) {
-            throw new IllegalStateException();
+          OResult result;
+          if (mergedResult != null) {
+            if (!mergedResult.hasNext()) {
+              throw new IllegalStateException();
+            }
+            result = mergedResult.next();
+          } else {
+            if (cachedResult.size() <= nextElement) {
+              throw new IllegalStateException();
+            }
+            result = cachedResult.get(offset + currentBatchReturned);
           }
-          OResult result = cachedResult.get(offset + currentBatchReturned);
           nextElement++;
           currentBatchReturned++;
           return result;
@@ -92,8 +112,20 @@ public class OrderByStep extends AbstractExecutionStep {
   }
 
   private void init(OExecutionStepInternal p, OCommandContext ctx) {
+    if (maxResults != null) {
+      initTopK(p, ctx);
+    } else {
+      initFullSort(p, ctx);
+    }
+  }
 
-    boolean sorted = true;
+  /**
+   * keeps only the first maxResults results in a bounded heap, whose head is the greatest (ie. the next to be discarded) element
+   */
+  private void initTopK(OExecutionStepInternal p, OCommandContext ctx) {
+    PriorityQueue<SortEntry> heap = new PriorityQueue<>(Math.min(maxResults, 1024) + 1,
+        (a, b) -> compareEntries(b, a, ctx));
+    long sequence = 0;
     do {
       OResultSet lastBatch = p.syncPull(ctx, 100);
       if (!lastBatch.hasNext()) {
@@ -106,13 +138,11 @@ public class OrderByStep extends AbstractExecutionStep {
         OResult item = lastBatch.next();
         long begin = profilingEnabled ? System.nanoTime() : 0;
         try {
-          cachedResult.add(item);
-          sorted = false;
-          //compact, only at twice as the buffer, to avoid to do it at each add
-          if (this.maxResults != null && maxResults * 2 < cachedResult.size()) {
-            cachedResult.sort((a, b) -> orderBy.compare(a, b, ctx));
-            cachedResult = new ArrayList<>(cachedResult.subList(0, maxResults));
-            sorted = true;
+          if (heap.size() < maxResults) {
+            heap.add(new SortEntry(item, sequence++));
+          } else if (maxResults > 0 && orderBy.compare(item, heap.peek().result, ctx) < 0) {
+            heap.poll();
+            heap.add(new SortEntry(item, sequence++));
           }
         } finally {
           if (profilingEnabled) {
@@ -120,34 +150,142 @@ public class OrderByStep extends AbstractExecutionStep {
           }
         }
       }
-      if (timedOut) {
+    } while (!timedOut);
+
+    long begin = profilingEnabled ? System.nanoTime() : 0;
+    try {
+      List<SortEntry> entries = new ArrayList<>(heap);
+      entries.sort((a, b) -> compareEntries(a, b, ctx));
+      for (SortEntry entry : entries) {
+        cachedResult.add(entry.result);
+      }
+    } finally {
+      if (profilingEnabled) {
+        cost += (System.nanoTime() - begin);
+      }
+    }
+  }
+
+  private void initFullSort(OExecutionStepInternal p, OCommandContext ctx) {
+    int maxInMemory = getMaxInMemoryRecords(ctx);
+    do {
+      OResultSet lastBatch = p.syncPull(ctx, 100);
+      if (!lastBatch.hasNext()) {
         break;
       }
-      long begin = profilingEnabled ? System.nanoTime() : 0;
-      try {
-        //compact at each batch, if needed
-        if (!sorted && this.maxResults != null && maxResults < cachedResult.size()) {
-          cachedResult.sort((a, b) -> orderBy.compare(a, b, ctx));
-          cachedResult = new ArrayList<>(cachedResult.subList(0, maxResults));
-          sorted = true;
+      while (lastBatch.hasNext()) {
+        if (this.timedOut) {
+          break;
         }
-      } finally {
-        if (profilingEnabled) {
-          cost += (System.nanoTime() - begin);
+        OResult item = lastBatch.next();
+        long begin = profilingEnabled ? System.nanoTime() : 0;
+        try {
+          cachedResult.add(item);
+          if (maxInMemory > 0 && cachedResult.size() >= maxInMemory) {
+            spill(ctx);
+          }
+        } finally {
+          if (profilingEnabled) {
+            cost += (System.nanoTime() - begin);
+          }
         }
       }
-    } while (true);
+    } while (!timedOut);
+
     long begin = profilingEnabled ? System.nanoTime() : 0;
     try {
-      if (!sorted) {
-        cachedResult.sort((a, b) -> orderBy.compare(a, b, ctx));
+      cachedResult.sort((a, b) -> orderBy.compare(a, b, ctx));
+      if (!spilledRuns.isEmpty()) {
+        mergedResult = mergeRuns(ctx);
       }
     } finally {
       if (profilingEnabled) {
         cost += (System.nanoTime() - begin);
       }
     }
+  }
+
+  private int getMaxInMemoryRecords(OCommandContext ctx) {
+    if (ctx.getDatabase() != null) {
+      return ctx.getDatabase().getConfiguration().getValueAsInteger(OGlobalConfiguration.QUERY_ORDER_BY_MAX_IN_MEMORY);
+    }
+    return OGlobalConfiguration.QUERY_ORDER_BY_MAX_IN_MEMORY.getValueAsInteger();
+  }
+
+  /**
+   * sorts the current buffer and writes it to a temporary file as a sorted run
+   */
+  private void spill(OCommandContext ctx) {
+    cachedResult.sort((a, b) -> orderBy.compare(a, b, ctx));
+    ResultSpillFile run = new ResultSpillFile();
+    spilledRuns.add(run);
+    for (OResult item : cachedResult) {
+      run.write(item);
+    }
+    cachedResult = new ArrayList<>();
+  }
+
+  /**
+   * k-way merge of the spilled runs and of the in-memory buffer. The in-memory buffer contains the last received results, so it is
+   * the last run; on equal keys the run with the lowest index wins, to preserve the order the results were received
+   */
+  private Iterator<OResult> mergeRuns(OCommandContext ctx) {
+    List<Iterator<OResult>> runs = new ArrayList<>();
+    for (ResultSpillFile run : spilledRuns) {
+      runs.add(run.iterator());
+    }
+    runs.add(cachedResult.iterator());
+
+    PriorityQueue<SortEntry> heads = new PriorityQueue<>(runs.size(), (a, b) -> compareEntries(a, b, ctx));
+    for (int i = 0; i < runs.size(); i++) {
+      if (runs.get(i).hasNext()) {
+        heads.add(new SortEntry(runs.get(i).next(), i));
+      }
+    }
+    return new Iterator<OResult>() {
+      @Override
+      public boolean hasNext() {
+        if (heads.isEmpty()) {
+          closeSpilledRuns();
+          return false;
+        }
+        return true;
+      }
 
+      @Override
+      public OResult next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        SortEntry head = heads.poll();
+        Iterator<OResult> run = runs.get((int) head.sequence);
+        if (run.hasNext()) {
+          heads.add(new SortEntry(run.next(), head.sequence));
+        }
+        return head.result;
+      }
+    };
+  }
+
+  private int compareEntries(SortEntry a, SortEntry b, OCommandContext ctx) {
+    int result = orderBy.compare(a.result, b.result, ctx);
+    if (result != 0) {
+      return result;
+    }
+    return Long.compare(a.sequence, b.sequence);
+  }
+
+  private void closeSpilledRuns() {
+    for (ResultSpillFile run : spilledRuns) {
+      run.close();
+    }
+    spilledRuns.clear();
+  }
+
+  @Override
+  public void close() {
+    closeSpilledRuns();
+    super.close();
   }
 
   @Override
@@ -164,4 +302,14 @@ public class OrderByStep extends AbstractExecutionStep {
   public long getCost() {
     return cost;
   }
+
+  private static class SortEntry {
+    private final OResult result;
+    private final long    sequence;
+
+    private SortEntry(OResult result, long sequence) {
+      this.result = result;
+      this.sequence = sequence;
+    }
+  }
 }
@@ -1,30 +1,93 @@
 package com.orientechnologies.orient.core.sql.executor;
 
 import com.orientechnologies.common.concur.OTimeoutException;
+import com.orientechnologies.common.exception.OException;
+import com.orientechnologies.orient.core.command.OBasicCommandContext;
 import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
+import com.orientechnologies.orient.core.db.OExecutionThreadLocal;
+import com.orientechnologies.orient.core.exception.OCommandExecutionException;
+import com.orientechnologies.orient.core.exception.OCommandInterruptedException;
+import com.orientechnologies.orient.core.record.impl.ODocument;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
+ * Executes a list of sub-plans and returns the union of their results.
+ * <p>
+ * By default the sub-plans are consumed one after the other on the calling thread. In <i>concurrent</i> mode every sub-plan is
+ * copied on its own database instance and pulled on the pool of {@link ParallelWorkers}; the results are collected in a bounded queue (see
+ * {@link OGlobalConfiguration#QUERY_PARALLEL_RESULT_QUEUE_SIZE}) that is consumed by the calling thread. In concurrent mode the
+ * order of the results is not deterministic.
+ * <p>
+ * Copies of the database do not see the changes of the current transaction, so if a transaction is active when the execution
+ * starts the sub-plans are consumed on the calling thread, even in concurrent mode. The check is done at execution time because
+ * the plan can be cached and reused in a transaction. Sub-plans are consumed on the calling thread also if it is a thread of the
+ * pool, so nested parallel queries never wait for the pool they are running on.
+ *
  * @author Luigi Dell'Aquila (l.dellaquila-(at)-orientdb.com)
  */
 public class ParallelExecStep extends AbstractExecutionStep {
+  private static final Object END_OF_SUB_PLAN = new Object();
+  private static final int    WORKER_BATCH    = 100;
+
   private final List<OInternalExecutionPlan> subExecutionPlans;
+  private final boolean                      concurrent;
+  private       Boolean                      runConcurrently;
 
   int current = 0;
   private OResultSet currentResultSet = null;
 
+  // concurrent execution state
+  private          BlockingQueue<Object>    resultQueue;
+  private          List<Future<?>>          jobs;
+  private          OInternalExecutionPlan[] workerPlans;
+  private          int                      runningSubPlans;
+  private volatile boolean                  executionEnded = false;
+  private volatile RuntimeException         failure;
+
+  private long cost = 0;
+
   public ParallelExecStep(List<OInternalExecutionPlan> subExecuitonPlans, OCommandContext ctx, boolean profilingEnabled) {
+    this(subExecuitonPlans, ctx, profilingEnabled, false);
+  }
+
+  /**
+   * @param subExecuitonPlans the plans to execute
+   * @param ctx               the query context
+   * @param profilingEnabled  true to collect execution costs
+   * @param concurrent        true to execute the sub-plans concurrently on the worker pool. The sub-plans have to support {@link
+   *                          OInternalExecutionPlan#copy(OCommandContext)}
+   */
+  public ParallelExecStep(List<OInternalExecutionPlan> subExecuitonPlans, OCommandContext ctx, boolean profilingEnabled,
+      boolean concurrent) {
     super(ctx, profilingEnabled);
     this.subExecutionPlans = subExecuitonPlans;
+    this.concurrent = concurrent;
+  }
+
+  public boolean isConcurrent() {
+    return concurrent;
   }
 
   @Override
   public OResultSet syncPull(OCommandContext ctx, int nRecords) throws OTimeoutException {
     getPrev().ifPresent(x -> x.syncPull(ctx, nRecords));
+    if (runConcurrently == null) {
+      runConcurrently = concurrent && ParallelWorkers.canRunConcurrently((ODatabaseDocumentInternal) ctx.getDatabase());
+    }
+    if (runConcurrently) {
+      return concurrentPull(ctx, nRecords);
+    }
     return new OResultSet() {
       int localCount = 0;
 
@@ -87,6 +150,202 @@ public class ParallelExecStep extends AbstractExecutionStep {
     } while (!currentResultSet.hasNext());
   }
 
+  private OResultSet concurrentPull(OCommandContext ctx, int nRecords) {
+    if (jobs == null) {
+      startWorkers(ctx);
+    }
+    return new OResultSet() {
+      int localCount = 0;
+      OResult nextItem = null;
+
+      @Override
+      public boolean hasNext() {
+        if (localCount >= nRecords) {
+          return false;
+        }
+        if (nextItem == null) {
+          nextItem = takeNext();
+        }
+        return nextItem != null;
+      }
+
+      @Override
+      public OResult next() {
+        if (!hasNext()) {
+          throw new IllegalStateException();
+        }
+        OResult result = nextItem;
+        nextItem = null;
+        localCount++;
+        return result;
+      }
+
+      @Override
+      public void close() {
+
+      }
+
+      @Override
+      public Optional<OExecutionPlan> getExecutionPlan() {
+        return null;
+      }
+
+      @Override
+      public Map<String, Long> getQueryStats() {
+        return null;
+      }
+    };
+  }
+
+  private void startWorkers(OCommandContext ctx) {
+    ODatabaseDocumentInternal db = (ODatabaseDocumentInternal) ctx.getDatabase();
+    int queueSize = db.getConfiguration().getValueAsInteger(OGlobalConfiguration.QUERY_PARALLEL_RESULT_QUEUE_SIZE);
+    resultQueue = new ArrayBlockingQueue<>(Math.max(queueSize, 1));
+    workerPlans = new OInternalExecutionPlan[subExecutionPlans.size()];
+    runningSubPlans = subExecutionPlans.size();
+    jobs = new ArrayList<>();
+
+    for (int i = 0; i < subExecutionPlans.size(); i++) {
+      final int planIndex = i;
+      jobs.add(ParallelWorkers.submit(db, localDatabase -> executeSubPlan(planIndex, localDatabase, ctx)));
+    }
+  }
+
+  private void executeSubPlan(int planIndex, ODatabaseDocumentInternal localDatabase, OCommandContext parentCtx) {
+    try {
+      OBasicCommandContext workerCtx = new OBasicCommandContext();
+      workerCtx.setParentWithoutOverridingChild(parentCtx);
+      workerCtx.setDatabase(localDatabase);
+
+      OInternalExecutionPlan plan = subExecutionPlans.get(planIndex).copy(workerCtx);
+      workerPlans[planIndex] = plan;
+      while (!executionEnded) {
+        OResultSet partial = plan.fetchNext(WORKER_BATCH);
+        if (!partial.hasNext()) {
+          break;
+        }
+        while (partial.hasNext() && !executionEnded) {
+          OResult item = partial.next();
+          // THE RECORD IS CONSUMED BY ANOTHER THREAD AFTER THE LOCAL DATABASE IS CLOSED, SO IT CANNOT BE LAZILY DESERIALIZED
+          item.getElement().ifPresent(x -> {
+            if (x instanceof ODocument) {
+              ((ODocument) x).deserializeFields();
+            }
+          });
+          enqueue(item);
+        }
+      }
+      plan.close();
+    } catch (RuntimeException e) {
+      if (failure == null) {
+        failure = e;
+      }
+      executionEnded = true;
+    } finally {
+      enqueue(END_OF_SUB_PLAN);
+    }
+  }
+
+  private void enqueue(Object item) {
+    try {
+      // THE CONSUMER CAN STOP READING AT ANY TIME (eg. LIMIT REACHED), SO NEVER BLOCK FOREVER ON A FULL QUEUE
+      while (!resultQueue.offer(item, 100, TimeUnit.MILLISECONDS)) {
+        if (executionEnded) {
+          return;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      executionEnded = true;
+    }
+  }
+
+  private OResult takeNext() {
+    long begin = profilingEnabled ? System.nanoTime() : 0;
+    try {
+      while (runningSubPlans > 0) {
+        if (OExecutionThreadLocal.isInterruptCurrentOperation()) {
+          stopWorkers();
+          throw new OCommandInterruptedException("The command has been interrupted");
+        }
+        if (timedOut) {
+          stopWorkers();
+          return null;
+        }
+        Object item;
+        try {
+          item = resultQueue.poll(100, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          stopWorkers();
+          throw new OCommandInterruptedException("The command has been interrupted");
+        }
+        if (failure != null) {
+          stopWorkers();
+          if (failure instanceof OException) {
+            throw failure;
+          }
+          throw OException.wrapException(new OCommandExecutionException("Error on executing parallel query"), failure);
+        }
+        if (item == END_OF_SUB_PLAN) {
+          runningSubPlans--;
+        } else if (item != null) {
+          return (OResult) item;
+        }
+      }
+      return null;
+    } finally {
+      if (profilingEnabled) {
+        cost += (System.nanoTime() - begin);
+      }
+    }
+  }
+
+  private void stopWorkers() {
+    // JOBS WHICH DID NOT START YET STOP AS SOON AS THEY START, THEY STILL HAVE TO CLOSE THEIR DATABASE
+    executionEnded = true;
+  }
+
+  @Override
+  public void sendTimeout() {
+    super.sendTimeout();
+    for (OInternalExecutionPlan plan : subExecutionPlans) {
+      plan.getSteps().forEach(x -> ((OExecutionStepInternal) x).sendTimeout());
+    }
+    if (workerPlans != null) {
+      for (OInternalExecutionPlan plan : workerPlans) {
+        if (plan != null) {
+          plan.getSteps().forEach(x -> ((OExecutionStepInternal) x).sendTimeout());
+        }
+      }
+    }
+    executionEnded = true;
+  }
+
+  @Override
+  public void close() {
+    if (Boolean.TRUE.equals(runConcurrently)) {
+      stopWorkers();
+    }
+    super.close();
+  }
+
+  @Override
+  public long getCost() {
+    long result = cost;
+    OInternalExecutionPlan[] plans = workerPlans;
+    for (int i = 0; i < subExecutionPlans.size(); i++) {
+      OInternalExecutionPlan plan = plans != null && plans[i] != null ? plans[i] : subExecutionPlans.get(i);
+      for (OExecutionStep step : plan.getSteps()) {
+        long stepCost = step.getCost();
+        if (stepCost > 0) {
+          result += stepCost;
+        }
+      }
+    }
+    return result;
+  }
+
   @Override
   public String prettyPrint(int depth, int indent) {
     String result = "";
@@ -95,7 +354,9 @@ public class ParallelExecStep extends AbstractExecutionStep {
     int[] blockSizes = new int[subExecutionPlans.size()];
 
     for (int i = 0; i < subExecutionPlans.size(); i++) {
-      OInternalExecutionPlan currentPlan = subExecutionPlans.get(subExecutionPlans.size() - 1 - i);
+      int planIndex = subExecutionPlans.size() - 1 - i;
+      OInternalExecutionPlan currentPlan =
+          workerPlans != null && workerPlans[planIndex] != null ? workerPlans[planIndex] : subExecutionPlans.get(planIndex);
       String partial = currentPlan.prettyPrint(0, indent);
 
       String[] partials = partial.split("\n");
@@ -178,7 +439,11 @@ public class ParallelExecStep extends AbstractExecutionStep {
 
   private String head(int depth, int indent, int nItems) {
     String ind = OExecutionStepInternal.getIndent(depth, indent);
-    return ind + "+ PARALLEL";
+    String result = ind + (concurrent ? "+ PARALLEL (CONCURRENT)" : "+ PARALLEL");
+    if (profilingEnabled) {
+      result += " (" + getCostFormatted() + ")";
+    }
+    return result;
   }
 
   private String foot(int[] blockSizes) {
@@ -218,6 +483,6 @@ public class ParallelExecStep extends AbstractExecutionStep {
   @Override
   public OExecutionStep copy(OCommandContext ctx) {
     return new ParallelExecStep(subExecutionPlans.stream().map(x -> x.copy(ctx)).collect(Collectors.toList()), ctx,
-        profilingEnabled);
+        profilingEnabled, concurrent);
   }
 }
@@ -0,0 +1,147 @@
+package com.orientechnologies.orient.core.sql.executor;
+
+import com.orientechnologies.orient.core.command.OBasicCommandContext;
+import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Expands one level (the frontier) of a breadth-first traversal concurrently by {@link ParallelWorkers}, one worker per core. Every
+ * worker uses its own database and its own command context, so the variables set during the expansion (eg. $current, $depth) are
+ * not shared.
+ * <p>
+ * Items of the frontier are sorted by their RIDs and split in contiguous chunks, so every worker reads records of the same cluster
+ * which are next to each other, mostly on the same pages. Results are returned in the order of the frontier, so the caller merges
+ * them into the visited set exactly as the sequential traversal would.
+ * <p>
+ * The copies of the database are closed once the frontier is expanded, so the records returned by the workers have to be
+ * deserialized by {@link #deserialize(OIdentifiable)}, as {@link ParallelExecStep} does.
+ */
+class ParallelFrontierExpansion {
+  /**
+   * Chunks are smaller than the share of every worker, so workers which complete their chunks earlier take the rest of the work.
+   */
+  private static final int CHUNKS_PER_WORKER = 4;
+
+  interface Expander<T, R> {
+    R expand(T item, OCommandContext workerCtx);
+  }
+
+  /**
+   * Context of a worker, variables are always set in this context, even if the parent context has them, so workers never write
+   * into the shared context.
+   */
+  private static final class WorkerContext extends OBasicCommandContext {
+    WorkerContext(OCommandContext parent, ODatabaseDocumentInternal database) {
+      setParentWithoutOverridingChild(parent);
+      setDatabase(database);
+    }
+
+    @Override
+    public OCommandContext setVariable(String iName, Object iValue) {
+      if (iName == null) {
+        return null;
+      }
+      if (iName.startsWith("$")) {
+        iName = iName.substring(1);
+      }
+      if (iName.indexOf('.') >= 0 || iName.indexOf('[') >= 0) {
+        return super.setVariable(iName, iValue);
+      }
+      if (variables == null) {
+        variables = new HashMap<>();
+      }
+      variables.put(iName, iValue);
+      return this;
+    }
+  }
+
+  private ParallelFrontierExpansion() {
+  }
+
+  /**
+   * @return true if the frontier of this size should be expanded concurrently
+   */
+  static boolean isEnabled(OCommandContext ctx, int frontierSize) {
+    int threshold = getThreshold(ctx);
+    if (threshold <= 0 || frontierSize < threshold) {
+      return false;
+    }
+    return ParallelWorkers.canRunConcurrently((ODatabaseDocumentInternal) ctx.getDatabase());
+  }
+
+  static int getThreshold(OCommandContext ctx) {
+    if (ctx.getDatabase() != null) {
+      return ctx.getDatabase().getConfiguration().getValueAsInteger(OGlobalConfiguration.QUERY_PARALLEL_TRAVERSE_THRESHOLD);
+    }
+    return OGlobalConfiguration.QUERY_PARALLEL_TRAVERSE_THRESHOLD.getValueAsInteger();
+  }
+
+  /**
+   * Expands all the items of the frontier concurrently.
+   *
+   * @param identity  RID of the item, used to group the items which are close to each other, can return null
+   * @param expanders creates the expander of every worker, it is invoked on the thread of the worker, so the expander can keep
+   *                  copies of the parts of the statement which are not thread safe
+   *
+   * @return results of the expansion in the order of the frontier
+   */
+  @SuppressWarnings("unchecked")
+  static <T, R> List<R> expand(OCommandContext ctx, List<T> frontier, Function<T, ORID> identity,
+      Supplier<Expander<T, R>> expanders) {
+    final int size = frontier.size();
+    final ORID[] rids = new ORID[size];
+    final Integer[] order = new Integer[size];
+    for (int i = 0; i < size; i++) {
+      rids[i] = identity.apply(frontier.get(i));
+      order[i] = i;
+    }
+    Arrays.sort(order, Comparator.comparing((Integer i) -> rids[i], Comparator.nullsLast(Comparator.naturalOrder())));
+
+    final int workers = Runtime.getRuntime().availableProcessors();
+    final int chunks = Math.min(size, workers * CHUNKS_PER_WORKER);
+    final Object[] results = new Object[size];
+
+    ParallelWorkers.forEach((ODatabaseDocumentInternal) ctx.getDatabase(), chunks, workers, database -> {
+      OCommandContext workerCtx = new WorkerContext(ctx, database);
+      Expander<T, R> expander = expanders.get();
+      return chunk -> {
+        for (int i = chunkStart(size, chunks, chunk); i < chunkStart(size, chunks, chunk + 1); i++) {
+          int item = order[i];
+          results[item] = expander.expand(frontier.get(item), workerCtx);
+        }
+      };
+    });
+
+    List<R> result = new ArrayList<>(size);
+    for (Object item : results) {
+      result.add((R) item);
+    }
+    return result;
+  }
+
+  /**
+   * Deserializes the record loaded by a worker, so it can be read after the copy of the database is closed.
+   */
+  static <E extends OIdentifiable> E deserialize(E element) {
+    if (element instanceof ODocument) {
+      ((ODocument) element).deserializeFields();
+    }
+    return element;
+  }
+
+  private static int chunkStart(int size, int chunks, int chunk) {
+    return (int) ((long) size * chunk / chunks);
+  }
+}
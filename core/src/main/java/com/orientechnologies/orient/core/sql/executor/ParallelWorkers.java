@@ -0,0 +1,238 @@
+package com.orientechnologies.orient.core.sql.executor;
+
+import com.orientechnologies.common.log.OLogManager;
+import com.orientechnologies.common.thread.OThreadPoolExecutorWithLogging;
+import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
+import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
+import com.orientechnologies.orient.core.exception.OCommandInterruptedException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs the concurrent parts of queries, functions and index builds on a pool of threads which is dedicated to them, one thread per
+ * core. Every worker uses its own copy of the database, which is created on the calling thread and closed once the worker
+ * completes.
+ * <p>
+ * The calling thread never waits for work which is not started yet: it processes items by itself and the workers of the pool only
+ * help it, so the execution completes even if all the threads of the pool are busy. Work submitted by a thread of the pool is
+ * executed serially on that thread.
+ * <p>
+ * Copies of the database do not see the changes of the current transaction, so callers have to check {@link
+ * #canRunConcurrently(ODatabaseDocumentInternal)} first.
+ */
+public final class ParallelWorkers {
+  public interface ItemWorker {
+    /**
+     * Processes the item, the database of the worker is active on the current thread.
+     */
+    void execute(int item);
+  }
+
+  public interface WorkerFactory {
+    /**
+     * Creates the worker on the thread which executes it, so the worker can keep copies of the state which is not thread safe.
+     *
+     * @param database the database of the worker, <code>null</code> if workers do not use the database
+     */
+    ItemWorker create(ODatabaseDocumentInternal database);
+  }
+
+  private static final class WorkerThread extends Thread {
+    private WorkerThread(Runnable target, String name) {
+      super(target, name);
+      setDaemon(true);
+    }
+  }
+
+  private static final class PoolHolder {
+    private static final ThreadPoolExecutor POOL;
+
+    static {
+      final int cores = Runtime.getRuntime().availableProcessors();
+      final AtomicInteger threadNumber = new AtomicInteger();
+      POOL = new OThreadPoolExecutorWithLogging(cores, cores, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+          r -> new WorkerThread(r, "OrientDB Parallel Worker #" + threadNumber.incrementAndGet()));
+      POOL.allowCoreThreadTimeOut(true);
+    }
+  }
+
+  private ParallelWorkers() {
+  }
+
+  /**
+   * @return true if the current thread is a thread of the pool
+   */
+  public static boolean isWorkerThread() {
+    return Thread.currentThread() instanceof WorkerThread;
+  }
+
+  /**
+   * @return true if work on this database can be split between the workers of the pool
+   */
+  public static boolean canRunConcurrently(ODatabaseDocumentInternal db) {
+    return db != null && Runtime.getRuntime().availableProcessors() > 1 && !isWorkerThread() && !db.getTransaction().isActive();
+  }
+
+  /**
+   * Executes the job on a thread of the pool, using a copy of the database. The job is never cancelled, it has to check by itself
+   * if its results are still needed.
+   */
+  public static Future<?> submit(ODatabaseDocumentInternal db, Consumer<ODatabaseDocumentInternal> job) {
+    // THE COPY IS CREATED ON THE CALLING THREAD, copy() RE-ACTIVATES THE ORIGINAL INSTANCE ON THE CURRENT THREAD
+    final ODatabaseDocumentInternal database = db.copy();
+    try {
+      return PoolHolder.POOL.submit(() -> {
+        try {
+          database.activateOnCurrentThread();
+          job.accept(database);
+        } finally {
+          close(database);
+        }
+      });
+    } catch (RuntimeException e) {
+      close(database);
+      db.activateOnCurrentThread();
+      throw e;
+    }
+  }
+
+  /**
+   * Processes the items <code>[0, size)</code> concurrently, up to <code>parallelism</code> threads including the calling one.
+   * Items are taken by the workers one by one, so every item should be a chunk of work. Once a worker fails the rest of the workers
+   * stop taking new items and the failure is thrown once all of them complete.
+   *
+   * @param db the database of the calling thread, every other worker uses its own copy, <code>null</code> if workers do not use
+   *           the database
+   */
+  public static void forEach(ODatabaseDocumentInternal db, int size, int parallelism, WorkerFactory factory) {
+    final int workers = Math.min(parallelism, size);
+    if (workers <= 0) {
+      return;
+    }
+    if (workers == 1 || isWorkerThread()) {
+      final ItemWorker worker = factory.create(db);
+      for (int i = 0; i < size; i++) {
+        worker.execute(i);
+      }
+      return;
+    }
+
+    final AtomicInteger nextItem = new AtomicInteger();
+    final AtomicBoolean failed = new AtomicBoolean();
+    final Throwable[] failure = new Throwable[1];
+
+    final ODatabaseDocumentInternal[] databases = new ODatabaseDocumentInternal[workers - 1];
+    final List<Future<?>> jobs = new ArrayList<>(workers - 1);
+    try {
+      // THE COPIES ARE CREATED ON THE CALLING THREAD, copy() RE-ACTIVATES THE ORIGINAL INSTANCE ON THE CURRENT THREAD
+      for (int i = 0; i < databases.length; i++) {
+        databases[i] = db == null ? null : db.copy();
+      }
+      for (final ODatabaseDocumentInternal database : databases) {
+        jobs.add(PoolHolder.POOL.submit(() -> {
+          try {
+            if (database != null) {
+              database.activateOnCurrentThread();
+            }
+            processItems(factory, database, size, nextItem, failed, failure);
+          } finally {
+            if (database != null) {
+              close(database);
+            }
+          }
+        }));
+      }
+
+      processItems(factory, db, size, nextItem, failed, failure);
+    } finally {
+      await(db, databases, jobs, failed);
+    }
+
+    final Throwable error = failure[0];
+    if (error instanceof RuntimeException) {
+      throw (RuntimeException) error;
+    }
+    if (error != null) {
+      throw (Error) error;
+    }
+  }
+
+  private static void processItems(WorkerFactory factory, ODatabaseDocumentInternal database, int size, AtomicInteger nextItem,
+      AtomicBoolean failed, Throwable[] failure) {
+    try {
+      final ItemWorker worker = factory.create(database);
+      int item;
+      while (!failed.get() && (item = nextItem.getAndIncrement()) < size) {
+        worker.execute(item);
+      }
+    } catch (RuntimeException | Error e) {
+      synchronized (failure) {
+        if (failure[0] == null) {
+          failure[0] = e;
+        }
+      }
+      failed.set(true);
+    }
+  }
+
+  /**
+   * Waits for the workers which already started, the workers which did not start yet are cancelled and their databases are closed
+   * by the calling thread.
+   */
+  private static void await(ODatabaseDocumentInternal db, ODatabaseDocumentInternal[] databases, List<Future<?>> jobs,
+      AtomicBoolean failed) {
+    boolean interrupted = false;
+    for (int i = 0; i < databases.length; i++) {
+      if (i >= jobs.size() || jobs.get(i).cancel(false)) {
+        if (databases[i] != null) {
+          close(databases[i]);
+        }
+        continue;
+      }
+
+      while (true) {
+        try {
+          jobs.get(i).get();
+          break;
+        } catch (InterruptedException e) {
+          // WORKERS STILL USE THE SHARED STATE OF THE CALLER, SO WAIT FOR THEM TO STOP
+          failed.set(true);
+          interrupted = true;
+        } catch (ExecutionException e) {
+          // FAILURES OF THE ITEMS ARE COLLECTED BY THE WORKERS
+          OLogManager.instance().error(ParallelWorkers.class, "Error in parallel worker", e.getCause());
+          break;
+        }
+      }
+    }
+
+    // CLOSED COPIES ARE DEACTIVATED ON THE CALLING THREAD
+    if (db != null) {
+      db.activateOnCurrentThread();
+    }
+
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+      throw new OCommandInterruptedException("The command has been interrupted");
+    }
+  }
+
+  private static void close(ODatabaseDocumentInternal database) {
+    try {
+      database.activateOnCurrentThread();
+      database.close();
+    } catch (RuntimeException e) {
+      OLogManager.instance().error(ParallelWorkers.class, "Error closing database after parallel execution", e);
+    }
+    ODatabaseRecordThreadLocal.instance().remove();
+  }
+}
@@ -0,0 +1,331 @@
+package com.orientechnologies.orient.core.sql.executor;
+
+import com.orientechnologies.common.directmemory.ODirectMemoryAllocator;
+import com.orientechnologies.common.directmemory.OPointer;
+import com.orientechnologies.common.exception.OException;
+import com.orientechnologies.common.io.OFileUtils;
+import com.orientechnologies.orient.core.Orient;
+import com.orientechnologies.orient.core.exception.OCommandExecutionException;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.serialization.serializer.record.binary.ORecordSerializerBinary;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * Set of projections used by DISTINCT to remember the results it has already returned, without keeping them on the heap.
+ * <p>
+ * Each projection is serialized to a canonical binary key (properties sorted by name) and indexed by a 64 bit fingerprint of the key
+ * in an open addressing hash table allocated in direct memory. The keys are stored too, so that two different projections with the
+ * same fingerprint are never confused: they are appended to blocks of direct memory until the memory budget is reached, then to a
+ * temporary file under {@link Orient#getTempPath()}; only the hash table (16 bytes per projection) keeps growing in memory.
+ * <p>
+ * The direct memory and the temporary file are released by {@link #close()}.
+ */
+class ResultFingerprintSet implements Closeable {
+
+  private static final int  SEGMENT_BITS          = 4;
+  private static final int  INITIAL_SEGMENT_SLOTS = 1024;
+  private static final int  SLOT_SIZE             = 16;
+  private static final int  ARENA_BLOCK_SIZE      = 1024 * 1024;
+  private static final long FILE_LOCATION         = 1L << 62;
+
+  private final ODirectMemoryAllocator allocator;
+  private final long                   maxMemory;
+  private       long                   usedMemory = 0;
+
+  private final OPointer[] segments     = new OPointer[1 << SEGMENT_BITS];
+  private final int[]      segmentSizes = new int[1 << SEGMENT_BITS];
+  private       long       size         = 0;
+
+  private final List<OPointer> arena         = new ArrayList<>();
+  private       int            arenaPosition = ARENA_BLOCK_SIZE;
+
+  private File             file;
+  private RandomAccessFile fileAccess;
+  private long             fileLength     = 0;
+  private byte[]           writeBuffer;
+  private int              writePosition  = 0;
+
+  ResultFingerprintSet(long maxMemory) {
+    this(ODirectMemoryAllocator.instance(), maxMemory);
+  }
+
+  ResultFingerprintSet(ODirectMemoryAllocator allocator, long maxMemory) {
+    this.allocator = allocator;
+    this.maxMemory = maxMemory;
+  }
+
+  /**
+   * @return the canonical binary key of a projection, null if the projection contains values that cannot be serialized
+   */
+  static byte[] toKey(OResult projection) {
+    try {
+      // names and values as lists, property names like @rid or @class have a special meaning in a document
+      List<String> names = new ArrayList<>(new TreeSet<>(projection.getPropertyNames()));
+      List<Object> values = new ArrayList<>();
+      for (String name : names) {
+        values.add(canonical(projection.getProperty(name)));
+      }
+      ODocument doc = new ODocument();
+      doc.field("names", names, OType.EMBEDDEDLIST);
+      doc.field("values", values, OType.EMBEDDEDLIST);
+      return ORecordSerializerBinary.INSTANCE.toStream(doc, false);
+    } catch (RuntimeException e) {
+      return null;
+    }
+  }
+
+  private static Object canonical(Object value) {
+    if (value instanceof OResult) {
+      OResult result = (OResult) value;
+      if (result.isElement()) {
+        return result.getElement().get();
+      }
+      Map<String, Object> map = new TreeMap<>();
+      for (String name : result.getPropertyNames()) {
+        map.put(name, canonical(result.getProperty(name)));
+      }
+      return map;
+    }
+    if (value instanceof List) {
+      List<Object> result = new ArrayList<>();
+      for (Object o : (List) value) {
+        result.add(canonical(o));
+      }
+      return result;
+    }
+    if (value instanceof Set) {
+      Set<Object> result = new LinkedHashSet<>();
+      for (Object o : (Set) value) {
+        result.add(canonical(o));
+      }
+      return result;
+    }
+    if (value instanceof Map) {
+      Map<Object, Object> result = new TreeMap<>();
+      for (Map.Entry<Object, Object> entry : ((Map<Object, Object>) value).entrySet()) {
+        if (!(entry.getKey() instanceof String)) {
+          return value;
+        }
+        result.put(entry.getKey(), canonical(entry.getValue()));
+      }
+      return result;
+    }
+    return value;
+  }
+
+  /**
+   * adds a key to the set
+   *
+   * @return true if the key was not already in the set
+   */
+  boolean add(byte[] key) {
+    long fingerprint = fingerprint(key);
+    int segmentId = (int) (fingerprint >>> (64 - SEGMENT_BITS));
+    if (segments[segmentId] == null) {
+      segments[segmentId] = allocateTable(INITIAL_SEGMENT_SLOTS);
+    } else if ((segmentSizes[segmentId] + 1) * 2L > capacity(segments[segmentId])) {
+      segments[segmentId] = rehash(segments[segmentId]);
+    }
+    ByteBuffer table = segments[segmentId].getNativeByteBuffer();
+    int mask = capacity(segments[segmentId]) - 1;
+    int slot = (int) fingerprint & mask;
+    while (true) {
+      long location = table.getLong(slot * SLOT_SIZE + 8);
+      if (location == 0) {
+        break;
+      }
+      if (table.getLong(slot * SLOT_SIZE) == fingerprint && keyEquals(location - 1, key)) {
+        return false;
+      }
+      slot = (slot + 1) & mask;
+    }
+    table.putLong(slot * SLOT_SIZE, fingerprint);
+    table.putLong(slot * SLOT_SIZE + 8, store(key) + 1);
+    segmentSizes[segmentId]++;
+    size++;
+    return true;
+  }
+
+  long size() {
+    return size;
+  }
+
+  private static long fingerprint(byte[] key) {
+    // FNV-1a followed by the MurmurHash3 finalizer, the table uses both the high and the low bits
+    long h = 0xcbf29ce484222325L;
+    for (byte b : key) {
+      h ^= b & 0xff;
+      h *= 0x100000001b3L;
+    }
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  private static int capacity(OPointer table) {
+    return table.getNativeByteBuffer().capacity() / SLOT_SIZE;
+  }
+
+  private OPointer allocateTable(int slots) {
+    OPointer result = allocator.allocate(slots * SLOT_SIZE, -1);
+    result.clear();
+    return result;
+  }
+
+  private OPointer rehash(OPointer oldTable) {
+    int oldCapacity = capacity(oldTable);
+    if (oldCapacity * 2L * SLOT_SIZE > Integer.MAX_VALUE) {
+      throw new OCommandExecutionException("Too many distinct results: " + size);
+    }
+    OPointer newTable = allocateTable(oldCapacity * 2);
+    ByteBuffer from = oldTable.getNativeByteBuffer();
+    ByteBuffer to = newTable.getNativeByteBuffer();
+    int mask = oldCapacity * 2 - 1;
+    for (int i = 0; i < oldCapacity; i++) {
+      long location = from.getLong(i * SLOT_SIZE + 8);
+      if (location == 0) {
+        continue;
+      }
+      long fingerprint = from.getLong(i * SLOT_SIZE);
+      int slot = (int) fingerprint & mask;
+      while (to.getLong(slot * SLOT_SIZE + 8) != 0) {
+        slot = (slot + 1) & mask;
+      }
+      to.putLong(slot * SLOT_SIZE, fingerprint);
+      to.putLong(slot * SLOT_SIZE + 8, location);
+    }
+    allocator.deallocate(oldTable);
+    return newTable;
+  }
+
+  /**
+   * stores a key in direct memory or in the temporary file, if the memory budget is exhausted
+   *
+   * @return the location of the key
+   */
+  private long store(byte[] key) {
+    int length = key.length + 4;
+    if (length <= ARENA_BLOCK_SIZE && (arenaPosition + length <= ARENA_BLOCK_SIZE || usedMemory + ARENA_BLOCK_SIZE <= maxMemory)) {
+      if (arenaPosition + length > ARENA_BLOCK_SIZE) {
+        arena.add(allocator.allocate(ARENA_BLOCK_SIZE, -1));
+        usedMemory += ARENA_BLOCK_SIZE;
+        arenaPosition = 0;
+      }
+      ByteBuffer block = arena.get(arena.size() - 1).getNativeByteBuffer();
+      long location = (long) (arena.size() - 1) * ARENA_BLOCK_SIZE + arenaPosition;
+      block.putInt(arenaPosition, key.length);
+      for (int i = 0; i < key.length; i++) {
+        block.put(arenaPosition + 4 + i, key[i]);
+      }
+      arenaPosition += length;
+      return location;
+    }
+    return FILE_LOCATION | append(key);
+  }
+
+  private boolean keyEquals(long location, byte[] key) {
+    if ((location & FILE_LOCATION) != 0) {
+      return Arrays.equals(read(location & ~FILE_LOCATION), key);
+    }
+    ByteBuffer block = arena.get((int) (location / ARENA_BLOCK_SIZE)).getNativeByteBuffer();
+    int position = (int) (location % ARENA_BLOCK_SIZE);
+    if (block.getInt(position) != key.length) {
+      return false;
+    }
+    for (int i = 0; i < key.length; i++) {
+      if (block.get(position + 4 + i) != key[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private long append(byte[] key) {
+    try {
+      if (file == null) {
+        File dir = new File(Orient.getTempPath());
+        dir.mkdirs();
+        file = File.createTempFile("query-distinct-", ".tmp", dir);
+        fileAccess = new RandomAccessFile(file, "rw");
+        writeBuffer = new byte[64 * 1024];
+      }
+      if (writePosition + key.length + 4 > writeBuffer.length) {
+        flush();
+      }
+      long location = fileLength + writePosition;
+      if (key.length + 4 > writeBuffer.length) {
+        fileAccess.seek(fileLength);
+        fileAccess.writeInt(key.length);
+        fileAccess.write(key);
+        fileLength += key.length + 4;
+      } else {
+        ByteBuffer.wrap(writeBuffer, writePosition, 4).putInt(key.length);
+        System.arraycopy(key, 0, writeBuffer, writePosition + 4, key.length);
+        writePosition += key.length + 4;
+      }
+      return location;
+    } catch (IOException e) {
+      throw OException.wrapException(new OCommandExecutionException("Cannot write DISTINCT results to temporary file " + file), e);
+    }
+  }
+
+  private void flush() throws IOException {
+    if (writePosition > 0) {
+      fileAccess.seek(fileLength);
+      fileAccess.write(writeBuffer, 0, writePosition);
+      fileLength += writePosition;
+      writePosition = 0;
+    }
+  }
+
+  private byte[] read(long location) {
+    if (location >= fileLength) {
+      int position = (int) (location - fileLength);
+      int length = ByteBuffer.wrap(writeBuffer, position, 4).getInt();
+      return Arrays.copyOfRange(writeBuffer, position + 4, position + 4 + length);
+    }
+    try {
+      fileAccess.seek(location);
+      byte[] result = new byte[fileAccess.readInt()];
+      fileAccess.readFully(result);
+      return result;
+    } catch (IOException e) {
+      throw OException.wrapException(new OCommandExecutionException("Cannot read DISTINCT results from temporary file " + file), e);
+    }
+  }
+
+  @Override
+  public void close() {
+    for (int i = 0; i < segments.length; i++) {
+      if (segments[i] != null) {
+        allocator.deallocate(segments[i]);
+        segments[i] = null;
+      }
+    }
+    for (OPointer block : arena) {
+      allocator.deallocate(block);
+    }
+    arena.clear();
+    arenaPosition = ARENA_BLOCK_SIZE;
+    usedMemory = 0;
+    size = 0;
+    if (file != null) {
+      try {
+        fileAccess.close();
+      } catch (IOException ignore) {
+      }
+      OFileUtils.deleteRecursively(file);
+      file = null;
+    }
+  }
+}
@@ -0,0 +1,238 @@
+package com.orientechnologies.orient.core.sql.executor;
+
+import com.orientechnologies.common.exception.OException;
+import com.orientechnologies.common.io.OFileUtils;
+import com.orientechnologies.orient.core.Orient;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.exception.OCommandExecutionException;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.OElement;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.serialization.serializer.record.binary.ORecordSerializerBinary;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Temporary file that holds a sequence of results that do not fit in memory (eg. a sorted run of an ORDER BY). Results are written
+ * once, in sequence, and then read back in the same order. Persistent records are stored by RID and are reloaded lazily when read
+ * back, projections are serialized with {@link ORecordSerializerBinary}.
+ * <p>
+ * The file is created under {@link Orient#getTempPath()}. Readers which are still open are closed and the file is deleted on
+ * {@link #close()}, that has to be invoked by the owner of the file on every path.
+ */
+class ResultSpillFile implements Closeable {
+
+  private static final byte PERSISTENT_ELEMENT = 0;
+  private static final byte EMBEDDED_ELEMENT   = 1;
+  private static final byte PROJECTION         = 2;
+
+  private final File                  file;
+  private final List<DataInputStream> readers = new ArrayList<>();
+  private       DataOutputStream      out;
+  private       long                  size    = 0;
+
+  ResultSpillFile() {
+    try {
+      File dir = new File(Orient.getTempPath());
+      dir.mkdirs();
+      file = File.createTempFile("query-spill-", ".tmp", dir);
+      out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 64 * 1024));
+    } catch (IOException e) {
+      throw OException.wrapException(new OCommandExecutionException("Cannot create temporary file for query results"), e);
+    }
+  }
+
+  public void write(OResult item) {
+    try {
+      ODocument envelope = new ODocument();
+      Optional<OElement> element = item.isElement() ? item.getElement() : Optional.empty();
+      byte kind;
+      if (element.isPresent() && element.get().getIdentity().isPersistent()) {
+        kind = PERSISTENT_ELEMENT;
+        envelope.field("rid", element.get().getIdentity(), OType.LINK);
+      } else if (element.isPresent()) {
+        kind = EMBEDDED_ELEMENT;
+        envelope.field("element", element.get().getRecord(), OType.EMBEDDED);
+      } else {
+        kind = PROJECTION;
+      }
+      List<String> names = new ArrayList<>();
+      List<Object> values = new ArrayList<>();
+      if (item instanceof OResultInternal) {
+        // only the properties that are not part of the element
+        for (Map.Entry<String, Object> entry : ((OResultInternal) item).content.entrySet()) {
+          names.add(entry.getKey());
+          values.add(toStorable(entry.getValue()));
+        }
+      } else if (item.isProjection()) {
+        for (String name : item.getPropertyNames()) {
+          names.add(name);
+          values.add(toStorable(item.getProperty(name)));
+        }
+      }
+      if (!names.isEmpty()) {
+        envelope.field("names", names, OType.EMBEDDEDLIST);
+        envelope.field("values", values, OType.EMBEDDEDLIST);
+      }
+      Set<String> metadataKeys = item.getMetadataKeys();
+      if (metadataKeys != null && !metadataKeys.isEmpty()) {
+        List<String> metadataNames = new ArrayList<>();
+        List<Object> metadataValues = new ArrayList<>();
+        for (String name : metadataKeys) {
+          metadataNames.add(name);
+          metadataValues.add(toStorable(item.getMetadata(name)));
+        }
+        envelope.field("metadataNames", metadataNames, OType.EMBEDDEDLIST);
+        envelope.field("metadataValues", metadataValues, OType.EMBEDDEDLIST);
+      }
+
+      byte[] bytes = ORecordSerializerBinary.INSTANCE.toStream(envelope, false);
+      out.writeByte(kind);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+      size++;
+    } catch (IOException e) {
+      throw OException.wrapException(new OCommandExecutionException("Cannot write query results to temporary file " + file), e);
+    }
+  }
+
+  private Object toStorable(Object value) {
+    if (value instanceof OResult) {
+      return ((OResult) value).toElement();
+    }
+    if (value instanceof List) {
+      List<Object> result = new ArrayList<>();
+      for (Object o : (List) value) {
+        result.add(toStorable(o));
+      }
+      return result;
+    }
+    if (value instanceof Set) {
+      Set<Object> result = new LinkedHashSet<>();
+      for (Object o : (Set) value) {
+        result.add(toStorable(o));
+      }
+      return result;
+    }
+    if (value instanceof Map) {
+      Map<Object, Object> result = new LinkedHashMap<>();
+      for (Map.Entry<Object, Object> o : ((Map<Object, Object>) value).entrySet()) {
+        result.put(o.getKey(), toStorable(o.getValue()));
+      }
+      return result;
+    }
+    return value;
+  }
+
+  File getFile() {
+    return file;
+  }
+
+  /**
+   * @return the number of results written to this file
+   */
+  public long size() {
+    return size;
+  }
+
+  /**
+   * ends the write phase and returns an iterator on the content of the file, in the same order as it was written
+   */
+  public Iterator<OResult> iterator() {
+    try {
+      if (out != null) {
+        out.close();
+        out = null;
+      }
+      DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 64 * 1024));
+      readers.add(in);
+      return new Iterator<OResult>() {
+        long read = 0;
+
+        @Override
+        public boolean hasNext() {
+          if (read < size) {
+            return true;
+          }
+          if (readers.remove(in)) {
+            closeReader(in);
+          }
+          return false;
+        }
+
+        @Override
+        public OResult next() {
+          if (!hasNext()) {
+            throw new NoSuchElementException();
+          }
+          try {
+            read++;
+            return readResult(in);
+          } catch (IOException e) {
+            throw OException.wrapException(new OCommandExecutionException("Cannot read query results from temporary file " + file),
+                e);
+          }
+        }
+      };
+    } catch (IOException e) {
+      throw OException.wrapException(new OCommandExecutionException("Cannot read query results from temporary file " + file), e);
+    }
+  }
+
+  private OResult readResult(DataInputStream in) throws IOException {
+    byte kind = in.readByte();
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    ODocument envelope = new ODocument();
+    ORecordSerializerBinary.INSTANCE.fromStream(bytes, envelope, null);
+
+    OResultInternal result;
+    if (kind == PERSISTENT_ELEMENT) {
+      result = new OResultInternal(((OIdentifiable) envelope.field("rid", OType.LINK)).getIdentity());
+    } else if (kind == EMBEDDED_ELEMENT) {
+      result = new OResultInternal((ODocument) envelope.field("element"));
+    } else {
+      result = new OResultInternal();
+    }
+    List<String> names = envelope.field("names");
+    if (names != null) {
+      List<Object> values = envelope.field("values");
+      for (int i = 0; i < names.size(); i++) {
+        result.setProperty(names.get(i), values.get(i));
+      }
+    }
+    List<String> metadataNames = envelope.field("metadataNames");
+    if (metadataNames != null) {
+      List<Object> values = envelope.field("metadataValues");
+      for (int i = 0; i < metadataNames.size(); i++) {
+        result.setMetadata(metadataNames.get(i), values.get(i));
+      }
+    }
+    return result;
+  }
+
+  private static void closeReader(DataInputStream in) {
+    try {
+      in.close();
+    } catch (IOException ignore) {
+    }
+  }
+
+  @Override
+  public void close() {
+    try {
+      if (out != null) {
+        out.close();
+        out = null;
+      }
+    } catch (IOException ignore) {
+    }
+    // READERS WHICH WERE NOT CONSUMED TO THE END (eg. LIMIT REACHED) ARE STILL OPEN, AN OPEN FILE CANNOT BE DELETED ON WINDOWS
+    for (DataInputStream in : readers) {
+      closeReader(in);
+    }
+    readers.clear();
+    OFileUtils.deleteRecursively(file);
+  }
+}
@@ -87,6 +87,9 @@ public final class ODefaultSQLFunctionFactory extends OSQLFunctionFactoryTemplat
     register(OSQLFunctionShortestPath.NAME, OSQLFunctionShortestPath.class);
     register(OSQLFunctionDijkstra.NAME, OSQLFunctionDijkstra.class);
     register(OSQLFunctionAstar.NAME, OSQLFunctionAstar.class);
+    register(OSQLFunctionPageRank.NAME, OSQLFunctionPageRank.class);
+    register(OSQLFunctionConnectedComponents.NAME, OSQLFunctionConnectedComponents.class);
+    register(OSQLFunctionLabelPropagation.NAME, OSQLFunctionLabelPropagation.class);
 
   }
 
@@ -85,6 +85,16 @@ public interface OSQLFunction {
 	 */
 	public boolean filterResult();
 
+	/**
+	 * A function which writes to the database cannot be called by queries, the statements which call it have to be executed as
+	 * commands.
+	 * 
+	 * @return false if the function changes the database
+	 */
+	default boolean isIdempotent() {
+		return true;
+	}
+
 	/**
 	 * Function name, the name is used by the sql parser to identify a call this function.
 	 * 
@@ -150,4 +160,27 @@ public interface OSQLFunction {
 	 * @return is the valid merged result
 	 */
 	public Object mergeDistributedResult(List<Object> resultsToMerge);
+
+	/**
+	 * This method correspond to parallel aggregation, where disjoint subsets of the records are aggregated by different instances of
+	 * the same function
+	 * 
+	 * @return {@code true} if the state of this function can be merged with the one of another instance by
+	 *         {@link #combine(OSQLFunction)}, {@code false} otherwise
+	 */
+	default boolean canCombine() {
+		return false;
+	}
+
+	/**
+	 * This method correspond to parallel aggregation. Merges into this function the state of another instance of the same function,
+	 * that aggregated a disjoint subset of the records. Afterwards {@link #getResult()} returns the aggregated value of both the
+	 * subsets.
+	 * 
+	 * @param partial
+	 *          another instance of the same function
+	 */
+	default void combine(OSQLFunction partial) {
+		throw new IllegalStateException("By default SQL function partial results cannot be combined");
+	}
 }
@@ -0,0 +1,112 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.sql.functions.graph;
+
+import com.orientechnologies.common.collection.OLongLongHashMap;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Vertices visited by a path finder. Every vertex gets a dense index on the first visit, so the distance of the vertex, the
+ * previous vertex of the path and the closed flag are kept in primitive arrays instead of maps keyed by vertices.
+ */
+final class OPathFinderNodes {
+  static final int NO_NODE = -1;
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  private final OLongLongHashMap indexes = new OLongLongHashMap(INITIAL_CAPACITY, NO_NODE);
+  private final BitSet           closed  = new BitSet();
+
+  private long[]   identities = new long[INITIAL_CAPACITY];
+  private double[] distances  = new double[INITIAL_CAPACITY];
+  private int[]    previous   = new int[INITIAL_CAPACITY];
+  private int      size;
+
+  /**
+   * @return index of the vertex, {@link #NO_NODE} if it was not visited
+   */
+  int indexOf(final ORID vertex) {
+    return (int) indexes.get(ORecordId.pack(vertex));
+  }
+
+  /**
+   * Assigns index to the vertex if it was not visited yet. Distance of the new vertex is infinite and it has no previous vertex.
+   *
+   * @return index of the vertex
+   */
+  int add(final ORID vertex) {
+    final long identity = ORecordId.pack(vertex);
+    if (!indexes.putIfAbsent(identity, size)) {
+      return (int) indexes.get(identity);
+    }
+
+    if (size == identities.length) {
+      final int capacity = size << 1;
+      identities = Arrays.copyOf(identities, capacity);
+      distances = Arrays.copyOf(distances, capacity);
+      previous = Arrays.copyOf(previous, capacity);
+    }
+
+    identities[size] = identity;
+    distances[size] = Double.POSITIVE_INFINITY;
+    previous[size] = NO_NODE;
+    return size++;
+  }
+
+  ORID getIdentity(final int node) {
+    return ORecordId.unpack(identities[node]);
+  }
+
+  double getDistance(final int node) {
+    return distances[node];
+  }
+
+  boolean hasDistance(final int node) {
+    return distances[node] != Double.POSITIVE_INFINITY;
+  }
+
+  void setDistance(final int node, final double distance) {
+    distances[node] = distance;
+  }
+
+  int getPrevious(final int node) {
+    return previous[node];
+  }
+
+  void setPrevious(final int node, final int previousNode) {
+    previous[node] = previousNode;
+  }
+
+  boolean isClosed(final int node) {
+    return closed.get(node);
+  }
+
+  void close(final int node) {
+    closed.set(node);
+  }
+
+  int size() {
+    return size;
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.sql.functions.graph;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of the indexes of {@link OPathFinderNodes} ordered by their priorities. Position of every node in the heap is
+ * tracked, so {@link #contains(int)} and {@link #remove(int)} do not scan the heap as {@link java.util.PriorityQueue} does.
+ * <p>
+ * Sifting follows the one of {@link java.util.PriorityQueue}, so nodes with equal priorities are polled in the same order.
+ */
+final class OPathFinderQueue {
+  private static final int INITIAL_CAPACITY = 64;
+
+  private int[]    heap       = new int[INITIAL_CAPACITY];
+  private int      size;
+  private double[] priorities = new double[INITIAL_CAPACITY];
+  private int[]    positions  = newPositions(INITIAL_CAPACITY);
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  int size() {
+    return size;
+  }
+
+  boolean contains(final int node) {
+    return node < positions.length && positions[node] >= 0;
+  }
+
+  /**
+   * Adds the node which is not in the queue yet.
+   */
+  void offer(final int node, final double priority) {
+    if (node >= positions.length) {
+      final int capacity = Math.max(node + 1, positions.length << 1);
+      final int[] oldPositions = positions;
+      priorities = Arrays.copyOf(priorities, capacity);
+      positions = newPositions(capacity);
+      System.arraycopy(oldPositions, 0, positions, 0, oldPositions.length);
+    }
+    if (size == heap.length) {
+      heap = Arrays.copyOf(heap, size << 1);
+    }
+
+    priorities[node] = priority;
+    siftUp(size++, node);
+  }
+
+  /**
+   * @return node with the least priority, the queue should not be empty
+   */
+  int poll() {
+    final int result = heap[0];
+    positions[result] = -1;
+
+    final int last = heap[--size];
+    if (size > 0) {
+      siftDown(0, last);
+    }
+    return result;
+  }
+
+  void remove(final int node) {
+    final int position = positions[node];
+    positions[node] = -1;
+
+    final int last = --size;
+    if (last == position) {
+      return;
+    }
+
+    final int moved = heap[last];
+    siftDown(position, moved);
+    if (heap[position] == moved) {
+      siftUp(position, moved);
+    }
+  }
+
+  private void siftUp(int position, final int node) {
+    final double priority = priorities[node];
+    while (position > 0) {
+      final int parentPosition = (position - 1) >>> 1;
+      final int parent = heap[parentPosition];
+      if (Double.compare(priority, priorities[parent]) >= 0) {
+        break;
+      }
+
+      place(position, parent);
+      position = parentPosition;
+    }
+    place(position, node);
+  }
+
+  private void siftDown(int position, final int node) {
+    final double priority = priorities[node];
+    final int half = size >>> 1;
+    while (position < half) {
+      int childPosition = (position << 1) + 1;
+      int child = heap[childPosition];
+
+      final int rightPosition = childPosition + 1;
+      if (rightPosition < size && Double.compare(priorities[child], priorities[heap[rightPosition]]) > 0) {
+        childPosition = rightPosition;
+        child = heap[childPosition];
+      }
+      if (Double.compare(priority, priorities[child]) <= 0) {
+        break;
+      }
+
+      place(position, child);
+      position = childPosition;
+    }
+    place(position, node);
+  }
+
+  private void place(final int position, final int node) {
+    heap[position] = node;
+    positions[node] = position;
+  }
+
+  private static int[] newPositions(final int capacity) {
+    final int[] result = new int[capacity];
+    Arrays.fill(result, -1);
+    return result;
+  }
+}
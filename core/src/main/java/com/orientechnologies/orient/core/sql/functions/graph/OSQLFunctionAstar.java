@@ -24,7 +24,9 @@ import com.orientechnologies.common.io.OIOUtils;
 import com.orientechnologies.orient.core.command.OCommandContext;
 import com.orientechnologies.orient.core.db.ODatabase;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.record.*;
+import com.orientechnologies.orient.core.record.impl.OAdjacentVertexIterator;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.sql.OSQLHelper;
 import com.orientechnologies.orient.core.sql.executor.OResult;
@@ -45,19 +47,16 @@ import java.util.*;
 public class OSQLFunctionAstar extends OSQLFunctionHeuristicPathFinderAbstract {
   public static final String NAME = "astar";
 
-  private   String                paramWeightFieldName = "weight";
-  private   long                  currentDepth         = 0;
-  protected Set<OVertex>          closedSet            = new HashSet<OVertex>();
-  protected Map<OVertex, OVertex> cameFrom             = new HashMap<OVertex, OVertex>();
-
-  protected Map<OVertex, Double>   gScore = new HashMap<OVertex, Double>();
-  protected Map<OVertex, Double>   fScore = new HashMap<OVertex, Double>();
-  protected PriorityQueue<OVertex> open   = new PriorityQueue<OVertex>(1, new Comparator<OVertex>() {
-
-    public int compare(OVertex nodeA, OVertex nodeB) {
-      return Double.compare(fScore.get(nodeA), fScore.get(nodeB));
-    }
-  });
+  private   String           paramWeightFieldName = "weight";
+  private   long             currentDepth         = 0;
+  /**
+   * visited vertices with their costs of going from the start, the previous vertices of the paths and the closed flags
+   */
+  protected OPathFinderNodes nodes                = new OPathFinderNodes();
+  /**
+   * vertices to evaluate, ordered by their estimated costs of the path from the start to the goal through them
+   */
+  protected OPathFinderQueue open                 = new OPathFinderQueue();
 
   public OSQLFunctionAstar() {
     super(NAME, 3, 4);
@@ -127,53 +126,62 @@ public class OSQLFunctionAstar extends OSQLFunctionHeuristicPathFinderAbstract {
 
     OVertex start = paramSourceVertex;
     OVertex goal = paramDestinationVertex;
+    final ORID goalIdentity = goal.getIdentity();
 
-    open.add(start);
+    // VERTICES ARE LOADED ONLY TO CALCULATE THE HEURISTIC COST, THE SEARCH ITSELF NEEDS THEIR IDENTITIES ONLY
+    final boolean loadVertices = paramVertexAxisNames.length > 0;
 
+    final int startNode = nodes.add(start.getIdentity());
     // The cost of going from start to start is zero.
-    gScore.put(start, 0.0);
+    nodes.setDistance(startNode, 0.0);
     // For the first node, that value is completely heuristic.
-    fScore.put(start, getHeuristicCost(start, null, goal, iContext));
+    open.offer(startNode, getHeuristicCost(start, null, goal, iContext));
 
     while (!open.isEmpty()) {
-      OVertex current = open.poll();
+      int current = open.poll();
 
       // we discussed about this feature in https://github.com/orientechnologies/orientdb/pull/6002#issuecomment-212492687
       if (paramEmptyIfMaxDepth == true && currentDepth >= paramMaxDepth) {
         route.clear(); // to ensure our result is empty
         return getPath();
       }
-      // if start and goal vertex is equal so return current path from  cameFrom hash map
-      if (current.getIdentity().equals(goal.getIdentity()) || currentDepth >= paramMaxDepth) {
+      final ORID currentIdentity = nodes.getIdentity(current);
+      // if start and goal vertex is equal so return current path from the previous vertices of the nodes
+      if (currentIdentity.equals(goalIdentity) || currentDepth >= paramMaxDepth) {
 
-        while (current != null) {
-          route.add(0, current);
-          current = cameFrom.get(current);
+        while (current != OPathFinderNodes.NO_NODE) {
+          route.add(0, toVertex(nodes.getIdentity(current)));
+          current = nodes.getPrevious(current);
         }
         return getPath();
       }
 
-      closedSet.add(current);
-      for (OEdge neighborEdge : getNeighborEdges(current)) {
+      nodes.close(current);
+      final OVertex currentVertex = loadVertices ? toVertex(currentIdentity) : null;
 
-        OVertex neighbor = getNeighbor(current, neighborEdge, graph);
+      final OAdjacentVertexIterator neighbors = getNeighbors(currentIdentity);
+      while (neighbors != null && neighbors.hasNext()) {
+        final ORID neighborIdentity = neighbors.next();
+
+        final int neighbor = nodes.add(neighborIdentity);
         // Ignore the neighbor which is already evaluated.
-        if (closedSet.contains(neighbor)) {
+        if (nodes.isClosed(neighbor)) {
           continue;
         }
         // The distance from start to a neighbor
-        double tentative_gScore = gScore.get(current) + getDistance(neighborEdge);
+        double tentative_gScore = nodes.getDistance(current) + getDistance(neighbors.getEdgeIdentity());
         boolean contains = open.contains(neighbor);
 
-        if (!contains || tentative_gScore < gScore.get(neighbor)) {
-          gScore.put(neighbor, tentative_gScore);
-          fScore.put(neighbor, tentative_gScore + getHeuristicCost(neighbor, current, goal, iContext));
+        if (!contains || tentative_gScore < nodes.getDistance(neighbor)) {
+          nodes.setDistance(neighbor, tentative_gScore);
+          final OVertex neighborVertex = loadVertices ? toVertex(neighborIdentity) : null;
+          final double fScore = tentative_gScore + getHeuristicCost(neighborVertex, currentVertex, goal, iContext);
 
           if (contains) {
             open.remove(neighbor);
           }
-          open.offer(neighbor);
-          cameFrom.put(neighbor, current);
+          open.offer(neighbor, fScore);
+          nodes.setPrevious(neighbor, current);
         }
       }
 
@@ -185,35 +193,12 @@ public class OSQLFunctionAstar extends OSQLFunctionHeuristicPathFinderAbstract {
     return getPath();
   }
 
-  private OVertex getNeighbor(OVertex current, OEdge neighborEdge, ODatabase graph) {
-    if (neighborEdge.getFrom().equals(current)) {
-      return toVertex(neighborEdge.getTo());
-    }
-    return toVertex(neighborEdge.getFrom());
-  }
-
-  private OVertex toVertex(OIdentifiable outVertex) {
-    if (outVertex == null) {
+  private OVertex toVertex(final ORID identity) {
+    final ORecord record = identity.getRecord();
+    if (!(record instanceof OElement)) {
       return null;
     }
-    if (!(outVertex instanceof OElement)) {
-      outVertex = outVertex.getRecord();
-    }
-    return ((OElement) outVertex).asVertex().orElse(null);
-  }
-
-  protected Set<OEdge> getNeighborEdges(final OVertex node) {
-    context.incrementVariable("getNeighbors");
-
-    final Set<OEdge> neighbors = new HashSet<OEdge>();
-    if (node != null) {
-      for (OEdge v : node.getEdges(paramDirection, paramEdgeTypeNames)) {
-        final OEdge ov = v;
-        if (ov != null)
-          neighbors.add(ov);
-      }
-    }
-    return neighbors;
+    return ((OElement) record).asVertex().orElse(null);
   }
 
   private void bindAdditionalParams(Object additionalParams, OSQLFunctionAstar ctx) {
@@ -289,6 +274,21 @@ public class OSQLFunctionAstar extends OSQLFunctionHeuristicPathFinderAbstract {
     return MIN;
   }
 
+  /**
+   * Only the edges with properties are loaded, lightweight edges have no identity and no weight.
+   */
+  private double getDistance(final ORID edge) {
+    if (edge == null) {
+      return MIN;
+    }
+
+    final ORecord record = edge.getRecord();
+    if (!(record instanceof OElement)) {
+      return MIN;
+    }
+    return getDistance(((OElement) record).asEdge().orElse(null));
+  }
+
   protected double getDistance(final OEdge edge) {
     if (edge != null) {
       final Object fieldValue = edge.getProperty(paramWeightFieldName);
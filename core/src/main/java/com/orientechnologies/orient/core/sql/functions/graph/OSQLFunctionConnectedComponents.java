@@ -0,0 +1,59 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.sql.functions.graph;
+
+import com.orientechnologies.orient.core.graph.analytics.OConnectedComponents;
+import com.orientechnologies.orient.core.graph.analytics.OGraphSnapshot;
+
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Finds weakly connected components of the vertices of the class and writes into the <code>component</code> property of every
+ * vertex the record id of the vertex which identifies its component.
+ *
+ * @see OConnectedComponents
+ */
+public class OSQLFunctionConnectedComponents extends OSQLFunctionGraphAnalyticsAbstract {
+  public static final String NAME = "connectedComponents";
+
+  public OSQLFunctionConnectedComponents() {
+    super(NAME);
+  }
+
+  @Override
+  protected IntFunction<Object> compute(final OGraphSnapshot graph, final Map<String, Object> options,
+      final Map<String, Object> statistics) {
+    final OConnectedComponents connectedComponents = new OConnectedComponents();
+
+    final int[] components = connectedComponents.compute(graph);
+    statistics.put("components", connectedComponents.getComponentCount());
+    return vertex -> graph.getIdentity(components[vertex]);
+  }
+
+  @Override
+  protected String getDefaultWriteProperty() {
+    return "component";
+  }
+
+  public String getSyntax() {
+    return "connectedComponents(<vertexClass>, [<options>]) \n // options  : {edgeTypeNames:[], writeProperty:'component', batchSize:1000, parallelism:8}";
+  }
+}
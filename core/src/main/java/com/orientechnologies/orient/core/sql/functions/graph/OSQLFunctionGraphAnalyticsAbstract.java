@@ -0,0 +1,161 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.sql.functions.graph;
+
+import com.orientechnologies.common.collection.OMultiValue;
+import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
+import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.exception.OCommandExecutionException;
+import com.orientechnologies.orient.core.graph.analytics.OGraphSnapshot;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.OSQLHelper;
+import com.orientechnologies.orient.core.sql.functions.OSQLFunctionAbstract;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Base class of the functions which run the algorithms of {@link com.orientechnologies.orient.core.graph.analytics} on the whole
+ * class of vertices. The function takes snapshot of the graph, runs the algorithm on all the cores and writes its result into the
+ * property of every vertex in batched transactions. Result of the function is the map of statistics of the computation.
+ * <p>
+ * Functions cannot be executed inside of a transaction. As they write to the database, statements which call them have to be
+ * executed as commands, and the functions are called once by statements without target, eg.
+ * <code>select pageRank('Person')</code>.
+ */
+public abstract class OSQLFunctionGraphAnalyticsAbstract extends OSQLFunctionAbstract {
+  public static final String PARAM_EDGE_TYPE_NAMES = "edgeTypeNames";
+  public static final String PARAM_WRITE_PROPERTY  = "writeProperty";
+  public static final String PARAM_BATCH_SIZE      = "batchSize";
+  public static final String PARAM_PARALLELISM     = "parallelism";
+  public static final String PARAM_MAX_ITERATIONS  = "maxIterations";
+
+  public static final int DEFAULT_BATCH_SIZE = 1000;
+
+  public OSQLFunctionGraphAnalyticsAbstract(final String iName) {
+    super(iName, 1, 2);
+  }
+
+  /**
+   * Runs the algorithm on the snapshot.
+   *
+   * @param options    options passed to the function
+   * @param statistics statistics of the computation returned by the function, algorithm adds its own ones
+   *
+   * @return value written into the property of the vertex by index of the vertex in the snapshot
+   */
+  protected abstract IntFunction<Object> compute(OGraphSnapshot graph, Map<String, Object> options,
+      Map<String, Object> statistics);
+
+  /**
+   * @return property the result is written to if the <code>writeProperty</code> option is not specified
+   */
+  protected abstract String getDefaultWriteProperty();
+
+  @Override
+  public boolean isIdempotent() {
+    return false;
+  }
+
+  public Object execute(Object iThis, final OIdentifiable iCurrentRecord, final Object iCurrentResult, final Object[] iParams,
+      final OCommandContext iContext) {
+    if (iCurrentRecord != null) {
+      // THE WHOLE CLASS WOULD BE PROCESSED AND WRITTEN AGAIN FOR EVERY RECORD OF THE TARGET
+      throw new OCommandExecutionException(getName() + "() processes the whole class of vertices, cannot be called per record");
+    }
+    final long start = System.currentTimeMillis();
+
+    final Object vertexClass = OSQLHelper.getValue(iParams[0], null, iContext);
+    if (vertexClass == null) {
+      throw new IllegalArgumentException("The vertex class is not specified");
+    }
+    final Map<String, Object> options = iParams.length > 1 ? toMap(iParams[1]) : Collections.<String, Object>emptyMap();
+
+    final ODatabaseDocumentInternal db = iContext.getDatabase() != null ?
+        (ODatabaseDocumentInternal) iContext.getDatabase() :
+        ODatabaseRecordThreadLocal.instance().get();
+    final int parallelism = integer(options.get(PARAM_PARALLELISM), Runtime.getRuntime().availableProcessors());
+    final OGraphSnapshot graph = OGraphSnapshot
+        .create(db, parallelism, vertexClass.toString(), stringArray(options.get(PARAM_EDGE_TYPE_NAMES)));
+
+    final Map<String, Object> statistics = new LinkedHashMap<String, Object>();
+    statistics.put("vertices", graph.getVertexCount());
+    statistics.put("edges", graph.getEdgeCount());
+
+    final IntFunction<Object> values = compute(graph, options, statistics);
+
+    // THE RESULT IS NOT WRITTEN IF THE PROPERTY IS SET TO null EXPLICITLY
+    final Object property = options.containsKey(PARAM_WRITE_PROPERTY) ?
+        options.get(PARAM_WRITE_PROPERTY) :
+        getDefaultWriteProperty();
+    if (property != null && !property.toString().isEmpty()) {
+      graph.write(db, property.toString(), values, integer(options.get(PARAM_BATCH_SIZE), DEFAULT_BATCH_SIZE));
+    }
+    statistics.put(PARAM_WRITE_PROPERTY, property);
+
+    statistics.put("elapsed", System.currentTimeMillis() - start);
+    return statistics;
+  }
+
+  protected static int integer(final Object value, final int defaultValue) {
+    return value == null ? defaultValue : (Integer) OType.convert(value, Integer.class);
+  }
+
+  protected static double decimal(final Object value, final double defaultValue) {
+    return value == null ? defaultValue : (Double) OType.convert(value, Double.class);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> toMap(final Object options) {
+    if (options instanceof Map) {
+      return (Map<String, Object>) options;
+    }
+    if (options instanceof OIdentifiable) {
+      return ((ODocument) ((OIdentifiable) options).getRecord()).toMap();
+    }
+    if (options == null) {
+      return Collections.emptyMap();
+    }
+    throw new IllegalArgumentException("Options should be a map, but found: " + options);
+  }
+
+  private static String[] stringArray(final Object value) {
+    if (value == null) {
+      return new String[0];
+    }
+    if (value instanceof String) {
+      final String names = ((String) value).trim();
+      return names.isEmpty() ? new String[0] : names.split("\\s*,\\s*");
+    }
+
+    final List<String> result = new ArrayList<String>();
+    for (Object item : OMultiValue.getMultiValueIterable(value)) {
+      result.add(item.toString());
+    }
+    return result.toArray(new String[result.size()]);
+  }
+}
@@ -20,9 +20,13 @@
 package com.orientechnologies.orient.core.sql.functions.graph;
 
 import com.orientechnologies.orient.core.command.OCommandContext;
+import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.metadata.function.OFunction;
 import com.orientechnologies.orient.core.record.ODirection;
+import com.orientechnologies.orient.core.record.ORecord;
 import com.orientechnologies.orient.core.record.OVertex;
+import com.orientechnologies.orient.core.record.impl.OAdjacentVertexIterator;
+import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.sql.functions.math.OSQLFunctionMathAbstract;
 
 import java.util.*;
@@ -90,18 +94,19 @@ public abstract class OSQLFunctionHeuristicPathFinderAbstract extends OSQLFuncti
     return path;
   }
 
-  protected Set<OVertex> getNeighbors(final OVertex node) {
+  /**
+   * Only the links of the vertex are read, neither the edges without properties nor the adjacent vertices are loaded.
+   *
+   * @return identities of the adjacent vertices, <code>null</code> if the vertex is not found
+   */
+  protected OAdjacentVertexIterator getNeighbors(final ORID node) {
     context.incrementVariable("getNeighbors");
 
-    final Set<OVertex> neighbors = new HashSet<OVertex>();
-    if (node != null) {
-      for (OVertex v : node.getVertices(paramDirection, paramEdgeTypeNames)) {
-        final OVertex ov = (OVertex) v;
-        if (ov != null)
-          neighbors.add(ov);
-      }
+    final ORecord record = node.getRecord();
+    if (!(record instanceof ODocument)) {
+      return null;
     }
-    return neighbors;
+    return new OAdjacentVertexIterator((ODocument) record, paramDirection, paramEdgeTypeNames);
   }
 
   // obtains from http://theory.stanford.edu/~amitp/GameProgramming/Heuristics.html
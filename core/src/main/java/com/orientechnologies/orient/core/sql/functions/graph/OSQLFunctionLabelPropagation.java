@@ -0,0 +1,67 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.sql.functions.graph;
+
+import com.orientechnologies.orient.core.graph.analytics.OGraphSnapshot;
+import com.orientechnologies.orient.core.graph.analytics.OLabelPropagation;
+
+import java.util.BitSet;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Detects communities of the vertices of the class by the label propagation and writes into the <code>community</code> property
+ * of every vertex the record id of the vertex whose label has spread over the community.
+ *
+ * @see OLabelPropagation
+ */
+public class OSQLFunctionLabelPropagation extends OSQLFunctionGraphAnalyticsAbstract {
+  public static final String NAME = "labelPropagation";
+
+  public OSQLFunctionLabelPropagation() {
+    super(NAME);
+  }
+
+  @Override
+  protected IntFunction<Object> compute(final OGraphSnapshot graph, final Map<String, Object> options,
+      final Map<String, Object> statistics) {
+    final OLabelPropagation labelPropagation = new OLabelPropagation(
+        integer(options.get(PARAM_MAX_ITERATIONS), OLabelPropagation.DEFAULT_MAX_ITERATIONS));
+
+    final int[] labels = labelPropagation.compute(graph);
+
+    final BitSet communities = new BitSet(labels.length);
+    for (int label : labels) {
+      communities.set(label);
+    }
+    statistics.put("iterations", labelPropagation.getIterations());
+    statistics.put("communities", communities.cardinality());
+    return vertex -> graph.getIdentity(labels[vertex]);
+  }
+
+  @Override
+  protected String getDefaultWriteProperty() {
+    return "community";
+  }
+
+  public String getSyntax() {
+    return "labelPropagation(<vertexClass>, [<options>]) \n // options  : {edgeTypeNames:[], writeProperty:'community', batchSize:1000, parallelism:8, maxIterations:20}";
+  }
+}
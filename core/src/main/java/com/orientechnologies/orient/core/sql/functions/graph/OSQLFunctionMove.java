@@ -9,6 +9,8 @@ import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
 import com.orientechnologies.orient.core.record.ODirection;
 import com.orientechnologies.orient.core.record.OElement;
+import com.orientechnologies.orient.core.record.impl.OAdjacentVerticesIterable;
+import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.sql.OSQLEngine;
 import com.orientechnologies.orient.core.sql.functions.OSQLFunctionConfigurableAbstract;
 
@@ -63,7 +65,10 @@ public abstract class OSQLFunctionMove extends OSQLFunctionConfigurableAbstract
 
   protected Object v2v(final ODatabase graph, final OIdentifiable iRecord, final ODirection iDirection, final String[] iLabels) {
     OElement rec = iRecord.getRecord();
-    if (rec.isVertex()) {
+    if (rec instanceof ODocument && rec.isVertex()) {
+      // ONLY LINKS OF THE VERTEX ARE READ, ADJACENT VERTICES ARE LOADED ONLY IF THEY ARE ACCESSED
+      return new OAdjacentVerticesIterable((ODocument) rec, iDirection, iLabels);
+    } else if (rec.isVertex()) {
       return rec.asVertex().get().getVertices(iDirection, iLabels);
     } else {
       return null;
@@ -0,0 +1,63 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.sql.functions.graph;
+
+import com.orientechnologies.orient.core.graph.analytics.OGraphSnapshot;
+import com.orientechnologies.orient.core.graph.analytics.OPageRank;
+
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Computes PageRank of the vertices of the class and writes it into the <code>pageRank</code> property of every vertex.
+ *
+ * @see OPageRank
+ */
+public class OSQLFunctionPageRank extends OSQLFunctionGraphAnalyticsAbstract {
+  public static final String NAME = "pageRank";
+
+  public static final String PARAM_DAMPING_FACTOR = "dampingFactor";
+  public static final String PARAM_TOLERANCE      = "tolerance";
+
+  public OSQLFunctionPageRank() {
+    super(NAME);
+  }
+
+  @Override
+  protected IntFunction<Object> compute(final OGraphSnapshot graph, final Map<String, Object> options,
+      final Map<String, Object> statistics) {
+    final OPageRank pageRank = new OPageRank(decimal(options.get(PARAM_DAMPING_FACTOR), OPageRank.DEFAULT_DAMPING_FACTOR),
+        integer(options.get(PARAM_MAX_ITERATIONS), OPageRank.DEFAULT_MAX_ITERATIONS),
+        decimal(options.get(PARAM_TOLERANCE), OPageRank.DEFAULT_TOLERANCE));
+
+    final double[] ranks = pageRank.compute(graph);
+    statistics.put("iterations", pageRank.getIterations());
+    return vertex -> ranks[vertex];
+  }
+
+  @Override
+  protected String getDefaultWriteProperty() {
+    return NAME;
+  }
+
+  public String getSyntax() {
+    return "pageRank(<vertexClass>, [<options>]) \n // options  : {edgeTypeNames:[], writeProperty:'pageRank', batchSize:1000, parallelism:8, dampingFactor:0.85, maxIterations:20, tolerance:0.000001}";
+  }
+}
@@ -23,6 +23,8 @@ import com.orientechnologies.orient.core.command.OCommandContext;
 import com.orientechnologies.orient.core.command.OCommandExecutorAbstract;
 import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.record.ODirection;
+import com.orientechnologies.orient.core.record.OElement;
+import com.orientechnologies.orient.core.record.ORecord;
 import com.orientechnologies.orient.core.record.OVertex;
 import com.orientechnologies.orient.core.sql.functions.math.OSQLFunctionMathAbstract;
 
@@ -30,13 +32,15 @@ import java.util.*;
 
 /**
  * Abstract class to find paths between nodes.
+ * <p>
+ * Visited vertices are kept by their identities in {@link OPathFinderNodes} and the unsettled ones in the {@link OPathFinderQueue},
+ * so the vertex with the minimal distance is taken without a scan of all the unsettled vertices.
  *
  * @author Luca Garulli (l.garulli--(at)--orientdb.com)
  */
 public abstract class OSQLFunctionPathFinder extends OSQLFunctionMathAbstract {
-  protected Set<OVertex>       unSettledNodes;
-  protected Map<ORID, OVertex> predecessors;
-  protected Map<ORID, Float>   distance;
+  protected OPathFinderQueue unSettledNodes;
+  protected OPathFinderNodes nodes;
 
   protected OVertex paramSourceVertex;
   protected OVertex paramDestinationVertex;
@@ -51,11 +55,12 @@ public abstract class OSQLFunctionPathFinder extends OSQLFunctionMathAbstract {
 
   protected LinkedList<OVertex> execute(final OCommandContext iContext) {
     context = iContext;
-    unSettledNodes = new HashSet<OVertex>();
-    distance = new HashMap<ORID, Float>();
-    predecessors = new HashMap<ORID, OVertex>();
-    distance.put(paramSourceVertex.getIdentity(), MIN);
-    unSettledNodes.add(paramSourceVertex);
+    unSettledNodes = new OPathFinderQueue();
+    nodes = new OPathFinderNodes();
+
+    final int source = nodes.add(paramSourceVertex.getIdentity());
+    nodes.setDistance(source, MIN);
+    unSettledNodes.offer(source, MIN);
 
     int maxDistances = 0;
     int maxSettled = 0;
@@ -63,18 +68,18 @@ public abstract class OSQLFunctionPathFinder extends OSQLFunctionMathAbstract {
     int maxPredecessors = 0;
 
     while (continueTraversing()) {
-      final OVertex node = getMinimum(unSettledNodes);
-      unSettledNodes.remove(node);
+      final int node = unSettledNodes.poll();
+      nodes.close(node);
       findMinimalDistances(node);
 
-      if (distance.size() > maxDistances)
-        maxDistances = distance.size();
+      if (nodes.size() > maxDistances)
+        maxDistances = nodes.size();
       if (unSettledNodes.size() > maxUnSettled)
         maxUnSettled = unSettledNodes.size();
-      if (predecessors.size() > maxPredecessors)
-        maxPredecessors = predecessors.size();
+      if (nodes.size() - 1 > maxPredecessors)
+        maxPredecessors = nodes.size() - 1;
 
-      if (!isVariableEdgeWeight() && distance.containsKey(paramDestinationVertex.getIdentity()))
+      if (!isVariableEdgeWeight() && nodes.indexOf(paramDestinationVertex.getIdentity()) != OPathFinderNodes.NO_NODE)
         // FOUND
         break;
 
@@ -87,8 +92,6 @@ public abstract class OSQLFunctionPathFinder extends OSQLFunctionMathAbstract {
     context.setVariable("maxUnSettled", maxUnSettled);
     context.setVariable("maxPredecessors", maxPredecessors);
 
-    distance = null;
-
     return getPath();
   }
 
@@ -101,15 +104,14 @@ public abstract class OSQLFunctionPathFinder extends OSQLFunctionMathAbstract {
    */
   public LinkedList<OVertex> getPath() {
     final LinkedList<OVertex> path = new LinkedList<OVertex>();
-    OVertex step = paramDestinationVertex;
+    int step = nodes.indexOf(paramDestinationVertex.getIdentity());
     // Check if a path exists
-    if (predecessors.get(step.getIdentity()) == null)
+    if (step == OPathFinderNodes.NO_NODE || nodes.getPrevious(step) == OPathFinderNodes.NO_NODE)
       return null;
 
-    path.add(step);
-    while (predecessors.get(step.getIdentity()) != null) {
-      step = predecessors.get(step.getIdentity());
-      path.add(step);
+    while (step != OPathFinderNodes.NO_NODE) {
+      path.add(toVertex(nodes.getIdentity(step)));
+      step = nodes.getPrevious(step);
     }
     // Put it into the correct order
     Collections.reverse(path);
@@ -125,14 +127,21 @@ public abstract class OSQLFunctionPathFinder extends OSQLFunctionMathAbstract {
     return getPath();
   }
 
-  protected void findMinimalDistances(final OVertex node) {
-    for (OVertex neighbor : getNeighbors(node)) {
-      final float d = sumDistances(getShortestDistance(node), getDistance(node, neighbor));
+  protected void findMinimalDistances(final int node) {
+    final OVertex vertex = toVertex(nodes.getIdentity(node));
+
+    for (OVertex neighbor : getNeighbors(vertex)) {
+      final float d = sumDistances((float) nodes.getDistance(node), getDistance(vertex, neighbor));
 
+      final int neighborNode = nodes.add(neighbor.getIdentity());
       if (getShortestDistance(neighbor) > d) {
-        distance.put(neighbor.getIdentity(), d);
-        predecessors.put(neighbor.getIdentity(), node);
-        unSettledNodes.add(neighbor);
+        nodes.setDistance(neighborNode, d);
+        nodes.setPrevious(neighborNode, node);
+
+        if (unSettledNodes.contains(neighborNode)) {
+          unSettledNodes.remove(neighborNode);
+        }
+        unSettledNodes.offer(neighborNode, d);
       }
     }
 
@@ -152,37 +161,34 @@ public abstract class OSQLFunctionPathFinder extends OSQLFunctionMathAbstract {
     return neighbors;
   }
 
-  protected OVertex getMinimum(final Set<OVertex> vertexes) {
-    OVertex minimum = null;
-    Float minimumDistance = null;
-    for (OVertex vertex : vertexes) {
-      if (minimum == null || getShortestDistance(vertex) < minimumDistance) {
-        minimum = vertex;
-        minimumDistance = getShortestDistance(minimum);
-      }
-    }
-    return minimum;
-  }
-
   protected boolean isNotSettled(final OVertex vertex) {
-    return unSettledNodes.contains(vertex) || !distance.containsKey(vertex.getIdentity());
+    final int node = nodes.indexOf(vertex.getIdentity());
+    return node == OPathFinderNodes.NO_NODE || !nodes.isClosed(node);
   }
 
   protected boolean continueTraversing() {
-    return unSettledNodes.size() > 0;
+    return !unSettledNodes.isEmpty();
   }
 
   protected float getShortestDistance(final OVertex destination) {
     if (destination == null)
       return Float.MAX_VALUE;
 
-    final Float d = distance.get(destination.getIdentity());
-    return d == null ? Float.MAX_VALUE : d;
+    final int node = nodes.indexOf(destination.getIdentity());
+    return node == OPathFinderNodes.NO_NODE || !nodes.hasDistance(node) ? Float.MAX_VALUE : (float) nodes.getDistance(node);
   }
 
   protected float sumDistances(final float iDistance1, final float iDistance2) {
     return iDistance1 + iDistance2;
   }
 
+  private static OVertex toVertex(final ORID identity) {
+    final ORecord record = identity.getRecord();
+    if (!(record instanceof OElement)) {
+      return null;
+    }
+    return ((OElement) record).asVertex().orElse(null);
+  }
+
   protected abstract float getDistance(final OVertex node, final OVertex target);
 }
@@ -1,33 +1,52 @@
 package com.orientechnologies.orient.core.sql.functions.graph;
 
-import com.orientechnologies.common.collection.OMultiCollectionIterator;
+import com.orientechnologies.common.collection.OLongLongHashMap;
 import com.orientechnologies.common.collection.OMultiValue;
-import com.orientechnologies.common.util.ORawPair;
 import com.orientechnologies.orient.core.command.OCommandContext;
 import com.orientechnologies.orient.core.command.OCommandExecutorAbstract;
+import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
 import com.orientechnologies.orient.core.exception.OCommandExecutionException;
 import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
 import com.orientechnologies.orient.core.record.*;
+import com.orientechnologies.orient.core.record.impl.OAdjacentVertexIterator;
 import com.orientechnologies.orient.core.record.impl.ODocument;
-import com.orientechnologies.orient.core.record.impl.OEdgeToVertexIterable;
 import com.orientechnologies.orient.core.sql.OSQLHelper;
 import com.orientechnologies.orient.core.sql.executor.OResult;
+import com.orientechnologies.orient.core.sql.executor.ParallelWorkers;
 import com.orientechnologies.orient.core.sql.functions.math.OSQLFunctionMathAbstract;
 
 import java.util.*;
 
 /**
  * Shortest path algorithm to find the shortest path from one node to another node in a directed graph.
+ * <p>
+ * The search is bidirectional and keeps vertices as record ids packed into <code>long</code>s (see {@link ORecordId#pack(ORID)}),
+ * so visited vertices, links to the previous vertices of the path and frontiers are primitive hash maps and arrays. If the
+ * <code>parallel</code> option is set, levels of the search with large frontiers are expanded concurrently.
  *
  * @author Luca Garulli (l.garulli--(at)--orientdb.com)
  */
 public class OSQLFunctionShortestPath extends OSQLFunctionMathAbstract {
   public static final String NAME            = "shortestPath";
   public static final String PARAM_MAX_DEPTH = "maxDepth";
+  public static final String PARAM_PARALLEL  = "parallel";
 
   protected static final float DISTANCE = 1f;
 
+  /**
+   * Marks absence of the vertex or of the edge in the maps of the search, it is never returned by {@link ORecordId#pack(ORID)}.
+   */
+  private static final long NO_RID = Long.MIN_VALUE;
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  /**
+   * Minimal size of the frontier which is expanded concurrently, smaller frontiers are not worth of the thread hand-off.
+   */
+  private static final int PARALLEL_FRONTIER_MIN = 1024;
+
   public OSQLFunctionShortestPath() {
     super(NAME, 2, 5);
   }
@@ -35,28 +54,69 @@ public class OSQLFunctionShortestPath extends OSQLFunctionMathAbstract {
   private class OShortestPathContext {
     OVertex sourceVertex;
     OVertex destinationVertex;
-    ODirection directionLeft  = ODirection.BOTH;
-    ODirection directionRight = ODirection.BOTH;
 
     String   edgeType;
     String[] edgeTypeParam;
 
-    ArrayDeque<OVertex> queueLeft  = new ArrayDeque<>();
-    ArrayDeque<OVertex> queueRight = new ArrayDeque<>();
-
-    final Set<ORID> leftVisited  = new HashSet<ORID>();
-    final Set<ORID> rightVisited = new HashSet<ORID>();
+    final OSearchSide left  = new OSearchSide(ODirection.BOTH);
+    final OSearchSide right = new OSearchSide(ODirection.BOTH);
 
-    final Map<ORID, ORID> previouses = new HashMap<ORID, ORID>();
-    final Map<ORID, ORID> nexts      = new HashMap<ORID, ORID>();
-
-    OVertex current;
-    OVertex currentRight;
     public Integer maxDepth;
     /**
      * option that decides whether or not to return the edge information
      */
     public Boolean edge;
+    /**
+     * option that enables concurrent expansion of the large frontiers
+     */
+    public Boolean parallel;
+  }
+
+  /**
+   * State of one direction of the bidirectional search.
+   */
+  private static final class OSearchSide {
+    ODirection direction;
+
+    /**
+     * visited vertex -> previous vertex of the path, {@link #NO_RID} for the vertex the search is started from
+     */
+    final OLongLongHashMap previous = new OLongLongHashMap(INITIAL_CAPACITY, NO_RID);
+    /**
+     * visited vertex -> edge which connects it with the previous vertex, filled only if edges are returned
+     */
+    final OLongLongHashMap edges    = new OLongLongHashMap(INITIAL_CAPACITY, NO_RID);
+
+    long[] frontier     = new long[INITIAL_CAPACITY];
+    int    frontierSize = 0;
+
+    long[] nextFrontier     = new long[INITIAL_CAPACITY];
+    int    nextFrontierSize = 0;
+
+    OSearchSide(final ODirection direction) {
+      this.direction = direction;
+    }
+
+    void start(final long vertex) {
+      previous.put(vertex, NO_RID);
+      frontier[0] = vertex;
+      frontierSize = 1;
+    }
+
+    void addToNextFrontier(final long vertex) {
+      if (nextFrontierSize == nextFrontier.length) {
+        nextFrontier = Arrays.copyOf(nextFrontier, nextFrontierSize << 1);
+      }
+      nextFrontier[nextFrontierSize++] = vertex;
+    }
+
+    void swapFrontiers() {
+      final long[] current = frontier;
+      frontier = nextFrontier;
+      frontierSize = nextFrontierSize;
+      nextFrontier = current;
+      nextFrontierSize = 0;
+    }
   }
 
   public List<ORID> execute(Object iThis, final OIdentifiable iCurrentRecord, final Object iCurrentResult, final Object[] iParams,
@@ -113,12 +173,12 @@ public class OSQLFunctionShortestPath extends OSQLFunctionMathAbstract {
     }
 
     if (iParams.length > 2 && iParams[2] != null) {
-      ctx.directionLeft = ODirection.valueOf(iParams[2].toString().toUpperCase(Locale.ENGLISH));
+      ctx.left.direction = ODirection.valueOf(iParams[2].toString().toUpperCase(Locale.ENGLISH));
     }
-    if (ctx.directionLeft == ODirection.OUT) {
-      ctx.directionRight = ODirection.IN;
-    } else if (ctx.directionLeft == ODirection.IN) {
-      ctx.directionRight = ODirection.OUT;
+    if (ctx.left.direction == ODirection.OUT) {
+      ctx.right.direction = ODirection.IN;
+    } else if (ctx.left.direction == ODirection.IN) {
+      ctx.right.direction = ODirection.OUT;
     }
 
     ctx.edgeType = null;
@@ -131,18 +191,19 @@ public class OSQLFunctionShortestPath extends OSQLFunctionMathAbstract {
       bindAdditionalParams(iParams[4], ctx);
     }
 
-    ctx.queueLeft.add(ctx.sourceVertex);
-    ctx.leftVisited.add(ctx.sourceVertex.getIdentity());
+    ctx.left.start(ORecordId.pack(ctx.sourceVertex.getIdentity()));
+    ctx.right.start(ORecordId.pack(ctx.destinationVertex.getIdentity()));
 
-    ctx.queueRight.add(ctx.destinationVertex);
-    ctx.rightVisited.add(ctx.destinationVertex.getIdentity());
+    return search(ctx, iContext);
+  }
 
+  private List<ORID> search(final OShortestPathContext ctx, final OCommandContext iContext) {
     int depth = 1;
     while (true) {
       if (ctx.maxDepth != null && ctx.maxDepth <= depth) {
         break;
       }
-      if (ctx.queueLeft.isEmpty() || ctx.queueRight.isEmpty())
+      if (ctx.left.frontierSize == 0 || ctx.right.frontierSize == 0)
         break;
 
       if (Thread.interrupted())
@@ -153,7 +214,7 @@ public class OSQLFunctionShortestPath extends OSQLFunctionMathAbstract {
 
       List<ORID> neighborIdentity;
 
-      if (ctx.queueLeft.size() <= ctx.queueRight.size()) {
+      if (ctx.left.frontierSize <= ctx.right.frontierSize) {
         // START EVALUATING FROM LEFT
         neighborIdentity = walkLeft(ctx);
         if (neighborIdentity != null)
@@ -163,7 +224,7 @@ public class OSQLFunctionShortestPath extends OSQLFunctionMathAbstract {
           break;
         }
 
-        if (ctx.queueLeft.isEmpty())
+        if (ctx.left.frontierSize == 0)
           break;
 
         neighborIdentity = walkRight(ctx);
@@ -182,7 +243,7 @@ public class OSQLFunctionShortestPath extends OSQLFunctionMathAbstract {
           break;
         }
 
-        if (ctx.queueRight.isEmpty())
+        if (ctx.right.frontierSize == 0)
           break;
 
         neighborIdentity = walkLeft(ctx);
@@ -193,7 +254,6 @@ public class OSQLFunctionShortestPath extends OSQLFunctionMathAbstract {
       depth++;
     }
     return new ArrayList<ORID>();
-
   }
 
   private void bindAdditionalParams(Object additionalParams, OShortestPathContext ctx) {
@@ -210,6 +270,7 @@ public class OSQLFunctionShortestPath extends OSQLFunctionMathAbstract {
       ctx.maxDepth = integer(mapParams.get("maxDepth"));
       Boolean withEdge = toBoolean(mapParams.get("edge"));
       ctx.edge = Boolean.TRUE.equals(withEdge) ? Boolean.TRUE : Boolean.FALSE;
+      ctx.parallel = Boolean.TRUE.equals(toBoolean(mapParams.get(PARAM_PARALLEL))) ? Boolean.TRUE : Boolean.FALSE;
     }
   }
 
@@ -250,203 +311,189 @@ public class OSQLFunctionShortestPath extends OSQLFunctionMathAbstract {
     return null;
   }
 
-  /**
-   * get adjacent vertices and edges
-   *
-   * @param srcVertex
-   * @param direction
-   * @param types
-   *
-   * @return
-   *
-   * @author Thomas Young (YJJThomasYoung@hotmail.com)
-   */
-  private ORawPair<Iterable<OVertex>, Iterable<OEdge>> getVerticesAndEdges(OVertex srcVertex, ODirection direction,
-      String... types) {
-    if (direction == ODirection.BOTH) {
-      OMultiCollectionIterator<OVertex> vertexIterator = new OMultiCollectionIterator<>();
-      OMultiCollectionIterator<OEdge> edgeIterator = new OMultiCollectionIterator<>();
-      ORawPair<Iterable<OVertex>, Iterable<OEdge>> pair1 = getVerticesAndEdges(srcVertex, ODirection.OUT, types);
-      ORawPair<Iterable<OVertex>, Iterable<OEdge>> pair2 = getVerticesAndEdges(srcVertex, ODirection.IN, types);
-      vertexIterator.add(pair1.getFirst());
-      vertexIterator.add(pair2.getFirst());
-      edgeIterator.add(pair1.getSecond());
-      edgeIterator.add(pair2.getSecond());
-      return new ORawPair<>(vertexIterator, edgeIterator);
-    } else {
-      Iterable<OEdge> edges1 = srcVertex.getEdges(direction, types);
-      Iterable<OEdge> edges2 = srcVertex.getEdges(direction, types);
-      return new ORawPair<>(new OEdgeToVertexIterable(edges1, direction), edges2);
-    }
-  }
-
-  /**
-   * get adjacent vertices and edges
-   *
-   * @param srcVertex
-   * @param direction
-   *
-   * @return
-   *
-   * @author Thomas Young (YJJThomasYoung@hotmail.com)
-   */
-  private ORawPair<Iterable<OVertex>, Iterable<OEdge>> getVerticesAndEdges(OVertex srcVertex, ODirection direction) {
-    return getVerticesAndEdges(srcVertex, direction, (String[]) null);
-  }
-
   public String getSyntax() {
     return "shortestPath(<sourceVertex>, <destinationVertex>, [<direction>, [ <edgeTypeAsString> ]])";
   }
 
   protected List<ORID> walkLeft(final OSQLFunctionShortestPath.OShortestPathContext ctx) {
-    ArrayDeque<OVertex> nextLevelQueue = new ArrayDeque<>();
-    if (!Boolean.TRUE.equals(ctx.edge)) {
-      while (!ctx.queueLeft.isEmpty()) {
-        ctx.current = ctx.queueLeft.poll();
-
-        Iterable<OVertex> neighbors;
-        if (ctx.edgeType == null) {
-          neighbors = ctx.current.getVertices(ctx.directionLeft);
-        } else {
-          neighbors = ctx.current.getVertices(ctx.directionLeft, ctx.edgeTypeParam);
-        }
-        for (OVertex neighbor : neighbors) {
-          final OVertex v = (OVertex) neighbor;
-          final ORID neighborIdentity = v.getIdentity();
+    return walk(ctx, ctx.left, ctx.right);
+  }
 
-          if (ctx.rightVisited.contains(neighborIdentity)) {
-            ctx.previouses.put(neighborIdentity, ctx.current.getIdentity());
-            return computePath(ctx.previouses, ctx.nexts, neighborIdentity);
-          }
-          if (!ctx.leftVisited.contains(neighborIdentity)) {
-            ctx.previouses.put(neighborIdentity, ctx.current.getIdentity());
+  protected List<ORID> walkRight(final OSQLFunctionShortestPath.OShortestPathContext ctx) {
+    return walk(ctx, ctx.right, ctx.left);
+  }
 
-            nextLevelQueue.offer(v);
-            ctx.leftVisited.add(neighborIdentity);
+  /**
+   * Expands the whole frontier of the side by one level.
+   *
+   * @return the path if the side meets the opposite one, <code>null</code> otherwise
+   */
+  private List<ORID> walk(final OShortestPathContext ctx, final OSearchSide side, final OSearchSide opposite) {
+    final boolean withEdges = Boolean.TRUE.equals(ctx.edge);
+
+    if (isConcurrent(ctx, side)) {
+      // NEIGHBORS ARE MERGED IN THE ORDER OF THE FRONTIER, SO THE RESULT IS THE SAME AS THE ONE OF THE SEQUENTIAL EXPANSION
+      for (long[] links : expandConcurrently(ctx, side)) {
+        for (int i = 0; i < links.length; i += 3) {
+          final long meeting = visit(side, opposite, links[i], links[i + 1], links[i + 2]);
+          if (meeting != NO_RID) {
+            return computePath(ctx, meeting);
           }
-
         }
       }
     } else {
-      while (!ctx.queueLeft.isEmpty()) {
-        ctx.current = ctx.queueLeft.poll();
-
-        ORawPair<Iterable<OVertex>, Iterable<OEdge>> neighbors;
-        if (ctx.edgeType == null) {
-          neighbors = getVerticesAndEdges(ctx.current, ctx.directionLeft);
-        } else {
-          neighbors = getVerticesAndEdges(ctx.current, ctx.directionLeft, ctx.edgeTypeParam);
-        }
-        Iterator<OVertex> vertexIterator = neighbors.getFirst().iterator();
-        Iterator<OEdge> edgeIterator = neighbors.getSecond().iterator();
-        while (vertexIterator.hasNext() && edgeIterator.hasNext()) {
-          OVertex v = vertexIterator.next();
-          final ORID neighborVertexIdentity = v.getIdentity();
-          final ORID neighborEdgeIdentity = edgeIterator.next().getIdentity();
-
-          if (ctx.rightVisited.contains(neighborVertexIdentity)) {
-            ctx.previouses.put(neighborVertexIdentity, neighborEdgeIdentity);
-            ctx.previouses.put(neighborEdgeIdentity, ctx.current.getIdentity());
-            return computePath(ctx.previouses, ctx.nexts, neighborVertexIdentity);
-          }
-          if (!ctx.leftVisited.contains(neighborVertexIdentity)) {
-            ctx.previouses.put(neighborVertexIdentity, neighborEdgeIdentity);
-            ctx.previouses.put(neighborEdgeIdentity, ctx.current.getIdentity());
+      for (int i = 0; i < side.frontierSize; i++) {
+        final long current = side.frontier[i];
 
-            nextLevelQueue.offer(v);
-            ctx.leftVisited.add(neighborVertexIdentity);
+        final OAdjacentVertexIterator neighbors = getNeighbors(ORecordId.unpack(current), side.direction, ctx);
+        while (neighbors != null && neighbors.hasNext()) {
+          final long neighbor = ORecordId.pack(neighbors.next());
+          final long edge = withEdges ? packEdge(neighbors.getEdgeIdentity()) : NO_RID;
+
+          final long meeting = visit(side, opposite, current, neighbor, edge);
+          if (meeting != NO_RID) {
+            return computePath(ctx, meeting);
           }
         }
       }
     }
-    ctx.queueLeft = nextLevelQueue;
+
+    side.swapFrontiers();
     return null;
   }
 
-  protected List<ORID> walkRight(final OSQLFunctionShortestPath.OShortestPathContext ctx) {
-    final ArrayDeque<OVertex> nextLevelQueue = new ArrayDeque<>();
-    if (!Boolean.TRUE.equals(ctx.edge)) {
-      while (!ctx.queueRight.isEmpty()) {
-        ctx.currentRight = ctx.queueRight.poll();
-
-        Iterable<OVertex> neighbors;
-        if (ctx.edgeType == null) {
-          neighbors = ctx.currentRight.getVertices(ctx.directionRight);
-        } else {
-          neighbors = ctx.currentRight.getVertices(ctx.directionRight, ctx.edgeTypeParam);
-        }
-        for (OVertex neighbor : neighbors) {
-          final OVertex v = (OVertex) neighbor;
-          final ORID neighborIdentity = v.getIdentity();
+  /**
+   * Visits the neighbor of the vertex of the frontier, adding it to the next frontier if it was not visited yet.
+   *
+   * @return the neighbor if it was already visited by the opposite side, {@link #NO_RID} otherwise
+   */
+  private static long visit(final OSearchSide side, final OSearchSide opposite, final long vertex, final long neighbor,
+      final long edge) {
+    if (opposite.previous.containsKey(neighbor)) {
+      side.previous.put(neighbor, vertex);
+      if (edge != NO_RID) {
+        side.edges.put(neighbor, edge);
+      }
+      return neighbor;
+    }
 
-          if (ctx.leftVisited.contains(neighborIdentity)) {
-            ctx.nexts.put(neighborIdentity, ctx.currentRight.getIdentity());
-            return computePath(ctx.previouses, ctx.nexts, neighborIdentity);
-          }
-          if (!ctx.rightVisited.contains(neighborIdentity)) {
+    if (side.previous.putIfAbsent(neighbor, vertex)) {
+      if (edge != NO_RID) {
+        side.edges.put(neighbor, edge);
+      }
+      side.addToNextFrontier(neighbor);
+    }
+    return NO_RID;
+  }
 
-            ctx.nexts.put(neighborIdentity, ctx.currentRight.getIdentity());
+  private static long packEdge(final ORID edge) {
+    // LIGHTWEIGHT EDGES HAVE NO IDENTITY
+    return edge != null ? ORecordId.pack(edge) : NO_RID;
+  }
 
-            nextLevelQueue.offer(v);
-            ctx.rightVisited.add(neighborIdentity);
-          }
+  /**
+   * Vertices of the frontiers are kept as identities and only their links are read, so neighbors are loaded only if they are
+   * visited by the next level of the search.
+   *
+   * @return <code>null</code> if the vertex is not found
+   */
+  private OAdjacentVertexIterator getNeighbors(final ORID vertex, final ODirection direction,
+      final OSQLFunctionShortestPath.OShortestPathContext ctx) {
+    final ORecord record = vertex.getRecord();
+    if (!(record instanceof ODocument)) {
+      return null;
+    }
 
-        }
-      }
-    } else {
-      while (!ctx.queueRight.isEmpty()) {
-        ctx.currentRight = ctx.queueRight.poll();
-
-        ORawPair<Iterable<OVertex>, Iterable<OEdge>> neighbors;
-        if (ctx.edgeType == null) {
-          neighbors = getVerticesAndEdges(ctx.currentRight, ctx.directionRight);
-        } else {
-          neighbors = getVerticesAndEdges(ctx.currentRight, ctx.directionRight, ctx.edgeTypeParam);
-        }
+    if (ctx.edgeType == null) {
+      return new OAdjacentVertexIterator((ODocument) record, direction);
+    }
+    return new OAdjacentVertexIterator((ODocument) record, direction, ctx.edgeTypeParam);
+  }
 
-        Iterator<OVertex> vertexIterator = neighbors.getFirst().iterator();
-        Iterator<OEdge> edgeIterator = neighbors.getSecond().iterator();
-        while (vertexIterator.hasNext() && edgeIterator.hasNext()) {
-          final OVertex v = vertexIterator.next();
-          final ORID neighborVertexIdentity = v.getIdentity();
-          final ORID neighborEdgeIdentity = edgeIterator.next().getIdentity();
-
-          if (ctx.leftVisited.contains(neighborVertexIdentity)) {
-            ctx.nexts.put(neighborVertexIdentity, neighborEdgeIdentity);
-            ctx.nexts.put(neighborEdgeIdentity, ctx.currentRight.getIdentity());
-            return computePath(ctx.previouses, ctx.nexts, neighborVertexIdentity);
-          }
-          if (!ctx.rightVisited.contains(neighborVertexIdentity)) {
-            ctx.nexts.put(neighborVertexIdentity, neighborEdgeIdentity);
-            ctx.nexts.put(neighborEdgeIdentity, ctx.currentRight.getIdentity());
+  /**
+   * Frontier is expanded concurrently only on request, if it is large enough and if there is no active transaction, because
+   * changes of the transaction are not visible to the copies of the database used by the workers.
+   */
+  private boolean isConcurrent(final OShortestPathContext ctx, final OSearchSide side) {
+    if (!Boolean.TRUE.equals(ctx.parallel) || side.frontierSize < PARALLEL_FRONTIER_MIN) {
+      return false;
+    }
+    return ParallelWorkers.canRunConcurrently(ODatabaseRecordThreadLocal.instance().getIfDefined());
+  }
 
-            nextLevelQueue.offer(v);
-            ctx.rightVisited.add(neighborVertexIdentity);
-          }
+  /**
+   * Splits the frontier into contiguous chunks, one per worker.
+   *
+   * @return links found by the workers in the order of the chunks, as triples of the frontier vertex, its neighbor and the edge
+   * which connects them ({@link #NO_RID} if edges are not returned)
+   */
+  private List<long[]> expandConcurrently(final OShortestPathContext ctx, final OSearchSide side) {
+    final int workers = Runtime.getRuntime().availableProcessors();
+    final int chunkSize = (side.frontierSize + workers - 1) / workers;
+    final int chunks = (side.frontierSize + chunkSize - 1) / chunkSize;
+
+    final long[][] result = new long[chunks][];
+    ParallelWorkers.forEach(ODatabaseRecordThreadLocal.instance().get(), chunks, workers, database -> chunk -> result[chunk] = expand(
+        ctx, side, chunk * chunkSize, Math.min((chunk + 1) * chunkSize, side.frontierSize)));
+    return Arrays.asList(result);
+  }
+
+  private long[] expand(final OShortestPathContext ctx, final OSearchSide side, final int from, final int to) {
+    final boolean withEdges = Boolean.TRUE.equals(ctx.edge);
+
+    long[] links = new long[3 * (to - from)];
+    int size = 0;
+
+    for (int i = from; i < to; i++) {
+      final long current = side.frontier[i];
+
+      final OAdjacentVertexIterator neighbors = getNeighbors(ORecordId.unpack(current), side.direction, ctx);
+      while (neighbors != null && neighbors.hasNext()) {
+        if (size == links.length) {
+          links = Arrays.copyOf(links, size << 1);
         }
+
+        links[size++] = current;
+        links[size++] = ORecordId.pack(neighbors.next());
+        links[size++] = withEdges ? packEdge(neighbors.getEdgeIdentity()) : NO_RID;
       }
     }
-    ctx.queueRight = nextLevelQueue;
-    return null;
+
+    return Arrays.copyOf(links, size);
   }
 
-  private List<ORID> computePath(final Map<ORID, ORID> leftDistances, final Map<ORID, ORID> rightDistances, final ORID neighbor) {
+  /**
+   * Builds the path from the source vertex to the destination one through the vertex where the sides of the search met.
+   */
+  private List<ORID> computePath(final OShortestPathContext ctx, final long meeting) {
     final List<ORID> result = new ArrayList<ORID>();
 
-    ORID current = neighbor;
-    while (current != null) {
-      result.add(0, current);
-      current = leftDistances.get(current);
+    long current = meeting;
+    while (current != NO_RID) {
+      result.add(ORecordId.unpack(current));
+
+      final long edge = ctx.left.edges.get(current);
+      if (edge != NO_RID) {
+        result.add(ORecordId.unpack(edge));
+      }
+      current = ctx.left.previous.get(current);
     }
+    Collections.reverse(result);
 
-    current = neighbor;
-    while (current != null) {
-      current = rightDistances.get(current);
-      if (current != null) {
-        result.add(current);
+    current = meeting;
+    while (true) {
+      final long edge = ctx.right.edges.get(current);
+      if (edge != NO_RID) {
+        result.add(ORecordId.unpack(edge));
+      }
+
+      current = ctx.right.previous.get(current);
+      if (current == NO_RID) {
+        break;
       }
+      result.add(ORecordId.unpack(current));
     }
 
     return result;
   }
-}
\ No newline at end of file
+}
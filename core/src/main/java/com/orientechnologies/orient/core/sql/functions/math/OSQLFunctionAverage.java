@@ -22,6 +22,7 @@ package com.orientechnologies.orient.core.sql.functions.math;
 import com.orientechnologies.common.collection.OMultiValue;
 import com.orientechnologies.orient.core.command.OCommandContext;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.sql.functions.OSQLFunction;
 import com.orientechnologies.orient.core.metadata.schema.OType;
 
 import java.math.BigDecimal;
@@ -136,4 +137,21 @@ public class OSQLFunctionAverage extends OSQLFunctionMathAbstract {
 
     return null;
   }
+
+  @Override
+  public boolean canCombine() {
+    return aggregateResults();
+  }
+
+  @Override
+  public void combine(final OSQLFunction partial) {
+    final OSQLFunctionAverage other = (OSQLFunctionAverage) partial;
+    if (other.sum != null) {
+      if (sum == null)
+        sum = other.sum;
+      else
+        sum = OType.increment(sum, other.sum);
+    }
+    total += other.total;
+  }
 }
@@ -21,6 +21,7 @@ package com.orientechnologies.orient.core.sql.functions.math;
 
 import com.orientechnologies.orient.core.command.OCommandContext;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.sql.functions.OSQLFunction;
 import com.orientechnologies.orient.core.metadata.schema.OType;
 
 import java.util.Collection;
@@ -119,4 +120,31 @@ public class OSQLFunctionMax extends OSQLFunctionMathAbstract {
     }
     return context;
   }
+
+  @Override
+  public boolean canCombine() {
+    return aggregateResults();
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public void combine(final OSQLFunction partial) {
+    Object other = ((OSQLFunctionMax) partial).context;
+    if (other == null)
+      return;
+
+    if (context == null)
+      context = other;
+    else {
+      if (context instanceof Number && other instanceof Number) {
+        final Number[] casted = OType.castComparableNumber((Number) context, (Number) other);
+        context = casted[0];
+        other = casted[1];
+      }
+
+      if (((Comparable<Object>) context).compareTo(other) < 0)
+        // BIGGER
+        context = other;
+    }
+  }
 }
@@ -22,6 +22,7 @@ package com.orientechnologies.orient.core.sql.functions.math;
 import com.orientechnologies.common.collection.OMultiValue;
 import com.orientechnologies.orient.core.command.OCommandContext;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.sql.functions.OSQLFunction;
 import com.orientechnologies.orient.core.metadata.schema.OType;
 
 import java.util.List;
@@ -98,4 +99,14 @@ public class OSQLFunctionSum extends OSQLFunctionMathAbstract {
     }
     return sum;
   }
+
+  @Override
+  public boolean canCombine() {
+    return aggregateResults();
+  }
+
+  @Override
+  public void combine(final OSQLFunction partial) {
+    sum(((OSQLFunctionSum) partial).sum);
+  }
 }
@@ -21,6 +21,7 @@ package com.orientechnologies.orient.core.sql.functions.misc;
 
 import com.orientechnologies.orient.core.command.OCommandContext;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.sql.functions.OSQLFunction;
 import com.orientechnologies.orient.core.sql.functions.math.OSQLFunctionMathAbstract;
 
 import java.util.List;
@@ -75,4 +76,14 @@ public class OSQLFunctionCount extends OSQLFunctionMathAbstract {
     }
     return total;
   }
+
+  @Override
+  public boolean canCombine() {
+    return true;
+  }
+
+  @Override
+  public void combine(final OSQLFunction partial) {
+    total += ((OSQLFunctionCount) partial).total;
+  }
 }
@@ -22,6 +22,7 @@ package com.orientechnologies.orient.core.sql.functions.stat;
 import com.orientechnologies.common.collection.OMultiValue;
 import com.orientechnologies.orient.core.command.OCommandContext;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.sql.functions.OSQLFunction;
 import com.orientechnologies.orient.core.sql.functions.OSQLFunctionAbstract;
 
 import java.util.ArrayList;
@@ -121,4 +122,16 @@ public class OSQLFunctionMode extends OSQLFunctionAbstract {
     return iMax;
   }
 
+  @Override
+  public boolean canCombine() {
+    return true;
+  }
+
+  @Override
+  public void combine(final OSQLFunction partial) {
+    for (Entry<Object, Integer> o : ((OSQLFunctionMode) partial).seen.entrySet()) {
+      max = evaluate(o.getKey(), o.getValue(), seen, maxElems, max);
+    }
+  }
+
 }
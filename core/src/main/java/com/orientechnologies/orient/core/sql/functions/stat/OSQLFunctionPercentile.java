@@ -22,6 +22,7 @@ package com.orientechnologies.orient.core.sql.functions.stat;
 import com.orientechnologies.common.collection.OMultiValue;
 import com.orientechnologies.orient.core.command.OCommandContext;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.sql.functions.OSQLFunction;
 import com.orientechnologies.orient.core.sql.functions.OSQLFunctionAbstract;
 
 import java.util.ArrayList;
@@ -155,4 +156,18 @@ public class OSQLFunctionPercentile extends OSQLFunctionAbstract {
     return lower + dif * (upper - lower);
   }
 
+  @Override
+  public boolean canCombine() {
+    return true;
+  }
+
+  @Override
+  public void combine(final OSQLFunction partial) {
+    final OSQLFunctionPercentile other = (OSQLFunctionPercentile) partial;
+    if (quantiles.isEmpty()) {
+      quantiles.addAll(other.quantiles);
+    }
+    values.addAll(other.values);
+  }
+
 }
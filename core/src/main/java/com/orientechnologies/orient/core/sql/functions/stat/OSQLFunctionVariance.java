@@ -22,6 +22,7 @@ package com.orientechnologies.orient.core.sql.functions.stat;
 import com.orientechnologies.common.collection.OMultiValue;
 import com.orientechnologies.orient.core.command.OCommandContext;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.sql.functions.OSQLFunction;
 import com.orientechnologies.orient.core.sql.functions.OSQLFunctionAbstract;
 
 import java.util.HashMap;
@@ -155,4 +156,32 @@ public class OSQLFunctionVariance extends OSQLFunctionAbstract {
     return n > 1 ? m2 / n : null;
   }
 
+  @Override
+  public boolean canCombine() {
+    return true;
+  }
+
+  /**
+   * Merges the partial state of another instance using the Chan et al. pairwise update of count, mean and sum of squared
+   * differences.
+   */
+  @Override
+  public void combine(final OSQLFunction partial) {
+    final OSQLFunctionVariance other = (OSQLFunctionVariance) partial;
+    if (other.n == 0) {
+      return;
+    }
+    if (n == 0) {
+      n = other.n;
+      mean = other.mean;
+      m2 = other.m2;
+      return;
+    }
+    final long totalN = n + other.n;
+    final double delta = other.mean - mean;
+    mean += delta * other.n / totalN;
+    m2 += other.m2 + delta * delta * ((double) n * other.n / totalN);
+    n = totalN;
+  }
+
 }
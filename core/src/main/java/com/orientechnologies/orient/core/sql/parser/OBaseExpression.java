@@ -14,6 +14,7 @@ import com.orientechnologies.orient.core.sql.executor.AggregationContext;
 import com.orientechnologies.orient.core.sql.executor.OResult;
 import com.orientechnologies.orient.core.sql.executor.OResultInternal;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -367,6 +368,26 @@ public class OBaseExpression extends OMathExpression {
     return modifier;
   }
 
+  /**
+   * @return the names of a chain of attributes that starts with an identifier, eg. <code>[$parent, $current, name]</code> for
+   * <code>$parent.$current.name</code>, null if the expression is not such a chain
+   */
+  public List<String> getAttributeChain() {
+    if (identifier == null || !identifier.isBaseIdentifier()) {
+      return null;
+    }
+    List<String> result = new ArrayList<>();
+    result.add(identifier.getSuffix().identifier.getStringValue());
+    for (OModifier current = modifier; current != null; current = current.next) {
+      String name = current.getAttributeName();
+      if (name == null) {
+        return null;
+      }
+      result.add(name);
+    }
+    return result;
+  }
+
   public List<String> getMatchPatternInvolvedAliases() {
     if (this.identifier != null && this.identifier.toString().equals("$matched")) {
       if (modifier != null && modifier.suffix != null && modifier.suffix.identifier != null) {
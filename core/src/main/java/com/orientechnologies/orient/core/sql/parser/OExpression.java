@@ -548,6 +548,17 @@ public class OExpression extends SimpleNode {
     return mathExpression;
   }
 
+  /**
+   * @return the names of a chain of attributes that starts with an identifier, eg. <code>[$parent, $current, name]</code> for
+   * <code>$parent.$current.name</code>, null if the expression is not such a chain
+   */
+  public List<String> getAttributeChain() {
+    if (mathExpression instanceof OBaseExpression) {
+      return ((OBaseExpression) mathExpression).getAttributeChain();
+    }
+    return null;
+  }
+
   /**
    * if the condition involved the current pattern (MATCH statement, eg. $matched.something = foo), returns the name of involved
    * pattern aliases ("something" in this case)
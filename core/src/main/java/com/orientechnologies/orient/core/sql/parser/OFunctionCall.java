@@ -2,6 +2,7 @@
 /* JavaCCOptions:MULTI=true,NODE_USES_PARSER=false,VISITOR=true,TRACK_TOKENS=true,NODE_PREFIX=O,NODE_EXTENDS=,NODE_FACTORY=,SUPPORT_CLASS_VISIBILITY_PUBLIC=true */
 package com.orientechnologies.orient.core.sql.parser;
 
+import com.orientechnologies.orient.core.command.OBasicCommandContext;
 import com.orientechnologies.orient.core.command.OCommandContext;
 import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
 import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
@@ -130,6 +131,9 @@ public class OFunctionCall extends SimpleNode {
       }
     }
     OSQLFunction function = OSQLEngine.getInstance().getFunction(name);
+    if (!function.isIdempotent() && ctx != null && Boolean.TRUE.equals(ctx.getVariable(OBasicCommandContext.IDEMPOTENT))) {
+      throw new OCommandExecutionException("Function " + name + "() writes to the database, it can be called by commands only");
+    }
     function.config(this.params.toArray());
     if (function != null) {
       if (record instanceof OIdentifiable) {
@@ -256,6 +256,14 @@ public class OMethodCall extends SimpleNode {
     return false;//TODO
   }
 
+  public OIdentifier getMethodName() {
+    return methodName;
+  }
+
+  public List<OExpression> getParams() {
+    return params;
+  }
+
   private boolean isGraphFunction() {
     if (calculatedIsGraph != null) {
       return calculatedIsGraph;
@@ -284,6 +284,24 @@ public class OModifier extends SimpleNode {
     return false;
   }
 
+  /**
+   * @return the name of the attribute if this modifier only reads an attribute, eg. <code>.name</code> or <code>.@rid</code>,
+   * null otherwise
+   */
+  String getAttributeName() {
+    if (squareBrackets || arrayRange != null || condition != null || arraySingleValues != null || rightBinaryCondition != null
+        || methodCall != null || suffix == null) {
+      return null;
+    }
+    if (suffix.identifier != null) {
+      return suffix.identifier.getStringValue();
+    }
+    if (suffix.recordAttribute != null) {
+      return suffix.recordAttribute.getName();
+    }
+    return null;
+  }
+
   protected void setValue(OResult currentRecord, Object target, Object value, OCommandContext ctx) {
     if (next == null) {
       doSetValue(currentRecord, target, value, ctx);
@@ -7,6 +7,7 @@ import com.orientechnologies.orient.core.db.record.OIdentifiable;
 import com.orientechnologies.orient.core.db.record.ridbag.ORidBag;
 import com.orientechnologies.orient.core.exception.OCommandExecutionException;
 import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.record.impl.OAdjacentVerticesIterable;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.record.impl.OEdgeToVertexIterable;
 import com.orientechnologies.orient.core.record.impl.OEdgeToVertexIterator;
@@ -122,6 +123,13 @@ public class OProjectionItem extends SimpleNode {
       ((ORidBag) value).forEach(x -> result.add(x));
       return result;
     }
+    if (value instanceof OAdjacentVerticesIterable) {
+      List<ORID> result = new ArrayList<>();
+      for (ORID rid : ((OAdjacentVerticesIterable) value).identities()) {
+        result.add(rid);
+      }
+      return result;
+    }
     if (value instanceof OEdgeToVertexIterable) {
       value = ((OEdgeToVertexIterable) value).iterator();
     }
@@ -435,6 +435,10 @@ public class OSelectStatement extends OStatement {
     this.timeout = timeout;
   }
 
+  public Boolean getParallel() {
+    return parallel;
+  }
+
   public void setParallel(Boolean parallel) {
     this.parallel = parallel;
   }
@@ -0,0 +1,110 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.storage.cache;
+
+/**
+ * Detects the sequential access to the pages of a file and asks the read cache to load in background ({@link
+ * OReadCache#prefetch(long, long, int, OWriteCache)}) the pages that follow the ones which are read, so that a scan finds them
+ * already cached.
+ * <p>
+ * The access is sequential if each page is the same as the previous one or follows it by less than the read ahead distance, in
+ * any direction. Once two different pages are read in sequence, the next <code>distance</code> pages are requested in a single
+ * batch; a new batch is requested when the scan has consumed half of the previous one, so the reads of the cache overlap with
+ * the processing of the pages.
+ * <p>
+ * The same instance may be shared by several threads that scan the same file, in such case access patterns are mixed and pages
+ * may be requested more than once, which is harmless because cached pages are skipped by the cache.
+ */
+public final class OPageReadAhead {
+  private final OReadCache  readCache;
+  private final OWriteCache writeCache;
+  private final long        fileId;
+  private final int         distance;
+
+  private long lastPageIndex = -1;
+  private int  direction     = 0;
+
+  /**
+   * Limit of pages already requested in the current direction, exclusive.
+   */
+  private long requestedUpTo = -1;
+
+  public OPageReadAhead(final OReadCache readCache, final OWriteCache writeCache, final long fileId, final int distance) {
+    this.readCache = readCache;
+    this.writeCache = writeCache;
+    this.fileId = fileId;
+    this.distance = distance;
+  }
+
+  public long getFileId() {
+    return fileId;
+  }
+
+  /**
+   * Registers the read of a page.
+   */
+  public void pageAccessed(final long pageIndex) {
+    if (distance < 2 || pageIndex < 0) {
+      return;
+    }
+
+    final long startPageIndex;
+    final int pageCount;
+
+    synchronized (this) {
+      if (pageIndex == lastPageIndex) {
+        return;
+      }
+
+      final int newDirection = pageIndex > lastPageIndex ? 1 : -1;
+      final boolean sequential = lastPageIndex >= 0 && Math.abs(pageIndex - lastPageIndex) < distance;
+      lastPageIndex = pageIndex;
+
+      if (!sequential) {
+        direction = 0;
+        return;
+      }
+
+      if (newDirection != direction) {
+        direction = newDirection;
+        requestedUpTo = pageIndex + direction;
+      }
+
+      // the scan has still at least half of the requested pages in front of it
+      if (direction * (requestedUpTo - pageIndex) > distance / 2) {
+        return;
+      }
+
+      final long to = pageIndex + direction * (distance + 1L);
+      if (direction > 0) {
+        startPageIndex = Math.max(requestedUpTo, pageIndex + 1);
+        pageCount = (int) (to - startPageIndex);
+      } else {
+        startPageIndex = Math.max(to + 1, 0);
+        pageCount = (int) (Math.min(requestedUpTo, pageIndex - 1) + 1 - startPageIndex);
+      }
+      requestedUpTo = to;
+    }
+
+    if (pageCount > 0) {
+      readCache.prefetch(fileId, startPageIndex, pageCount, writeCache);
+    }
+  }
+}
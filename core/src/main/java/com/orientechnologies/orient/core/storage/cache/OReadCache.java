@@ -71,6 +71,24 @@ public interface OReadCache {
   OCacheEntry loadForRead(long fileId, long pageIndex, boolean checkPinnedPages, OWriteCache writeCache, int pageCount,
       boolean verifyChecksums) throws IOException;
 
+  /**
+   * Same as {@link #loadForRead(long, long, boolean, OWriteCache, int, boolean)}, but the <code>scan</code> flag tells the cache
+   * whether the page is read by a one-shot scan (eg. a full scan of a cluster) which is not going to read it again. Caches may
+   * keep such pages apart with a low priority, so that a scan does not push out of the cache the pages used by the rest of the
+   * workload.
+   */
+  OCacheEntry loadForRead(long fileId, long pageIndex, boolean checkPinnedPages, OWriteCache writeCache, int pageCount,
+      boolean verifyChecksums, boolean scan) throws IOException;
+
+  /**
+   * Asks the cache to load in background the given range of pages of the file, so that they are already cached when they are
+   * requested. It is a hint used by scans to read pages ahead of their consumer: pages that are already cached are skipped, and
+   * the request may be ignored, for example if too many requests are pending.
+   *
+   * @see OPageReadAhead
+   */
+  void prefetch(long fileId, long startPageIndex, int pageCount, OWriteCache writeCache);
+
   void releaseFromRead(OCacheEntry cacheEntry, OWriteCache writeCache);
 
   void releaseFromWrite(OCacheEntry cacheEntry, OWriteCache writeCache);
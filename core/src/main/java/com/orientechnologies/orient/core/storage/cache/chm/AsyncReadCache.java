@@ -4,9 +4,13 @@ import com.orientechnologies.common.concur.lock.OInterruptedException;
 import com.orientechnologies.common.directmemory.OByteBufferPool;
 import com.orientechnologies.common.directmemory.OPointer;
 import com.orientechnologies.common.exception.OException;
+import com.orientechnologies.common.thread.OThreadPoolExecutorWithLogging;
 import com.orientechnologies.common.types.OModifiableBoolean;
 import com.orientechnologies.common.util.ORawPair;
+import com.orientechnologies.common.util.OUncaughtExceptionHandler;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 import com.orientechnologies.orient.core.exception.OStorageException;
+import com.orientechnologies.orient.core.storage.OStorageAbstract;
 import com.orientechnologies.orient.core.storage.cache.OAbstractWriteCache;
 import com.orientechnologies.orient.core.storage.cache.OCacheEntry;
 import com.orientechnologies.orient.core.storage.cache.OCacheEntryImpl;
@@ -22,8 +26,16 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.Lock;
@@ -44,6 +56,21 @@ public final class AsyncReadCache implements OReadCache {
   private static final int NCPU                   = Runtime.getRuntime().availableProcessors();
   private static final int WRITE_BUFFER_MAX_BATCH = 128 * ceilingPowerOfTwo(NCPU);
 
+  private static final int PREFETCH_QUEUE_SIZE  = 1024;
+  private static final int MODIFICATION_STRIPES = 64;
+
+  /**
+   * Executor which loads in background the pages requested by {@link #prefetch(long, long, int, OWriteCache)}. Requests which do
+   * not fit in the queue are dropped.
+   */
+  private static final ExecutorService prefetchExecutor;
+
+  static {
+    final int threads = Math.max(1, OGlobalConfiguration.QUERY_SCAN_PREFETCH_THREADS.getValueAsInteger());
+    prefetchExecutor = new OThreadPoolExecutorWithLogging(threads, threads, 60L, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(PREFETCH_QUEUE_SIZE), new PrefetchThreadFactory());
+  }
+
   private final ConcurrentHashMap<PageKey, OCacheEntry> data;
   private final Lock                                    evictionLock = new ReentrantLock();
 
@@ -56,8 +83,10 @@ public final class AsyncReadCache implements OReadCache {
 
   private final boolean trackHitRate;
 
-  private final LongAdder requests = new LongAdder();
-  private final LongAdder hits     = new LongAdder();
+  private final LongAdder requests     = new LongAdder();
+  private final LongAdder hits         = new LongAdder();
+  private final LongAdder scanRequests = new LongAdder();
+  private final LongAdder scanHits     = new LongAdder();
 
   /**
    * Status which indicates whether flush of buffers should be performed or may be delayed.
@@ -68,6 +97,21 @@ public final class AsyncReadCache implements OReadCache {
 
   private final OByteBufferPool bufferPool;
 
+  private final boolean asyncPrefetch = OGlobalConfiguration.QUERY_SCAN_ASYNC_PREFETCH.getValueAsBoolean();
+
+  /**
+   * Ranges of pages which are being prefetched, identified by their first page.
+   */
+  private final Set<PageKey> prefetchRequests = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Counters of changes of pages, of page allocations in progress, and of removals of files, striped by file. Pages loaded by
+   * prefetch are added to the cache only if no page of the file was changed or allocated and the file was not truncated since
+   * the request, otherwise the loaded copy could be stale.
+   */
+  private final AtomicLongArray    modifications         = new AtomicLongArray(MODIFICATION_STRIPES);
+  private final AtomicIntegerArray allocationsInProgress = new AtomicIntegerArray(MODIFICATION_STRIPES);
+
   public AsyncReadCache(final OByteBufferPool bufferPool, final long maxCacheSizeInBytes, final int pageSize,
       final boolean trackHitRate) {
     evictionLock.lock();
@@ -78,7 +122,8 @@ public final class AsyncReadCache implements OReadCache {
       this.trackHitRate = trackHitRate;
       this.maxCacheSize = (int) (maxCacheSizeInBytes / pageSize);
       this.data = new ConcurrentHashMap<>(this.maxCacheSize);
-      policy = new WTinyLFUPolicy(data, new FrequencySketch(), cacheSize);
+      policy = new WTinyLFUPolicy(data, new FrequencySketch(), cacheSize,
+          OGlobalConfiguration.DISK_CACHE_SCAN_PERCENT.getValueAsInteger());
       policy.setMaxSize(this.maxCacheSize);
     } finally {
       evictionLock.unlock();
@@ -99,7 +144,7 @@ public final class AsyncReadCache implements OReadCache {
   @Override
   public final OCacheEntry loadForWrite(final long fileId, final long pageIndex, final boolean checkPinnedPages,
       final OWriteCache writeCache, final int pageCount, final boolean verifyChecksums, final OLogSequenceNumber startLSN) {
-    final OCacheEntry cacheEntry = doLoad(fileId, (int) pageIndex, writeCache, verifyChecksums);
+    final OCacheEntry cacheEntry = doLoad(fileId, (int) pageIndex, writeCache, verifyChecksums, false);
 
     if (cacheEntry != null) {
       cacheEntry.acquireExclusiveLock();
@@ -112,16 +157,26 @@ public final class AsyncReadCache implements OReadCache {
   @Override
   public final OCacheEntry loadForRead(final long fileId, final long pageIndex, final boolean checkPinnedPages,
       final OWriteCache writeCache, final int pageCount, final boolean verifyChecksums) {
-    return doLoad(fileId, (int) pageIndex, writeCache, verifyChecksums);
+    return doLoad(fileId, (int) pageIndex, writeCache, verifyChecksums, false);
+  }
+
+  @Override
+  public final OCacheEntry loadForRead(final long fileId, final long pageIndex, final boolean checkPinnedPages,
+      final OWriteCache writeCache, final int pageCount, final boolean verifyChecksums, final boolean scan) {
+    return doLoad(fileId, (int) pageIndex, writeCache, verifyChecksums, scan);
   }
 
+  /**
+   * @param scan if true the page is read by a one-shot scan: a cached page is not marked as accessed, and a page which is not
+   *             cached is added to the scan queue of the eviction policy instead of the eden
+   */
   private OCacheEntry doLoad(final long extFileId, final int pageIndex, final OWriteCache writeCache,
-      final boolean verifyChecksums) {
+      final boolean verifyChecksums, final boolean scan) {
     final long fileId = OAbstractWriteCache.checkFileIdCompatibility(writeCache.getId(), extFileId);
     final PageKey pageKey = new PageKey(fileId, pageIndex);
 
     if (trackHitRate) {
-      requests.increment();
+      (scan ? scanRequests : requests).increment();
     }
 
     while (true) {
@@ -133,10 +188,12 @@ public final class AsyncReadCache implements OReadCache {
 
       if (cacheEntry != null) {
         if (cacheEntry.acquireEntry()) {
-          afterRead(cacheEntry);
+          if (!scan) {
+            afterRead(cacheEntry);
+          }
 
           if (trackHitRate) {
-            hits.increment();
+            (scan ? scanHits : hits).increment();
           }
 
           return cacheEntry;
@@ -171,10 +228,14 @@ public final class AsyncReadCache implements OReadCache {
         if (cacheEntry.acquireEntry()) {
           if (read[0]) {
             if (trackHitRate) {
-              hits.increment();
+              (scan ? scanHits : hits).increment();
             }
 
-            afterRead(cacheEntry);
+            if (!scan) {
+              afterRead(cacheEntry);
+            }
+          } else if (scan) {
+            afterScanAdd(cacheEntry);
           } else {
             afterAdd(cacheEntry);
 
@@ -191,6 +252,95 @@ public final class AsyncReadCache implements OReadCache {
     }
   }
 
+  @Override
+  public final void prefetch(final long extFileId, final long startPageIndex, final int pageCount, final OWriteCache writeCache) {
+    if (!asyncPrefetch || startPageIndex < 0 || pageCount < 1) {
+      return;
+    }
+
+    final long fileId = OAbstractWriteCache.checkFileIdCompatibility(writeCache.getId(), extFileId);
+
+    //pages at the boundaries of the range which are already cached are not loaded again
+    int start = (int) startPageIndex;
+    int end = (int) startPageIndex + pageCount;
+    while (start < end && data.containsKey(new PageKey(fileId, start))) {
+      start++;
+    }
+    while (end > start && data.containsKey(new PageKey(fileId, end - 1))) {
+      end--;
+    }
+
+    if (start == end) {
+      return;
+    }
+
+    final PageKey requestKey = new PageKey(fileId, start);
+    if (!prefetchRequests.add(requestKey)) {
+      return;
+    }
+
+    final long modificationsCount = modifications.get(stripe(fileId));
+    final int firstPage = start;
+    final int count = end - start;
+    try {
+      prefetchExecutor.execute(() -> {
+        try {
+          loadPrefetchedPages(fileId, firstPage, count, writeCache, modificationsCount);
+        } finally {
+          prefetchRequests.remove(requestKey);
+        }
+      });
+    } catch (final RejectedExecutionException e) {
+      prefetchRequests.remove(requestKey);
+    }
+  }
+
+  private void loadPrefetchedPages(final long fileId, final int startPageIndex, final int pageCount, final OWriteCache writeCache,
+      final long modificationsCount) {
+    final OCachePointer[] pointers;
+    try {
+      //single vectored read of all the pages
+      pointers = writeCache.load(fileId, startPageIndex, pageCount, new OModifiableBoolean(), true);
+    } catch (final IOException | RuntimeException e) {
+      //file may be closed or deleted in the meantime, prefetch is only a hint
+      return;
+    }
+
+    final int stripe = stripe(fileId);
+
+    //serializes additions with the removal of files from the cache
+    evictionLock.lock();
+    try {
+      for (final OCachePointer pointer : pointers) {
+        final PageKey pageKey = new PageKey(fileId, (int) pointer.getPageIndex());
+        final boolean[] added = new boolean[1];
+
+        final OCacheEntry cacheEntry = data.compute(pageKey, (page, entry) -> {
+          if (entry == null && allocationsInProgress.get(stripe) == 0 && modifications.get(stripe) == modificationsCount) {
+            added[0] = true;
+            return new OCacheEntryImpl(page.getFileId(), page.getPageIndex(), pointer);
+          }
+
+          return entry;
+        });
+
+        if (added[0]) {
+          cacheSize.incrementAndGet();
+          //pages are prefetched by scans, they are moved to the main part of the cache only if they are read by other queries
+          afterScanAdd(cacheEntry);
+        } else {
+          pointer.decrementReadersReferrer();
+        }
+      }
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  private static int stripe(final long fileId) {
+    return (int) (fileId ^ (fileId >>> 32)) & (MODIFICATION_STRIPES - 1);
+  }
+
   private OCacheEntry addNewPagePointerToTheCache(final long fileId, final int pageIndex) {
     final PageKey pageKey = new PageKey(fileId, pageIndex);
 
@@ -234,6 +384,7 @@ public final class AsyncReadCache implements OReadCache {
     final PageKey pageKey = new PageKey(cacheEntry.getFileId(), (int) cacheEntry.getPageIndex());
     data.compute(pageKey, (page, entry) -> {
       writeCache.store(cacheEntry.getFileId(), cacheEntry.getPageIndex(), cacheEntry.getCachePointer());
+      modifications.incrementAndGet(stripe(cacheEntry.getFileId()));
       return entry;//may be absent if page in pinned pages, in such case we use map as virtual lock
     });
 
@@ -263,8 +414,17 @@ public final class AsyncReadCache implements OReadCache {
   public final OCacheEntry allocateNewPage(long fileId, final OWriteCache writeCache, final OLogSequenceNumber startLSN)
       throws IOException {
     fileId = OAbstractWriteCache.checkFileIdCompatibility(writeCache.getId(), fileId);
-    final int newPageIndex = writeCache.allocateNewPage(fileId);
-    final OCacheEntry cacheEntry = addNewPagePointerToTheCache(fileId, newPageIndex);
+
+    final int stripe = stripe(fileId);
+    final OCacheEntry cacheEntry;
+    allocationsInProgress.incrementAndGet(stripe);
+    try {
+      modifications.incrementAndGet(stripe);
+      final int newPageIndex = writeCache.allocateNewPage(fileId);
+      cacheEntry = addNewPagePointerToTheCache(fileId, newPageIndex);
+    } finally {
+      allocationsInProgress.decrementAndGet(stripe);
+    }
 
     if (cacheEntry != null) {
       cacheEntry.acquireExclusiveLock();
@@ -286,6 +446,10 @@ public final class AsyncReadCache implements OReadCache {
     afterWrite(() -> policy.onAdd(entry));
   }
 
+  private void afterScanAdd(final OCacheEntry entry) {
+    afterWrite(() -> policy.onScanAdd(entry));
+  }
+
   private void afterWrite(final Runnable command) {
     writeBuffer.offer(command);
 
@@ -388,6 +552,10 @@ public final class AsyncReadCache implements OReadCache {
   public final void clear() {
     evictionLock.lock();
     try {
+      for (int i = 0; i < MODIFICATION_STRIPES; i++) {
+        modifications.incrementAndGet(i);
+      }
+
       emptyBuffers();
 
       for (final OCacheEntry entry : data.values()) {
@@ -476,6 +644,8 @@ public final class AsyncReadCache implements OReadCache {
   private void clearFile(final long fileId, final int filledUpTo, final OWriteCache writeCache) {
     evictionLock.lock();
     try {
+      modifications.incrementAndGet(stripe(fileId));
+
       emptyBuffers();
 
       for (int pageIndex = 0; pageIndex < filledUpTo; pageIndex++) {
@@ -522,7 +692,21 @@ public final class AsyncReadCache implements OReadCache {
     }
   }
 
-  int hitRate() {
+  /**
+   * @return percent of regular page reads which hit the cache, -1 if there were no such reads
+   */
+  public int hitRate() {
+    return hitRate(requests, hits);
+  }
+
+  /**
+   * @return percent of page reads of one-shot scans which hit the cache, -1 if there were no such reads
+   */
+  public int scanHitRate() {
+    return hitRate(scanRequests, scanHits);
+  }
+
+  private static int hitRate(final LongAdder requests, final LongAdder hits) {
     final long reqSum = requests.sum();
     if (reqSum == 0) {
       return -1;
@@ -552,6 +736,17 @@ public final class AsyncReadCache implements OReadCache {
     abstract boolean shouldBeDrained(boolean readBufferOverflow);
   }
 
+  private static final class PrefetchThreadFactory implements ThreadFactory {
+    @Override
+    public final Thread newThread(final Runnable r) {
+      final Thread thread = new Thread(OStorageAbstract.storageThreadGroup, r);
+      thread.setDaemon(true);
+      thread.setName("OrientDB Read Cache Prefetch Task");
+      thread.setUncaughtExceptionHandler(new OUncaughtExceptionHandler());
+      return thread;
+    }
+  }
+
   @SuppressWarnings("SameParameterValue")
   private static int ceilingPowerOfTwo(final int x) {
     // From Hacker's Delight, Chapter 3, Harry S. Warren Jr.
@@ -9,10 +9,16 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Window TinyLFU eviction policy https://arxiv.org/pdf/1512.00727.pdf.
+ * <p>
+ * Pages loaded by one-shot scans are not admitted to the eden, but are kept in a small FIFO queue, which takes a fixed percent of
+ * the cache and which is not included into eviction decisions of the rest of the cache. This way a full scan of a big cluster
+ * does not evict the pages of the working set. A page of the scan queue is moved to the eden as soon as it is accessed by a
+ * regular (not scan) read.
  */
 final class WTinyLFUPolicy {
   private static final int EDEN_PERCENT         = 20;
   private static final int PROBATIONARY_PERCENT = 20;
+  private static final int MAX_SCAN_PERCENT     = 50;
 
   private volatile int                                     maxSize;
   private final    ConcurrentHashMap<PageKey, OCacheEntry> data;
@@ -23,19 +29,32 @@ final class WTinyLFUPolicy {
   private final LRUList eden       = new LRUList();
   private final LRUList probation  = new LRUList();
   private final LRUList protection = new LRUList();
+  private final LRUList scan       = new LRUList();
+
+  private final int scanPercent;
 
   private int maxEdenSize;
   private int maxProtectedSize;
   private int maxSecondLevelSize;
+  private int maxScanSize;
 
   WTinyLFUPolicy(final ConcurrentHashMap<PageKey, OCacheEntry> data, final Admittor admittor, final AtomicInteger cacheSize) {
+    this(data, admittor, cacheSize, 0);
+  }
+
+  /**
+   * @param scanPercent percent of the cache reserved to the pages loaded by scans, if 0 such pages are handled as all other pages
+   */
+  WTinyLFUPolicy(final ConcurrentHashMap<PageKey, OCacheEntry> data, final Admittor admittor, final AtomicInteger cacheSize,
+      final int scanPercent) {
     this.data = data;
     this.admittor = admittor;
     this.cacheSize = cacheSize;
+    this.scanPercent = Math.max(0, Math.min(scanPercent, MAX_SCAN_PERCENT));
   }
 
   public void setMaxSize(final int maxSize) {
-    if (eden.size() + protection.size() + probation.size() > maxSize) {
+    if (eden.size() + protection.size() + probation.size() + scan.size() > maxSize) {
       throw new IllegalStateException(
           "Can set maximum cache size to " + maxSize + " because current cache size is bigger than requested");
     }
@@ -67,6 +86,11 @@ final class WTinyLFUPolicy {
         protection.moveToTheTail(cacheEntry);
       } else if (eden.contains(cacheEntry)) {
         eden.moveToTheTail(cacheEntry);
+      } else if (scan.contains(cacheEntry)) {
+        scan.remove(cacheEntry);
+        eden.moveToTheTail(cacheEntry);
+
+        purgeEden();
       }
     }
 
@@ -82,6 +106,7 @@ final class WTinyLFUPolicy {
       assert !eden.contains(cacheEntry);
       assert !probation.contains(cacheEntry);
       assert !protection.contains(cacheEntry);
+      assert !scan.contains(cacheEntry);
 
       eden.moveToTheTail(cacheEntry);
 
@@ -93,6 +118,42 @@ final class WTinyLFUPolicy {
     assert probation.size() + protection.size() <= maxSecondLevelSize;
   }
 
+  /**
+   * Adds a page loaded by a one-shot scan. The frequency of the page is not incremented, because a scan does not make it popular.
+   */
+  void onScanAdd(final OCacheEntry cacheEntry) {
+    if (maxScanSize == 0) {
+      onAdd(cacheEntry);
+      return;
+    }
+
+    if (cacheEntry.isAlive()) {
+      assert !eden.contains(cacheEntry);
+      assert !probation.contains(cacheEntry);
+      assert !protection.contains(cacheEntry);
+      assert !scan.contains(cacheEntry);
+
+      scan.moveToTheTail(cacheEntry);
+
+      purgeScan();
+    }
+  }
+
+  private void purgeScan() {
+    //pages which are in use are moved back to the tail of the queue, the queue is purged on the next addition
+    int pagesToCheck = scan.size();
+    while (scan.size() > maxScanSize && pagesToCheck > 0) {
+      final OCacheEntry victim = scan.poll();
+      assert victim != null;
+
+      if (!evict(victim)) {
+        scan.moveToTheTail(victim);
+      }
+
+      pagesToCheck--;
+    }
+  }
+
   private void purgeEden() {
     while (eden.size() > maxEdenSize) {
       final OCacheEntry candidate = eden.poll();
@@ -113,35 +174,11 @@ final class WTinyLFUPolicy {
           probation.poll();
           probation.moveToTheTail(candidate);
 
-          if (victim.freeze()) {
-            final boolean removed = data.remove(new PageKey(victim.getFileId(), (int) victim.getPageIndex()), victim);
-            victim.makeDead();
-
-            if (removed) {
-              cacheSize.decrementAndGet();
-            }
-
-            final OCachePointer pointer = victim.getCachePointer();
-
-            pointer.decrementReadersReferrer();
-            victim.clearCachePointer();
-          } else {
+          if (!evict(victim)) {
             eden.moveToTheTail(victim);
           }
         } else {
-          if (candidate.freeze()) {
-            final boolean removed = data.remove(new PageKey(candidate.getFileId(), (int) candidate.getPageIndex()), candidate);
-            candidate.makeDead();
-
-            if (removed) {
-              cacheSize.decrementAndGet();
-            }
-
-            final OCachePointer pointer = candidate.getCachePointer();
-
-            pointer.decrementReadersReferrer();
-            candidate.clearCachePointer();
-          } else {
+          if (!evict(candidate)) {
             eden.moveToTheTail(candidate);
           }
         }
@@ -151,6 +188,31 @@ final class WTinyLFUPolicy {
     assert protection.size() <= maxProtectedSize;
   }
 
+  /**
+   * Removes the page from the cache if it is not in use.
+   *
+   * @return false if the page is in use and can not be removed
+   */
+  private boolean evict(final OCacheEntry victim) {
+    if (!victim.freeze()) {
+      return false;
+    }
+
+    final boolean removed = data.remove(new PageKey(victim.getFileId(), (int) victim.getPageIndex()), victim);
+    victim.makeDead();
+
+    if (removed) {
+      cacheSize.decrementAndGet();
+    }
+
+    final OCachePointer pointer = victim.getCachePointer();
+
+    pointer.decrementReadersReferrer();
+    victim.clearCachePointer();
+
+    return true;
+  }
+
   void onRemove(final OCacheEntry cacheEntry) {
     assert cacheEntry.isFrozen();
 
@@ -160,6 +222,8 @@ final class WTinyLFUPolicy {
       protection.remove(cacheEntry);
     } else if (eden.contains(cacheEntry)) {
       eden.remove(cacheEntry);
+    } else if (scan.contains(cacheEntry)) {
+      scan.remove(cacheEntry);
     }
 
     cacheEntry.makeDead();
@@ -170,9 +234,10 @@ final class WTinyLFUPolicy {
   }
 
   private void calculateMaxSizes() {
+    maxScanSize = maxSize * scanPercent / 100;
     maxEdenSize = maxSize * EDEN_PERCENT / 100;
-    maxProtectedSize = maxSize - maxEdenSize - (maxSize - maxEdenSize) * PROBATIONARY_PERCENT / 100;
-    maxSecondLevelSize = maxSize - maxEdenSize;
+    maxSecondLevelSize = maxSize - maxEdenSize - maxScanSize;
+    maxProtectedSize = maxSecondLevelSize - maxSecondLevelSize * PROBATIONARY_PERCENT / 100;
   }
 
   Iterator<OCacheEntry> eden() {
@@ -187,14 +252,19 @@ final class WTinyLFUPolicy {
     return probation.iterator();
   }
 
+  Iterator<OCacheEntry> scan() {
+    return scan.iterator();
+  }
+
   void assertSize() {
-    assert eden.size() + probation.size() + protection.size() == cacheSize.get() && data.size() == cacheSize.get()
+    assert eden.size() + probation.size() + protection.size() + scan.size() == cacheSize.get() && data.size() == cacheSize.get()
         && cacheSize.get() <= maxSize;
   }
 
   void assertConsistency() {
     for (final OCacheEntry cacheEntry : data.values()) {
-      assert eden.contains(cacheEntry) || protection.contains(cacheEntry) || probation.contains(cacheEntry);
+      assert eden.contains(cacheEntry) || protection.contains(cacheEntry) || probation.contains(cacheEntry) || scan
+          .contains(cacheEntry);
     }
 
     int counter = 0;
@@ -213,6 +283,11 @@ final class WTinyLFUPolicy {
       counter++;
     }
 
+    for (final OCacheEntry cacheEntry : scan) {
+      assert data.get(new PageKey(cacheEntry.getFileId(), (int) cacheEntry.getPageIndex())) == cacheEntry;
+      counter++;
+    }
+
     assert counter == data.size();
   }
 }
@@ -40,6 +40,7 @@ import com.orientechnologies.common.util.OQuarto;
 import com.orientechnologies.common.util.OUncaughtExceptionHandler;
 import com.orientechnologies.orient.core.command.OCommandOutputListener;
 import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.encryption.OPageEncryption;
 import com.orientechnologies.orient.core.exception.ODatabaseException;
 import com.orientechnologies.orient.core.exception.OStorageException;
 import com.orientechnologies.orient.core.exception.OWriteCacheException;
@@ -53,13 +54,22 @@ import com.orientechnologies.orient.core.storage.fs.OFileClassic;
 import com.orientechnologies.orient.core.storage.impl.local.OLowDiskSpaceInformation;
 import com.orientechnologies.orient.core.storage.impl.local.OLowDiskSpaceListener;
 import com.orientechnologies.orient.core.storage.impl.local.OPageIsBrokenListener;
+import com.orientechnologies.orient.core.storage.impl.local.paginated.base.ODurablePage;
 import com.orientechnologies.orient.core.storage.impl.local.paginated.wal.OLogSequenceNumber;
 import com.orientechnologies.orient.core.storage.impl.local.paginated.wal.OWriteAheadLog;
 
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
 import java.lang.ref.WeakReference;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
@@ -76,6 +86,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
@@ -93,6 +104,7 @@ import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.Lock;
@@ -122,7 +134,8 @@ import java.util.zip.CRC32;
  * @author Andrey Lomakin (a.lomakin-at-orientdb.com)
  * @since 7/23/13
  */
-public final class OWOWCache extends OAbstractWriteCache implements OWriteCache, OCachePointer.WritersListener {
+public final class OWOWCache extends OAbstractWriteCache
+    implements OWriteCache, OCachePointer.WritersListener, OWOWCacheMXBean {
   /**
    * Extension for the file which contains mapping between file name and file id
    */
@@ -167,6 +180,18 @@ public final class OWOWCache extends OAbstractWriteCache implements OWriteCache,
 
   private static final int CHUNK_SIZE = 32 * 1024 * 1024;
 
+  /**
+   * Weight of the last measurement in the smoothed rates of the background flush.
+   */
+  private static final double RATE_SMOOTHING = 0.2;
+
+  /**
+   * Amount of buckets in histogram of age of the dirty pages, age is measured in WAL segments.
+   */
+  private static final int DIRTY_PAGES_AGE_BUCKETS = 8;
+
+  private static final String MBEAN_PREFIX = "com.orientechnologies.orient.core.storage.cache.local:type=OWOWCacheMXBean";
+
   /**
    * Executor which runs in single thread all tasks are related to flush of write cache data.
    */
@@ -195,6 +220,33 @@ public final class OWOWCache extends OAbstractWriteCache implements OWriteCache,
    */
   private final int diskSizeCheckInterval = OGlobalConfiguration.DISC_CACHE_FREE_SPACE_CHECK_INTERVAL_IN_PAGES.getValueAsInteger();
 
+  /**
+   * Amount of WAL segments which may contain changes not flushed to the data files, once it is exceeded background flush is
+   * accelerated.
+   */
+  private final int targetCheckpointLag = Math.max(1, OGlobalConfiguration.DISK_CACHE_CHECKPOINT_LAG.getValueAsInteger());
+
+  /**
+   * Maximum rate of background flush of the pages with the oldest changes in megabytes per second, 0 if rate is not limited.
+   */
+  private final int flushBandwidth = OGlobalConfiguration.DISK_CACHE_FLUSH_BANDWIDTH.getValueAsInteger();
+
+  /**
+   * Extensions of the files which pages are read through memory mapping, empty if memory mapping is disabled
+   */
+  private final Set<String> memoryMappedExtensions = memoryMappedExtensions();
+
+  /**
+   * Extensions of the files which pages are stored compressed, empty if page compression is disabled or pages are encrypted,
+   * encrypted content does not compress
+   */
+  private final Set<String> compressedExtensions;
+
+  /**
+   * Encryption of the pages on the way to and from the disk, <code>null</code> if pages are stored as is
+   */
+  private final OPageEncryption pageEncryption;
+
   /**
    * Listeners which are called once we detect that there is not enough space left on disk to work. Mostly used to put database in
    * "read only" mode
@@ -396,9 +448,19 @@ public final class OWOWCache extends OAbstractWriteCache implements OWriteCache,
 
   private long statisticTs = -1;
 
-  private long lastTsLSNFlush           = -1;
-  private long lsnFlushIntervalBoundary = -1;
-  private int  lastSegmentCount         = 1;
+  private long lastTsLSNFlush = -1;
+
+  /**
+   * Smoothed amount of pages which become dirty and which are flushed between two runs of the background flush.
+   */
+  private double dirtyPagesRate;
+  private double flushedPagesRate;
+
+  private volatile long   flushRate;
+  private volatile long   checkpointLag;
+  private volatile long[] dirtyPagesAgeHistogram = new long[DIRTY_PAGES_AGE_BUCKETS];
+
+  private final AtomicBoolean mbeanIsRegistered = new AtomicBoolean();
 
   private final int exclusiveWriteCacheMaxSize;
 
@@ -410,9 +472,6 @@ public final class OWOWCache extends OAbstractWriteCache implements OWriteCache,
   private long lastFlushTs                      = -1;
   private long backgroundExclusiveFlushBoundary = -1;
 
-  private long lsnPagesFlushIntervalSum;
-  private int  lsnPagesFlushIntervalCount;
-
   private final int chunkSize;
 
   private final    long      pagesFlushInterval;
@@ -433,8 +492,23 @@ public final class OWOWCache extends OAbstractWriteCache implements OWriteCache,
       final String storageName, final OBinarySerializer<String> stringSerializer,
       final OClosableLinkedContainer<Long, OFileClassic> files, final int id, final OChecksumMode checksumMode,
       final boolean callFsync, final boolean printCacheStatistics, final int statisticsPrintInterval) {
+    this(pageSize, bufferPool, writeAheadLog, pagesFlushInterval, shutdownTimeout, exclusiveWriteCacheMaxSize, storagePath,
+        storageName, stringSerializer, files, id, checksumMode, callFsync, printCacheStatistics, statisticsPrintInterval, null);
+  }
+
+  /**
+   * @param pageEncryption encryption of the pages stored in the files, or <code>null</code> if pages are not encrypted
+   */
+  public OWOWCache(final int pageSize, final OByteBufferPool bufferPool, final OWriteAheadLog writeAheadLog,
+      final long pagesFlushInterval, final int shutdownTimeout, final long exclusiveWriteCacheMaxSize, final Path storagePath,
+      final String storageName, final OBinarySerializer<String> stringSerializer,
+      final OClosableLinkedContainer<Long, OFileClassic> files, final int id, final OChecksumMode checksumMode,
+      final boolean callFsync, final boolean printCacheStatistics, final int statisticsPrintInterval,
+      final OPageEncryption pageEncryption) {
 
     this.shutdownTimeout = shutdownTimeout;
+    this.pageEncryption = pageEncryption;
+    this.compressedExtensions = pageEncryption == null ? compressedExtensions() : Collections.emptySet();
     this.pagesFlushInterval = pagesFlushInterval;
     this.callFsync = callFsync;
 
@@ -471,6 +545,66 @@ public final class OWOWCache extends OAbstractWriteCache implements OWriteCache,
     } finally {
       filesLock.releaseWriteLock();
     }
+
+    registerMBean();
+  }
+
+  /**
+   * @inheritDoc
+   */
+  @Override
+  public long getFlushRate() {
+    return flushRate;
+  }
+
+  /**
+   * @inheritDoc
+   */
+  @Override
+  public long getCheckpointLag() {
+    return checkpointLag;
+  }
+
+  /**
+   * @inheritDoc
+   */
+  @Override
+  public long[] getDirtyPagesAgeHistogram() {
+    return dirtyPagesAgeHistogram.clone();
+  }
+
+  private void registerMBean() {
+    if (mbeanIsRegistered.compareAndSet(false, true)) {
+      try {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName mbeanName = new ObjectName(getMBeanName());
+        if (!server.isRegistered(mbeanName)) {
+          server.registerMBean(this, mbeanName);
+        } else {
+          mbeanIsRegistered.set(false);
+          OLogManager.instance().warn(this,
+              "MBean with name %s has already registered. Probably your system was not shutdown correctly"
+                  + " or you have several running applications which use OrientDB engine inside", mbeanName.getCanonicalName());
+        }
+      } catch (final MalformedObjectNameException | InstanceAlreadyExistsException | NotCompliantMBeanException | MBeanRegistrationException e) {
+        throw OException.wrapException(new OStorageException("Error during registration of write cache MBean"), e);
+      }
+    }
+  }
+
+  private void unregisterMBean() {
+    if (mbeanIsRegistered.compareAndSet(true, false)) {
+      try {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        server.unregisterMBean(new ObjectName(getMBeanName()));
+      } catch (final MalformedObjectNameException | InstanceNotFoundException | MBeanRegistrationException e) {
+        throw OException.wrapException(new OStorageException("Error during unregistration of write cache MBean"), e);
+      }
+    }
+  }
+
+  private String getMBeanName() {
+    return MBEAN_PREFIX + ",name=" + ObjectName.quote(storageName) + ",id=" + id;
   }
 
   /**
@@ -1381,6 +1515,8 @@ public final class OWOWCache extends OAbstractWriteCache implements OWriteCache,
   private void stopFlush() {
     stopFlush = true;
 
+    unregisterMBean();
+
     for (final CountDownLatch completionLatch : triggeredTasks.values()) {
       try {
         if (!completionLatch.await(shutdownTimeout, TimeUnit.MINUTES)) {
@@ -1564,6 +1700,7 @@ public final class OWOWCache extends OAbstractWriteCache implements OWriteCache,
         try {
           final ByteBuffer byteBuffer = pointer.getNativeByteBuffer();
           fileClassic.read(pos, byteBuffer, true);
+          decryptPage(intId, pos / pageSize, byteBuffer);
           byteBuffer.rewind();
           byteBuffer.get(data);
         } finally {
@@ -1800,7 +1937,43 @@ public final class OWOWCache extends OAbstractWriteCache implements OWriteCache,
 
   private OFileClassic createFileInstance(final String fileName, final int fileId) {
     final String internalFileName = createInternalFileName(fileName, fileId);
-    return new OFileClassic(storagePath.resolve(internalFileName));
+    return newFileInstance(storagePath.resolve(internalFileName));
+  }
+
+  private OFileClassic newFileInstance(final Path path) {
+    final String fileName = path.getFileName().toString();
+    final int extSeparator = fileName.lastIndexOf('.');
+
+    final String extension = extSeparator >= 0 ? fileName.substring(extSeparator) : null;
+
+    return new OFileClassic(path, extension != null && memoryMappedExtensions.contains(extension),
+        extension != null && compressedExtensions.contains(extension) ? pageSize : 0);
+  }
+
+  private static Set<String> memoryMappedExtensions() {
+    final Set<String> extensions = new HashSet<>();
+    if (OGlobalConfiguration.FILE_MMAP_ENABLED.getValueAsBoolean()) {
+      for (final String extension : OGlobalConfiguration.FILE_MMAP_EXTENSIONS.getValueAsString().split(",")) {
+        if (!extension.trim().isEmpty()) {
+          extensions.add(extension.trim());
+        }
+      }
+    }
+
+    return extensions;
+  }
+
+  private static Set<String> compressedExtensions() {
+    final Set<String> extensions = new HashSet<>();
+    if (OGlobalConfiguration.FILE_PAGE_COMPRESSION_ENABLED.getValueAsBoolean()) {
+      for (final String extension : OGlobalConfiguration.FILE_PAGE_COMPRESSION_EXTENSIONS.getValueAsString().split(",")) {
+        if (!extension.trim().isEmpty()) {
+          extensions.add(extension.trim());
+        }
+      }
+    }
+
+    return extensions;
   }
 
   private static String createInternalFileName(final String fileName, final int fileId) {
@@ -1877,7 +2050,7 @@ public final class OWOWCache extends OAbstractWriteCache implements OWriteCache,
 
         if (files.get(externalId) == null) {
           final Path path = storagePath.resolve(idFileNameMap.get((nameIdEntry.getValue())));
-          final OFileClassic fileClassic = new OFileClassic(path);
+          final OFileClassic fileClassic = newFileInstance(path);
 
           if (fileClassic.exists()) {
             fileClassic.open();
@@ -1951,7 +2124,7 @@ public final class OWOWCache extends OAbstractWriteCache implements OWriteCache,
         final long externalId = composeFileId(id, nameIdEntry.getValue());
 
         if (files.get(externalId) == null) {
-          final OFileClassic fileClassic = new OFileClassic(storagePath.resolve(nameIdEntry.getKey()));
+          final OFileClassic fileClassic = newFileInstance(storagePath.resolve(nameIdEntry.getKey()));
 
           if (fileClassic.exists()) {
             fileClassic.open();
@@ -2146,9 +2319,11 @@ public final class OWOWCache extends OAbstractWriteCache implements OWriteCache,
               final ByteBuffer buffer = pointer.getNativeByteBuffer();
               assert buffer.position() == 0;
               fileClassic.read(firstPageStartPosition, buffer, false);
+              decryptPage(intId, startPageIndex, buffer);
 
               if (verifyChecksums && (checksumMode == OChecksumMode.StoreAndVerify || checksumMode == OChecksumMode.StoreAndThrow
                   || checksumMode == OChecksumMode.StoreAndSwitchReadOnlyMode)) {
+                rereadMappedPageIfBroken(fileClassic, intId, startPageIndex, buffer);
                 verifyMagicAndChecksum(buffer, pointer, fileId, startPageIndex, null);
               }
 
@@ -2171,10 +2346,14 @@ public final class OWOWCache extends OAbstractWriteCache implements OWriteCache,
             }
 
             fileClassic.read(firstPageStartPosition, buffers, false);
+            for (int i = 0; i < buffers.length; i++) {
+              decryptPage(intId, startPageIndex + i, buffers[i]);
+            }
 
             if (verifyChecksums && (checksumMode == OChecksumMode.StoreAndVerify || checksumMode == OChecksumMode.StoreAndThrow
                 || checksumMode == OChecksumMode.StoreAndSwitchReadOnlyMode)) {
               for (int i = 0; i < pointers.length; ++i) {
+                rereadMappedPageIfBroken(fileClassic, intId, startPageIndex + i, buffers[i]);
                 verifyMagicAndChecksum(buffers[i], pointers[i], fileId, startPageIndex + i, pointers);
               }
             }
@@ -2227,6 +2406,73 @@ public final class OWOWCache extends OAbstractWriteCache implements OWriteCache,
     }
   }
 
+  /**
+   * If the page was read through a memory mapping and it does not pass the magic number or checksum verification, the file is
+   * mapped again and the page is read again, to exclude that the broken content comes from a stale mapping. The page is verified
+   * again by the caller as usual.
+   */
+  private void rereadMappedPageIfBroken(final OFileClassic fileClassic, final int intId, final long pageIndex,
+      final ByteBuffer buffer) throws IOException {
+    if (fileClassic.isMemoryMapped() && !isMagicAndChecksumValid(buffer)) {
+      fileClassic.remap();
+      fileClassic.read(pageIndex * pageSize, buffer, false);
+      decryptPage(intId, pageIndex, buffer);
+    }
+  }
+
+  /**
+   * Encrypts the page before it is written to the file. Header of the page which contains magic number, checksum and LSN of the
+   * page is not encrypted, LSN is used as the version of the page content. Page encryption is allowed only if WAL is used, so LSN
+   * changes on every change of the page.
+   */
+  private void encryptPage(final int intId, final long pageIndex, final ByteBuffer buffer) {
+    if (pageEncryption != null) {
+      pageEncryption.crypt(encryptedPageId(intId, pageIndex), buffer.getLong(ODurablePage.WAL_SEGMENT_OFFSET),
+          buffer.getLong(ODurablePage.WAL_POSITION_OFFSET), buffer, ODurablePage.NEXT_FREE_POSITION,
+          pageSize - ODurablePage.NEXT_FREE_POSITION);
+    }
+  }
+
+  /**
+   * Decrypts the page read from the file. Pages which were allocated but never written do not have magic number and are not
+   * decrypted.
+   */
+  private void decryptPage(final int intId, final long pageIndex, final ByteBuffer buffer) {
+    if (pageEncryption != null) {
+      assert buffer.order() == ByteOrder.nativeOrder();
+
+      final long magicNumber = buffer.getLong(MAGIC_NUMBER_OFFSET);
+      if (magicNumber == MAGIC_NUMBER_WITH_CHECKSUM || magicNumber == MAGIC_NUMBER_WITHOUT_CHECKSUM) {
+        pageEncryption.crypt(encryptedPageId(intId, pageIndex), buffer.getLong(ODurablePage.WAL_SEGMENT_OFFSET),
+            buffer.getLong(ODurablePage.WAL_POSITION_OFFSET), buffer, ODurablePage.NEXT_FREE_POSITION,
+            pageSize - ODurablePage.NEXT_FREE_POSITION);
+      }
+    }
+  }
+
+  private static long encryptedPageId(final int intId, final long pageIndex) {
+    return ((long) intId << 32) | (pageIndex & 0xFFFFFFFFL);
+  }
+
+  private boolean isMagicAndChecksumValid(final ByteBuffer buffer) {
+    assert buffer.order() == ByteOrder.nativeOrder();
+
+    buffer.position(MAGIC_NUMBER_OFFSET);
+    final long magicNumber = OLongSerializer.INSTANCE.deserializeFromByteBufferObject(buffer);
+    if (magicNumber != MAGIC_NUMBER_WITH_CHECKSUM) {
+      return magicNumber == MAGIC_NUMBER_WITHOUT_CHECKSUM;
+    }
+
+    buffer.position(CHECKSUM_OFFSET);
+    final int storedChecksum = OIntegerSerializer.INSTANCE.deserializeFromByteBufferObject(buffer);
+
+    buffer.position(PAGE_OFFSET_TO_CHECKSUM_FROM);
+    final CRC32 crc32 = new CRC32();
+    crc32.update(buffer);
+
+    return (int) crc32.getValue() == storedChecksum;
+  }
+
   private void verifyMagicAndChecksum(final ByteBuffer buffer, final OPointer pointer, final long fileId, final long pageIndex,
       final OPointer[] pointersToRelease) {
     assert buffer.order() == ByteOrder.nativeOrder();
@@ -2333,6 +2579,7 @@ public final class OWOWCache extends OAbstractWriteCache implements OWriteCache,
       final OFileClassic fileClassic = entry.get();
 
       addMagicAndChecksum(buffer);
+      encryptPage(fileId, pageIndex, buffer);
       buffer.position(0);
       fileClassic.write(pageIndex * pageSize, buffer);
     } finally {
@@ -2402,7 +2649,7 @@ public final class OWOWCache extends OAbstractWriteCache implements OWriteCache,
                 + "%d pages were read from the disk, read speed is %d pages/s (%d KB/s), "
                 + "data threads were waiting because of cache overflow %d times, avg. wait time is %d ms., "
                 + "avg. chunk size %d, avg, chunk flush time %d ms., WAL begin %s, WAL end %s, %d percent of exclusive write cache is filled, "
-                + "LSN flush interval boundary %d ms", storageName, lsnPagesSum, exclusivePagesSum,
+                + "flush rate %d page/s, checkpoint lag %d segments", storageName, lsnPagesSum, exclusivePagesSum,
             entry == null ? -1 : entry.getKey().intValue(), entry == null ? -1 : entry.getValue().size(),
             lsnFlushIntervalSum / lsnFlushIntervalCount / 1_000_000, flushedPagesSum,
             1_000_000_000L * flushedPagesSum / flushedPagesTime,
@@ -2411,7 +2658,7 @@ public final class OWOWCache extends OAbstractWriteCache implements OWriteCache,
             1_000_000_000L * loadedPages / loadedPagesTime, 1_000_000_000L * loadedPages / loadedPagesTime * pageSize / 1024,
             cacheOverflowCount, cacheOverflowCount > 0 ? cacheOverflowTime / cacheOverflowCount / 1_000_000 : 0,
             chunkSizeSum / chunkSizeCountSum, chunkSizeTimeSum / chunkSizeCountSum / 1_000_000, walBegin, walEnd,
-            100 * exclusiveWriteCacheSize.get() / exclusiveWriteCacheMaxSize, lsnFlushIntervalBoundary / 1_000_000);
+            100 * exclusiveWriteCacheSize.get() / exclusiveWriteCacheMaxSize, flushRate, checkpointLag);
 
         statisticTs = ts;
 
@@ -2690,76 +2937,26 @@ public final class OWOWCache extends OAbstractWriteCache implements OWriteCache,
             exclusivePages = flushExclusiveWriteCache(null, ewcSize);
           }
 
-          final long lsnFlushInterval;
-          if (lastTsLSNFlush == -1) {
-            lastTsLSNFlush = startTs;
-            lsnFlushInterval = 0;
-          } else {
-            lsnFlushInterval = startTs - lastTsLSNFlush;
-          }
-
           int lsnPages = 0;
           if (writeAheadLog != null) {
-            convertSharedDirtyPagesToLocal();
+            final int newDirtyPages = convertSharedDirtyPagesToLocal();
 
             final long startSegment = writeAheadLog.begin().getSegment();
             final long endSegment = writeAheadLog.end().getSegment();
-            final int segmentCount = localDirtyPagesBySegment.size();
 
-            if (lsnFlushInterval >= lsnFlushIntervalBoundary || segmentCount > lastSegmentCount) {
-              lastTsLSNFlush = startTs;
-
-              final Map.Entry<Long, TreeSet<PageKey>> lsnEntry = localDirtyPagesBySegment.firstEntry();
-
-              if (lsnEntry != null && segmentCount > 0 && lsnEntry.getKey() < endSegment) {
-                final long lsnTs = System.nanoTime();
-
-                lsnPages = flushWriteCacheFromMinLSN(startSegment, endSegment, 8 * chunkSize);
-
-                lsnFlushIntervalSum += lsnFlushInterval;
+            final int pagesFlushLimit = calculatePagesFlushLimit(newDirtyPages, endSegment);
+            if (pagesFlushLimit > 0) {
+              if (lastTsLSNFlush != -1) {
+                lsnFlushIntervalSum += startTs - lastTsLSNFlush;
                 lsnFlushIntervalCount++;
-
-                if (lsnPages > 0) {
-                  final long endTs = System.nanoTime();
-
-                  final int segments = localDirtyPagesBySegment.size();
-                  final long flushInterval = endTs - lsnTs;
-
-                  if (lsnPagesFlushIntervalCount == 10) {
-                    @SuppressWarnings("UnnecessaryLocalVariable")
-                    final long avgFlushInterval = lsnPagesFlushIntervalSum / lsnPagesFlushIntervalCount;
-
-                    lsnPagesFlushIntervalSum = avgFlushInterval;
-                    lsnPagesFlushIntervalCount = 1;
-                  }
-
-                  lsnPagesFlushIntervalSum += flushInterval;
-                  lsnPagesFlushIntervalCount++;
-
-                  final long avgFlushInterval = lsnPagesFlushIntervalSum / lsnPagesFlushIntervalCount;
-
-                  if (segments <= 2) {
-                    lsnFlushIntervalBoundary = 8 * avgFlushInterval;
-                  } else if (segments <= 3) {
-                    lsnFlushIntervalBoundary = 4 * avgFlushInterval;
-                  } else if (segments <= 4) {
-                    lsnFlushIntervalBoundary = 2 * avgFlushInterval;
-                  } else if (segments <= 5) {
-                    lsnFlushIntervalBoundary = avgFlushInterval;
-                  } else if (segments <= 6) {
-                    lsnFlushIntervalBoundary = avgFlushInterval / 2;
-                  } else if (segments <= 7) {
-                    lsnFlushIntervalBoundary = avgFlushInterval / 4;
-                  } else if (segments <= 8) {
-                    lsnFlushIntervalBoundary = avgFlushInterval / 8;
-                  } else {
-                    lsnFlushIntervalBoundary = 0;
-                  }
-                }
               }
+
+              lastTsLSNFlush = startTs;
+
+              lsnPages = flushWriteCacheFromMinLSN(startSegment, endSegment, pagesFlushLimit);
             }
 
-            lastSegmentCount = segmentCount;
+            updateFlushStatistics(endSegment, lsnPages + exclusivePages);
           }
 
           if (lsnPages + exclusivePages == 0) {
@@ -2801,6 +2998,76 @@ public final class OWOWCache extends OAbstractWriteCache implements OWriteCache,
     }
   }
 
+  private int calculatePagesFlushLimit(final int newDirtyPages, final long endSegment) {
+    dirtyPagesRate += (newDirtyPages - dirtyPagesRate) * RATE_SMOOTHING;
+
+    return calculatePagesFlushLimit(dirtyPagesRate, localDirtyPagesBySegment, endSegment, targetCheckpointLag, pagesFlushInterval,
+        8L * chunkSize, flushBandwidth, pageSize);
+  }
+
+  /**
+   * Calculates amount of pages with the oldest changes which are flushed by a single run of the background flush. Pages are
+   * flushed at the rate at which they become dirty, scaled by the ratio of the current checkpoint lag to the target one. Pages of
+   * the segments which exceed the target lag are flushed within a second even if no pages become dirty. So the checkpoint LSN moves
+   * smoothly instead of bursts of flushes once the WAL is too big.
+   *
+   * @param dirtyPagesRate      smoothed amount of pages which become dirty between two runs of the background flush
+   * @param dirtyPagesBySegment dirty pages grouped by the WAL segment of their oldest change
+   * @param endSegment          active segment of WAL
+   * @param maxPages            upper limit of the result
+   * @param flushBandwidth      upper limit of the flush in megabytes per second, 0 or less if flush is not limited
+   *
+   * @return 0 if checkpoint can not be moved by the flush, amount of pages to flush otherwise
+   *
+   * @see OGlobalConfiguration#DISK_CACHE_CHECKPOINT_LAG
+   * @see OGlobalConfiguration#DISK_CACHE_FLUSH_BANDWIDTH
+   */
+  static int calculatePagesFlushLimit(final double dirtyPagesRate,
+      final NavigableMap<Long, ? extends Collection<?>> dirtyPagesBySegment, final long endSegment, final int targetCheckpointLag,
+      final long pagesFlushInterval, final long maxPages, final int flushBandwidth, final int pageSize) {
+    final Map.Entry<Long, ? extends Collection<?>> firstEntry = dirtyPagesBySegment.firstEntry();
+    // changes of the active segment can not move checkpoint further
+    if (firstEntry == null || firstEntry.getKey() >= endSegment) {
+      return 0;
+    }
+
+    final long lag = endSegment - firstEntry.getKey();
+    final double flushesPerSecond = 1000.0 / pagesFlushInterval;
+
+    double limit = dirtyPagesRate * lag / targetCheckpointLag;
+    if (lag > targetCheckpointLag) {
+      long excessPages = 0;
+      for (final Collection<?> pages : dirtyPagesBySegment.headMap(endSegment - targetCheckpointLag).values()) {
+        excessPages += pages.size();
+      }
+
+      limit = Math.max(limit, excessPages / flushesPerSecond);
+    }
+
+    long pagesFlushLimit = Math.min((long) Math.ceil(limit), maxPages);
+    if (flushBandwidth > 0) {
+      pagesFlushLimit = Math.min(pagesFlushLimit, (long) (flushBandwidth * 1024.0 * 1024.0 / pageSize / flushesPerSecond));
+    }
+
+    return (int) Math.max(pagesFlushLimit, 1);
+  }
+
+  private void updateFlushStatistics(final long endSegment, final int flushedPages) {
+    flushedPagesRate += (flushedPages - flushedPagesRate) * RATE_SMOOTHING;
+
+    final long[] histogram = new long[DIRTY_PAGES_AGE_BUCKETS];
+    for (final Map.Entry<Long, TreeSet<PageKey>> entry : localDirtyPagesBySegment.entrySet()) {
+      final long age = Math.max(0, endSegment - entry.getKey());
+      histogram[(int) Math.min(age, DIRTY_PAGES_AGE_BUCKETS - 1)] += entry.getValue().size();
+    }
+
+    final Map.Entry<Long, TreeSet<PageKey>> firstEntry = localDirtyPagesBySegment.firstEntry();
+
+    dirtyPagesAgeHistogram = histogram;
+    checkpointLag = firstEntry == null ? 0 : Math.max(0, endSegment - firstEntry.getKey());
+    flushRate = (long) (flushedPagesRate * 1000 / pagesFlushInterval);
+  }
+
   final class FindMinDirtySegment implements Callable<Long> {
     @Override
     public Long call() {
@@ -2820,11 +3087,19 @@ public final class OWOWCache extends OAbstractWriteCache implements OWriteCache,
     }
   }
 
-  private void convertSharedDirtyPagesToLocal() {
+  /**
+   * @return amount of pages which were not dirty before the call
+   */
+  private int convertSharedDirtyPagesToLocal() {
+    int newDirtyPages = 0;
+
     dirtyPagesLock.acquireWriteLock();
     try {
       for (final Map.Entry<PageKey, OLogSequenceNumber> entry : dirtyPages.entrySet()) {
         final OLogSequenceNumber localLSN = localDirtyPages.get(entry.getKey());
+        if (localLSN == null) {
+          newDirtyPages++;
+        }
 
         if (localLSN == null || localLSN.compareTo(entry.getValue()) > 0) {
           localDirtyPages.put(entry.getKey(), entry.getValue());
@@ -2846,6 +3121,8 @@ public final class OWOWCache extends OAbstractWriteCache implements OWriteCache,
     } finally {
       dirtyPagesLock.releaseWriteLock();
     }
+
+    return newDirtyPages;
   }
 
   private void removeFromDirtyPages(final PageKey pageKey) {
@@ -3055,6 +3332,7 @@ public final class OWOWCache extends OAbstractWriteCache implements OWriteCache,
       final ByteBuffer buffer = quarto.two;
 
       addMagicAndChecksum(buffer);
+      encryptPage(internalFileId(quarto.four.getFileId()), quarto.four.getPageIndex(), buffer);
 
       buffer.position(0);
       buffers[i] = buffer;
@@ -0,0 +1,43 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.orient.core.storage.cache.local;
+
+/**
+ * Provides an MBean for the background flush of {@link OWOWCache}.
+ */
+public interface OWOWCacheMXBean {
+  /**
+   * @return Smoothed amount of pages which are flushed by the background flush per second
+   */
+  long getFlushRate();
+
+  /**
+   * @return Amount of WAL segments between the oldest change which is not flushed to the data files and the end of WAL, the
+   * smaller the value the less of WAL has to be replayed after crash
+   */
+  long getCheckpointLag();
+
+  /**
+   * @return Amount of dirty pages by the age of their oldest change, the age is measured in WAL segments. The last bucket contains
+   * all pages which are older than the previous one.
+   */
+  long[] getDirtyPagesAgeHistogram();
+}
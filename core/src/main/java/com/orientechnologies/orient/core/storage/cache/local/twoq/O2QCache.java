@@ -275,6 +275,18 @@ public final class O2QCache implements OReadCache {
     return doLoad(fileId, pageIndex, checkPinnedPages, writeCache, pageCount, verifyChecksums);
   }
 
+  @Override
+  public final OCacheEntry loadForRead(final long fileId, final long pageIndex, final boolean checkPinnedPages,
+      final OWriteCache writeCache, final int pageCount, final boolean verifyChecksums, final boolean scan) throws IOException {
+    //2Q is already scan resistant, pages read once do not leave a1in queue
+    return doLoad(fileId, pageIndex, checkPinnedPages, writeCache, pageCount, verifyChecksums);
+  }
+
+  @Override
+  public final void prefetch(final long fileId, final long startPageIndex, final int pageCount, final OWriteCache writeCache) {
+    //pages are prefetched synchronously by loadForRead if pageCount is bigger than 1
+  }
+
   @Override
   public final void releaseFromRead(final OCacheEntry cacheEntry, final OWriteCache writeCache) {
     doRelease(cacheEntry);
@@ -42,6 +42,7 @@ import com.orientechnologies.orient.core.storage.OPhysicalPosition;
 import com.orientechnologies.orient.core.storage.ORawBuffer;
 import com.orientechnologies.orient.core.storage.OStorage;
 import com.orientechnologies.orient.core.storage.cache.OCacheEntry;
+import com.orientechnologies.orient.core.storage.cache.OPageReadAhead;
 import com.orientechnologies.orient.core.storage.cluster.OClusterPage;
 import com.orientechnologies.orient.core.storage.cluster.OClusterPageDebug;
 import com.orientechnologies.orient.core.storage.cluster.OClusterPositionMapBucket;
@@ -86,6 +87,7 @@ public final class OPaginatedClusterV0 extends OPaginatedCluster {
   private          OAbstractPaginatedStorage             storageLocal;
   private volatile int                                   id;
   private          long                                  fileId;
+  private volatile OPageReadAhead                        readAhead;
   private          OStoragePaginatedClusterConfiguration config;
   private          long                                  pinnedStateEntryIndex;
   private          ORecordConflictStrategy               recordConflictStrategy;
@@ -601,11 +603,11 @@ public final class OPaginatedClusterV0 extends OPaginatedCluster {
       pagesToPrefetch = OGlobalConfiguration.QUERY_SCAN_PREFETCH_PAGES.getValueAsInteger();
     }
 
-    return readRecord(clusterPosition, pagesToPrefetch);
+    return readRecord(clusterPosition, pagesToPrefetch, prefetchRecords);
 
   }
 
-  private ORawBuffer readRecord(final long clusterPosition, final int pageCount) throws IOException {
+  private ORawBuffer readRecord(final long clusterPosition, final int pageCount, final boolean scan) throws IOException {
     atomicOperationsManager.acquireReadLock(this);
     try {
       acquireSharedLock();
@@ -618,8 +620,12 @@ public final class OPaginatedClusterV0 extends OPaginatedCluster {
           return null;
         }
 
+        if (pageCount > 1) {
+          readAhead(positionEntry.getPageIndex());
+        }
+
         return internalReadRecord(clusterPosition, positionEntry.getPageIndex(), positionEntry.getRecordPosition(), pageCount,
-            atomicOperation);
+            scan, atomicOperation);
       } finally {
         releaseSharedLock();
       }
@@ -628,15 +634,28 @@ public final class OPaginatedClusterV0 extends OPaginatedCluster {
     }
   }
 
+  /**
+   * Registers the read of a data page by a scan, so that the following pages are loaded in background.
+   */
+  private void readAhead(final long pageIndex) {
+    OPageReadAhead readAhead = this.readAhead;
+    if (readAhead == null || readAhead.getFileId() != fileId) {
+      readAhead = createReadAhead(fileId);
+      this.readAhead = readAhead;
+    }
+
+    readAhead.pageAccessed(pageIndex);
+  }
+
   private ORawBuffer internalReadRecord(final long clusterPosition, final long pageIndex, final int recordPosition,
-      final int pageCount, final OAtomicOperation atomicOperation) throws IOException {
+      final int pageCount, final boolean scan, final OAtomicOperation atomicOperation) throws IOException {
 
     if (getFilledUpTo(atomicOperation, fileId) <= pageIndex) {
       return null;
     }
 
     int recordVersion;
-    final OCacheEntry cacheEntry = loadPageForRead(atomicOperation, fileId, pageIndex, false, pageCount);
+    final OCacheEntry cacheEntry = loadPageForRead(atomicOperation, fileId, pageIndex, false, pageCount, scan);
     try {
       final OClusterPage localPage = new OClusterPage(cacheEntry, false);
       if (localPage.isDeleted(recordPosition)) {
@@ -648,7 +667,7 @@ public final class OPaginatedClusterV0 extends OPaginatedCluster {
       releasePageFromRead(atomicOperation, cacheEntry);
     }
 
-    final byte[] fullContent = readFullEntry(clusterPosition, pageIndex, recordPosition, atomicOperation, pageCount);
+    final byte[] fullContent = readFullEntry(clusterPosition, pageIndex, recordPosition, atomicOperation, pageCount, scan);
     if (fullContent == null) {
       return null;
     }
@@ -1640,7 +1659,7 @@ public final class OPaginatedClusterV0 extends OPaginatedCluster {
   }
 
   private byte[] readFullEntry(final long clusterPosition, long pageIndex, int recordPosition,
-      final OAtomicOperation atomicOperation, final int pageCount) throws IOException {
+      final OAtomicOperation atomicOperation, final int pageCount, final boolean scan) throws IOException {
     if (getFilledUpTo(atomicOperation, fileId) <= pageIndex) {
       return null;
     }
@@ -1651,7 +1670,7 @@ public final class OPaginatedClusterV0 extends OPaginatedCluster {
     long nextPagePointer;
     boolean firstEntry = true;
     do {
-      final OCacheEntry cacheEntry = loadPageForRead(atomicOperation, fileId, pageIndex, false, pageCount);
+      final OCacheEntry cacheEntry = loadPageForRead(atomicOperation, fileId, pageIndex, false, pageCount, scan);
       try {
         final OClusterPage localPage = new OClusterPage(cacheEntry, false);
 
@@ -2071,7 +2090,7 @@ public final class OPaginatedClusterV0 extends OPaginatedCluster {
           final long newLastPosition = nextPositions[nextPositions.length - 1].getPosition();
           final List<OClusterBrowseEntry> nexv = new ArrayList<>(nextPositions.length);
           for (final OClusterPositionMapV0.OClusterPositionEntry pos : nextPositions) {
-            final ORawBuffer buff = internalReadRecord(pos.getPosition(), pos.getPage(), pos.getOffset(), 1, atomicOperation);
+            final ORawBuffer buff = internalReadRecord(pos.getPosition(), pos.getPage(), pos.getOffset(), 1, true, atomicOperation);
             nexv.add(new OClusterBrowseEntry(pos.getPosition(), buff));
           }
           return new OClusterBrowsePage(nexv, newLastPosition);
@@ -42,6 +42,7 @@ import com.orientechnologies.orient.core.storage.OPhysicalPosition;
 import com.orientechnologies.orient.core.storage.ORawBuffer;
 import com.orientechnologies.orient.core.storage.OStorage;
 import com.orientechnologies.orient.core.storage.cache.OCacheEntry;
+import com.orientechnologies.orient.core.storage.cache.OPageReadAhead;
 import com.orientechnologies.orient.core.storage.cluster.OClusterPage;
 import com.orientechnologies.orient.core.storage.cluster.OClusterPageDebug;
 import com.orientechnologies.orient.core.storage.cluster.OClusterPositionMap;
@@ -66,6 +67,18 @@ import static com.orientechnologies.orient.core.config.OGlobalConfiguration.DISK
 import static com.orientechnologies.orient.core.config.OGlobalConfiguration.PAGINATED_STORAGE_LOWEST_FREELIST_BOUNDARY;
 
 /**
+ * Cluster is guarded by a single exclusive lock, which transactions hold till the end of the atomic operation, page or range level
+ * latching is not possible with this format of the cluster:
+ * <ul>
+ * <li>atomic operation reads pages through its own copies and applies the changes to the shared pages only at commit, so two
+ * operations which run concurrently do not see each other's changes and can not detect conflicts between them;</li>
+ * <li>every insertion changes pages which are shared by all insertions: the state page with the size of the cluster and the heads
+ * of the free lists, and the last page of the position map, where the position of the new record is allocated. Concurrent
+ * insertions would allocate the same position and overwrite the same counters.</li>
+ * </ul>
+ * Concurrent appenders would require per-writer ranges of the position map and of the data pages which are stored in the format of
+ * the cluster itself.
+ *
  * @author Andrey Lomakin (a.lomakin-at-orientdb.com)
  * @since 10/7/13
  */
@@ -81,6 +94,13 @@ public final class OPaginatedClusterV1 extends OPaginatedCluster {
   private static final int RECORD_POSITION_MASK     = 0xFFFF;
   private static final int ONE_KB                   = 1024;
 
+  /**
+   * Size of the record type, the content size, the first entry flag and the pointer to the next entry, which are stored in the
+   * cluster page together with the content of the record.
+   */
+  private static final int ENTRY_OVERHEAD =
+      2 * OByteSerializer.BYTE_SIZE + OIntegerSerializer.INT_SIZE + OLongSerializer.LONG_SIZE;
+
   private volatile OCompression compression = ONothingCompression.INSTANCE;
   private volatile OEncryption  encryption  = ONothingEncryption.INSTANCE;
 
@@ -89,6 +109,7 @@ public final class OPaginatedClusterV1 extends OPaginatedCluster {
   private final    OAbstractPaginatedStorage             storageLocal;
   private volatile int                                   id;
   private          long                                  fileId;
+  private volatile OPageReadAhead                        readAhead;
   private          OStoragePaginatedClusterConfiguration config;
   private          ORecordConflictStrategy               recordConflictStrategy;
 
@@ -605,11 +626,11 @@ public final class OPaginatedClusterV1 extends OPaginatedCluster {
       pagesToPrefetch = OGlobalConfiguration.QUERY_SCAN_PREFETCH_PAGES.getValueAsInteger();
     }
 
-    return readRecord(clusterPosition, pagesToPrefetch);
+    return readRecord(clusterPosition, pagesToPrefetch, prefetchRecords);
 
   }
 
-  private ORawBuffer readRecord(final long clusterPosition, final int pageCount) throws IOException {
+  private ORawBuffer readRecord(final long clusterPosition, final int pageCount, final boolean scan) throws IOException {
     atomicOperationsManager.acquireReadLock(this);
     try {
       acquireSharedLock();
@@ -622,8 +643,12 @@ public final class OPaginatedClusterV1 extends OPaginatedCluster {
           return null;
         }
 
+        if (pageCount > 1) {
+          readAhead(positionEntry.getPageIndex());
+        }
+
         return internalReadRecord(clusterPosition, positionEntry.getPageIndex(), positionEntry.getRecordPosition(), pageCount,
-            atomicOperation);
+            scan, atomicOperation);
       } finally {
         releaseSharedLock();
       }
@@ -632,8 +657,21 @@ public final class OPaginatedClusterV1 extends OPaginatedCluster {
     }
   }
 
+  /**
+   * Registers the read of a data page by a scan, so that the following pages are loaded in background.
+   */
+  private void readAhead(final long pageIndex) {
+    OPageReadAhead readAhead = this.readAhead;
+    if (readAhead == null || readAhead.getFileId() != fileId) {
+      readAhead = createReadAhead(fileId);
+      this.readAhead = readAhead;
+    }
+
+    readAhead.pageAccessed(pageIndex);
+  }
+
   private ORawBuffer internalReadRecord(final long clusterPosition, final long pageIndex, final int recordPosition, int pageCount,
-      final OAtomicOperation atomicOperation) throws IOException {
+      final boolean scan, final OAtomicOperation atomicOperation) throws IOException {
     if (pageCount > 1) {
       final OCacheEntry stateCacheEntry = loadPageForRead(atomicOperation, fileId, STATE_ENTRY_INDEX, false);
       try {
@@ -644,29 +682,49 @@ public final class OPaginatedClusterV1 extends OPaginatedCluster {
       }
     }
 
-    int recordVersion;
-    final OCacheEntry cacheEntry = loadPageForRead(atomicOperation, fileId, pageIndex, false, pageCount);
+    final int recordVersion;
+    byte recordType = 0;
+    byte[] recordContent = null;
+
+    final OCacheEntry cacheEntry = loadPageForRead(atomicOperation, fileId, pageIndex, false, pageCount, scan);
     try {
       final OClusterPage localPage = new OClusterPage(cacheEntry, false);
+      if (localPage.isDeleted(recordPosition)) {
+        return null;
+      }
+
+      if (localPage.getRecordByteValue(recordPosition, -OLongSerializer.LONG_SIZE - OByteSerializer.BYTE_SIZE) == 0) {
+        return null;
+      }
+
       recordVersion = localPage.getRecordVersion(recordPosition);
+
+      // record which is stored in a single page is copied directly from the page without assembling of its entry
+      if (localPage.getRecordLongValue(recordPosition, -OLongSerializer.LONG_SIZE) < 0) {
+        recordType = localPage.getRecordByteValue(recordPosition, 0);
+        recordContent = localPage.getRecordBinaryValue(recordPosition, OByteSerializer.BYTE_SIZE + OIntegerSerializer.INT_SIZE,
+            localPage.getRecordSize(recordPosition) - ENTRY_OVERHEAD);
+      }
     } finally {
       releasePageFromRead(atomicOperation, cacheEntry);
     }
 
-    final byte[] fullContent = readFullEntry(clusterPosition, pageIndex, recordPosition, atomicOperation, pageCount);
-    if (fullContent == null) {
-      return null;
-    }
+    if (recordContent == null) {
+      final byte[] fullContent = readFullEntry(clusterPosition, pageIndex, recordPosition, atomicOperation, pageCount, scan);
+      if (fullContent == null) {
+        return null;
+      }
 
-    int fullContentPosition = 0;
+      int fullContentPosition = 0;
 
-    final byte recordType = fullContent[fullContentPosition];
-    fullContentPosition++;
+      recordType = fullContent[fullContentPosition];
+      fullContentPosition++;
 
-    final int readContentSize = OIntegerSerializer.INSTANCE.deserializeNative(fullContent, fullContentPosition);
-    fullContentPosition += OIntegerSerializer.INT_SIZE;
+      final int readContentSize = OIntegerSerializer.INSTANCE.deserializeNative(fullContent, fullContentPosition);
+      fullContentPosition += OIntegerSerializer.INT_SIZE;
 
-    byte[] recordContent = Arrays.copyOfRange(fullContent, fullContentPosition, fullContentPosition + readContentSize);
+      recordContent = Arrays.copyOfRange(fullContent, fullContentPosition, fullContentPosition + readContentSize);
+    }
 
     recordContent = encryption.decrypt(recordContent);
     recordContent = compression.uncompress(recordContent);
@@ -1635,7 +1693,7 @@ public final class OPaginatedClusterV1 extends OPaginatedCluster {
   }
 
   private byte[] readFullEntry(final long clusterPosition, long pageIndex, int recordPosition,
-      final OAtomicOperation atomicOperation, int pageCount) throws IOException {
+      final OAtomicOperation atomicOperation, int pageCount, final boolean scan) throws IOException {
     final List<byte[]> recordChunks = new ArrayList<>(2);
     int contentSize = 0;
 
@@ -1652,7 +1710,7 @@ public final class OPaginatedClusterV1 extends OPaginatedCluster {
     long nextPagePointer;
     boolean firstEntry = true;
     do {
-      final OCacheEntry cacheEntry = loadPageForRead(atomicOperation, fileId, pageIndex, false, pageCount);
+      final OCacheEntry cacheEntry = loadPageForRead(atomicOperation, fileId, pageIndex, false, pageCount, scan);
       try {
         final OClusterPage localPage = new OClusterPage(cacheEntry, false);
 
@@ -2072,7 +2130,7 @@ public final class OPaginatedClusterV1 extends OPaginatedCluster {
           final long newLastPosition = nextPositions[nextPositions.length - 1].getPosition();
           final List<OClusterBrowseEntry> nexv = new ArrayList<>(nextPositions.length);
           for (final OClusterPositionMapV1.OClusterPositionEntry pos : nextPositions) {
-            final ORawBuffer buff = internalReadRecord(pos.getPosition(), pos.getPage(), pos.getOffset(), 1, atomicOperation);
+            final ORawBuffer buff = internalReadRecord(pos.getPosition(), pos.getPage(), pos.getOffset(), 1, true, atomicOperation);
             nexv.add(new OClusterBrowseEntry(pos.getPosition(), buff));
           }
           return new OClusterBrowsePage(nexv, newLastPosition);
@@ -33,9 +33,11 @@ import com.orientechnologies.orient.core.command.OCommandOutputListener;
 import com.orientechnologies.orient.core.compression.impl.OZIPCompressionUtil;
 import com.orientechnologies.orient.core.config.OContextConfiguration;
 import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.encryption.OPageEncryption;
 import com.orientechnologies.orient.core.engine.local.OEngineLocalPaginated;
 import com.orientechnologies.orient.core.exception.OStorageException;
 import com.orientechnologies.orient.core.index.engine.v1.OCellBTreeMultiValueIndexEngine;
+import com.orientechnologies.orient.core.index.engine.v1.OCellBTreeSingleValueIndexEngine;
 import com.orientechnologies.orient.core.storage.OChecksumMode;
 import com.orientechnologies.orient.core.storage.cache.OReadCache;
 import com.orientechnologies.orient.core.storage.cache.local.OWOWCache;
@@ -67,6 +69,7 @@ import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
@@ -96,7 +99,14 @@ public class OLocalPaginatedStorage extends OAbstractPaginatedStorage {
       O2QCache.CACHE_STATISTIC_FILE_EXTENSION, OClusterBasedStorageConfiguration.MAP_FILE_EXTENSION,
       OClusterBasedStorageConfiguration.DATA_FILE_EXTENSION, OClusterBasedStorageConfiguration.TREE_DATA_FILE_EXTENSION,
       OClusterBasedStorageConfiguration.TREE_NULL_FILE_EXTENSION, OCellBTreeMultiValueIndexEngine.DATA_FILE_EXTENSION,
-      OCellBTreeMultiValueIndexEngine.M_CONTAINER_EXTENSION };
+      OCellBTreeMultiValueIndexEngine.M_CONTAINER_EXTENSION, OCellBTreeSingleValueIndexEngine.BLOOM_FILTER_FILE_EXTENSION,
+      ".slt" };
+
+  /**
+   * File which contains salt of the page encryption and value which allows to check that the right key is used. File exists only
+   * if pages of the storage are encrypted.
+   */
+  private static final String PAGE_ENCRYPTION_FILE = "encryption.slt";
 
   private static final int ONE_KB = 1024;
 
@@ -563,6 +573,8 @@ public class OLocalPaginatedStorage extends OAbstractPaginatedStorage {
 
   @Override
   protected void initWalAndDiskCache(final OContextConfiguration contextConfiguration) throws IOException, InterruptedException {
+    final OPageEncryption pageEncryption = initPageEncryption(contextConfiguration);
+
     if (contextConfiguration.getValueAsBoolean(OGlobalConfiguration.USE_WAL)) {
       fuzzyCheckpointTask = fuzzyCheckpointExecutor.scheduleWithFixedDelay(new PeriodicFuzzyCheckpoint(),
           contextConfiguration.getValueAsInteger(OGlobalConfiguration.WAL_FUZZY_CHECKPOINT_INTERVAL),
@@ -586,7 +598,7 @@ public class OLocalPaginatedStorage extends OAbstractPaginatedStorage {
           contextConfiguration.getValueAsBoolean(OGlobalConfiguration.WAL_ALLOW_DIRECT_IO),
           contextConfiguration.getValueAsBoolean(OGlobalConfiguration.STORAGE_CALL_FSYNC),
           contextConfiguration.getValueAsBoolean(OGlobalConfiguration.STORAGE_PRINT_WAL_PERFORMANCE_STATISTICS),
-          contextConfiguration.getValueAsInteger(OGlobalConfiguration.STORAGE_PRINT_WAL_PERFORMANCE_INTERVAL));
+          contextConfiguration.getValueAsInteger(OGlobalConfiguration.STORAGE_PRINT_WAL_PERFORMANCE_INTERVAL), pageEncryption);
 
       diskWriteAheadLog.addLowDiskSpaceListener(this);
       writeAheadLog = diskWriteAheadLog;
@@ -626,7 +638,7 @@ public class OLocalPaginatedStorage extends OAbstractPaginatedStorage {
         OStringSerializer.INSTANCE, files, getId(),
         contextConfiguration.getValueAsEnum(OGlobalConfiguration.STORAGE_CHECKSUM_MODE, OChecksumMode.class),
         contextConfiguration.getValueAsBoolean(OGlobalConfiguration.STORAGE_CALL_FSYNC), printCacheStatistics,
-        statisticsPrintInterval);
+        statisticsPrintInterval, pageEncryption);
 
     wowCache.addLowDiskSpaceListener(this);
     wowCache.loadRegisteredFiles();
@@ -636,6 +648,66 @@ public class OLocalPaginatedStorage extends OAbstractPaginatedStorage {
     writeCache = wowCache;
   }
 
+  /**
+   * Page encryption is switched on when the storage is created with {@link OGlobalConfiguration#STORAGE_PAGE_ENCRYPTION} set to
+   * <code>true</code>, after that it is defined by presence of {@link #PAGE_ENCRYPTION_FILE}.
+   * <p>
+   * LSN of the page is used as the version of its content by the encryption, without WAL LSN of the page is not changed when the
+   * page is changed, so the same key stream would be used for the different content of the page. Because of that encrypted
+   * storage can not be created or opened if WAL is switched off.
+   * <p>
+   * Pages are encrypted by the write cache before they reach the files, encrypted content does not compress, so new storage can
+   * not be created with page encryption while {@link OGlobalConfiguration#FILE_PAGE_COMPRESSION_ENABLED} is set, and files of
+   * encrypted storage are never compressed.
+   *
+   * @return encryption of the pages of the storage or <code>null</code> if pages are not encrypted
+   */
+  private OPageEncryption initPageEncryption(final OContextConfiguration contextConfiguration) throws IOException {
+    final Path encryptionPath = storagePath.resolve(PAGE_ENCRYPTION_FILE);
+    final String key = contextConfiguration.getValueAsString(OGlobalConfiguration.STORAGE_ENCRYPTION_KEY);
+    final boolean useWAL = contextConfiguration.getValueAsBoolean(OGlobalConfiguration.USE_WAL);
+
+    if (Files.exists(encryptionPath)) {
+      if (!useWAL) {
+        throw new OStorageException("Storage " + name + " uses page encryption, it can not be opened if WAL is switched off");
+      }
+
+      final byte[] content = Files.readAllBytes(encryptionPath);
+      if (content.length != 2 * OPageEncryption.SALT_SIZE) {
+        throw new OStorageException("File " + encryptionPath + " which contains salt of the page encryption is broken");
+      }
+
+      final OPageEncryption pageEncryption = OPageEncryption
+          .create(key, Arrays.copyOfRange(content, 0, OPageEncryption.SALT_SIZE));
+      pageEncryption.verifyKeyCheck(Arrays.copyOfRange(content, OPageEncryption.SALT_SIZE, content.length));
+
+      return pageEncryption;
+    }
+
+    if (!contextConfiguration.getValueAsBoolean(OGlobalConfiguration.STORAGE_PAGE_ENCRYPTION) || exists(storagePath)) {
+      return null;
+    }
+
+    if (!useWAL) {
+      throw new OStorageException("Page encryption can not be used if WAL is switched off");
+    }
+
+    if (OGlobalConfiguration.FILE_PAGE_COMPRESSION_ENABLED.getValueAsBoolean()) {
+      throw new OStorageException("Page encryption can not be used together with page compression, "
+          + "encrypted pages do not compress");
+    }
+
+    final byte[] salt = OPageEncryption.generateSalt();
+    final OPageEncryption pageEncryption = OPageEncryption.create(key, salt);
+    final byte[] keyCheck = pageEncryption.keyCheck();
+
+    final byte[] content = Arrays.copyOf(salt, salt.length + keyCheck.length);
+    System.arraycopy(keyCheck, 0, content, salt.length, keyCheck.length);
+    Files.write(encryptionPath, content, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.SYNC);
+
+    return pageEncryption;
+  }
+
   public static boolean exists(final Path path) {
     try {
       final boolean[] exists = new boolean[1];
@@ -0,0 +1,476 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.storage.fs;
+
+import com.orientechnologies.orient.core.compression.impl.OLZ4Compression;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+
+import static com.orientechnologies.common.io.OIOUtils.readByteBuffer;
+import static com.orientechnologies.common.io.OIOUtils.writeByteBuffer;
+
+/**
+ * Layout of the {@link OFileClassic} which pages are stored compressed by {@link OLZ4Compression}.
+ * <p>
+ * Every page is stored in the extent of variable size which consists of the integer amount of {@link #UNIT} byte units, pages
+ * which can not be compressed at least by one unit are stored as is. Positions of the extents are kept in the map of the pages
+ * which is held in memory and is written to the file on {@link #persist(FileChannel)}, position and length of the last written
+ * map are kept in the header of the file.
+ * <p>
+ * Extent of the page is never overwritten in place, new version of the page is written in the free space and old extent is
+ * released only after the map which does not refer to it any more is persisted. So, file which was not closed correctly
+ * contains the state of the pages at the moment of the last persist of the map, which is the state that is required for the
+ * restore of the storage from the WAL after the last checkpoint.
+ */
+final class OCompressedPages {
+  /**
+   * Size of the unit of allocation of the space of the file.
+   */
+  static final int UNIT = 512;
+
+  /**
+   * Offset of the size of the page inside of the header of the file, zero if pages are not compressed.
+   */
+  static final int PAGE_SIZE_OFFSET = 52;
+
+  /**
+   * Offset of the position of the map of pages inside of the header of the file.
+   */
+  private static final int MAP_POSITION_OFFSET = 56;
+
+  /**
+   * Offset of the length of the map of pages inside of the header of the file.
+   */
+  private static final int MAP_LENGTH_OFFSET = 64;
+
+  private static final int MAP_ENTRY_SIZE = 8 + 4;
+
+  private static final ThreadLocal<byte[]> READ_BUFFER   = new ThreadLocal<>();
+  private static final ThreadLocal<byte[]> DECODE_BUFFER = new ThreadLocal<>();
+
+  private final int pageSize;
+  private final int pageUnits;
+
+  private long[] positions;
+  private int[]  lengths;
+  private int    pages;
+
+  private long mapPosition;
+  private int  mapLength;
+
+  /**
+   * End of the space which is used by extents, space after it is free.
+   */
+  private long end = OFileClassic.HEADER_SIZE;
+
+  /**
+   * Free extents, position to length, adjacent free extents are merged.
+   */
+  private final NavigableMap<Long, Long> freeExtents = new TreeMap<>();
+
+  /**
+   * Free extents ordered by length and position, it is used to find the smallest free extent which is big enough for the page.
+   */
+  private final NavigableSet<long[]> freeExtentsBySize = new TreeSet<>(
+      Comparator.<long[]>comparingLong(extent -> extent[1]).thenComparingLong(extent -> extent[0]));
+
+  /**
+   * Extents which are not used by the current state of the pages but are used by the persisted map of the pages.
+   */
+  private final List<long[]> pendingExtents = new ArrayList<>();
+
+  private boolean changed;
+
+  private final byte[] pageBuffer;
+  private final byte[] compressedBuffer;
+
+  private OCompressedPages(final int pageSize) {
+    this.pageSize = pageSize;
+    this.pageUnits = units(pageSize);
+
+    this.positions = new long[16];
+    this.lengths = new int[16];
+
+    this.pageBuffer = new byte[pageSize];
+    this.compressedBuffer = new byte[OLZ4Compression.maxCompressedLength(pageSize)];
+  }
+
+  /**
+   * Initializes the header of the new file which pages are compressed.
+   */
+  static OCompressedPages create(final FileChannel channel, final int pageSize) throws IOException {
+    final ByteBuffer buffer = ByteBuffer.allocate(MAP_LENGTH_OFFSET + 4 - PAGE_SIZE_OFFSET);
+    buffer.putInt(pageSize);
+    buffer.position(0);
+    writeByteBuffer(buffer, channel, PAGE_SIZE_OFFSET);
+
+    return new OCompressedPages(pageSize);
+  }
+
+  /**
+   * Reads the map of the pages of the file.
+   *
+   * @return map of the pages or <code>null</code> if pages of the file are not compressed
+   */
+  static OCompressedPages load(final FileChannel channel) throws IOException {
+    final ByteBuffer header = ByteBuffer.allocate(MAP_LENGTH_OFFSET + 4 - PAGE_SIZE_OFFSET);
+    readByteBuffer(header, channel, PAGE_SIZE_OFFSET, true);
+    header.position(0);
+
+    final int pageSize = header.getInt();
+    if (pageSize == 0) {
+      return null;
+    }
+
+    final OCompressedPages compressedPages = new OCompressedPages(pageSize);
+
+    final long mapPosition = header.getLong(MAP_POSITION_OFFSET - PAGE_SIZE_OFFSET);
+    final int mapLength = header.getInt(MAP_LENGTH_OFFSET - PAGE_SIZE_OFFSET);
+
+    if (mapPosition > 0) {
+      final ByteBuffer map = ByteBuffer.allocate(mapLength);
+      readByteBuffer(map, channel, mapPosition, true);
+      compressedPages.readMap(map);
+
+      compressedPages.mapPosition = mapPosition;
+      compressedPages.mapLength = mapLength;
+    }
+
+    compressedPages.initFreeExtents();
+    return compressedPages;
+  }
+
+  int getPageSize() {
+    return pageSize;
+  }
+
+  /**
+   * @return size of the file as it is seen by the users of the file, it is the size of the not compressed pages
+   */
+  long getSize() {
+    return (long) pages * pageSize;
+  }
+
+  void allocate(final long size) {
+    assert size % pageSize == 0;
+    ensurePages((int) ((getSize() + size) / pageSize));
+  }
+
+  void shrink(final long size) {
+    assert size % pageSize == 0;
+
+    final int newPages = (int) (size / pageSize);
+    for (int i = newPages; i < pages; i++) {
+      releasePage(i);
+    }
+
+    if (newPages < pages) {
+      pages = newPages;
+      changed = true;
+    }
+  }
+
+  void read(final FileChannel channel, final long offset, final ByteBuffer buffer, final boolean throwOnEof) throws IOException {
+    assert offset % pageSize == 0;
+    assert buffer.limit() == pageSize;
+
+    final long pageIndex = offset / pageSize;
+    if (pageIndex >= pages) {
+      if (throwOnEof) {
+        throw new EOFException("End of file is reached");
+      }
+
+      buffer.position(0);
+      buffer.put(new byte[pageSize]);
+      return;
+    }
+
+    final long position = positions[(int) pageIndex];
+    final int length = lengths[(int) pageIndex];
+
+    if (position == 0) {
+      // page was allocated but never written
+      buffer.position(0);
+      buffer.put(new byte[pageSize]);
+      return;
+    }
+
+    if (length == pageSize) {
+      readByteBuffer(buffer, channel, position, true);
+      return;
+    }
+
+    final byte[] compressed = threadBuffer(READ_BUFFER, length);
+    readByteBuffer(ByteBuffer.wrap(compressed, 0, length), channel, position, true);
+
+    final byte[] page = threadBuffer(DECODE_BUFFER, pageSize);
+    final int decompressed;
+    try {
+      decompressed = OLZ4Compression.decompress(compressed, 0, length, page, 0, pageSize);
+    } catch (final IllegalArgumentException e) {
+      throw new IOException("Page " + pageIndex + " can not be decompressed", e);
+    }
+
+    if (decompressed != pageSize) {
+      throw new IOException("Page " + pageIndex + " is broken, " + decompressed + " bytes are decompressed instead of " + pageSize);
+    }
+
+    buffer.position(0);
+    buffer.put(page, 0, pageSize);
+  }
+
+  void write(final FileChannel channel, final long offset, final ByteBuffer buffer) throws IOException {
+    assert offset % pageSize == 0;
+    assert buffer.limit() == pageSize;
+
+    final int pageIndex = (int) (offset / pageSize);
+    ensurePages(pageIndex + 1);
+
+    buffer.position(0);
+    buffer.get(pageBuffer, 0, pageSize);
+
+    final int compressedLength = OLZ4Compression.compress(pageBuffer, 0, pageSize, compressedBuffer, 0);
+
+    final byte[] content;
+    final int length;
+    if (units(compressedLength) < pageUnits) {
+      content = compressedBuffer;
+      length = compressedLength;
+    } else {
+      content = pageBuffer;
+      length = pageSize;
+    }
+
+    final long position = allocateExtent(units(length));
+    writeByteBuffer(ByteBuffer.wrap(content, 0, length), channel, position);
+
+    releasePage(pageIndex);
+
+    positions[pageIndex] = position;
+    lengths[pageIndex] = length;
+    changed = true;
+  }
+
+  /**
+   * Writes the map of pages and makes it current map of the file. Data of the file is forced to the disk before the header of the
+   * file is updated, so the current map always points to the extents which are on the disk.
+   */
+  void persist(final FileChannel channel) throws IOException {
+    if (!changed) {
+      channel.force(false);
+      return;
+    }
+
+    final int newMapLength = 8 + 4 + pages * MAP_ENTRY_SIZE;
+    final ByteBuffer map = ByteBuffer.allocate(newMapLength);
+    map.putInt(pages);
+    for (int i = 0; i < pages; i++) {
+      map.putLong(positions[i]);
+      map.putInt(lengths[i]);
+    }
+
+    final CRC32 crc32 = new CRC32();
+    crc32.update(map.array(), 0, map.position());
+    map.putLong(crc32.getValue());
+    map.position(0);
+
+    final long newMapPosition = allocateExtent(units(newMapLength));
+    writeByteBuffer(map, channel, newMapPosition);
+    channel.force(false);
+
+    final ByteBuffer header = ByteBuffer.allocate(MAP_LENGTH_OFFSET + 4 - MAP_POSITION_OFFSET);
+    header.putLong(newMapPosition);
+    header.putInt(newMapLength);
+    header.position(0);
+    writeByteBuffer(header, channel, MAP_POSITION_OFFSET);
+    channel.force(false);
+
+    if (mapPosition > 0) {
+      releaseExtent(mapPosition, units(mapLength));
+    }
+
+    mapPosition = newMapPosition;
+    mapLength = newMapLength;
+
+    for (final long[] extent : pendingExtents) {
+      freeExtent(extent[0], extent[1]);
+    }
+    pendingExtents.clear();
+
+    changed = false;
+
+    if (channel.size() > end) {
+      channel.truncate(end);
+    }
+  }
+
+  private void readMap(final ByteBuffer map) throws IOException {
+    map.position(0);
+
+    final CRC32 crc32 = new CRC32();
+    crc32.update(map.array(), 0, map.limit() - 8);
+    if (crc32.getValue() != map.getLong(map.limit() - 8)) {
+      throw new IOException("Map of the compressed pages is broken");
+    }
+
+    final int pagesCount = map.getInt();
+    ensurePages(pagesCount);
+
+    for (int i = 0; i < pagesCount; i++) {
+      positions[i] = map.getLong();
+      lengths[i] = map.getInt();
+    }
+  }
+
+  private void initFreeExtents() {
+    final NavigableMap<Long, Long> usedExtents = new TreeMap<>();
+    for (int i = 0; i < pages; i++) {
+      if (positions[i] > 0) {
+        usedExtents.put(positions[i], (long) units(lengths[i]) * UNIT);
+      }
+    }
+
+    if (mapPosition > 0) {
+      usedExtents.put(mapPosition, (long) units(mapLength) * UNIT);
+    }
+
+    long position = OFileClassic.HEADER_SIZE;
+    for (final Map.Entry<Long, Long> extent : usedExtents.entrySet()) {
+      if (extent.getKey() > position) {
+        addFreeExtent(position, extent.getKey() - position);
+      }
+
+      position = extent.getKey() + extent.getValue();
+    }
+
+    end = position;
+  }
+
+  private void ensurePages(final int pagesCount) {
+    if (pagesCount > positions.length) {
+      final int capacity = Math.max(pagesCount, positions.length << 1);
+      positions = Arrays.copyOf(positions, capacity);
+      lengths = Arrays.copyOf(lengths, capacity);
+    }
+
+    if (pagesCount > pages) {
+      Arrays.fill(positions, pages, pagesCount, 0);
+      Arrays.fill(lengths, pages, pagesCount, 0);
+
+      pages = pagesCount;
+      changed = true;
+    }
+  }
+
+  private void releasePage(final int pageIndex) {
+    if (positions[pageIndex] > 0) {
+      releaseExtent(positions[pageIndex], units(lengths[pageIndex]));
+
+      positions[pageIndex] = 0;
+      lengths[pageIndex] = 0;
+    }
+  }
+
+  /**
+   * Extent is reused only after the next persist of the map, because the persisted map may still refer to it.
+   */
+  private void releaseExtent(final long position, final int units) {
+    pendingExtents.add(new long[] { position, (long) units * UNIT });
+  }
+
+  private long allocateExtent(final int units) {
+    final long length = (long) units * UNIT;
+
+    final long[] extent = freeExtentsBySize.ceiling(new long[] { 0, length });
+    if (extent == null) {
+      final long position = end;
+      end += length;
+      return position;
+    }
+
+    freeExtentsBySize.remove(extent);
+    freeExtents.remove(extent[0]);
+
+    if (extent[1] > length) {
+      addFreeExtent(extent[0] + length, extent[1] - length);
+    }
+
+    return extent[0];
+  }
+
+  private void freeExtent(long position, long length) {
+    final Map.Entry<Long, Long> previous = freeExtents.floorEntry(position);
+    if (previous != null && previous.getKey() + previous.getValue() == position) {
+      removeFreeExtent(previous.getKey(), previous.getValue());
+
+      position = previous.getKey();
+      length += previous.getValue();
+    }
+
+    final Long next = freeExtents.get(position + length);
+    if (next != null) {
+      removeFreeExtent(position + length, next);
+      length += next;
+    }
+
+    if (position + length == end) {
+      end = position;
+    } else {
+      addFreeExtent(position, length);
+    }
+  }
+
+  private void addFreeExtent(final long position, final long length) {
+    freeExtents.put(position, length);
+    freeExtentsBySize.add(new long[] { position, length });
+  }
+
+  private void removeFreeExtent(final long position, final long length) {
+    freeExtents.remove(position);
+    freeExtentsBySize.remove(new long[] { position, length });
+  }
+
+  private static int units(final int length) {
+    return (length + UNIT - 1) / UNIT;
+  }
+
+  private static byte[] threadBuffer(final ThreadLocal<byte[]> threadLocal, final int length) {
+    byte[] buffer = threadLocal.get();
+    if (buffer == null || buffer.length < length) {
+      buffer = new byte[length];
+      threadLocal.set(buffer);
+    }
+
+    return buffer;
+  }
+}
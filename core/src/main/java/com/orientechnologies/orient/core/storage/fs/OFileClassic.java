@@ -77,6 +77,23 @@ public final class OFileClassic implements OClosableItem {
   private AllocationMode allocationMode;
   private int            fd;
 
+  /**
+   * Whether pages are read through a memory mapping of the file instead of positional reads of the channel.
+   *
+   * @see OGlobalConfiguration#FILE_MMAP_ENABLED
+   */
+  private final boolean      memoryMapped;
+  private       OFileMapping mapping;
+
+  /**
+   * Size of the pages which are stored compressed if the file is created by this instance, zero if pages are stored as is.
+   * Whether pages of the existing file are compressed is defined by the header of the file.
+   *
+   * @see OGlobalConfiguration#FILE_PAGE_COMPRESSION_ENABLED
+   */
+  private final int              compressedPageSize;
+  private       OCompressedPages compressedPages;
+
   /**
    * Map which calculates which files are opened and how many users they have
    */
@@ -93,13 +110,41 @@ public final class OFileClassic implements OClosableItem {
   private final boolean trackFileOpen = OGlobalConfiguration.STORAGE_TRACK_FILE_ACCESS.getValueAsBoolean();
 
   public OFileClassic(final Path osFile) {
+    this(osFile, false);
+  }
+
+  /**
+   * @param memoryMapped whether the pages of the file are read through a memory mapping of the file, it is intended for data
+   *                     files that are mostly read, writes are always done through the file channel
+   */
+  public OFileClassic(final Path osFile, final boolean memoryMapped) {
+    this(osFile, memoryMapped, 0);
+  }
+
+  /**
+   * @param compressedPageSize size of the pages of the file, if it is positive pages of the created file are stored compressed.
+   *                           Content of such file is accessed only by whole pages through {@link ByteBuffer} based methods,
+   *                           and it is never memory mapped.
+   */
+  public OFileClassic(final Path osFile, final boolean memoryMapped, final int compressedPageSize) {
     this.osFile = osFile;
+    this.memoryMapped = memoryMapped;
+    this.compressedPageSize = compressedPageSize;
   }
 
   public long allocateSpace(final int size) throws IOException {
     acquireWriteLock();
     try {
       final long currentSize = this.size;
+
+      if (compressedPages != null) {
+        compressedPages.allocate(size);
+        this.size = compressedPages.getSize();
+        setDirty();
+
+        return currentSize;
+      }
+
       assert channel.size() == currentSize + HEADER_SIZE;
 
       //noinspection NonAtomicOperationOnVolatileField
@@ -169,10 +214,21 @@ public final class OFileClassic implements OClosableItem {
       try {
         acquireWriteLock();
         try {
+          if (compressedPages != null) {
+            compressedPages.shrink(size);
+            this.size = compressedPages.getSize();
+            setDirty();
+            break;
+          }
+
           //noinspection resource
           channel.truncate(HEADER_SIZE + size);
           this.size = size;
 
+          if (mapping != null) {
+            mapping.truncate(HEADER_SIZE + size);
+          }
+
           assert this.size >= 0;
           break;
 
@@ -198,6 +254,7 @@ public final class OFileClassic implements OClosableItem {
       try {
         acquireReadLock();
         try {
+          checkNotCompressed();
           offset = checkRegions(offset, iLength);
 
           final ByteBuffer buffer = ByteBuffer.wrap(iData, iArrayOffset, iLength);
@@ -223,7 +280,13 @@ public final class OFileClassic implements OClosableItem {
         acquireReadLock();
         try {
           offset = checkRegions(offset, buffer.limit());
-          readByteBuffer(buffer, channel, offset, throwOnEof);
+          if (compressedPages != null) {
+            compressedPages.read(channel, offset - HEADER_SIZE, buffer, throwOnEof);
+          } else if (mapping != null) {
+            mapping.read(offset, buffer, HEADER_SIZE + size, throwOnEof);
+          } else {
+            readByteBuffer(buffer, channel, offset, throwOnEof);
+          }
 
           break;
 
@@ -239,6 +302,16 @@ public final class OFileClassic implements OClosableItem {
   }
 
   public void read(long offset, final ByteBuffer[] buffers, final boolean throwOnEof) throws IOException {
+    if (compressedPages != null) {
+      readCompressed(offset, buffers, throwOnEof);
+      return;
+    }
+
+    if (memoryMapped) {
+      readMapped(offset, buffers, throwOnEof);
+      return;
+    }
+
     int attempts = 0;
 
     while (true) {
@@ -263,6 +336,95 @@ public final class OFileClassic implements OClosableItem {
     }
   }
 
+  /**
+   * Reads a run of pages through the memory mapping, unlike reads through the channel it does not require to change the
+   * position of the channel, so concurrent reads are allowed.
+   */
+  private void readMapped(final long offset, final ByteBuffer[] buffers, final boolean throwOnEof) throws IOException {
+    int attempts = 0;
+
+    while (true) {
+      try {
+        acquireReadLock();
+        try {
+          long position = offset + HEADER_SIZE;
+
+          for (final ByteBuffer buffer : buffers) {
+            mapping.read(position, buffer, HEADER_SIZE + size, throwOnEof);
+            position += buffer.limit();
+          }
+          break;
+
+        } finally {
+          releaseReadLock();
+          attempts++;
+        }
+      } catch (final IOException e) {
+        OLogManager.instance().error(this, "Error during data read for file '" + getName() + "' " + attempts + "-th attempt", e);
+        reopenFile(attempts, e);
+      }
+    }
+  }
+
+  /**
+   * Reads a run of compressed pages, every page is decompressed separately and pages do not share the position of the channel, so
+   * concurrent reads are allowed.
+   */
+  private void readCompressed(final long offset, final ByteBuffer[] buffers, final boolean throwOnEof) throws IOException {
+    int attempts = 0;
+
+    while (true) {
+      try {
+        acquireReadLock();
+        try {
+          long position = offset;
+
+          for (final ByteBuffer buffer : buffers) {
+            compressedPages.read(channel, position, buffer, throwOnEof);
+            position += buffer.limit();
+          }
+          break;
+
+        } finally {
+          releaseReadLock();
+          attempts++;
+        }
+      } catch (final IOException e) {
+        OLogManager.instance().error(this, "Error during data read for file '" + getName() + "' " + attempts + "-th attempt", e);
+        reopenFile(attempts, e);
+      }
+    }
+  }
+
+  /**
+   * @return whether pages of this file are read through a memory mapping
+   */
+  public boolean isMemoryMapped() {
+    return memoryMapped && compressedPages == null;
+  }
+
+  /**
+   * @return whether pages of this file are stored compressed
+   */
+  public boolean isCompressed() {
+    return compressedPages != null;
+  }
+
+  /**
+   * Drops the current memory mapping of the file, the file is mapped again on the next read. It is used when the content read
+   * through the mapping looks broken, to exclude that the mapping is stale.
+   */
+  public void remap() {
+    acquireWriteLock();
+    try {
+      if (memoryMapped && compressedPages == null && channel != null) {
+        mapping = new OFileMapping(channel);
+      }
+    } finally {
+      releaseWriteLock();
+    }
+  }
+
   public void write(long offset, final ByteBuffer buffer) throws IOException {
     int attempts = 0;
 
@@ -270,9 +432,14 @@ public final class OFileClassic implements OClosableItem {
       try {
         acquireWriteLock();
         try {
-          offset += HEADER_SIZE;
+          if (compressedPages != null) {
+            compressedPages.write(channel, offset, buffer);
+            size = compressedPages.getSize();
+          } else {
+            offset += HEADER_SIZE;
+            writeByteBuffer(buffer, channel, offset);
+          }
 
-          writeByteBuffer(buffer, channel, offset);
           setDirty();
 
           break;
@@ -294,10 +461,19 @@ public final class OFileClassic implements OClosableItem {
       try {
         acquireWriteLock();
         try {
-          offset += HEADER_SIZE;
-          //noinspection resource
-          channel.position(offset);
-          writeByteBuffers(buffers, channel, buffers.length * buffers[0].limit());
+          if (compressedPages != null) {
+            for (final ByteBuffer buffer : buffers) {
+              compressedPages.write(channel, offset, buffer);
+              offset += buffer.limit();
+            }
+
+            size = compressedPages.getSize();
+          } else {
+            offset += HEADER_SIZE;
+            //noinspection resource
+            channel.position(offset);
+            writeByteBuffers(buffers, channel, buffers.length * buffers[0].limit());
+          }
 
           setDirty();
 
@@ -334,6 +510,7 @@ public final class OFileClassic implements OClosableItem {
   }
 
   private void writeInternal(long offset, final byte[] data, final int size, final int arrayOffset) throws IOException {
+    checkNotCompressed();
     if (data != null) {
       offset += HEADER_SIZE;
       final ByteBuffer byteBuffer = ByteBuffer.wrap(data, arrayOffset, size);
@@ -394,6 +571,7 @@ public final class OFileClassic implements OClosableItem {
       try {
         acquireWriteLock();
         try {
+          checkNotCompressed();
           iOffset += HEADER_SIZE;
 
           final ByteBuffer buffer = ByteBuffer.allocate(OBinaryProtocol.SIZE_INT);
@@ -421,6 +599,7 @@ public final class OFileClassic implements OClosableItem {
       try {
         acquireWriteLock();
         try {
+          checkNotCompressed();
           iOffset += HEADER_SIZE;
           final ByteBuffer buffer = ByteBuffer.allocate(OBinaryProtocol.SIZE_LONG);
           buffer.putLong(iValue);
@@ -445,6 +624,7 @@ public final class OFileClassic implements OClosableItem {
       try {
         acquireWriteLock();
         try {
+          checkNotCompressed();
           iOffset += HEADER_SIZE;
           final ByteBuffer buffer = ByteBuffer.allocate(OBinaryProtocol.SIZE_BYTE);
           buffer.put(iValue);
@@ -505,7 +685,11 @@ public final class OFileClassic implements OClosableItem {
       if (headerDirty || dirty) {
         headerDirty = dirty = false;
         try {
-          channel.force(false);
+          if (compressedPages != null) {
+            compressedPages.persist(channel);
+          } else {
+            channel.force(false);
+          }
         } catch (final IOException e) {
           OLogManager.instance()
               .warn(this, "Error during flush of file %s. Data may be lost in case of power failure", e, getName());
@@ -531,6 +715,12 @@ public final class OFileClassic implements OClosableItem {
       setVersion(OFileClassic.CURRENT_VERSION);
       version = OFileClassic.CURRENT_VERSION;
 
+      if (compressedPageSize > 0) {
+        compressedPages = OCompressedPages.create(channel, compressedPageSize);
+        size = compressedPages.getSize();
+        mapping = null;
+      }
+
       initAllocationMode();
     } finally {
       releaseWriteLock();
@@ -561,6 +751,16 @@ public final class OFileClassic implements OClosableItem {
     }
   }
 
+  /**
+   * Methods which read or write arbitrary ranges of bytes address the file as is, they can not be used for files whose pages are
+   * stored compressed.
+   */
+  private void checkNotCompressed() {
+    if (compressedPages != null) {
+      throw new OIOException("Pages of file " + this + " are stored compressed, they can be accessed only as whole pages");
+    }
+  }
+
   /**
    * ALWAYS ADD THE HEADER SIZE BECAUSE ON THIS TYPE IS ALWAYS NEEDED
    */
@@ -581,6 +781,7 @@ public final class OFileClassic implements OClosableItem {
   }
 
   private ByteBuffer readData(final long iOffset, final int iSize) throws IOException {
+    checkNotCompressed();
     final ByteBuffer buffer = ByteBuffer.allocate(iSize);
     readByteBuffer(buffer, channel, iOffset, true);
     buffer.rewind();
@@ -718,6 +919,16 @@ public final class OFileClassic implements OClosableItem {
       try {
         acquireWriteLock();
         try {
+          mapping = null;
+
+          if (compressedPages != null) {
+            if (channel != null && channel.isOpen()) {
+              compressedPages.persist(channel);
+            }
+
+            compressedPages = null;
+          }
+
           if (channel != null && channel.isOpen()) {
             channel.close();
             channel = null;
@@ -825,6 +1036,10 @@ public final class OFileClassic implements OClosableItem {
         OIOUtils.writeByteBuffer(buffer, channel, 0);
       }
 
+      if (memoryMapped && compressedPages == null) {
+        mapping = new OFileMapping(channel);
+      }
+
     } finally {
       releaseWriteLock();
     }
@@ -840,6 +1055,12 @@ public final class OFileClassic implements OClosableItem {
 
     buffer.position(0);
     version = buffer.get();
+
+    compressedPages = OCompressedPages.load(channel);
+    if (compressedPages != null) {
+      size = compressedPages.getSize();
+      mapping = null;
+    }
   }
 
   /*
@@ -1005,6 +1226,7 @@ public final class OFileClassic implements OClosableItem {
 
       frnd = null;
       channel = null;
+      mapping = null;
 
       openChannel();
     } finally {
@@ -0,0 +1,141 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+package com.orientechnologies.orient.core.storage.fs;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Read only memory mapping of the content of a file, used by {@link OFileClassic} to read pages with a memory copy instead of a
+ * system call.
+ * <p>
+ * The file is mapped in segments of {@link #SEGMENT_SIZE} bytes. When a read goes beyond the mapped area because the file has
+ * grown, the last (partial) segment and the new ones are mapped again up to the current file size. When the file is truncated the
+ * segments that are not completely inside of the file are dropped. Released segments are unmapped by the garbage collector.
+ * <p>
+ * The mapping is safe only if it is never accessed beyond the end of the file, so it has to be used under the read lock of the
+ * owning file, and truncations have to be done under the write lock.
+ */
+final class OFileMapping {
+  static final int SEGMENT_SIZE = 1 << 30;
+
+  private final FileChannel channel;
+
+  private volatile MappedByteBuffer[] segments   = new MappedByteBuffer[0];
+  private volatile long               mappedSize = 0;
+
+  OFileMapping(final FileChannel channel) {
+    this.channel = channel;
+  }
+
+  /**
+   * Copies the content of the file starting from the given position into the buffer, from position 0 to the buffer limit.
+   *
+   * @param position   position in the file (header included)
+   * @param fileSize   current size of the file (header included)
+   * @param throwOnEof if false the part of the buffer that is beyond the end of the file is filled with zeros
+   */
+  void read(final long position, final ByteBuffer buffer, final long fileSize, final boolean throwOnEof) throws IOException {
+    buffer.position(0);
+
+    final int available = (int) Math.max(0, Math.min(buffer.limit(), fileSize - position));
+    if (available < buffer.limit() && throwOnEof) {
+      throw new EOFException("End of file is reached");
+    }
+
+    if (available > 0) {
+      final MappedByteBuffer[] segments = map(position + available, fileSize);
+
+      long current = position;
+      int copied = 0;
+      while (copied < available) {
+        final MappedByteBuffer segment = segments[(int) (current / SEGMENT_SIZE)];
+        final int segmentOffset = (int) (current % SEGMENT_SIZE);
+        final int chunk = Math.min(available - copied, segment.capacity() - segmentOffset);
+
+        final ByteBuffer source = segment.duplicate();
+        source.limit(segmentOffset + chunk);
+        source.position(segmentOffset);
+        buffer.put(source);
+
+        copied += chunk;
+        current += chunk;
+      }
+    }
+
+    if (available < buffer.limit()) {
+      buffer.put(new byte[buffer.remaining()]);
+    }
+  }
+
+  /**
+   * Drops the segments that are not completely inside of the file after a truncation, they will be mapped again on the next read.
+   *
+   * @param fileSize new size of the file (header included)
+   */
+  synchronized void truncate(final long fileSize) {
+    if (fileSize >= mappedSize) {
+      return;
+    }
+
+    final int fullSegments = (int) (fileSize / SEGMENT_SIZE);
+    final MappedByteBuffer[] newSegments = new MappedByteBuffer[fullSegments];
+    System.arraycopy(segments, 0, newSegments, 0, fullSegments);
+
+    segments = newSegments;
+    mappedSize = (long) fullSegments * SEGMENT_SIZE;
+  }
+
+  /**
+   * @return the segments, mapped at least up to the given position
+   */
+  private MappedByteBuffer[] map(final long end, final long fileSize) throws IOException {
+    if (end <= mappedSize) {
+      return segments;
+    }
+
+    synchronized (this) {
+      if (end <= mappedSize) {
+        return segments;
+      }
+
+      final MappedByteBuffer[] oldSegments = segments;
+      final int segmentsCount = (int) ((fileSize + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+      final MappedByteBuffer[] newSegments = new MappedByteBuffer[segmentsCount];
+
+      for (int i = 0; i < segmentsCount; i++) {
+        if (i < oldSegments.length && oldSegments[i].capacity() == SEGMENT_SIZE) {
+          newSegments[i] = oldSegments[i];
+        } else {
+          final long segmentStart = (long) i * SEGMENT_SIZE;
+          newSegments[i] = channel.map(FileChannel.MapMode.READ_ONLY, segmentStart, Math.min(SEGMENT_SIZE, fileSize - segmentStart));
+        }
+      }
+
+      segments = newSegments;
+      mappedSize = fileSize;
+
+      return newSegments;
+    }
+  }
+}
@@ -22,6 +22,7 @@ package com.orientechnologies.orient.core.storage.impl.local;
 
 import com.orientechnologies.common.concur.ONeedRetryException;
 import com.orientechnologies.common.concur.lock.OComparableLockManager;
+import com.orientechnologies.common.concur.lock.OInterruptedException;
 import com.orientechnologies.common.concur.lock.OLockManager;
 import com.orientechnologies.common.concur.lock.OModificationOperationProhibitedException;
 import com.orientechnologies.common.concur.lock.ONotThreadRWLockManager;
@@ -183,9 +184,16 @@ import java.io.PrintWriter;
 import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -224,6 +232,11 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
   private final Map<String, OCluster> clusterMap = new HashMap<>();
   private final List<OCluster>        clusters   = new ArrayList<>();
 
+  /**
+   * Lock which is used during data restore to allocate new pages by one thread at once.
+   */
+  private final Object restorePageAllocationLock = new Object();
+
   private volatile ThreadLocal<OStorageTransaction> transaction;
   private final    AtomicBoolean                    checkpointInProgress = new AtomicBoolean();
   private final    AtomicBoolean                    walVacuumInProgress  = new AtomicBoolean();
@@ -2065,6 +2078,7 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
       }
 
       final List<ORecordOperation> result = new ArrayList<>(8);
+      OLogSequenceNumber commitLSN = null;
       stateLock.acquireReadLock();
       try {
         if (modificationLock) {
@@ -2170,7 +2184,7 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
             if (rollback) {
               rollback(transaction);
             } else {
-              endStorageTx(transaction, recordOperations);
+              commitLSN = endStorageTx(transaction, recordOperations);
             }
 
             this.transaction.set(null);
@@ -2203,6 +2217,11 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
         }
       }
 
+      //wait for fsync only once all locks are released, so concurrent commits are able to join the same group commit
+      if (commitLSN != null) {
+        waitTillCommitIsSynced(commitLSN);
+      }
+
       if (OLogManager.instance().isDebugEnabled()) {
         OLogManager.instance()
             .debug(this, "%d Committed transaction %d on database '%s' (result=%s)", Thread.currentThread().getId(),
@@ -4534,13 +4553,37 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
     }
   }
 
-  private void endStorageTx(final OTransactionInternal txi, final Collection<ORecordOperation> recordOperations)
+  private OLogSequenceNumber endStorageTx(final OTransactionInternal txi, final Collection<ORecordOperation> recordOperations)
       throws IOException {
-    atomicOperationsManager.endAtomicOperation(false);
+    final OLogSequenceNumber lsn = atomicOperationsManager.endAtomicOperation(false);
     assert OAtomicOperationsManager.getCurrentOperation() == null;
 
     OTransactionAbstract.updateCacheFromEntries(txi.getDatabase(), recordOperations, true);
     txCommit.incrementAndGet();
+
+    return lsn;
+  }
+
+  /**
+   * Waits till the changes of committed transaction are synced to the WAL. Group commit is opt-in, it is used only if both
+   * {@link OGlobalConfiguration#WAL_SYNC_ON_COMMIT} and {@link OGlobalConfiguration#STORAGE_CALL_FSYNC} are set, without fsync
+   * the wait would add latency without making the commit durable. Concurrent commits share the same WAL fsync.
+   *
+   * @param lsn LSN of the last record logged by the transaction
+   */
+  private void waitTillCommitIsSynced(final OLogSequenceNumber lsn) {
+    final OWriteAheadLog writeAheadLog = this.writeAheadLog;
+    if (writeAheadLog == null) {
+      return;
+    }
+
+    final OContextConfiguration contextConfiguration = configuration.getContextConfiguration();
+    if (!contextConfiguration.getValueAsBoolean(OGlobalConfiguration.WAL_SYNC_ON_COMMIT) || !contextConfiguration
+        .getValueAsBoolean(OGlobalConfiguration.STORAGE_CALL_FSYNC)) {
+      return;
+    }
+
+    writeAheadLog.flushTill(lsn);
   }
 
   private void startStorageTx(final OTransactionInternal clientTx) throws IOException {
@@ -5469,13 +5512,27 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
     long recordsProcessed = 0;
 
     final int reportBatchSize = OGlobalConfiguration.WAL_REPORT_AFTER_OPERATIONS_DURING_RESTORE.getValueAsInteger();
+    final int batchSize = OGlobalConfiguration.WAL_RESTORE_BATCH_SIZE.getValueAsInteger();
+    final int restoreThreads = OGlobalConfiguration.WAL_RESTORE_THREADS.getValueAsInteger();
     final Map<OOperationUnitId, List<OWALRecord>> operationUnits = new HashMap<>(1024);
 
+    final long restoreStartTime = System.currentTimeMillis();
     long lastReportTime = 0;
 
+    final ParallelPageRestore pageRestore = restoreThreads > 1 ? new ParallelPageRestore(restoreThreads) : null;
     try {
-      List<OWriteableWALRecord> records = writeAheadLog.read(lsn, 1_000);
+      List<OWriteableWALRecord> records = writeAheadLog.read(lsn, batchSize);
       while (!records.isEmpty()) {
+        final OLogSequenceNumber lastLsn = records.get(records.size() - 1).getLsn();
+
+        // next batch of records is read while the current one is processed
+        final Future<List<OWriteableWALRecord>> nextRecords;
+        if (pageRestore != null) {
+          nextRecords = pageRestore.prefetch(() -> writeAheadLog.next(lastLsn, batchSize));
+        } else {
+          nextRecords = null;
+        }
+
         for (final OWriteableWALRecord walRecord : records) {
           logSequenceNumber = walRecord.getLsn();
 
@@ -5486,7 +5543,7 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
             // in case of data restore from fuzzy checkpoint part of operations may be already flushed to the disk
             if (atomicUnit != null) {
               atomicUnit.add(walRecord);
-              restoreAtomicUnit(atomicUnit, atLeastOnePageUpdate);
+              restoreAtomicUnit(atomicUnit, atLeastOnePageUpdate, pageRestore);
             }
 
           } else if (walRecord instanceof OAtomicUnitStartRecord) {
@@ -5526,25 +5583,40 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
           final long currentTime = System.currentTimeMillis();
           if (reportBatchSize > 0 && recordsProcessed % reportBatchSize == 0
               || currentTime - lastReportTime > WAL_RESTORE_REPORT_INTERVAL) {
-            OLogManager.instance()
-                .infoNoDb(this, "%d operations were processed, current LSN is %s last LSN is %s", recordsProcessed, lsn,
-                    writeAheadLog.end());
+            reportRestoreProgress(writeAheadLog, recordsProcessed, lsn, logSequenceNumber, currentTime - restoreStartTime);
             lastReportTime = currentTime;
           }
         }
 
-        records = writeAheadLog.next(records.get(records.size() - 1).getLsn(), 1_000);
+        if (nextRecords != null) {
+          records = pageRestore.nextRecords(nextRecords);
+        } else {
+          records = writeAheadLog.next(lastLsn, batchSize);
+        }
+      }
+
+      if (pageRestore != null) {
+        pageRestore.await();
       }
     } catch (final OWALPageBrokenException e) {
       OLogManager.instance()
           .errorNoDb(this, "Data restore was paused because broken WAL page was found. The rest of changes will be rolled back.",
               e);
+
+      // changes read before the broken page are still applied by the workers, their failures are not caused by the broken page
+      if (pageRestore != null) {
+        try {
+          pageRestore.await();
+        } catch (final RuntimeException ex) {
+          handleRestoreFailure(ex);
+        }
+      }
     } catch (final RuntimeException e) {
-      OLogManager.instance().errorNoDb(this,
-          "Data restore was paused because of exception. The rest of changes will be rolled back and WAL files will be backed up."
-              + " Please report issue about this exception to bug tracker and provide WAL files which are backed up in 'wal_backup' directory.",
-          e);
-      backUpWAL(e);
+      handleRestoreFailure(e);
+    } finally {
+      if (pageRestore != null) {
+        pageRestore.close();
+      }
     }
 
     if (atLeastOnePageUpdate.getValue()) {
@@ -5554,6 +5626,39 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
     return null;
   }
 
+  private void handleRestoreFailure(final RuntimeException e) {
+    OLogManager.instance().errorNoDb(this,
+        "Data restore was paused because of exception. The rest of changes will be rolled back and WAL files will be backed up."
+            + " Please report issue about this exception to bug tracker and provide WAL files which are backed up in 'wal_backup' directory.",
+        e);
+    backUpWAL(e);
+  }
+
+  private void reportRestoreProgress(final OWriteAheadLog writeAheadLog, final long recordsProcessed,
+      final OLogSequenceNumber startLsn, final OLogSequenceNumber currentLsn, final long elapsedTime) {
+    final OLogSequenceNumber endLsn = writeAheadLog.end();
+
+    if (writeAheadLog instanceof OCASDiskWriteAheadLog && currentLsn != null && endLsn != null) {
+      final OCASDiskWriteAheadLog diskWriteAheadLog = (OCASDiskWriteAheadLog) writeAheadLog;
+
+      final long processedBytes = diskWriteAheadLog.bytesBetween(startLsn, currentLsn);
+      final long remainingBytes = diskWriteAheadLog.bytesBetween(currentLsn, endLsn);
+
+      if (processedBytes > 0) {
+        final long progress = 100 * processedBytes / (processedBytes + remainingBytes);
+        final long remainingTime = elapsedTime * remainingBytes / processedBytes / 1000;
+
+        OLogManager.instance().infoNoDb(this,
+            "%d operations were processed, current LSN is %s last LSN is %s, %d%% of the log is restored, about %d seconds left",
+            recordsProcessed, currentLsn, endLsn, progress, remainingTime);
+        return;
+      }
+    }
+
+    OLogManager.instance()
+        .infoNoDb(this, "%d operations were processed, current LSN is %s last LSN is %s", recordsProcessed, currentLsn, endLsn);
+  }
+
   private void backUpWAL(final Exception e) {
     try {
       final File rootDir = new File(configuration.getDirectory());
@@ -5630,11 +5735,26 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
   @SuppressWarnings("WeakerAccess")
   protected final void restoreAtomicUnit(final List<OWALRecord> atomicUnit, final OModifiableBoolean atLeastOnePageUpdate)
       throws IOException {
+    restoreAtomicUnit(atomicUnit, atLeastOnePageUpdate, null);
+  }
+
+  /**
+   * @param pageRestore if not <code>null</code> changes of the pages are passed to it to be applied in background, otherwise they
+   *                    are applied by the current thread
+   */
+  private void restoreAtomicUnit(final List<OWALRecord> atomicUnit, final OModifiableBoolean atLeastOnePageUpdate,
+      final ParallelPageRestore pageRestore) throws IOException {
     assert atomicUnit.get(atomicUnit.size() - 1) instanceof OAtomicUnitEndRecord;
 
     for (final OWALRecord walRecord : atomicUnit) {
       if (walRecord instanceof OFileDeletedWALRecord) {
         final OFileDeletedWALRecord fileDeletedWALRecord = (OFileDeletedWALRecord) walRecord;
+
+        // changes of the pages of deleted file should be applied before the file is deleted
+        if (pageRestore != null) {
+          pageRestore.await();
+        }
+
         if (writeCache.exists(fileDeletedWALRecord.getFileId())) {
           readCache.deleteFile(fileDeletedWALRecord.getFileId(), writeCache);
         }
@@ -5647,7 +5767,7 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
       } else if (walRecord instanceof OUpdatePageRecord) {
         final OUpdatePageRecord updatePageRecord = (OUpdatePageRecord) walRecord;
 
-        long fileId = updatePageRecord.getFileId();
+        final long fileId = updatePageRecord.getFileId();
         if (!writeCache.exists(fileId)) {
           final String fileName = writeCache.restoreFileById(fileId);
 
@@ -5660,26 +5780,10 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
           }
         }
 
-        final long pageIndex = updatePageRecord.getPageIndex();
-        fileId = writeCache.externalFileId(writeCache.internalFileId(fileId));
-
-        OCacheEntry cacheEntry = readCache.loadForWrite(fileId, pageIndex, true, writeCache, 1, false, null);
-        if (cacheEntry == null) {
-          do {
-            if (cacheEntry != null) {
-              readCache.releaseFromWrite(cacheEntry, writeCache);
-            }
-
-            cacheEntry = readCache.allocateNewPage(fileId, writeCache, null);
-          } while (cacheEntry.getPageIndex() != pageIndex);
-        }
-
-        try {
-          final ODurablePage durablePage = new ODurablePage(cacheEntry);
-          durablePage.restoreChanges(updatePageRecord.getChanges());
-          durablePage.setLsn(updatePageRecord.getLsn());
-        } finally {
-          readCache.releaseFromWrite(cacheEntry, writeCache);
+        if (pageRestore != null) {
+          pageRestore.submit(updatePageRecord);
+        } else {
+          restorePageChanges(updatePageRecord);
         }
 
         atLeastOnePageUpdate.setValue(true);
@@ -5698,6 +5802,37 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
     }
   }
 
+  private void restorePageChanges(final OUpdatePageRecord updatePageRecord) throws IOException {
+    final long pageIndex = updatePageRecord.getPageIndex();
+    final long fileId = writeCache.externalFileId(writeCache.internalFileId(updatePageRecord.getFileId()));
+
+    OCacheEntry cacheEntry = readCache.loadForWrite(fileId, pageIndex, true, writeCache, 1, false, null);
+    if (cacheEntry == null) {
+      // pages may be restored by several threads, so only one of them extends the file at once
+      synchronized (restorePageAllocationLock) {
+        cacheEntry = readCache.loadForWrite(fileId, pageIndex, true, writeCache, 1, false, null);
+
+        if (cacheEntry == null) {
+          do {
+            if (cacheEntry != null) {
+              readCache.releaseFromWrite(cacheEntry, writeCache);
+            }
+
+            cacheEntry = readCache.allocateNewPage(fileId, writeCache, null);
+          } while (cacheEntry.getPageIndex() != pageIndex);
+        }
+      }
+    }
+
+    try {
+      final ODurablePage durablePage = new ODurablePage(cacheEntry);
+      durablePage.restoreChanges(updatePageRecord.getChanges());
+      durablePage.setLsn(updatePageRecord.getLsn());
+    } finally {
+      readCache.releaseFromWrite(cacheEntry, writeCache);
+    }
+  }
+
   /**
    * Method which is called before any data modification operation to check alarm conditions such as: <ol> <li>Low disk space</li>
    * <li>Exception during data flush in background threads</li> <li>Broken files</li> </ol>
@@ -5874,6 +6009,11 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
     }
   }
 
+  /**
+   * Clusters are locked till the end of the atomic operation, see {@link
+   * com.orientechnologies.orient.core.storage.cluster.v1.OPaginatedClusterV1} for the reasons why finer locks can not be used.
+   * Locks are acquired in the order of the cluster ids to avoid deadlocks.
+   */
   private static void lockClusters(final TreeMap<Integer, OCluster> clustersToLock) {
     for (final OCluster cluster : clustersToLock.values()) {
       cluster.acquireAtomicExclusiveLock();
@@ -6310,6 +6450,184 @@ public abstract class OAbstractPaginatedStorage extends OStorageAbstract
     }
   }
 
+  /**
+   * Applies changes of the pages during data restore by several threads. Changes of the same page are always applied by the same
+   * thread in the order in which they are submitted, so result of the restore is the same as if all changes are applied by a
+   * single thread. Also reads next batch of WAL records in background.
+   */
+  private final class ParallelPageRestore implements AutoCloseable {
+    private static final int QUEUE_CAPACITY = 4 * 1024;
+
+    private final OUpdatePageRecord stopMarker = new OUpdatePageRecord();
+
+    private final List<BlockingQueue<OUpdatePageRecord>> queues;
+    private final List<Thread>                           workers;
+    private final ExecutorService                        prefetchExecutor;
+
+    private final AtomicLong pending     = new AtomicLong();
+    private final Object     pendingLock = new Object();
+
+    private volatile Throwable error;
+
+    ParallelPageRestore(final int threads) {
+      queues = new ArrayList<>(threads);
+      workers = new ArrayList<>(threads);
+
+      for (int i = 0; i < threads; i++) {
+        final BlockingQueue<OUpdatePageRecord> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        final Thread worker = new Thread(storageThreadGroup, () -> applyChanges(queue), "OrientDB WAL restore (" + name + ") #" + i);
+        worker.setDaemon(true);
+        worker.setUncaughtExceptionHandler(new OUncaughtExceptionHandler());
+
+        queues.add(queue);
+        workers.add(worker);
+      }
+
+      prefetchExecutor = Executors.newSingleThreadExecutor(r -> {
+        final Thread thread = new Thread(storageThreadGroup, r, "OrientDB WAL prefetch (" + name + ")");
+        thread.setDaemon(true);
+        thread.setUncaughtExceptionHandler(new OUncaughtExceptionHandler());
+        return thread;
+      });
+
+      for (final Thread worker : workers) {
+        worker.start();
+      }
+    }
+
+    void submit(final OUpdatePageRecord updatePageRecord) {
+      checkError();
+
+      final long pageKey = writeCache.internalFileId(updatePageRecord.getFileId()) * 0x9E3779B97F4A7C15L + updatePageRecord
+          .getPageIndex();
+      final int queueIndex = (int) ((((pageKey ^ (pageKey >>> 32)) & 0xFFFFFFFFL) * queues.size()) >>> 32);
+
+      pending.incrementAndGet();
+      put(queues.get(queueIndex), updatePageRecord);
+    }
+
+    /**
+     * Waits till all submitted changes are applied.
+     */
+    void await() {
+      synchronized (pendingLock) {
+        while (pending.get() > 0) {
+          try {
+            pendingLock.wait();
+          } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw OException.wrapException(new OInterruptedException("Data restore was interrupted"), e);
+          }
+        }
+      }
+
+      checkError();
+    }
+
+    Future<List<OWriteableWALRecord>> prefetch(final Callable<List<OWriteableWALRecord>> reader) {
+      return prefetchExecutor.submit(reader);
+    }
+
+    List<OWriteableWALRecord> nextRecords(final Future<List<OWriteableWALRecord>> records) throws IOException {
+      try {
+        return records.get();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw OException.wrapException(new OInterruptedException("Data restore was interrupted"), e);
+      } catch (final ExecutionException e) {
+        final Throwable cause = e.getCause();
+        if (cause instanceof IOException) {
+          throw (IOException) cause;
+        }
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+
+        throw OException.wrapException(new OStorageException("Error during reading of WAL records"), cause);
+      }
+    }
+
+    @Override
+    public void close() {
+      // reading thread is not interrupted, interruption of the thread closes the channels of WAL segments
+      prefetchExecutor.shutdown();
+
+      for (final BlockingQueue<OUpdatePageRecord> queue : queues) {
+        put(queue, stopMarker);
+      }
+
+      try {
+        for (final Thread worker : workers) {
+          worker.join();
+        }
+
+        //noinspection ResultOfMethodCallIgnored
+        prefetchExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw OException.wrapException(new OInterruptedException("Data restore was interrupted"), e);
+      }
+    }
+
+    private void applyChanges(final BlockingQueue<OUpdatePageRecord> queue) {
+      while (true) {
+        final OUpdatePageRecord updatePageRecord;
+        try {
+          updatePageRecord = queue.take();
+        } catch (final InterruptedException e) {
+          return;
+        }
+
+        if (updatePageRecord == stopMarker) {
+          return;
+        }
+
+        // once the restore is failed the rest of changes is skipped, but queue is still drained to not block submitter
+        if (error == null) {
+          try {
+            restorePageChanges(updatePageRecord);
+          } catch (final Exception | Error e) {
+            error = e;
+          }
+        }
+
+        if (pending.decrementAndGet() == 0) {
+          synchronized (pendingLock) {
+            pendingLock.notifyAll();
+          }
+        }
+      }
+    }
+
+    private void checkError() {
+      final Throwable error = this.error;
+      if (error == null) {
+        return;
+      }
+
+      if (error instanceof RuntimeException) {
+        throw (RuntimeException) error;
+      }
+      if (error instanceof Error) {
+        throw (Error) error;
+      }
+
+      throw OException.wrapException(new OStorageException("Error during restore of page changes"), error);
+    }
+
+    private void put(final BlockingQueue<OUpdatePageRecord> queue, final OUpdatePageRecord updatePageRecord) {
+      try {
+        queue.put(updatePageRecord);
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw OException.wrapException(new OInterruptedException("Data restore was interrupted"), e);
+      }
+    }
+  }
+
   private final class WALVacuum implements Runnable {
 
     WALVacuum() {
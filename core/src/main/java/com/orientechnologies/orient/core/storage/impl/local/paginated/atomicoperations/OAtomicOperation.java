@@ -133,6 +133,15 @@ public final class OAtomicOperation {
 
   public OCacheEntry loadPageForRead(long fileId, final long pageIndex, final boolean checkPinnedPages, final int pageCount)
       throws IOException {
+    return loadPageForRead(fileId, pageIndex, checkPinnedPages, pageCount, false);
+  }
+
+  /**
+   * @param scan whether the page is read by a one-shot scan, see {@link OReadCache#loadForRead(long, long, boolean, OWriteCache,
+   *             int, boolean, boolean)}
+   */
+  public OCacheEntry loadPageForRead(long fileId, final long pageIndex, final boolean checkPinnedPages, final int pageCount,
+      final boolean scan) throws IOException {
     assert pageCount > 0;
 
     fileId = checkFileIdCompatibility(fileId, storageId);
@@ -143,7 +152,7 @@ public final class OAtomicOperation {
 
     final FileChanges changesContainer = fileChanges.get(fileId);
     if (changesContainer == null) {
-      return readCache.loadForRead(fileId, pageIndex, checkPinnedPages, writeCache, pageCount, true);
+      return readCache.loadForRead(fileId, pageIndex, checkPinnedPages, writeCache, pageCount, true, scan);
     }
 
     if (changesContainer.isNew) {
@@ -158,13 +167,13 @@ public final class OAtomicOperation {
 
       if (checkChangesFilledUpTo(changesContainer, pageIndex)) {
         if (pageChangesContainer == null) {
-          return readCache.loadForRead(fileId, pageIndex, checkPinnedPages, writeCache, pageCount, true);
+          return readCache.loadForRead(fileId, pageIndex, checkPinnedPages, writeCache, pageCount, true, scan);
         } else {
           if (pageChangesContainer.isNew) {
             return pageChangesContainer;
           } else {
             // Need to load the page again from cache for locking reasons
-            final OCacheEntry delegate = readCache.loadForRead(fileId, pageIndex, checkPinnedPages, writeCache, pageCount, true);
+            final OCacheEntry delegate = readCache.loadForRead(fileId, pageIndex, checkPinnedPages, writeCache, pageCount, true, scan);
             pageChangesContainer.delegate = delegate;
             return pageChangesContainer;
           }
@@ -21,7 +21,9 @@
 package com.orientechnologies.orient.core.storage.impl.local.paginated.base;
 
 import com.orientechnologies.common.concur.resource.OSharedResourceAdaptive;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 import com.orientechnologies.orient.core.storage.cache.OCacheEntry;
+import com.orientechnologies.orient.core.storage.cache.OPageReadAhead;
 import com.orientechnologies.orient.core.storage.cache.OReadCache;
 import com.orientechnologies.orient.core.storage.cache.OWriteCache;
 import com.orientechnologies.orient.core.storage.impl.local.OAbstractPaginatedStorage;
@@ -136,11 +138,36 @@ public abstract class ODurableComponent extends OSharedResourceAdaptive {
 
   protected OCacheEntry loadPageForRead(final OAtomicOperation atomicOperation, final long fileId, final long pageIndex,
       final boolean checkPinnedPages, final int pageCount) throws IOException {
+    return loadPageForRead(atomicOperation, fileId, pageIndex, checkPinnedPages, pageCount, false);
+  }
+
+  /**
+   * @param scan whether the page is read by a one-shot scan, which should not push out of the cache the pages used by the rest of
+   *             the workload
+   */
+  protected OCacheEntry loadPageForRead(final OAtomicOperation atomicOperation, final long fileId, final long pageIndex,
+      final boolean checkPinnedPages, final int pageCount, final boolean scan) throws IOException {
     if (atomicOperation == null) {
-      return readCache.loadForRead(fileId, pageIndex, checkPinnedPages, writeCache, pageCount, true);
+      return readCache.loadForRead(fileId, pageIndex, checkPinnedPages, writeCache, pageCount, true, scan);
     }
 
-    return atomicOperation.loadPageForRead(fileId, pageIndex, checkPinnedPages, pageCount);
+    return atomicOperation.loadPageForRead(fileId, pageIndex, checkPinnedPages, pageCount, scan);
+  }
+
+  /**
+   * Asks the read cache to load the given pages in background.
+   *
+   * @see OReadCache#prefetch(long, long, int, OWriteCache)
+   */
+  protected void prefetchPages(final long fileId, final long startPageIndex, final int pageCount) {
+    readCache.prefetch(fileId, startPageIndex, pageCount, writeCache);
+  }
+
+  /**
+   * @return detector of sequential reads of the pages of the file, which prefetches the pages ahead of the reader
+   */
+  protected OPageReadAhead createReadAhead(final long fileId) {
+    return new OPageReadAhead(readCache, writeCache, fileId, OGlobalConfiguration.QUERY_SCAN_PREFETCH_PAGES.getValueAsInteger());
   }
 
   protected void pinPage(final OAtomicOperation atomicOperation, final OCacheEntry cacheEntry) {
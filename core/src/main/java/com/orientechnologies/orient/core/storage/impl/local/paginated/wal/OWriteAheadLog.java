@@ -57,6 +57,16 @@ public interface OWriteAheadLog {
 
   void flush();
 
+  /**
+   * Waits till all records up to the given LSN are written and synced to the disk. Records of concurrent callers are synced
+   * together, so a single fsync serves a whole group of commits.
+   *
+   * @param lsn LSN of the last record which should be synced
+   *
+   * @throws com.orientechnologies.orient.core.exception.OStorageException if WAL is closed before the record is synced
+   */
+  void flushTill(OLogSequenceNumber lsn);
+
   OLogSequenceNumber logAtomicOperationStartRecord(boolean isRollbackSupported, OOperationUnitId unitId) throws IOException;
 
   OLogSequenceNumber logAtomicOperationEndRecord(OOperationUnitId operationUnitId, boolean rollback, OLogSequenceNumber startLsn,
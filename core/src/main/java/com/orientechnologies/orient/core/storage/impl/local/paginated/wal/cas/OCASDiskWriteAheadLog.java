@@ -14,6 +14,8 @@ import com.orientechnologies.common.thread.OThreadPoolExecutorWithLogging;
 import com.orientechnologies.common.types.OModifiableLong;
 import com.orientechnologies.common.util.OPair;
 import com.orientechnologies.common.util.OUncaughtExceptionHandler;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.encryption.OPageEncryption;
 import com.orientechnologies.orient.core.exception.OStorageException;
 import com.orientechnologies.orient.core.storage.OStorageAbstract;
 import com.orientechnologies.orient.core.storage.impl.local.OCheckpointRequestListener;
@@ -58,6 +60,7 @@ import java.util.Map;
 import java.util.NavigableSet;
 import java.util.TreeMap;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentNavigableMap;
 import java.util.concurrent.ConcurrentSkipListMap;
@@ -67,6 +70,7 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -198,6 +202,11 @@ public final class OCASDiskWriteAheadLog implements OWriteAheadLog {
 
   private final boolean callFsync;
 
+  /**
+   * Encryption of the WAL pages, <code>null</code> if pages are written as is.
+   */
+  private final OPageEncryption pageEncryption;
+
   private final boolean printPerformanceStatistic;
   private final int     statisticPrintInterval;
 
@@ -214,11 +223,33 @@ public final class OCASDiskWriteAheadLog implements OWriteAheadLog {
 
   private volatile boolean stopWrite = false;
 
+  /**
+   * Group of commits which wait for the next fsync, <code>null</code> if there are no such commits.
+   */
+  private final AtomicReference<GroupCommit> groupCommit          = new AtomicReference<>();
+  private final OGroupCommitStatistic        groupCommitStatistic = new OGroupCommitStatistic(
+      OGlobalConfiguration.WAL_GROUP_COMMIT_MAX_DELAY.getValueAsInteger() * 1_000L);
+
   public OCASDiskWriteAheadLog(final String storageName, final Path storagePath, final Path walPath, final int maxPagesCacheSize,
       final int bufferSize, long segmentsInterval, final long maxSegmentSize, final int commitDelay, final boolean filterWALFiles,
       final Locale locale, final long walSizeHardLimit, final long freeSpaceLimit, final int fsyncInterval, boolean allowDirectIO,
       boolean callFsync, boolean printPerformanceStatistic, int statisticPrintInterval) throws IOException {
+    this(storageName, storagePath, walPath, maxPagesCacheSize, bufferSize, segmentsInterval, maxSegmentSize, commitDelay,
+        filterWALFiles, locale, walSizeHardLimit, freeSpaceLimit, fsyncInterval, allowDirectIO, callFsync, printPerformanceStatistic,
+        statisticPrintInterval, null);
+  }
 
+  /**
+   * @param pageEncryption encryption of the WAL pages, or <code>null</code> if pages are not encrypted. Records are encrypted
+   *                       together with the page which contains them, header of the page is kept not encrypted.
+   */
+  public OCASDiskWriteAheadLog(final String storageName, final Path storagePath, final Path walPath, final int maxPagesCacheSize,
+      final int bufferSize, long segmentsInterval, final long maxSegmentSize, final int commitDelay, final boolean filterWALFiles,
+      final Locale locale, final long walSizeHardLimit, final long freeSpaceLimit, final int fsyncInterval, boolean allowDirectIO,
+      boolean callFsync, boolean printPerformanceStatistic, int statisticPrintInterval, final OPageEncryption pageEncryption)
+      throws IOException {
+
+    this.pageEncryption = pageEncryption;
     this.bufferSize = bufferSize * 1024 * 1024;
     this.segmentsInterval = segmentsInterval;
     this.callFsync = callFsync;
@@ -727,6 +758,11 @@ public final class OCASDiskWriteAheadLog implements OWriteAheadLog {
                   return result;
                 }
 
+                if (pageEncryption != null) {
+                  pageEncryption.crypt(~segment, segment, pageIndex, buffer, OCASWALPage.RECORDS_OFFSET,
+                      buffer.limit() - OCASWALPage.RECORDS_OFFSET);
+                }
+
                 buffer.position((int) (position - pageIndex * pageSize));
                 while (buffer.remaining() > 0) {
                   if (recordLen == -1) {
@@ -1273,6 +1309,31 @@ public final class OCASDiskWriteAheadLog implements OWriteAheadLog {
     return result;
   }
 
+  /**
+   * Calculates amount of bytes of the WAL segments which are located between two LSNs, it is used to estimate progress of the data
+   * restore.
+   */
+  public long bytesBetween(final OLogSequenceNumber from, final OLogSequenceNumber to) {
+    if (from.compareTo(to) >= 0) {
+      return 0;
+    }
+
+    if (from.getSegment() == to.getSegment()) {
+      return to.getPosition() - from.getPosition();
+    }
+
+    long result = Math.max(0, segmentLength(from.getSegment()) - from.getPosition());
+    for (final long segment : segments.subSet(from.getSegment(), false, to.getSegment(), false)) {
+      result += segmentLength(segment);
+    }
+
+    return result + to.getPosition();
+  }
+
+  private long segmentLength(final long segment) {
+    return walLocation.resolve(getSegmentName(segment)).toFile().length();
+  }
+
   public Path getWMRFile() {
     return masterRecordPath;
   }
@@ -1360,6 +1421,115 @@ public final class OCASDiskWriteAheadLog implements OWriteAheadLog {
     waitTillWriteWillBeFinished();
   }
 
+  @Override
+  public void flushTill(final OLogSequenceNumber lsn) {
+    OLogSequenceNumber flushedLSN = this.flushedLSN;
+    if (flushedLSN != null && flushedLSN.compareTo(lsn) >= 0) {
+      return;
+    }
+
+    final long startTs = System.nanoTime();
+    groupCommitStatistic.onArrival(startTs);
+
+    //record is already logged so it is written by the fsync of any group which is flushed after we join it
+    while (!stopWrite && (flushedLSN == null || flushedLSN.compareTo(lsn) < 0)) {
+      final GroupCommit group = joinGroupCommit();
+      try {
+        group.flushed.get();
+      } catch (final InterruptedException e) {
+        throw OException.wrapException(new OStorageException("WAL flush for storage " + storageName + " was interrupted"), e);
+      } catch (final ExecutionException e) {
+        throw OException.wrapException(new OStorageException("Error during WAL flush for storage " + storageName), e);
+      }
+
+      flushedLSN = this.flushedLSN;
+    }
+
+    if (flushedLSN == null || flushedLSN.compareTo(lsn) < 0) {
+      throw new OStorageException("WAL of storage " + storageName + " is closed, record with LSN " + lsn + " was not synced");
+    }
+
+    groupCommitStatistic.onCommit(System.nanoTime() - startTs);
+  }
+
+  /**
+   * @return group of commits which wait for the next fsync, if there is no such group the new one is created and its flush is
+   * scheduled after the interval needed to collect concurrent commits.
+   */
+  private GroupCommit joinGroupCommit() {
+    while (true) {
+      final GroupCommit group = groupCommit.get();
+      if (group != null) {
+        group.size.incrementAndGet();
+        return group;
+      }
+
+      final GroupCommit newGroup = new GroupCommit();
+      newGroup.size.incrementAndGet();
+
+      if (groupCommit.compareAndSet(null, newGroup)) {
+        try {
+          commitExecutor.schedule(() -> flushGroupCommit(newGroup), groupCommitStatistic.delay(), TimeUnit.NANOSECONDS);
+        } catch (final RejectedExecutionException e) {
+          groupCommit.compareAndSet(newGroup, null);
+          newGroup.flushed.completeExceptionally(e);
+        }
+
+        return newGroup;
+      }
+    }
+  }
+
+  private void flushGroupCommit(final GroupCommit group) {
+    //commits which arrive from now on join the next group, their records may be logged after the milestone of this flush
+    groupCommit.compareAndSet(group, null);
+
+    final long startTs = System.nanoTime();
+    try {
+      new RecordsWriter(true, true, false).run();
+    } catch (final RuntimeException | Error e) {
+      group.flushed.completeExceptionally(e);
+      throw e;
+    }
+
+    //fsync is performed by the write thread, so we release the group from the same thread once fsync is completed
+    final Future<?> fsyncFuture = writeFuture;
+    try {
+      writeExecutor.execute(() -> {
+        try {
+          if (fsyncFuture != null) {
+            fsyncFuture.get();
+          }
+
+          groupCommitStatistic.onFlush(System.nanoTime() - startTs, group.size.get());
+          group.flushed.complete(null);
+        } catch (final InterruptedException | ExecutionException e) {
+          group.flushed.completeExceptionally(e);
+        }
+      });
+    } catch (final RejectedExecutionException e) {
+      //WAL is closed, commits which wait for this group should not hang
+      group.flushed.completeExceptionally(e);
+    }
+  }
+
+  /**
+   * @param percentile percentile of commit latency, from 0 to 100
+   *
+   * @return upper bound in microseconds of the given percentile of time spent by commits to wait for WAL fsync, or
+   * <code>-1</code> if there were no such commits
+   */
+  public long getCommitLatencyPercentile(final double percentile) {
+    return groupCommitStatistic.latencyPercentile(percentile);
+  }
+
+  /**
+   * @return average amount of commits which share the same WAL fsync, or <code>-1</code> if there were no such commits
+   */
+  public long getGroupCommitSize() {
+    return groupCommitStatistic.averageBatchSize();
+  }
+
   public void close() throws IOException {
     close(true);
   }
@@ -2094,6 +2264,12 @@ public final class OCASDiskWriteAheadLog implements OWriteAheadLog {
         buffer.position(start + OCASWALPage.PAGE_SIZE_OFFSET);
         buffer.putShort((short) pageSize);
 
+        if (pageEncryption != null) {
+          // every page is written only once, so its position inside of the segment is used as version of its content
+          pageEncryption.crypt(~segmentId, segmentId, (currentPosition + start) / OCASDiskWriteAheadLog.this.pageSize,
+              buffer, start + OCASWALPage.RECORDS_OFFSET, pageSize - OCASWALPage.RECORDS_OFFSET);
+        }
+
         buffer.position(start + OCASWALPage.RECORDS_OFFSET);
         final XXHash64 xxHash64 = xxHashFactory.hash64();
         final long hash = xxHash64.hash(buffer, XX_SEED);
@@ -2224,6 +2400,11 @@ public final class OCASDiskWriteAheadLog implements OWriteAheadLog {
 
   }
 
+  private static final class GroupCommit {
+    private final CompletableFuture<Void> flushed = new CompletableFuture<>();
+    private final AtomicInteger           size    = new AtomicInteger();
+  }
+
   private static final class WrittenUpTo {
     private final OLogSequenceNumber lsn;
     private final long               position;
@@ -0,0 +1,147 @@
+package com.orientechnologies.orient.core.storage.impl.local.paginated.wal.cas;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistic of the commits which wait for the fsync of WAL, used by {@link OCASDiskWriteAheadLog} both to report commit latency
+ * and to size the interval during which a group commit collects concurrent commits.
+ * <p>
+ * Fsync latency and interval between arrivals of commits are tracked as exponentially weighted moving averages, commit latencies
+ * are kept in a histogram with buckets of power of two microseconds.
+ */
+final class OGroupCommitStatistic {
+  private static final int BUCKETS = 40;
+
+  /**
+   * Weight of the new sample in moving averages is 1 / 2^<code>AVERAGE_SHIFT</code>
+   */
+  private static final int AVERAGE_SHIFT = 3;
+
+  private final long maxDelay;
+
+  private final AtomicLongArray latencies = new AtomicLongArray(BUCKETS);
+
+  private final LongAdder  flushes        = new LongAdder();
+  private final LongAdder  flushedCommits = new LongAdder();
+  private final AtomicLong lastArrivalTs  = new AtomicLong(-1);
+
+  //updates of averages are not atomic, lost updates only make them a bit less precise
+  private volatile long fsyncTime       = -1;
+  private volatile long arrivalInterval = -1;
+
+  /**
+   * @param maxDelay maximum interval in nanoseconds returned by {@link #delay()}
+   */
+  OGroupCommitStatistic(final long maxDelay) {
+    this.maxDelay = maxDelay;
+  }
+
+  /**
+   * Registers the start of the wait of a commit.
+   *
+   * @param ts current time in nanoseconds
+   */
+  void onArrival(final long ts) {
+    final long lastTs = lastArrivalTs.getAndSet(ts);
+    if (lastTs >= 0 && ts >= lastTs) {
+      arrivalInterval = average(arrivalInterval, ts - lastTs);
+    }
+  }
+
+  /**
+   * Registers the end of the wait of a commit.
+   *
+   * @param latency time spent by the commit waiting for the fsync in nanoseconds
+   */
+  void onCommit(final long latency) {
+    latencies.incrementAndGet(bucket(latency / 1_000));
+  }
+
+  /**
+   * Registers the fsync of a group of commits.
+   *
+   * @param time      time spent to write and sync WAL in nanoseconds
+   * @param batchSize amount of commits which waited for this fsync
+   */
+  void onFlush(final long time, final int batchSize) {
+    fsyncTime = average(fsyncTime, time);
+
+    flushes.increment();
+    flushedCommits.add(batchSize);
+  }
+
+  /**
+   * @return interval in nanoseconds during which a new group commit waits for other commits before fsync. A group is worth to
+   * wait only if at least two commits are expected to arrive during a fsync, otherwise the wait would only add latency, in such
+   * case the group is flushed immediately. The wait is never longer than half of the fsync latency, because commits which arrive
+   * during an fsync join the next group anyway.
+   */
+  long delay() {
+    final long fsyncTime = this.fsyncTime;
+    final long arrivalInterval = this.arrivalInterval;
+
+    if (fsyncTime <= 0 || arrivalInterval < 0 || fsyncTime < 2 * arrivalInterval) {
+      return 0;
+    }
+
+    return Math.min(fsyncTime / 2, maxDelay);
+  }
+
+  /**
+   * @param percentile percentile of commit latency, from 0 to 100
+   *
+   * @return upper bound in microseconds of the given percentile of commit latency, or <code>-1</code> if no commit waited for WAL
+   */
+  long latencyPercentile(final double percentile) {
+    final long[] counts = new long[BUCKETS];
+    long total = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      counts[i] = latencies.get(i);
+      total += counts[i];
+    }
+
+    if (total == 0) {
+      return -1;
+    }
+
+    final long rank = (long) Math.ceil(total * Math.max(0, Math.min(percentile, 100)) / 100);
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      count += counts[i];
+      if (count >= rank && count > 0) {
+        return 1L << i;
+      }
+    }
+
+    return 1L << (BUCKETS - 1);
+  }
+
+  /**
+   * @return average amount of commits which share the same fsync, or <code>-1</code> if no commit waited for WAL
+   */
+  long averageBatchSize() {
+    final long flushes = this.flushes.sum();
+    if (flushes == 0) {
+      return -1;
+    }
+
+    return flushedCommits.sum() / flushes;
+  }
+
+  private static long average(final long average, final long sample) {
+    if (average < 0) {
+      return sample;
+    }
+
+    return average + ((sample - average) >> AVERAGE_SHIFT);
+  }
+
+  /**
+   * @return index of the bucket which contains latencies in the interval [2^(index - 1), 2^index) microseconds
+   */
+  private static int bucket(final long micros) {
+    return Math.min(64 - Long.numberOfLeadingZeros(micros), BUCKETS - 1);
+  }
+}
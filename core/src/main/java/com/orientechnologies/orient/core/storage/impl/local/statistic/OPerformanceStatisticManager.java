@@ -28,9 +28,12 @@ import com.orientechnologies.orient.core.storage.OIdentifiableStorage;
 import com.orientechnologies.orient.core.storage.OStorage;
 import com.orientechnologies.orient.core.storage.cache.OReadCache;
 import com.orientechnologies.orient.core.storage.cache.OWriteCache;
+import com.orientechnologies.orient.core.storage.cache.chm.AsyncReadCache;
 import com.orientechnologies.orient.core.storage.cache.local.OWOWCache;
 import com.orientechnologies.orient.core.storage.cache.local.twoq.O2QCache;
 import com.orientechnologies.orient.core.storage.impl.local.OAbstractPaginatedStorage;
+import com.orientechnologies.orient.core.storage.impl.local.paginated.wal.OWriteAheadLog;
+import com.orientechnologies.orient.core.storage.impl.local.paginated.wal.cas.OCASDiskWriteAheadLog;
 
 import javax.management.InstanceAlreadyExistsException;
 import javax.management.InstanceNotFoundException;
@@ -189,6 +192,13 @@ public class OPerformanceStatisticManager {
    */
   private long walCacheOverflowCount = -1;
 
+  /**
+   * Average amount of commits which share the same WAL fsync.
+   * Value is updated on demand if monitoring is switched on.
+   * Supported only for disk based storage.
+   */
+  private long walGroupCommitSize = -1;
+
   /**
    * Size of read cache in bytes.
    * Value is updated on demand if monitoring is switched on.
@@ -920,6 +930,42 @@ public class OPerformanceStatisticManager {
     }
   }
 
+  /**
+   * @return Percent of regular page reads which hit the read cache, or <code>-1</code> if value is undefined.
+   */
+  public int getReadCacheHitRate() {
+    switchLock.acquireReadLock();
+    try {
+      if (enabled) {
+        final OReadCache cache = storage.getReadCache();
+        if (cache instanceof AsyncReadCache)
+          return ((AsyncReadCache) cache).hitRate();
+      }
+
+      return -1;
+    } finally {
+      switchLock.releaseReadLock();
+    }
+  }
+
+  /**
+   * @return Percent of page reads of one-shot scans which hit the read cache, or <code>-1</code> if value is undefined.
+   */
+  public int getReadCacheScanHitRate() {
+    switchLock.acquireReadLock();
+    try {
+      if (enabled) {
+        final OReadCache cache = storage.getReadCache();
+        if (cache instanceof AsyncReadCache)
+          return ((AsyncReadCache) cache).scanHitRate();
+      }
+
+      return -1;
+    } finally {
+      switchLock.releaseReadLock();
+    }
+  }
+
   /**
    * @return Size of write cache in bytes or <code>-1</code> if value is undefined.
    */
@@ -985,6 +1031,47 @@ public class OPerformanceStatisticManager {
     }
   }
 
+  /**
+   * @param percentile percentile of commit latency, from 0 to 100
+   *
+   * @return upper bound in microseconds of the given percentile of time which commits spend waiting for WAL fsync, or
+   * <code>-1</code> if value is undefined.
+   */
+  public long getWALCommitLatencyPercentile(double percentile) {
+    switchLock.acquireReadLock();
+    try {
+      if (enabled) {
+        final OWriteAheadLog writeAheadLog = storage.getWALInstance();
+        if (writeAheadLog instanceof OCASDiskWriteAheadLog)
+          return ((OCASDiskWriteAheadLog) writeAheadLog).getCommitLatencyPercentile(percentile);
+      }
+
+      return -1;
+    } finally {
+      switchLock.releaseReadLock();
+    }
+  }
+
+  /**
+   * @return Average amount of commits which share the same WAL fsync, or <code>-1</code> if value is undefined.
+   */
+  public long getWALGroupCommitSize() {
+    switchLock.acquireReadLock();
+    try {
+      if (enabled) {
+        final OWriteAheadLog writeAheadLog = storage.getWALInstance();
+        if (writeAheadLog instanceof OCASDiskWriteAheadLog)
+          walGroupCommitSize = ((OCASDiskWriteAheadLog) writeAheadLog).getGroupCommitSize();
+
+        return walGroupCommitSize;
+      } else {
+        return walGroupCommitSize;
+      }
+    } finally {
+      switchLock.releaseReadLock();
+    }
+  }
+
   /**
    * @return time which is spent on logging of single record or <code>-1</code> if value is undefined.
    */
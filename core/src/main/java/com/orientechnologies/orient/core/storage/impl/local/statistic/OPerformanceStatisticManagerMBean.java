@@ -120,6 +120,16 @@ public class OPerformanceStatisticManagerMBean implements DynamicMBean {
    */
   private static final String READ_CACHE_SIZE = "readCacheSize";
 
+  /**
+   * Name of "readCacheHitRate" performance attribute
+   */
+  private static final String READ_CACHE_HIT_RATE = "readCacheHitRate";
+
+  /**
+   * Name of "readCacheScanHitRate" performance attribute
+   */
+  private static final String READ_CACHE_SCAN_HIT_RATE = "readCacheScanHitRate";
+
   /**
    * Name of "writeCacheSize" performance attribute
    */
@@ -145,6 +155,21 @@ public class OPerformanceStatisticManagerMBean implements DynamicMBean {
    */
   private static final String WAL_CACHE_OVERFLOW_COUNT = "walCacheOverflowCount";
 
+  /**
+   * Name of "walCommitLatencyP50" performance attribute
+   */
+  private static final String WAL_COMMIT_LATENCY_P50 = "walCommitLatencyP50";
+
+  /**
+   * Name of "walCommitLatencyP99" performance attribute
+   */
+  private static final String WAL_COMMIT_LATENCY_P99 = "walCommitLatencyP99";
+
+  /**
+   * Name of "walGroupCommitSize" performance attribute
+   */
+  private static final String WAL_GROUP_COMMIT_SIZE = "walGroupCommitSize";
+
   /**
    * Name of "walLogTime" performance attribute
    */
@@ -274,6 +299,18 @@ public class OPerformanceStatisticManagerMBean implements DynamicMBean {
       else
         throwComponentsAreNotSupported(READ_CACHE_SIZE);
       break;
+    case READ_CACHE_HIT_RATE:
+      if (componentName == null)
+        return manager.getReadCacheHitRate();
+      else
+        throwComponentsAreNotSupported(READ_CACHE_HIT_RATE);
+      break;
+    case READ_CACHE_SCAN_HIT_RATE:
+      if (componentName == null)
+        return manager.getReadCacheScanHitRate();
+      else
+        throwComponentsAreNotSupported(READ_CACHE_SCAN_HIT_RATE);
+      break;
     case WRITE_CACHE_SIZE:
       if (componentName == null)
         return manager.getWriteCacheSize();
@@ -316,6 +353,24 @@ public class OPerformanceStatisticManagerMBean implements DynamicMBean {
       else
         throwComponentsAreNotSupported(WAL_FLUSH_TIME);
       break;
+    case WAL_COMMIT_LATENCY_P50:
+      if (componentName == null)
+        return manager.getWALCommitLatencyPercentile(50);
+      else
+        throwComponentsAreNotSupported(WAL_COMMIT_LATENCY_P50);
+      break;
+    case WAL_COMMIT_LATENCY_P99:
+      if (componentName == null)
+        return manager.getWALCommitLatencyPercentile(99);
+      else
+        throwComponentsAreNotSupported(WAL_COMMIT_LATENCY_P99);
+      break;
+    case WAL_GROUP_COMMIT_SIZE:
+      if (componentName == null)
+        return manager.getWALGroupCommitSize();
+      else
+        throwComponentsAreNotSupported(WAL_GROUP_COMMIT_SIZE);
+      break;
     }
 
     throw new AttributeNotFoundException("Cannot find " + attribute + " attribute in " + getClass().getSimpleName());
@@ -428,6 +483,7 @@ public class OPerformanceStatisticManagerMBean implements DynamicMBean {
     populateFullCheckpointCount(performanceAttributes);
 
     populateReadCacheSize(performanceAttributes);
+    populateReadCacheHitRate(performanceAttributes);
     populateWriteCacheSize(performanceAttributes);
     populateExclusiveWriteCacheSize(performanceAttributes);
     populateWriteCacheOverflowCount(performanceAttributes);
@@ -438,6 +494,8 @@ public class OPerformanceStatisticManagerMBean implements DynamicMBean {
     populateWALEndAOLogTime(performanceAttributes);
     populateWALStartAOLogTime(performanceAttributes);
     populateWALFlushTime(performanceAttributes);
+    populateWALCommitLatency(performanceAttributes);
+    populateWALGroupCommitSize(performanceAttributes);
   }
 
   private void populateWriteSpeedInCache(List<MBeanAttributeInfo> performanceAttributes, Collection<String> components) {
@@ -548,6 +606,16 @@ public class OPerformanceStatisticManagerMBean implements DynamicMBean {
     performanceAttributes.add(readCacheSize);
   }
 
+  private void populateReadCacheHitRate(List<MBeanAttributeInfo> performanceAttributes) {
+    final MBeanAttributeInfo hitRate = new ModelMBeanAttributeInfo(READ_CACHE_HIT_RATE, int.class.getName(),
+        "Percent of regular page reads which hit the read cache", true, false, false);
+    final MBeanAttributeInfo scanHitRate = new ModelMBeanAttributeInfo(READ_CACHE_SCAN_HIT_RATE, int.class.getName(),
+        "Percent of page reads of one-shot scans which hit the read cache", true, false, false);
+
+    performanceAttributes.add(hitRate);
+    performanceAttributes.add(scanHitRate);
+  }
+
   private void populateWriteCacheSize(List<MBeanAttributeInfo> performanceAttributes) {
     final MBeanAttributeInfo writeCacheSize = new ModelMBeanAttributeInfo(WRITE_CACHE_SIZE, long.class.getName(),
         "Size of write cache in bytes", true, false, false);
@@ -611,4 +679,21 @@ public class OPerformanceStatisticManagerMBean implements DynamicMBean {
     performanceAttributes.add(walFlushTime);
   }
 
+  private void populateWALCommitLatency(List<MBeanAttributeInfo> performanceAttributes) {
+    final MBeanAttributeInfo commitLatencyP50 = new ModelMBeanAttributeInfo(WAL_COMMIT_LATENCY_P50, long.class.getName(),
+        "Median of time in microseconds which commit waits for WAL fsync", true, false, false);
+    final MBeanAttributeInfo commitLatencyP99 = new ModelMBeanAttributeInfo(WAL_COMMIT_LATENCY_P99, long.class.getName(),
+        "99th percentile of time in microseconds which commit waits for WAL fsync", true, false, false);
+
+    performanceAttributes.add(commitLatencyP50);
+    performanceAttributes.add(commitLatencyP99);
+  }
+
+  private void populateWALGroupCommitSize(List<MBeanAttributeInfo> performanceAttributes) {
+    final MBeanAttributeInfo groupCommitSize = new ModelMBeanAttributeInfo(WAL_GROUP_COMMIT_SIZE, long.class.getName(),
+        "Average amount of commits which share the same WAL fsync", true, false, false);
+
+    performanceAttributes.add(groupCommitSize);
+  }
+
 }
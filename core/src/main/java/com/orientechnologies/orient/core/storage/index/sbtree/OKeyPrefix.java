@@ -0,0 +1,201 @@
+/*
+ *
+ *  *  Copyright 2010-2016 OrientDB LTD (http://orientdb.com)
+ *  *
+ *  *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  *  you may not use this file except in compliance with the License.
+ *  *  You may obtain a copy of the License at
+ *  *
+ *  *       http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *  Unless required by applicable law or agreed to in writing, software
+ *  *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *  See the License for the specific language governing permissions and
+ *  *  limitations under the License.
+ *  *
+ *  * For more information: http://orientdb.com
+ *
+ */
+
+package com.orientechnologies.orient.core.storage.index.sbtree;
+
+import com.orientechnologies.common.comparator.ODefaultComparator;
+import com.orientechnologies.orient.core.index.OAlwaysGreaterKey;
+import com.orientechnologies.orient.core.index.OAlwaysLessKey;
+import com.orientechnologies.orient.core.index.OCompositeKey;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Logical key prefixes used by prefix compressed B-tree pages.
+ * <p>
+ * Prefix is calculated on the level of key objects, not on the level of serialized keys, because serialized keys start from
+ * length headers which differ for keys with the same prefix. Only {@link String} keys and {@link OCompositeKey} keys have
+ * prefix. Prefix of string keys is the common leading part of the strings, prefix of composite keys is the list of equal leading
+ * key components. Composite key prefix never includes all components of the key, so suffix of composite key is never empty.
+ * For all other keys prefix is <code>null</code>.
+ * <p>
+ * Suffixes preserve key order, so two keys which start from the same prefix may be compared by their suffixes.
+ */
+public final class OKeyPrefix {
+  private OKeyPrefix() {
+  }
+
+  /**
+   * @return common prefix of passed in keys or <code>null</code> if keys do not have common prefix.
+   */
+  public static Object commonPrefix(final Object first, final Object second) {
+    if (first instanceof String && second instanceof String) {
+      final String firstString = (String) first;
+      final String secondString = (String) second;
+
+      final int length = Math.min(firstString.length(), secondString.length());
+      int prefixLength = 0;
+      while (prefixLength < length && firstString.charAt(prefixLength) == secondString.charAt(prefixLength)) {
+        prefixLength++;
+      }
+
+      if (prefixLength > 0 && Character.isHighSurrogate(firstString.charAt(prefixLength - 1))) {
+        prefixLength--;
+      }
+
+      if (prefixLength == 0) {
+        return null;
+      }
+
+      return firstString.substring(0, prefixLength);
+    }
+
+    if (first instanceof OCompositeKey && second instanceof OCompositeKey) {
+      final List<Object> firstKeys = ((OCompositeKey) first).getKeys();
+      final List<Object> secondKeys = ((OCompositeKey) second).getKeys();
+
+      final int length = Math.min(firstKeys.size(), secondKeys.size()) - 1;
+      int prefixLength = 0;
+      while (prefixLength < length && componentsEqual(firstKeys.get(prefixLength), secondKeys.get(prefixLength))) {
+        prefixLength++;
+      }
+
+      if (prefixLength == 0) {
+        return null;
+      }
+
+      return new OCompositeKey(firstKeys.subList(0, prefixLength));
+    }
+
+    return null;
+  }
+
+  /**
+   * @return <code>true</code> if key may be presented as concatenation of passed in prefix and non empty (for composite keys)
+   * suffix. Any key starts with <code>null</code> prefix.
+   */
+  public static boolean startsWith(final Object key, final Object prefix) {
+    if (prefix == null) {
+      return true;
+    }
+
+    if (prefix instanceof String) {
+      return key instanceof String && ((String) key).startsWith((String) prefix);
+    }
+
+    if (prefix instanceof OCompositeKey) {
+      if (!(key instanceof OCompositeKey)) {
+        return false;
+      }
+
+      final List<Object> prefixKeys = ((OCompositeKey) prefix).getKeys();
+      final List<Object> keys = ((OCompositeKey) key).getKeys();
+
+      if (keys.size() <= prefixKeys.size()) {
+        return false;
+      }
+
+      for (int i = 0; i < prefixKeys.size(); i++) {
+        if (!componentsEqual(prefixKeys.get(i), keys.get(i))) {
+          return false;
+        }
+      }
+
+      return true;
+    }
+
+    return false;
+  }
+
+  /**
+   * @return suffix of the key which is left after removal of passed in prefix, key should start with given prefix.
+   */
+  public static Object stripPrefix(final Object key, final Object prefix) {
+    if (prefix == null) {
+      return key;
+    }
+
+    if (prefix instanceof String) {
+      return ((String) key).substring(((String) prefix).length());
+    }
+
+    final List<Object> keys = ((OCompositeKey) key).getKeys();
+    return new OCompositeKey(keys.subList(((OCompositeKey) prefix).getKeys().size(), keys.size()));
+  }
+
+  /**
+   * @return key which is concatenation of passed in prefix and suffix.
+   */
+  public static Object addPrefix(final Object prefix, final Object suffix) {
+    if (prefix == null) {
+      return suffix;
+    }
+
+    if (prefix instanceof String) {
+      return ((String) prefix).concat((String) suffix);
+    }
+
+    final OCompositeKey key = new OCompositeKey(((OCompositeKey) prefix).getKeys());
+    for (final Object component : ((OCompositeKey) suffix).getKeys()) {
+      key.addKey(component);
+    }
+
+    return key;
+  }
+
+  /**
+   * @return types of the prefix components or <code>null</code> if key types are not known.
+   */
+  public static OType[] prefixTypes(final OType[] keyTypes, final Object prefix) {
+    if (keyTypes == null || !(prefix instanceof OCompositeKey)) {
+      return keyTypes;
+    }
+
+    final int prefixSize = ((OCompositeKey) prefix).getKeys().size();
+    return Arrays.copyOf(keyTypes, Math.min(prefixSize, keyTypes.length));
+  }
+
+  /**
+   * @return types of the suffix components or <code>null</code> if key types are not known.
+   */
+  public static OType[] suffixTypes(final OType[] keyTypes, final Object prefix) {
+    if (keyTypes == null || !(prefix instanceof OCompositeKey)) {
+      return keyTypes;
+    }
+
+    final int prefixSize = ((OCompositeKey) prefix).getKeys().size();
+    if (prefixSize >= keyTypes.length) {
+      return null;
+    }
+
+    return Arrays.copyOfRange(keyTypes, prefixSize, keyTypes.length);
+  }
+
+  private static boolean componentsEqual(final Object first, final Object second) {
+    if (first instanceof OAlwaysLessKey || first instanceof OAlwaysGreaterKey || second instanceof OAlwaysLessKey
+        || second instanceof OAlwaysGreaterKey) {
+      return false;
+    }
+
+    return ODefaultComparator.INSTANCE.compare(first, second) == 0;
+  }
+}
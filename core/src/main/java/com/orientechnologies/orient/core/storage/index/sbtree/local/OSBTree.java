@@ -1649,6 +1649,9 @@ public class OSBTree<K, V> extends ODurableComponent {
     @SuppressWarnings("unchecked")
     private       Iterator<Map.Entry<K, V>> dataCacheIterator = OEmptyMapEntryIterator.INSTANCE;
 
+    private boolean readAhead           = false;
+    private long    prefetchedPageIndex = -1;
+
     private OSBTreeCursorForward(final K fromKey, final K toKey, final boolean fromKeyInclusive, final boolean toKeyInclusive) {
       this.fromKey = fromKey;
       this.toKey = toKey;
@@ -1725,9 +1728,16 @@ public class OSBTree<K, V> extends ODurableComponent {
               if (itemIndex >= bucket.size()) {
                 pageIndex = bucket.getRightSibling();
                 itemIndex = 0;
+                readAhead = true;
                 continue;
               }
 
+              //once the cursor has crossed a leaf, the following leaf is requested before it is needed
+              if (readAhead && bucket.getRightSibling() >= 0 && bucket.getRightSibling() != prefetchedPageIndex) {
+                prefetchedPageIndex = bucket.getRightSibling();
+                prefetchPages(fileId, prefetchedPageIndex, 1);
+              }
+
               final Map.Entry<K, V> entry = convertToMapEntry(bucket.getEntry(itemIndex), atomicOperation);
               itemIndex++;
 
@@ -1783,6 +1793,9 @@ public class OSBTree<K, V> extends ODurableComponent {
     @SuppressWarnings("unchecked")
     private       Iterator<Map.Entry<K, V>> dataCacheIterator = OEmptyMapEntryIterator.INSTANCE;
 
+    private boolean readAhead           = false;
+    private long    prefetchedPageIndex = -1;
+
     private OSBTreeCursorBackward(final K fromKey, final K toKey, final boolean fromKeyInclusive, final boolean toKeyInclusive) {
       this.fromKey = fromKey;
       this.toKey = toKey;
@@ -1859,9 +1872,15 @@ public class OSBTree<K, V> extends ODurableComponent {
               if (itemIndex < 0) {
                 pageIndex = bucket.getLeftSibling();
                 itemIndex = Integer.MAX_VALUE;
+                readAhead = true;
                 continue;
               }
 
+              if (readAhead && bucket.getLeftSibling() >= 0 && bucket.getLeftSibling() != prefetchedPageIndex) {
+                prefetchedPageIndex = bucket.getLeftSibling();
+                prefetchPages(fileId, prefetchedPageIndex, 1);
+              }
+
               final Map.Entry<K, V> entry = convertToMapEntry(bucket.getEntry(itemIndex), atomicOperation);
               itemIndex--;
 
@@ -0,0 +1,73 @@
+package com.orientechnologies.orient.core.storage.index.sbtree.singlevalue;
+
+import com.orientechnologies.orient.core.storage.cache.OCacheEntry;
+import com.orientechnologies.orient.core.storage.impl.local.paginated.base.ODurablePage;
+
+/**
+ * Page of blocked Bloom filter which is used by {@link OCellBTreeSingleValue} to skip look up of keys which are absent in the
+ * tree. Page is split on blocks of {@link #BLOCK_SIZE} bytes, all bits of the single key are set inside of the single block, so
+ * check of the key requires load of only one page and touches only one cache line of it.
+ */
+final class OBloomFilterPage extends ODurablePage {
+  static final int BLOCK_SIZE = 64;
+
+  private static final int BLOCK_BITS_MASK = BLOCK_SIZE * 8 - 1;
+
+  static final int BLOCKS_PER_PAGE = (MAX_PAGE_SIZE_BYTES - NEXT_FREE_POSITION) / BLOCK_SIZE;
+
+  OBloomFilterPage(final OCacheEntry cacheEntry) {
+    super(cacheEntry);
+  }
+
+  void clear() {
+    setBinaryValue(NEXT_FREE_POSITION, new byte[BLOCKS_PER_PAGE * BLOCK_SIZE]);
+  }
+
+  /**
+   * Sets bits of the key in the block.
+   *
+   * @param block  index of the block inside of the page
+   * @param hash   first hash of the key used to calculate positions of the bits
+   * @param step   second hash of the key used to calculate positions of the bits
+   * @param hashes amount of bits set for each key
+   */
+  void add(final int block, final int hash, final int step, final int hashes) {
+    final int blockOffset = NEXT_FREE_POSITION + block * BLOCK_SIZE;
+
+    int bit = hash;
+    for (int i = 0; i < hashes; i++) {
+      final int offset = blockOffset + ((bit & BLOCK_BITS_MASK) >>> 3);
+      final byte mask = (byte) (1 << (bit & 7));
+
+      final byte value = getByteValue(offset);
+      if ((value & mask) == 0) {
+        setByteValue(offset, (byte) (value | mask));
+      }
+
+      bit += step;
+    }
+  }
+
+  /**
+   * @return <code>false</code> if key was never added into the block, <code>true</code> if key may be added into the block.
+   *
+   * @see #add(int, int, int, int)
+   */
+  boolean mightContain(final int block, final int hash, final int step, final int hashes) {
+    final int blockOffset = NEXT_FREE_POSITION + block * BLOCK_SIZE;
+
+    int bit = hash;
+    for (int i = 0; i < hashes; i++) {
+      final int offset = blockOffset + ((bit & BLOCK_BITS_MASK) >>> 3);
+      final byte mask = (byte) (1 << (bit & 7));
+
+      if ((getByteValue(offset) & mask) == 0) {
+        return false;
+      }
+
+      bit += step;
+    }
+
+    return true;
+  }
+}
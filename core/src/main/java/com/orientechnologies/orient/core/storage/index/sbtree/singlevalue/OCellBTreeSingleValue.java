@@ -22,6 +22,7 @@ package com.orientechnologies.orient.core.storage.index.sbtree.singlevalue;
 
 import com.orientechnologies.common.comparator.ODefaultComparator;
 import com.orientechnologies.common.exception.OException;
+import com.orientechnologies.common.hash.OMurmurHash3;
 import com.orientechnologies.common.serialization.types.OBinarySerializer;
 import com.orientechnologies.common.serialization.types.OIntegerSerializer;
 import com.orientechnologies.common.serialization.types.OLongSerializer;
@@ -84,24 +85,49 @@ public final class OCellBTreeSingleValue<K> extends ODurableComponent {
 
   private static final int MAX_PATH_LENGTH = OGlobalConfiguration.SBTREE_MAX_DEPTH.getValueAsInteger();
 
+  /**
+   * Amount of pages which are filled by bulk load inside of single atomic operation.
+   */
+  private static final int BULK_LOAD_PAGES_PER_OPERATION = 256;
+
+  private static final int  FILTER_BITS_PER_KEY  = Math
+      .max(OGlobalConfiguration.INDEX_BLOOM_FILTER_BITS_PER_KEY.getValueAsInteger(), 1);
+  private static final int  FILTER_HASHES        = Math.max(1, Math.min(16, (int) Math.round(FILTER_BITS_PER_KEY * Math.log(2))));
+  private static final long FILTER_KEYS_PER_PAGE =
+      (long) OBloomFilterPage.BLOCKS_PER_PAGE * OBloomFilterPage.BLOCK_SIZE * 8 / FILTER_BITS_PER_KEY;
+  private static final int  FILTER_HASH_SEED     = 0x5bd1e995;
+
   private final static int                   ENTRY_POINT_INDEX = 0;
   private final static long                  ROOT_INDEX        = 1;
   private final        Comparator<? super K> comparator        = ODefaultComparator.INSTANCE;
 
   private final String               nullFileExtension;
+  private final String               filterFileExtension;
   private       long                 fileId;
   private       long                 nullBucketFileId = -1;
+  private       long                 filterFileId     = -1;
   private       int                  keySize;
   private       OBinarySerializer<K> keySerializer;
   private       OType[]              keyTypes;
   private       OEncryption          encryption;
+  private       boolean              keyPrefixCompression;
 
   public OCellBTreeSingleValue(final String name, final String dataFileExtension, final String nullFileExtension,
       final OAbstractPaginatedStorage storage) {
+    this(name, dataFileExtension, nullFileExtension, null, storage);
+  }
+
+  /**
+   * @param filterFileExtension extension of the file of the Bloom filter of the tree, <code>null</code> if tree is never created
+   *                            with Bloom filter
+   */
+  public OCellBTreeSingleValue(final String name, final String dataFileExtension, final String nullFileExtension,
+      final String filterFileExtension, final OAbstractPaginatedStorage storage) {
     super(storage, name, dataFileExtension, name + dataFileExtension);
     acquireExclusiveLock();
     try {
       this.nullFileExtension = nullFileExtension;
+      this.filterFileExtension = filterFileExtension;
     } finally {
       releaseExclusiveLock();
     }
@@ -109,6 +135,28 @@ public final class OCellBTreeSingleValue<K> extends ODurableComponent {
 
   public void create(final OBinarySerializer<K> keySerializer, final OType[] keyTypes, final int keySize,
       final OEncryption encryption) throws IOException {
+    create(keySerializer, keyTypes, keySize, encryption, false, false);
+  }
+
+  public void create(final OBinarySerializer<K> keySerializer, final OType[] keyTypes, final int keySize,
+      final OEncryption encryption, final boolean keyPrefixCompression) throws IOException {
+    create(keySerializer, keyTypes, keySize, encryption, keyPrefixCompression, false);
+  }
+
+  /**
+   * Creates tree.
+   *
+   * @param keyPrefixCompression whether pages of the tree should store common prefix of their keys only once. It decreases
+   *                             size of string and composite keys which share the same beginning, like URLs or keys of the same
+   *                             tenant, at the cost of additional processing of keys during page updates. Format of the pages
+   *                             is stored in pages itself, so this setting is not needed during load of the tree.
+   * @param bloomFilter          whether tree should keep Bloom filter of its keys. Filter is checked before look up of the key
+   *                             in the tree pages, so most of the look ups of absent keys do not load pages of the tree. Filter
+   *                             is stored in the separate file, new layer is added to it when amount of added keys exceeds
+   *                             its capacity.
+   */
+  public void create(final OBinarySerializer<K> keySerializer, final OType[] keyTypes, final int keySize,
+      final OEncryption encryption, final boolean keyPrefixCompression, final boolean bloomFilter) throws IOException {
     assert keySerializer != null;
     boolean rollback = false;
     final OAtomicOperation atomicOperation = startAtomicOperation(false);
@@ -125,6 +173,7 @@ public final class OCellBTreeSingleValue<K> extends ODurableComponent {
 
         this.encryption = encryption;
         this.keySerializer = keySerializer;
+        this.keyPrefixCompression = keyPrefixCompression;
 
         fileId = addFile(atomicOperation, getFullName());
         nullBucketFileId = addFile(atomicOperation, getName() + nullFileExtension);
@@ -140,8 +189,8 @@ public final class OCellBTreeSingleValue<K> extends ODurableComponent {
         final OCacheEntry rootCacheEntry = addPage(atomicOperation, fileId);
         try {
           @SuppressWarnings("unused")
-          final OSBTreeBucketSingleValue<K> rootBucket = new OSBTreeBucketSingleValue<>(rootCacheEntry, true, keySerializer,
-              keyTypes, encryption);
+          final OSBTreeBucketSingleValue<K> rootBucket = new OSBTreeBucketSingleValue<>(rootCacheEntry, true,
+              keyPrefixCompression, keySerializer, keyTypes, encryption);
         } finally {
           releasePageFromWrite(atomicOperation, rootCacheEntry);
         }
@@ -154,6 +203,17 @@ public final class OCellBTreeSingleValue<K> extends ODurableComponent {
           releasePageFromWrite(atomicOperation, nullCacheEntry);
         }
 
+        if (bloomFilter) {
+          if (filterFileExtension == null) {
+            throw new OCellBTreeSingleValueException("Bloom filter is not supported by tree " + getName(), this);
+          }
+
+          filterFileId = addFile(atomicOperation, getName() + filterFileExtension);
+          resetFilter(atomicOperation, 1);
+        } else {
+          filterFileId = -1;
+        }
+
       } finally {
         releaseExclusiveLock();
       }
@@ -175,6 +235,10 @@ public final class OCellBTreeSingleValue<K> extends ODurableComponent {
         if (key != null) {
           key = keySerializer.preprocess(key, (Object[]) keyTypes);
 
+          if (!filterMightContain(key, atomicOperation)) {
+            return null;
+          }
+
           final BucketSearchResult bucketSearchResult = findBucket(key, atomicOperation);
           if (bucketSearchResult.itemIndex < 0) {
             return null;
@@ -278,16 +342,7 @@ public final class OCellBTreeSingleValue<K> extends ODurableComponent {
           OShortSerializer.INSTANCE.serializeNative((short) value.getClusterId(), serializedValue, 0);
           OLongSerializer.INSTANCE.serializeNative(value.getClusterPosition(), serializedValue, OShortSerializer.SHORT_SIZE);
 
-          final byte[] rawKey;
-          if (encryption == null) {
-            rawKey = serializedKey;
-          } else {
-            final byte[] encryptedKey = encryption.encrypt(serializedKey);
-
-            rawKey = new byte[OIntegerSerializer.INT_SIZE + encryptedKey.length];
-            OIntegerSerializer.INSTANCE.serializeNative(encryptedKey.length, rawKey, 0);
-            System.arraycopy(encryptedKey, 0, rawKey, OIntegerSerializer.INT_SIZE, encryptedKey.length);
-          }
+          final byte[] rawKey = rawKey(serializedKey);
 
           int insertionIndex;
           final int sizeDiff;
@@ -308,7 +363,7 @@ public final class OCellBTreeSingleValue<K> extends ODurableComponent {
             sizeDiff = 1;
           }
 
-          while (!keyBucket.addLeafEntry(insertionIndex, rawKey, serializedValue)) {
+          while (!keyBucket.addLeafEntry(insertionIndex, key, rawKey, serializedValue)) {
             bucketSearchResult = splitBucket(keyBucket, keyBucketCacheEntry, bucketSearchResult.path,
                 bucketSearchResult.insertionIndexes, insertionIndex, atomicOperation);
 
@@ -329,6 +384,7 @@ public final class OCellBTreeSingleValue<K> extends ODurableComponent {
 
           if (sizeDiff != 0) {
             updateSize(sizeDiff, atomicOperation);
+            addToFilter(serializedKey, atomicOperation);
           }
 
         } else {
@@ -377,6 +433,10 @@ public final class OCellBTreeSingleValue<K> extends ODurableComponent {
     try {
       readCache.closeFile(fileId, true, writeCache);
       readCache.closeFile(nullBucketFileId, true, writeCache);
+
+      if (filterFileId >= 0) {
+        readCache.closeFile(filterFileId, true, writeCache);
+      }
     } finally {
       releaseExclusiveLock();
     }
@@ -407,11 +467,15 @@ public final class OCellBTreeSingleValue<K> extends ODurableComponent {
         final OCacheEntry cacheEntry = loadPageForWrite(atomicOperation, fileId, ROOT_INDEX, false, true);
         try {
           @SuppressWarnings("unused")
-          final OSBTreeBucketSingleValue<K> rootBucket = new OSBTreeBucketSingleValue<>(cacheEntry, true, keySerializer, keyTypes,
-              encryption);
+          final OSBTreeBucketSingleValue<K> rootBucket = new OSBTreeBucketSingleValue<>(cacheEntry, true, keyPrefixCompression,
+              keySerializer, keyTypes, encryption);
         } finally {
           releasePageFromWrite(atomicOperation, cacheEntry);
         }
+
+        if (filterFileId >= 0) {
+          resetFilter(atomicOperation, 1);
+        }
       } finally {
         releaseExclusiveLock();
       }
@@ -432,6 +496,10 @@ public final class OCellBTreeSingleValue<K> extends ODurableComponent {
       try {
         deleteFile(atomicOperation, fileId);
         deleteFile(atomicOperation, nullBucketFileId);
+
+        if (filterFileId >= 0) {
+          deleteFile(atomicOperation, filterFileId);
+        }
       } finally {
         releaseExclusiveLock();
       }
@@ -459,6 +527,11 @@ public final class OCellBTreeSingleValue<K> extends ODurableComponent {
           final long nullFileId = openFile(atomicOperation, getName() + nullFileExtension);
           deleteFile(atomicOperation, nullFileId);
         }
+
+        if (filterFileExtension != null && isFileExists(atomicOperation, getName() + filterFileExtension)) {
+          final long filterFileId = openFile(atomicOperation, getName() + filterFileExtension);
+          deleteFile(atomicOperation, filterFileId);
+        }
       } finally {
         releaseExclusiveLock();
       }
@@ -479,10 +552,25 @@ public final class OCellBTreeSingleValue<K> extends ODurableComponent {
       fileId = openFile(atomicOperation, getFullName());
       nullBucketFileId = openFile(atomicOperation, name + nullFileExtension);
 
+      if (filterFileExtension != null && isFileExists(atomicOperation, name + filterFileExtension)) {
+        filterFileId = openFile(atomicOperation, name + filterFileExtension);
+      } else {
+        filterFileId = -1;
+      }
+
       this.keySize = keySize;
       this.keyTypes = keyTypes;
       this.keySerializer = keySerializer;
       this.encryption = encryption;
+
+      final OCacheEntry rootCacheEntry = loadPageForRead(atomicOperation, fileId, ROOT_INDEX, false);
+      try {
+        final OSBTreeBucketSingleValue<K> rootBucket = new OSBTreeBucketSingleValue<>(rootCacheEntry, keySerializer, keyTypes,
+            encryption);
+        this.keyPrefixCompression = rootBucket.isPrefixCompressed();
+      } finally {
+        releasePageFromRead(atomicOperation, rootCacheEntry);
+      }
     } catch (final IOException e) {
       throw OException.wrapException(new OCellBTreeSingleValueException("Exception during loading of sbtree " + name, this), e);
     } finally {
@@ -490,6 +578,65 @@ public final class OCellBTreeSingleValue<K> extends ODurableComponent {
     }
   }
 
+  /**
+   * Fills empty tree by entries which are sorted in ascending order of their keys.
+   * <p>
+   * Tree is built bottom-up, leaf pages are filled one by one till they are full and non-leaf pages are built from the first keys
+   * of the pages of the level below, so pages are written sequentially and each of them only once. Pages are written in series of
+   * atomic operations, but built pages become reachable and are counted as used only in the last one, so if loading fails or is
+   * interrupted by the crash tree stays empty and the written pages are reused by the next changes of the tree.
+   * <p>
+   * Caller should prevent concurrent modifications of the tree till the end of the load. If several entries have the same key
+   * only the first one is added into the tree. Entries with <code>null</code> keys are not accepted. Bloom filter of the tree, if
+   * any, is rebuilt at the end of the load with the size which fits all loaded keys.
+   *
+   * @param entries entries sorted in ascending order of keys
+   *
+   * @return amount of entries added into the tree
+   */
+  public long bulkLoad(final Iterator<? extends Map.Entry<K, ORID>> entries) throws IOException {
+    final BulkLoader loader = new BulkLoader();
+
+    boolean hasNext = true;
+    while (hasNext) {
+      boolean rollback = false;
+      final OAtomicOperation atomicOperation = startAtomicOperation(false);
+      try {
+        acquireExclusiveLock();
+        try {
+          loader.startOperation(atomicOperation);
+          try {
+            while ((hasNext = entries.hasNext()) && loader.pagesInOperation < BULK_LOAD_PAGES_PER_OPERATION) {
+              final Map.Entry<K, ORID> entry = entries.next();
+              loader.append(entry.getKey(), entry.getValue());
+            }
+
+            if (!hasNext) {
+              loader.finish();
+            }
+          } finally {
+            loader.releasePages();
+          }
+
+          if (!hasNext && filterFileId >= 0 && loader.entriesCount > 0) {
+            // filter is sized with reserve for the keys which will be added after the load
+            final long filterKeys = loader.entriesCount + loader.entriesCount / 2;
+            rebuildFilter(atomicOperation, (filterKeys + FILTER_KEYS_PER_PAGE - 1) / FILTER_KEYS_PER_PAGE);
+          }
+        } finally {
+          releaseExclusiveLock();
+        }
+      } catch (final Exception e) {
+        rollback = true;
+        throw e;
+      } finally {
+        endAtomicOperation(rollback);
+      }
+    }
+
+    return loader.entriesCount;
+  }
+
   public long size() {
     atomicOperationsManager.acquireReadLock(this);
     try {
@@ -526,6 +673,10 @@ public final class OCellBTreeSingleValue<K> extends ODurableComponent {
         if (key != null) {
           key = keySerializer.preprocess(key, (Object[]) keyTypes);
 
+          if (!filterMightContain(key, atomicOperation)) {
+            return null;
+          }
+
           final BucketSearchResult bucketSearchResult = findBucket(key, atomicOperation);
           if (bucketSearchResult.itemIndex < 0) {
             return null;
@@ -748,6 +899,226 @@ public final class OCellBTreeSingleValue<K> extends ODurableComponent {
     }
   }
 
+  /**
+   * @return <code>false</code> if Bloom filter of the tree proves that key is absent in the tree, <code>true</code> if key may be
+   * present in the tree or tree does not have Bloom filter.
+   */
+  private boolean filterMightContain(final K key, final OAtomicOperation atomicOperation) throws IOException {
+    if (filterFileId < 0) {
+      return true;
+    }
+
+    final long hash = filterHash(keySerializer.serializeNativeAsWhole(key, (Object[]) keyTypes));
+    final long filterPages = getFilledUpTo(atomicOperation, filterFileId);
+
+    long layerStart = 0;
+    long layerPages = getFilterBasePages(atomicOperation);
+    while (layerStart < filterPages) {
+      final long block = layerStart * OBloomFilterPage.BLOCKS_PER_PAGE + filterBlock(hash, layerPages);
+
+      final long pageIndex = block / OBloomFilterPage.BLOCKS_PER_PAGE;
+      final int blockIndex = (int) (block % OBloomFilterPage.BLOCKS_PER_PAGE);
+
+      final OCacheEntry cacheEntry = loadPageForRead(atomicOperation, filterFileId, pageIndex, false);
+      try {
+        final OBloomFilterPage filterPage = new OBloomFilterPage(cacheEntry);
+        if (filterPage.mightContain(blockIndex, (int) hash, filterStep(hash), FILTER_HASHES)) {
+          return true;
+        }
+      } finally {
+        releasePageFromRead(atomicOperation, cacheEntry);
+      }
+
+      layerStart += layerPages;
+      layerPages = nextFilterLayerPages(layerStart);
+    }
+
+    return false;
+  }
+
+  /**
+   * Adds key which is inserted into the tree to the newest layer of the Bloom filter. If amount of keys added into the layer
+   * exceeds its capacity, new empty layer is appended to the filter, so the keys which are already in the filter are not
+   * touched. Layers are merged back into the single one by the next bulk load of the tree.
+   */
+  private void addToFilter(final byte[] serializedKey, final OAtomicOperation atomicOperation) throws IOException {
+    if (filterFileId < 0) {
+      return;
+    }
+
+    final long filterPages = getFilledUpTo(atomicOperation, filterFileId);
+
+    final OCacheEntry entryPointCacheEntry = loadPageForWrite(atomicOperation, fileId, ENTRY_POINT_INDEX, false, true);
+    try {
+      final OEntryPoint<K> entryPoint = new OEntryPoint<>(entryPointCacheEntry);
+
+      long layerStart = 0;
+      long layerPages = entryPoint.getFilterBasePages();
+      assert layerPages > 0;
+
+      while (layerStart + layerPages < filterPages) {
+        layerStart += layerPages;
+        layerPages = nextFilterLayerPages(layerStart);
+      }
+
+      long filterKeys = entryPoint.getFilterKeys() + 1;
+      if (filterKeys > layerPages * FILTER_KEYS_PER_PAGE) {
+        layerStart = filterPages;
+        layerPages = nextFilterLayerPages(filterPages);
+        clearFilter(atomicOperation, layerStart, layerStart + layerPages);
+
+        filterKeys = 1;
+      }
+
+      entryPoint.setFilterKeys(filterKeys);
+      setFilterBits(filterHash(serializedKey), layerStart, layerPages, atomicOperation);
+    } finally {
+      releasePageFromWrite(atomicOperation, entryPointCacheEntry);
+    }
+  }
+
+  /**
+   * Each layer of the Bloom filter is twice as big as all previous layers together, so the filter has a few layers even if it
+   * was created empty and is checked by a few page loads.
+   */
+  private static long nextFilterLayerPages(final long previousPages) {
+    return 2 * previousPages;
+  }
+
+  private long getFilterBasePages(final OAtomicOperation atomicOperation) throws IOException {
+    final OCacheEntry entryPointCacheEntry = loadPageForRead(atomicOperation, fileId, ENTRY_POINT_INDEX, false);
+    try {
+      final OEntryPoint<K> entryPoint = new OEntryPoint<>(entryPointCacheEntry);
+      return entryPoint.getFilterBasePages();
+    } finally {
+      releasePageFromRead(atomicOperation, entryPointCacheEntry);
+    }
+  }
+
+  /**
+   * Clears Bloom filter and fills it by all keys of the tree, so layers of the filter are merged into the single one and keys
+   * which were removed from the tree are removed from the filter too.
+   *
+   * @param filterPages minimum amount of pages of the filter, filter is never shrunk
+   */
+  private void rebuildFilter(final OAtomicOperation atomicOperation, final long filterPages) throws IOException {
+    final long pages = resetFilter(atomicOperation, filterPages);
+
+    long filterKeys = 0;
+
+    final BucketSearchResult firstItem = firstItem(atomicOperation);
+    long pageIndex = firstItem != null ? firstItem.pageIndex : -1;
+
+    while (pageIndex >= 0) {
+      final OCacheEntry cacheEntry = loadPageForRead(atomicOperation, fileId, pageIndex, false);
+      try {
+        final OSBTreeBucketSingleValue<K> bucket = new OSBTreeBucketSingleValue<>(cacheEntry, keySerializer, keyTypes,
+            encryption);
+
+        final int size = bucket.size();
+        for (int i = 0; i < size; i++) {
+          setFilterBits(filterHash(keySerializer.serializeNativeAsWhole(bucket.getKey(i), (Object[]) keyTypes)), 0, pages,
+              atomicOperation);
+        }
+
+        filterKeys += size;
+        pageIndex = bucket.getRightSibling();
+      } finally {
+        releasePageFromRead(atomicOperation, cacheEntry);
+      }
+    }
+
+    final OCacheEntry entryPointCacheEntry = loadPageForWrite(atomicOperation, fileId, ENTRY_POINT_INDEX, false, true);
+    try {
+      final OEntryPoint<K> entryPoint = new OEntryPoint<>(entryPointCacheEntry);
+      entryPoint.setFilterKeys(filterKeys);
+    } finally {
+      releasePageFromWrite(atomicOperation, entryPointCacheEntry);
+    }
+  }
+
+  /**
+   * Clears all pages of the Bloom filter, they become the single layer of the filter.
+   *
+   * @param filterPages minimum amount of pages of the filter, filter is never shrunk
+   *
+   * @return amount of pages of the filter
+   */
+  private long resetFilter(final OAtomicOperation atomicOperation, final long filterPages) throws IOException {
+    final long pages = Math.max(Math.max(filterPages, 1), getFilledUpTo(atomicOperation, filterFileId));
+    clearFilter(atomicOperation, 0, pages);
+
+    final OCacheEntry entryPointCacheEntry = loadPageForWrite(atomicOperation, fileId, ENTRY_POINT_INDEX, false, true);
+    try {
+      final OEntryPoint<K> entryPoint = new OEntryPoint<>(entryPointCacheEntry);
+      entryPoint.setFilterBasePages(pages);
+      entryPoint.setFilterKeys(0);
+    } finally {
+      releasePageFromWrite(atomicOperation, entryPointCacheEntry);
+    }
+
+    return pages;
+  }
+
+  /**
+   * Clears pages of the Bloom filter from <code>fromPage</code> inclusive to <code>toPage</code> exclusive, pages which are
+   * absent in the file are added.
+   */
+  private void clearFilter(final OAtomicOperation atomicOperation, final long fromPage, final long toPage) throws IOException {
+    final long filledUpTo = getFilledUpTo(atomicOperation, filterFileId);
+
+    for (long pageIndex = fromPage; pageIndex < toPage; pageIndex++) {
+      final OCacheEntry cacheEntry;
+      if (pageIndex < filledUpTo) {
+        cacheEntry = loadPageForWrite(atomicOperation, filterFileId, pageIndex, false, false);
+      } else {
+        cacheEntry = addPage(atomicOperation, filterFileId);
+      }
+
+      try {
+        final OBloomFilterPage filterPage = new OBloomFilterPage(cacheEntry);
+        filterPage.clear();
+      } finally {
+        releasePageFromWrite(atomicOperation, cacheEntry);
+      }
+    }
+  }
+
+  private void setFilterBits(final long hash, final long layerStart, final long layerPages,
+      final OAtomicOperation atomicOperation) throws IOException {
+    final long block = layerStart * OBloomFilterPage.BLOCKS_PER_PAGE + filterBlock(hash, layerPages);
+
+    final long pageIndex = block / OBloomFilterPage.BLOCKS_PER_PAGE;
+    final int blockIndex = (int) (block % OBloomFilterPage.BLOCKS_PER_PAGE);
+
+    final OCacheEntry cacheEntry = loadPageForWrite(atomicOperation, filterFileId, pageIndex, false, true);
+    try {
+      final OBloomFilterPage filterPage = new OBloomFilterPage(cacheEntry);
+      filterPage.add(blockIndex, (int) hash, filterStep(hash), FILTER_HASHES);
+    } finally {
+      releasePageFromWrite(atomicOperation, cacheEntry);
+    }
+  }
+
+  private static long filterHash(final byte[] serializedKey) {
+    return OMurmurHash3.murmurHash3_x64_64(serializedKey, FILTER_HASH_SEED);
+  }
+
+  /**
+   * @return index of the filter block of the key inside of the filter layer, it is calculated from the high half of the hash
+   */
+  private static long filterBlock(final long hash, final long filterPages) {
+    return ((hash >>> 32) * (filterPages * OBloomFilterPage.BLOCKS_PER_PAGE)) >>> 32;
+  }
+
+  /**
+   * @return distance between bits of the key inside of the filter block, bits themselves are calculated from the low half of the
+   * hash
+   */
+  private static int filterStep(final long hash) {
+    return ((int) hash >>> 9) | 1;
+  }
+
   private OSBTreeCursor<K, ORID> iterateEntriesMinorDesc(K key, final boolean inclusive) {
     key = keySerializer.preprocess(key, (Object[]) keyTypes);
     key = enhanceCompositeKeyMinorDesc(key, inclusive);
@@ -1070,8 +1441,8 @@ public final class OCellBTreeSingleValue<K> extends ODurableComponent {
     }
 
     try {
-      final OSBTreeBucketSingleValue<K> newRightBucket = new OSBTreeBucketSingleValue<>(rightBucketEntry, splitLeaf, keySerializer,
-          keyTypes, encryption);
+      final OSBTreeBucketSingleValue<K> newRightBucket = new OSBTreeBucketSingleValue<>(rightBucketEntry, splitLeaf,
+          keyPrefixCompression, keySerializer, keyTypes, encryption);
       newRightBucket.addAll(rightEntries);
 
       bucketToSplit.shrink(indexToSplit);
@@ -1195,8 +1566,8 @@ public final class OCellBTreeSingleValue<K> extends ODurableComponent {
     }
 
     try {
-      final OSBTreeBucketSingleValue<K> newLeftBucket = new OSBTreeBucketSingleValue<>(leftBucketEntry, splitLeaf, keySerializer,
-          keyTypes, encryption);
+      final OSBTreeBucketSingleValue<K> newLeftBucket = new OSBTreeBucketSingleValue<>(leftBucketEntry, splitLeaf,
+          keyPrefixCompression, keySerializer, keyTypes, encryption);
       newLeftBucket.addAll(leftEntries);
 
       if (splitLeaf) {
@@ -1208,8 +1579,8 @@ public final class OCellBTreeSingleValue<K> extends ODurableComponent {
     }
 
     try {
-      final OSBTreeBucketSingleValue<K> newRightBucket = new OSBTreeBucketSingleValue<>(rightBucketEntry, splitLeaf, keySerializer,
-          keyTypes, encryption);
+      final OSBTreeBucketSingleValue<K> newRightBucket = new OSBTreeBucketSingleValue<>(rightBucketEntry, splitLeaf,
+          keyPrefixCompression, keySerializer, keyTypes, encryption);
       newRightBucket.addAll(rightEntries);
 
       if (splitLeaf) {
@@ -1219,7 +1590,7 @@ public final class OCellBTreeSingleValue<K> extends ODurableComponent {
       releasePageFromWrite(atomicOperation, rightBucketEntry);
     }
 
-    bucketToSplit = new OSBTreeBucketSingleValue<>(bucketEntry, false, keySerializer, keyTypes, encryption);
+    bucketToSplit = new OSBTreeBucketSingleValue<>(bucketEntry, false, keyPrefixCompression, keySerializer, keyTypes, encryption);
     bucketToSplit.addEntry(0,
         new OSBTreeBucketSingleValue.SBTreeEntry<>((int) leftBucketEntry.getPageIndex(), (int) rightBucketEntry.getPageIndex(),
             separationKey, null), true);
@@ -1409,6 +1780,364 @@ public final class OCellBTreeSingleValue<K> extends ODurableComponent {
     K next(int prefetchSize);
   }
 
+  private byte[] rawKey(final byte[] serializedKey) {
+    if (encryption == null) {
+      return serializedKey;
+    }
+
+    final byte[] encryptedKey = encryption.encrypt(serializedKey);
+
+    final byte[] rawKey = new byte[OIntegerSerializer.INT_SIZE + encryptedKey.length];
+    OIntegerSerializer.INSTANCE.serializeNative(encryptedKey.length, rawKey, 0);
+    System.arraycopy(encryptedKey, 0, rawKey, OIntegerSerializer.INT_SIZE, encryptedKey.length);
+
+    return rawKey;
+  }
+
+  /**
+   * State of the bulk load which is kept between atomic operations. Pages which are filled at the moment are kept only as indexes
+   * between operations and are loaded again when they are needed in the next operation.
+   */
+  private final class BulkLoader {
+    private final List<Level> levels = new ArrayList<>(8);
+
+    private OAtomicOperation atomicOperation;
+    private int              pagesInOperation;
+
+    private long entriesCount;
+    private K    lastKey;
+
+    /**
+     * Index of the last page used by the tree including the pages filled by the load, it is stored in the entry point only by
+     * the last operation of the load.
+     */
+    private int pagesSize;
+
+    private void startOperation(final OAtomicOperation atomicOperation) throws IOException {
+      if (levels.isEmpty()) {
+        final OCacheEntry entryPointCacheEntry = loadPageForRead(atomicOperation, fileId, ENTRY_POINT_INDEX, false);
+        try {
+          final OEntryPoint<K> entryPoint = new OEntryPoint<>(entryPointCacheEntry);
+          pagesSize = entryPoint.getPagesSize();
+        } finally {
+          releasePageFromRead(atomicOperation, entryPointCacheEntry);
+        }
+
+        final OCacheEntry rootCacheEntry = loadPageForRead(atomicOperation, fileId, ROOT_INDEX, false);
+        try {
+          final OSBTreeBucketSingleValue<K> rootBucket = new OSBTreeBucketSingleValue<>(rootCacheEntry, keySerializer, keyTypes,
+              encryption);
+          if (!rootBucket.isLeaf() || !rootBucket.isEmpty()) {
+            throw new OCellBTreeSingleValueException("Bulk load is possible only into empty tree", OCellBTreeSingleValue.this);
+          }
+        } finally {
+          releasePageFromRead(atomicOperation, rootCacheEntry);
+        }
+
+        levels.add(new Level(true));
+      }
+
+      this.atomicOperation = atomicOperation;
+      this.pagesInOperation = 0;
+    }
+
+    private void append(K key, final ORID value) throws IOException {
+      if (key == null) {
+        throw new OCellBTreeSingleValueException("Null keys can not be added by bulk load", OCellBTreeSingleValue.this);
+      }
+
+      key = keySerializer.preprocess(key, (Object[]) keyTypes);
+
+      if (lastKey != null) {
+        final int cmp = comparator.compare(lastKey, key);
+        if (cmp == 0) {
+          return;
+        }
+
+        if (cmp > 0) {
+          throw new OCellBTreeSingleValueException(
+              "Entries of bulk load should be sorted by keys, but key " + key + " follows key " + lastKey,
+              OCellBTreeSingleValue.this);
+        }
+      }
+
+      final byte[] rawKey = rawKey(keySerializer.serializeNativeAsWhole(key, (Object[]) keyTypes));
+
+      final byte[] serializedValue = new byte[OShortSerializer.SHORT_SIZE + OLongSerializer.LONG_SIZE];
+      OShortSerializer.INSTANCE.serializeNative((short) value.getClusterId(), serializedValue, 0);
+      OLongSerializer.INSTANCE.serializeNative(value.getClusterPosition(), serializedValue, OShortSerializer.SHORT_SIZE);
+
+      final Level leafLevel = levels.get(0);
+      if (leafLevel.pageIndex < 0) {
+        openPage(leafLevel, key);
+      }
+
+      OSBTreeBucketSingleValue<K> bucket = leafLevel.bucket();
+      if (!bucket.addLeafEntry(bucket.size(), key, rawKey, serializedValue)) {
+        // common prefix of the full page may be longer than prefix which was calculated on the first keys
+        if (!bucket.isPrefixCompressed() || !compact(bucket) || !bucket
+            .addLeafEntry(bucket.size(), key, rawKey, serializedValue)) {
+          final long previousPageIndex = leafLevel.pageIndex;
+
+          openPage(leafLevel, key);
+          bucket = leafLevel.bucket();
+          bucket.setLeftSibling(previousPageIndex);
+
+          final OCacheEntry previousCacheEntry = loadPageForWrite(atomicOperation, fileId, previousPageIndex, false, true);
+          try {
+            final OSBTreeBucketSingleValue<K> previousBucket = new OSBTreeBucketSingleValue<>(previousCacheEntry, keySerializer,
+                keyTypes, encryption);
+            previousBucket.setRightSibling(leafLevel.pageIndex);
+          } finally {
+            releasePageFromWrite(atomicOperation, previousCacheEntry);
+          }
+
+          if (!bucket.addLeafEntry(0, key, rawKey, serializedValue)) {
+            throw new OCellBTreeSingleValueException("Entry with key " + key + " does not fit into the empty page",
+                OCellBTreeSingleValue.this);
+          }
+        }
+      }
+
+      lastKey = key;
+      entriesCount++;
+    }
+
+    /**
+     * Completes the last pages of all levels and makes the top page of the tree its root.
+     */
+    private void finish() throws IOException {
+      if (entriesCount == 0) {
+        return;
+      }
+
+      for (int levelIndex = 1; ; levelIndex++) {
+        final Level level = levels.get(levelIndex);
+
+        if (level.carriedChild >= 0) {
+          if (level.pageIndex < 0 && level.previousPageIndex < 0) {
+            // the only child of the level is the top page of the tree
+            copyToRoot(level.carriedChild);
+            break;
+          }
+
+          attachCarriedChild(level, levelIndex);
+        }
+      }
+
+      updateSize(entriesCount, atomicOperation);
+
+      final OCacheEntry entryPointCacheEntry = loadPageForWrite(atomicOperation, fileId, ENTRY_POINT_INDEX, false, true);
+      try {
+        final OEntryPoint<K> entryPoint = new OEntryPoint<>(entryPointCacheEntry);
+        entryPoint.setPagesSize(pagesSize);
+      } finally {
+        releasePageFromWrite(atomicOperation, entryPointCacheEntry);
+      }
+    }
+
+    /**
+     * Adds page of the level which is below of passed in level. Non-leaf page is opened only when there are two children for it,
+     * so non-leaf pages never contain single child without keys.
+     *
+     * @param minKey minimum key of the child page, it is ignored for the first child of the level
+     */
+    private void addChild(final int levelIndex, final K minKey, final long childIndex) throws IOException {
+      if (levels.size() == levelIndex) {
+        levels.add(new Level(false));
+      }
+
+      final Level level = levels.get(levelIndex);
+
+      if (level.carriedChild >= 0) {
+        final int carriedChild = level.carriedChild;
+        final K carriedKey = level.carriedKey;
+        level.carriedChild = -1;
+        level.carriedKey = null;
+
+        openPage(level, carriedKey);
+        addEntry(level, new OSBTreeBucketSingleValue.SBTreeEntry<>(carriedChild, (int) childIndex, minKey, null));
+        level.lastChild = (int) childIndex;
+        return;
+      }
+
+      if (level.pageIndex < 0) {
+        level.carriedChild = (int) childIndex;
+        level.carriedKey = minKey;
+        return;
+      }
+
+      final OSBTreeBucketSingleValue<K> bucket = level.bucket();
+      final OSBTreeBucketSingleValue.SBTreeEntry<K> entry = new OSBTreeBucketSingleValue.SBTreeEntry<>(level.lastChild,
+          (int) childIndex, minKey, null);
+
+      if (bucket.addEntry(bucket.size(), entry, false) || (bucket.isPrefixCompressed() && compact(bucket) && bucket
+          .addEntry(bucket.size(), entry, false))) {
+        level.lastChild = (int) childIndex;
+        return;
+      }
+
+      // page is full, child will be the first child of the next page of the level
+      level.releasePage();
+      level.previousPageIndex = level.pageIndex;
+      level.pageIndex = -1;
+
+      level.carriedChild = (int) childIndex;
+      level.carriedKey = minKey;
+    }
+
+    /**
+     * Moves the last child of the previous page of the level into the new page together with the carried child.
+     */
+    private void attachCarriedChild(final Level level, final int levelIndex) throws IOException {
+      assert level.pageIndex < 0;
+
+      final OCacheEntry previousCacheEntry = loadPageForWrite(atomicOperation, fileId, level.previousPageIndex, false, true);
+      final OSBTreeBucketSingleValue.SBTreeEntry<K> movedEntry;
+      try {
+        final OSBTreeBucketSingleValue<K> previousBucket = new OSBTreeBucketSingleValue<>(previousCacheEntry, keySerializer,
+            keyTypes, encryption);
+        final int size = previousBucket.size();
+        assert size > 1;
+
+        movedEntry = previousBucket.getEntry(size - 1);
+        previousBucket.shrink(size - 1);
+      } finally {
+        releasePageFromWrite(atomicOperation, previousCacheEntry);
+      }
+
+      final int carriedChild = level.carriedChild;
+      final K carriedKey = level.carriedKey;
+      level.carriedChild = -1;
+      level.carriedKey = null;
+
+      openPage(level, movedEntry.key);
+      addEntry(level, new OSBTreeBucketSingleValue.SBTreeEntry<>(movedEntry.rightChild, carriedChild, carriedKey, null));
+      level.lastChild = carriedChild;
+
+      assert levels.get(levelIndex) == level;
+    }
+
+    private void addEntry(final Level level, final OSBTreeBucketSingleValue.SBTreeEntry<K> entry) throws IOException {
+      final OSBTreeBucketSingleValue<K> bucket = level.bucket();
+      if (!bucket.addEntry(bucket.size(), entry, false)) {
+        throw new OCellBTreeSingleValueException("Entry with key " + entry.key + " does not fit into the empty page",
+            OCellBTreeSingleValue.this);
+      }
+    }
+
+    /**
+     * Allocates new page for the level and registers it in the level above.
+     */
+    private void openPage(final Level level, final K minKey) throws IOException {
+      level.releasePage();
+
+      final OCacheEntry cacheEntry = allocatePage();
+      pagesInOperation++;
+
+      level.cacheEntry = cacheEntry;
+      level.pageIndex = cacheEntry.getPageIndex();
+      level.bucket = new OSBTreeBucketSingleValue<>(cacheEntry, level.leaf, keyPrefixCompression, keySerializer, keyTypes,
+          encryption);
+
+      addChild(levels.indexOf(level) + 1, minKey, level.pageIndex);
+    }
+
+    /**
+     * Allocates the page which follows the pages used by the tree. Entry point is not changed till the end of the load, so if the
+     * load is interrupted the pages which are filled by it are not counted as used and are reused by the next allocations.
+     */
+    private OCacheEntry allocatePage() throws IOException {
+      if (pagesSize < getFilledUpTo(atomicOperation, fileId) - 1) {
+        pagesSize++;
+        return loadPageForWrite(atomicOperation, fileId, pagesSize, false, false);
+      }
+
+      final OCacheEntry cacheEntry = addPage(atomicOperation, fileId);
+      pagesSize = (int) cacheEntry.getPageIndex();
+      return cacheEntry;
+    }
+
+    private boolean compact(final OSBTreeBucketSingleValue<K> bucket) {
+      final int size = bucket.size();
+      if (size == 0) {
+        return false;
+      }
+
+      bucket.shrink(size);
+      return true;
+    }
+
+    private void copyToRoot(final long pageIndex) throws IOException {
+      final List<byte[]> rawEntries;
+      final boolean leaf;
+
+      final OCacheEntry cacheEntry = loadPageForRead(atomicOperation, fileId, pageIndex, false);
+      try {
+        final OSBTreeBucketSingleValue<K> bucket = new OSBTreeBucketSingleValue<>(cacheEntry, keySerializer, keyTypes,
+            encryption);
+        leaf = bucket.isLeaf();
+
+        final int size = bucket.size();
+        rawEntries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+          rawEntries.add(bucket.getRawEntry(i));
+        }
+      } finally {
+        releasePageFromRead(atomicOperation, cacheEntry);
+      }
+
+      final OCacheEntry rootCacheEntry = loadPageForWrite(atomicOperation, fileId, ROOT_INDEX, false, true);
+      try {
+        final OSBTreeBucketSingleValue<K> rootBucket = new OSBTreeBucketSingleValue<>(rootCacheEntry, leaf, keyPrefixCompression,
+            keySerializer, keyTypes, encryption);
+        rootBucket.addAll(rawEntries);
+      } finally {
+        releasePageFromWrite(atomicOperation, rootCacheEntry);
+      }
+    }
+
+    private void releasePages() {
+      for (final Level level : levels) {
+        level.releasePage();
+      }
+    }
+
+    private final class Level {
+      private final boolean leaf;
+
+      private long                        pageIndex         = -1;
+      private long                        previousPageIndex = -1;
+      private OCacheEntry                 cacheEntry;
+      private OSBTreeBucketSingleValue<K> bucket;
+
+      private int lastChild    = -1;
+      private int carriedChild = -1;
+      private K   carriedKey;
+
+      private Level(final boolean leaf) {
+        this.leaf = leaf;
+      }
+
+      private OSBTreeBucketSingleValue<K> bucket() throws IOException {
+        if (cacheEntry == null) {
+          cacheEntry = loadPageForWrite(atomicOperation, fileId, pageIndex, false, true);
+          bucket = new OSBTreeBucketSingleValue<>(cacheEntry, keySerializer, keyTypes, encryption);
+        }
+
+        return bucket;
+      }
+
+      private void releasePage() {
+        if (cacheEntry != null) {
+          releasePageFromWrite(atomicOperation, cacheEntry);
+          cacheEntry = null;
+          bucket = null;
+        }
+      }
+    }
+  }
+
   private static final class BucketSearchResult {
     private final int  itemIndex;
     private final long pageIndex;
@@ -1552,6 +2281,9 @@ public final class OCellBTreeSingleValue<K> extends ODurableComponent {
     @SuppressWarnings("unchecked")
     private       Iterator<Map.Entry<K, ORID>> dataCacheIterator = OEmptyMapEntryIterator.INSTANCE;
 
+    private boolean readAhead           = false;
+    private long    prefetchedPageIndex = -1;
+
     private OSBTreeCursorForward(final K fromKey, final K toKey, final boolean fromKeyInclusive, final boolean toKeyInclusive) {
       this.fromKey = fromKey;
       this.toKey = toKey;
@@ -1630,9 +2362,16 @@ public final class OCellBTreeSingleValue<K> extends ODurableComponent {
               if (itemIndex >= bucketSize) {
                 pageIndex = bucket.getRightSibling();
                 itemIndex = 0;
+                readAhead = true;
                 continue;
               }
 
+              //the range spans several leaves, the next one is loaded in background while this one is read
+              if (readAhead && bucket.getRightSibling() >= 0 && bucket.getRightSibling() != prefetchedPageIndex) {
+                prefetchedPageIndex = bucket.getRightSibling();
+                prefetchPages(fileId, prefetchedPageIndex, 1);
+              }
+
               while (itemIndex < bucketSize && dataCache.size() < prefetchSize) {
                 final Map.Entry<K, ORID> entry = convertToMapEntry(bucket.getEntry(itemIndex));
                 itemIndex++;
@@ -1692,6 +2431,9 @@ public final class OCellBTreeSingleValue<K> extends ODurableComponent {
     @SuppressWarnings("unchecked")
     private       Iterator<Map.Entry<K, ORID>> dataCacheIterator = OEmptyMapEntryIterator.INSTANCE;
 
+    private boolean readAhead           = false;
+    private long    prefetchedPageIndex = -1;
+
     private OSBTreeCursorBackward(final K fromKey, final K toKey, final boolean fromKeyInclusive, final boolean toKeyInclusive) {
       this.fromKey = fromKey;
       this.toKey = toKey;
@@ -1769,9 +2511,15 @@ public final class OCellBTreeSingleValue<K> extends ODurableComponent {
               if (itemIndex < 0) {
                 pageIndex = bucket.getLeftSibling();
                 itemIndex = Integer.MAX_VALUE;
+                readAhead = true;
                 continue;
               }
 
+              if (readAhead && bucket.getLeftSibling() >= 0 && bucket.getLeftSibling() != prefetchedPageIndex) {
+                prefetchedPageIndex = bucket.getLeftSibling();
+                prefetchPages(fileId, prefetchedPageIndex, 1);
+              }
+
               while (itemIndex >= 0 && dataCache.size() < prefetchSize) {
                 final Map.Entry<K, ORID> entry = convertToMapEntry(bucket.getEntry(itemIndex));
                 itemIndex--;
@@ -11,6 +11,8 @@ final class OEntryPoint<K> extends ODurablePage {
   private static final int KEY_SIZE_OFFSET       = KEY_SERIALIZER_OFFSET + OByteSerializer.BYTE_SIZE;
   private static final int TREE_SIZE_OFFSET      = KEY_SIZE_OFFSET + OIntegerSerializer.INT_SIZE;
   private static final int PAGES_SIZE_OFFSET     = TREE_SIZE_OFFSET + OLongSerializer.LONG_SIZE;
+  private static final int FILTER_KEYS_OFFSET    = PAGES_SIZE_OFFSET + OIntegerSerializer.INT_SIZE;
+  private static final int FILTER_BASE_OFFSET    = FILTER_KEYS_OFFSET + OLongSerializer.LONG_SIZE;
 
   OEntryPoint(final OCacheEntry cacheEntry) {
     super(cacheEntry);
@@ -19,6 +21,8 @@ final class OEntryPoint<K> extends ODurablePage {
   void init() {
     setLongValue(TREE_SIZE_OFFSET, 0);
     setIntValue(PAGES_SIZE_OFFSET, 1);
+    setLongValue(FILTER_KEYS_OFFSET, 0);
+    setLongValue(FILTER_BASE_OFFSET, 0);
   }
 
   void setTreeSize(final long size) {
@@ -36,4 +40,27 @@ final class OEntryPoint<K> extends ODurablePage {
   int getPagesSize() {
     return getIntValue(PAGES_SIZE_OFFSET);
   }
+
+  /**
+   * @param keys amount of keys added into the newest layer of the Bloom filter of the tree, including removed keys
+   */
+  void setFilterKeys(final long keys) {
+    setLongValue(FILTER_KEYS_OFFSET, keys);
+  }
+
+  long getFilterKeys() {
+    return getLongValue(FILTER_KEYS_OFFSET);
+  }
+
+  /**
+   * @param pages amount of pages of the first layer of the Bloom filter of the tree, sizes of the rest of the layers are derived
+   *              from it
+   */
+  void setFilterBasePages(final long pages) {
+    setLongValue(FILTER_BASE_OFFSET, pages);
+  }
+
+  long getFilterBasePages() {
+    return getLongValue(FILTER_BASE_OFFSET);
+  }
 }
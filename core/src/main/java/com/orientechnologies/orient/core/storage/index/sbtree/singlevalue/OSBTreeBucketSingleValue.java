@@ -32,13 +32,22 @@ import com.orientechnologies.orient.core.id.ORecordId;
 import com.orientechnologies.orient.core.metadata.schema.OType;
 import com.orientechnologies.orient.core.storage.cache.OCacheEntry;
 import com.orientechnologies.orient.core.storage.impl.local.paginated.base.ODurablePage;
+import com.orientechnologies.orient.core.storage.index.sbtree.OKeyPrefix;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
 
 /**
+ * Page of {@link OCellBTreeSingleValue}.
+ * <p>
+ * Page may be stored in one of two formats. In plain format every key is stored in full. In prefix compressed format common
+ * prefix of all keys of the page (see {@link OKeyPrefix}) is stored once right after the page header and only suffixes of keys
+ * are stored in entries. Format is chosen at page creation and stored in page flags, so pages of both formats can be read by the
+ * same code. Raw entries which are used to move data between pages during split are always in plain format.
+ *
  * @author Andrey Lomakin (a.lomakin-at-orientdb.com)
  * @since 8/7/13
  */
@@ -47,14 +56,24 @@ final class OSBTreeBucketSingleValue<K> extends ODurablePage {
 
   private static final int FREE_POINTER_OFFSET  = NEXT_FREE_POSITION;
   private static final int SIZE_OFFSET          = FREE_POINTER_OFFSET + OIntegerSerializer.INT_SIZE;
-  private static final int IS_LEAF_OFFSET       = SIZE_OFFSET + OIntegerSerializer.INT_SIZE;
-  private static final int LEFT_SIBLING_OFFSET  = IS_LEAF_OFFSET + OByteSerializer.BYTE_SIZE;
+  private static final int FLAGS_OFFSET         = SIZE_OFFSET + OIntegerSerializer.INT_SIZE;
+  private static final int LEFT_SIBLING_OFFSET  = FLAGS_OFFSET + OByteSerializer.BYTE_SIZE;
   private static final int RIGHT_SIBLING_OFFSET = LEFT_SIBLING_OFFSET + OLongSerializer.LONG_SIZE;
 
   private static final int POSITIONS_ARRAY_OFFSET = RIGHT_SIBLING_OFFSET + OLongSerializer.LONG_SIZE;
 
+  /**
+   * Offset of the page prefix in prefix compressed format, positions array follows the prefix in such case.
+   */
+  private static final int PREFIX_OFFSET = POSITIONS_ARRAY_OFFSET;
+
+  private static final byte LEAF_FLAG               = 1;
+  private static final byte PREFIX_COMPRESSION_FLAG = 2;
+
   private final boolean isLeaf;
 
+  private final boolean prefixCompression;
+
   private final OBinarySerializer<K> keySerializer;
 
   private final OType[] keyTypes;
@@ -63,11 +82,17 @@ final class OSBTreeBucketSingleValue<K> extends ODurablePage {
 
   private final OEncryption encryption;
 
-  OSBTreeBucketSingleValue(final OCacheEntry cacheEntry, final boolean isLeaf, final OBinarySerializer<K> keySerializer,
-      final OType[] keyTypes, final OEncryption encryption) {
+  private int positionsArrayOffset;
+
+  private Object  prefix;
+  private boolean prefixLoaded;
+
+  OSBTreeBucketSingleValue(final OCacheEntry cacheEntry, final boolean isLeaf, final boolean prefixCompression,
+      final OBinarySerializer<K> keySerializer, final OType[] keyTypes, final OEncryption encryption) {
     super(cacheEntry);
 
     this.isLeaf = isLeaf;
+    this.prefixCompression = prefixCompression;
     this.keySerializer = keySerializer;
     this.keyTypes = keyTypes;
     this.encryption = encryption;
@@ -75,9 +100,26 @@ final class OSBTreeBucketSingleValue<K> extends ODurablePage {
     setIntValue(FREE_POINTER_OFFSET, MAX_PAGE_SIZE_BYTES);
     setIntValue(SIZE_OFFSET, 0);
 
-    setByteValue(IS_LEAF_OFFSET, (byte) (isLeaf ? 1 : 0));
+    byte flags = 0;
+    if (isLeaf) {
+      flags |= LEAF_FLAG;
+    }
+    if (prefixCompression) {
+      flags |= PREFIX_COMPRESSION_FLAG;
+    }
+
+    setByteValue(FLAGS_OFFSET, flags);
     setLongValue(LEFT_SIBLING_OFFSET, -1);
     setLongValue(RIGHT_SIBLING_OFFSET, -1);
+
+    if (prefixCompression) {
+      setIntValue(PREFIX_OFFSET, 0);
+      positionsArrayOffset = PREFIX_OFFSET + OIntegerSerializer.INT_SIZE;
+    } else {
+      positionsArrayOffset = POSITIONS_ARRAY_OFFSET;
+    }
+
+    prefixLoaded = true;
   }
 
   OSBTreeBucketSingleValue(final OCacheEntry cacheEntry, final OBinarySerializer<K> keySerializer, final OType[] keyTypes,
@@ -86,21 +128,47 @@ final class OSBTreeBucketSingleValue<K> extends ODurablePage {
     this.keyTypes = keyTypes;
     this.encryption = encryption;
 
-    this.isLeaf = getByteValue(IS_LEAF_OFFSET) > 0;
+    final byte flags = getByteValue(FLAGS_OFFSET);
+    this.isLeaf = (flags & LEAF_FLAG) != 0;
+    this.prefixCompression = (flags & PREFIX_COMPRESSION_FLAG) != 0;
     this.keySerializer = keySerializer;
+
+    if (prefixCompression) {
+      positionsArrayOffset = PREFIX_OFFSET + OIntegerSerializer.INT_SIZE + getIntValue(PREFIX_OFFSET);
+    } else {
+      positionsArrayOffset = POSITIONS_ARRAY_OFFSET;
+      prefixLoaded = true;
+    }
   }
 
   public boolean isEmpty() {
     return size() == 0;
   }
 
+  boolean isPrefixCompressed() {
+    return prefixCompression;
+  }
+
   public int find(final K key) {
+    final Object prefix = getPrefix();
+
+    if (OKeyPrefix.startsWith(key, prefix)) {
+      // all keys of the page share the same prefix with the key, so only suffixes are compared
+      @SuppressWarnings("unchecked")
+      final K suffix = (K) OKeyPrefix.stripPrefix(key, prefix);
+      return binarySearch(suffix, true);
+    }
+
+    return binarySearch(key, false);
+  }
+
+  private int binarySearch(final K key, final boolean compareStoredKeys) {
     int low = 0;
     int high = size() - 1;
 
     while (low <= high) {
       final int mid = (low + high) >>> 1;
-      final K midVal = getKey(mid);
+      final K midVal = compareStoredKeys ? getStoredKey(mid) : getKey(mid);
       final int cmp = comparator.compare(midVal, key);
 
       if (cmp < 0) {
@@ -116,16 +184,11 @@ final class OSBTreeBucketSingleValue<K> extends ODurablePage {
   }
 
   public void remove(final int entryIndex, final byte[] oldRawKey) {
-    final int entryPosition = getIntValue(POSITIONS_ARRAY_OFFSET + entryIndex * OIntegerSerializer.INT_SIZE);
+    final int entryPosition = getEntryPosition(entryIndex);
     final int keySize;
 
-    if (oldRawKey == null) {
-      if (encryption == null) {
-        keySize = getObjectSizeInDirectMemory(keySerializer, entryPosition);
-      } else {
-        final int encryptionSize = getIntValue(entryPosition);
-        keySize = OIntegerSerializer.INT_SIZE + encryptionSize;
-      }
+    if (oldRawKey == null || prefixCompression) {
+      keySize = getKeySize(entryPosition);
     } else {
       keySize = oldRawKey.length;
     }
@@ -139,8 +202,8 @@ final class OSBTreeBucketSingleValue<K> extends ODurablePage {
 
     int size = getIntValue(SIZE_OFFSET);
     if (entryIndex < size - 1) {
-      moveData(POSITIONS_ARRAY_OFFSET + (entryIndex + 1) * OIntegerSerializer.INT_SIZE,
-          POSITIONS_ARRAY_OFFSET + entryIndex * OIntegerSerializer.INT_SIZE, (size - entryIndex - 1) * OIntegerSerializer.INT_SIZE);
+      moveData(positionsArrayOffset + (entryIndex + 1) * OIntegerSerializer.INT_SIZE,
+          positionsArrayOffset + entryIndex * OIntegerSerializer.INT_SIZE, (size - entryIndex - 1) * OIntegerSerializer.INT_SIZE);
     }
 
     size--;
@@ -153,7 +216,7 @@ final class OSBTreeBucketSingleValue<K> extends ODurablePage {
 
     setIntValue(FREE_POINTER_OFFSET, freePointer + entrySize);
 
-    int currentPositionOffset = POSITIONS_ARRAY_OFFSET;
+    int currentPositionOffset = positionsArrayOffset;
 
     for (int i = 0; i < size; i++) {
       final int currentEntryPosition = getIntValue(currentPositionOffset);
@@ -169,25 +232,11 @@ final class OSBTreeBucketSingleValue<K> extends ODurablePage {
   }
 
   public SBTreeEntry<K> getEntry(final int entryIndex) {
-    int entryPosition = getIntValue(entryIndex * OIntegerSerializer.INT_SIZE + POSITIONS_ARRAY_OFFSET);
+    int entryPosition = getEntryPosition(entryIndex);
 
     if (isLeaf) {
-      final K key;
-      if (encryption == null) {
-        key = deserializeFromDirectMemory(keySerializer, entryPosition);
-
-        entryPosition += getObjectSizeInDirectMemory(keySerializer, entryPosition);
-      } else {
-        final int encryptionSize = getIntValue(entryPosition);
-        entryPosition += OIntegerSerializer.INT_SIZE;
-
-        final byte[] encryptedKey = getBinaryValue(entryPosition, encryptionSize);
-        entryPosition += encryptedKey.length;
-
-        final byte[] serializedKey = encryption.decrypt(encryptedKey);
-
-        key = keySerializer.deserializeNativeObject(serializedKey, 0);
-      }
+      final K key = addPrefix(readKey(entryPosition));
+      entryPosition += getKeySize(entryPosition);
 
       final int clusterId = getShortValue(entryPosition);
       final long clusterPosition = getLongValue(entryPosition + OShortSerializer.SHORT_SIZE);
@@ -200,20 +249,7 @@ final class OSBTreeBucketSingleValue<K> extends ODurablePage {
       final int rightChild = getIntValue(entryPosition);
       entryPosition += OIntegerSerializer.INT_SIZE;
 
-      final K key;
-
-      if (encryption == null) {
-        key = deserializeFromDirectMemory(keySerializer, entryPosition);
-      } else {
-        final int encryptionSize = getIntValue(entryPosition);
-        entryPosition += OIntegerSerializer.INT_SIZE;
-
-        final byte[] encryptedKey = getBinaryValue(entryPosition, encryptionSize);
-
-        final byte[] serializedKey = encryption.decrypt(encryptedKey);
-
-        key = keySerializer.deserializeNativeObject(serializedKey, 0);
-      }
+      final K key = addPrefix(readKey(entryPosition));
 
       return new SBTreeEntry<>(leftChild, rightChild, key, null);
     }
@@ -222,7 +258,7 @@ final class OSBTreeBucketSingleValue<K> extends ODurablePage {
   int getLeft(final int entryIndex) {
     assert !isLeaf;
 
-    final int entryPosition = getIntValue(entryIndex * OIntegerSerializer.INT_SIZE + POSITIONS_ARRAY_OFFSET);
+    final int entryPosition = getEntryPosition(entryIndex);
 
     return getIntValue(entryPosition);
   }
@@ -230,34 +266,32 @@ final class OSBTreeBucketSingleValue<K> extends ODurablePage {
   int getRight(final int entryIndex) {
     assert !isLeaf;
 
-    final int entryPosition = getIntValue(entryIndex * OIntegerSerializer.INT_SIZE + POSITIONS_ARRAY_OFFSET);
+    final int entryPosition = getEntryPosition(entryIndex);
 
     return getIntValue(entryPosition + OIntegerSerializer.INT_SIZE);
   }
 
   byte[] getRawEntry(final int entryIndex) {
-    int entryPosition = getIntValue(entryIndex * OIntegerSerializer.INT_SIZE + POSITIONS_ARRAY_OFFSET);
+    int entryPosition = getEntryPosition(entryIndex);
     final int startEntryPosition = entryPosition;
 
     if (isLeaf) {
-      final int keySize;
-      if (encryption == null) {
-        keySize = getObjectSizeInDirectMemory(keySerializer, entryPosition);
-      } else {
-        final int encryptedSize = getIntValue(entryPosition);
-        keySize = OIntegerSerializer.INT_SIZE + encryptedSize;
+      final int keySize = getKeySize(entryPosition);
+
+      if (prefixCompression) {
+        return concat(serializeKey(addPrefix(readKey(entryPosition)), keyTypes),
+            getBinaryValue(entryPosition + keySize, RID_SIZE));
       }
 
       return getBinaryValue(startEntryPosition, keySize + RID_SIZE);
     } else {
       entryPosition += 2 * OIntegerSerializer.INT_SIZE;
 
-      final int keySize;
-      if (encryption == null) {
-        keySize = getObjectSizeInDirectMemory(keySerializer, entryPosition);
-      } else {
-        final int encryptedSize = getIntValue(entryPosition);
-        keySize = OIntegerSerializer.INT_SIZE + encryptedSize;
+      final int keySize = getKeySize(entryPosition);
+
+      if (prefixCompression) {
+        return concat(getBinaryValue(startEntryPosition, 2 * OIntegerSerializer.INT_SIZE),
+            serializeKey(addPrefix(readKey(entryPosition)), keyTypes));
       }
 
       return getBinaryValue(startEntryPosition, keySize + 2 * OIntegerSerializer.INT_SIZE);
@@ -274,15 +308,10 @@ final class OSBTreeBucketSingleValue<K> extends ODurablePage {
   public ORID getValue(final int entryIndex) {
     assert isLeaf;
 
-    int entryPosition = getIntValue(entryIndex * OIntegerSerializer.INT_SIZE + POSITIONS_ARRAY_OFFSET);
+    int entryPosition = getEntryPosition(entryIndex);
 
     // skip key
-    if (encryption == null) {
-      entryPosition += getObjectSizeInDirectMemory(keySerializer, entryPosition);
-    } else {
-      final int encryptedSize = getIntValue(entryPosition);
-      entryPosition += OIntegerSerializer.INT_SIZE + encryptedSize;
-    }
+    entryPosition += getKeySize(entryPosition);
 
     final int clusterId = getShortValue(entryPosition);
     final long clusterPosition = getLongValue(entryPosition + OShortSerializer.SHORT_SIZE);
@@ -293,36 +322,29 @@ final class OSBTreeBucketSingleValue<K> extends ODurablePage {
   byte[] getRawValue(final int entryIndex) {
     assert isLeaf;
 
-    int entryPosition = getIntValue(entryIndex * OIntegerSerializer.INT_SIZE + POSITIONS_ARRAY_OFFSET);
+    int entryPosition = getEntryPosition(entryIndex);
 
     // skip key
-    if (encryption == null) {
-      entryPosition += getObjectSizeInDirectMemory(keySerializer, entryPosition);
-    } else {
-      final int encryptedSize = getIntValue(entryPosition);
-      entryPosition += OIntegerSerializer.INT_SIZE + encryptedSize;
-    }
+    entryPosition += getKeySize(entryPosition);
 
     return getBinaryValue(entryPosition, RID_SIZE);
   }
 
   public K getKey(final int index) {
-    int entryPosition = getIntValue(index * OIntegerSerializer.INT_SIZE + POSITIONS_ARRAY_OFFSET);
+    return addPrefix(getStoredKey(index));
+  }
+
+  /**
+   * @return key as it is stored in the page, i.e. key suffix if page is prefix compressed.
+   */
+  private K getStoredKey(final int index) {
+    int entryPosition = getEntryPosition(index);
 
     if (!isLeaf) {
       entryPosition += 2 * OIntegerSerializer.INT_SIZE;
     }
 
-    if (encryption == null) {
-      return deserializeFromDirectMemory(keySerializer, entryPosition);
-    } else {
-      final int encryptedSize = getIntValue(entryPosition);
-      entryPosition += OIntegerSerializer.INT_SIZE;
-
-      final byte[] encryptedKey = getBinaryValue(entryPosition, encryptedSize);
-      final byte[] serializedKey = encryption.decrypt(encryptedKey);
-      return keySerializer.deserializeNativeObject(serializedKey, 0);
-    }
+    return readKey(entryPosition);
   }
 
   public boolean isLeaf() {
@@ -330,6 +352,19 @@ final class OSBTreeBucketSingleValue<K> extends ODurablePage {
   }
 
   public void addAll(final List<byte[]> rawEntries) {
+    if (prefixCompression) {
+      final List<K> keys = new ArrayList<>(rawEntries.size());
+      final List<byte[]> links = new ArrayList<>(rawEntries.size());
+
+      for (final byte[] rawEntry : rawEntries) {
+        parseRawEntry(rawEntry, keys, links);
+      }
+
+      final boolean rebuilt = rebuild(keys, links, commonPrefix(keys));
+      assert rebuilt;
+      return;
+    }
+
     for (int i = 0; i < rawEntries.size(); i++) {
       appendRawEntry(i, rawEntries.get(i));
     }
@@ -338,6 +373,17 @@ final class OSBTreeBucketSingleValue<K> extends ODurablePage {
   }
 
   public void shrink(final int newSize) {
+    if (prefixCompression) {
+      final List<K> keys = new ArrayList<>(newSize);
+      final List<byte[]> links = new ArrayList<>(newSize);
+
+      readEntries(newSize, keys, links);
+
+      final boolean rebuilt = rebuild(keys, links, commonPrefix(keys));
+      assert rebuilt;
+      return;
+    }
+
     final List<byte[]> rawEntries = new ArrayList<>(newSize);
 
     for (int i = 0; i < newSize; i++) {
@@ -355,6 +401,22 @@ final class OSBTreeBucketSingleValue<K> extends ODurablePage {
     setIntValue(SIZE_OFFSET, newSize);
   }
 
+  /**
+   * Adds leaf entry using key in both object and serialized form. Serialized key is used as is if page is stored in plain format.
+   */
+  boolean addLeafEntry(final int index, final K key, final byte[] serializedKey, final byte[] serializedValue) {
+    if (!prefixCompression) {
+      return addLeafEntry(index, serializedKey, serializedValue);
+    }
+
+    if (!fitPrefix(key)) {
+      return false;
+    }
+
+    final Object prefix = getPrefix();
+    return addLeafEntry(index, serializeKey(stripPrefix(key, prefix), OKeyPrefix.suffixTypes(keyTypes, prefix)), serializedValue);
+  }
+
   boolean addLeafEntry(final int index, final byte[] serializedKey, final byte[] serializedValue) {
     final int entrySize = serializedKey.length + serializedValue.length;
 
@@ -362,19 +424,19 @@ final class OSBTreeBucketSingleValue<K> extends ODurablePage {
     final int size = getIntValue(SIZE_OFFSET);
 
     int freePointer = getIntValue(FREE_POINTER_OFFSET);
-    if (freePointer - entrySize < (size + 1) * OIntegerSerializer.INT_SIZE + POSITIONS_ARRAY_OFFSET) {
+    if (freePointer - entrySize < (size + 1) * OIntegerSerializer.INT_SIZE + positionsArrayOffset) {
       return false;
     }
 
     if (index <= size - 1) {
-      moveData(POSITIONS_ARRAY_OFFSET + index * OIntegerSerializer.INT_SIZE,
-          POSITIONS_ARRAY_OFFSET + (index + 1) * OIntegerSerializer.INT_SIZE, (size - index) * OIntegerSerializer.INT_SIZE);
+      moveData(positionsArrayOffset + index * OIntegerSerializer.INT_SIZE,
+          positionsArrayOffset + (index + 1) * OIntegerSerializer.INT_SIZE, (size - index) * OIntegerSerializer.INT_SIZE);
     }
 
     freePointer -= entrySize;
 
     setIntValue(FREE_POINTER_OFFSET, freePointer);
-    setIntValue(POSITIONS_ARRAY_OFFSET + index * OIntegerSerializer.INT_SIZE, freePointer);
+    setIntValue(positionsArrayOffset + index * OIntegerSerializer.INT_SIZE, freePointer);
     setIntValue(SIZE_OFFSET, size + 1);
 
     setBinaryValue(freePointer, serializedKey);
@@ -388,24 +450,20 @@ final class OSBTreeBucketSingleValue<K> extends ODurablePage {
     freePointer -= rawEntry.length;
 
     setIntValue(FREE_POINTER_OFFSET, freePointer);
-    setIntValue(POSITIONS_ARRAY_OFFSET + index * OIntegerSerializer.INT_SIZE, freePointer);
+    setIntValue(positionsArrayOffset + index * OIntegerSerializer.INT_SIZE, freePointer);
 
     setBinaryValue(freePointer, rawEntry);
   }
 
   public boolean addEntry(final int index, final SBTreeEntry<K> treeEntry, final boolean updateNeighbors) {
-    final byte[] serializedKey = keySerializer.serializeNativeAsWhole(treeEntry.key, (Object[]) keyTypes);
-    final int keySize;
-    byte[] encryptedKey = null;
-
-    if (encryption == null) {
-      keySize = keySerializer.getObjectSize(treeEntry.key, (Object[]) keyTypes);
-    } else {
-      encryptedKey = encryption.encrypt(serializedKey);
-      keySize = encryptedKey.length + OIntegerSerializer.INT_SIZE;
+    if (prefixCompression && !fitPrefix(treeEntry.key)) {
+      return false;
     }
 
-    int entrySize = keySize;
+    final Object prefix = getPrefix();
+    final byte[] rawKey = serializeKey(stripPrefix(treeEntry.key, prefix), OKeyPrefix.suffixTypes(keyTypes, prefix));
+
+    int entrySize = rawKey.length;
 
     if (isLeaf) {
       entrySize += RID_SIZE;
@@ -415,30 +473,23 @@ final class OSBTreeBucketSingleValue<K> extends ODurablePage {
 
     int size = size();
     int freePointer = getIntValue(FREE_POINTER_OFFSET);
-    if (freePointer - entrySize < (size + 1) * OIntegerSerializer.INT_SIZE + POSITIONS_ARRAY_OFFSET) {
+    if (freePointer - entrySize < (size + 1) * OIntegerSerializer.INT_SIZE + positionsArrayOffset) {
       return false;
     }
 
     if (index <= size - 1) {
-      moveData(POSITIONS_ARRAY_OFFSET + index * OIntegerSerializer.INT_SIZE,
-          POSITIONS_ARRAY_OFFSET + (index + 1) * OIntegerSerializer.INT_SIZE, (size - index) * OIntegerSerializer.INT_SIZE);
+      moveData(positionsArrayOffset + index * OIntegerSerializer.INT_SIZE,
+          positionsArrayOffset + (index + 1) * OIntegerSerializer.INT_SIZE, (size - index) * OIntegerSerializer.INT_SIZE);
     }
 
     freePointer -= entrySize;
 
     setIntValue(FREE_POINTER_OFFSET, freePointer);
-    setIntValue(POSITIONS_ARRAY_OFFSET + index * OIntegerSerializer.INT_SIZE, freePointer);
+    setIntValue(positionsArrayOffset + index * OIntegerSerializer.INT_SIZE, freePointer);
     setIntValue(SIZE_OFFSET, size + 1);
 
     if (isLeaf) {
-      if (encryption == null) {
-        freePointer += setBinaryValue(freePointer, serializedKey);
-      } else {
-        setIntValue(freePointer, encryptedKey.length);
-        freePointer += OIntegerSerializer.INT_SIZE;
-
-        freePointer += setBinaryValue(freePointer, encryptedKey);
-      }
+      freePointer += setBinaryValue(freePointer, rawKey);
 
       freePointer += setShortValue(freePointer, (short) treeEntry.value.getClusterId());
       setLongValue(freePointer, treeEntry.value.getClusterPosition());
@@ -446,25 +497,18 @@ final class OSBTreeBucketSingleValue<K> extends ODurablePage {
       freePointer += setIntValue(freePointer, treeEntry.leftChild);
       freePointer += setIntValue(freePointer, treeEntry.rightChild);
 
-      if (encryption == null) {
-        setBinaryValue(freePointer, serializedKey);
-      } else {
-        setIntValue(freePointer, encryptedKey.length);
-        freePointer += OIntegerSerializer.INT_SIZE;
-
-        setBinaryValue(freePointer, encryptedKey);
-      }
+      setBinaryValue(freePointer, rawKey);
 
       size++;
 
       if (updateNeighbors && size > 1) {
         if (index < size - 1) {
-          final int nextEntryPosition = getIntValue(POSITIONS_ARRAY_OFFSET + (index + 1) * OIntegerSerializer.INT_SIZE);
+          final int nextEntryPosition = getIntValue(positionsArrayOffset + (index + 1) * OIntegerSerializer.INT_SIZE);
           setIntValue(nextEntryPosition, treeEntry.rightChild);
         }
 
         if (index > 0) {
-          final int prevEntryPosition = getIntValue(POSITIONS_ARRAY_OFFSET + (index - 1) * OIntegerSerializer.INT_SIZE);
+          final int prevEntryPosition = getIntValue(positionsArrayOffset + (index - 1) * OIntegerSerializer.INT_SIZE);
           setIntValue(prevEntryPosition + OIntegerSerializer.INT_SIZE, treeEntry.leftChild);
         }
       }
@@ -474,16 +518,221 @@ final class OSBTreeBucketSingleValue<K> extends ODurablePage {
   }
 
   void updateValue(final int index, final byte[] value) {
-    int entryPosition = getIntValue(index * OIntegerSerializer.INT_SIZE + POSITIONS_ARRAY_OFFSET);
+    int entryPosition = getEntryPosition(index);
+
+    entryPosition += getKeySize(entryPosition);
+
+    setBinaryValue(entryPosition, value);
+  }
 
+  private int getEntryPosition(final int entryIndex) {
+    return getIntValue(entryIndex * OIntegerSerializer.INT_SIZE + positionsArrayOffset);
+  }
+
+  private int getKeySize(final int keyPosition) {
+    if (encryption == null) {
+      return getObjectSizeInDirectMemory(keySerializer, keyPosition);
+    }
+
+    return OIntegerSerializer.INT_SIZE + getIntValue(keyPosition);
+  }
+
+  private K readKey(int keyPosition) {
+    if (encryption == null) {
+      return deserializeFromDirectMemory(keySerializer, keyPosition);
+    }
+
+    final int encryptedSize = getIntValue(keyPosition);
+    keyPosition += OIntegerSerializer.INT_SIZE;
+
+    final byte[] encryptedKey = getBinaryValue(keyPosition, encryptedSize);
+    final byte[] serializedKey = encryption.decrypt(encryptedKey);
+    return keySerializer.deserializeNativeObject(serializedKey, 0);
+  }
+
+  /**
+   * @return key in the same form as it is stored in the page, key is prefixed by its size if encryption is used.
+   */
+  private byte[] serializeKey(final K key, final OType[] types) {
+    final byte[] serializedKey = keySerializer.serializeNativeAsWhole(key, (Object[]) types);
     if (encryption == null) {
-      entryPosition += getObjectSizeInDirectMemory(keySerializer, entryPosition);
+      return serializedKey;
+    }
+
+    final byte[] encryptedKey = encryption.encrypt(serializedKey);
+    final byte[] rawKey = new byte[OIntegerSerializer.INT_SIZE + encryptedKey.length];
+    OIntegerSerializer.INSTANCE.serializeNative(encryptedKey.length, rawKey, 0);
+    System.arraycopy(encryptedKey, 0, rawKey, OIntegerSerializer.INT_SIZE, encryptedKey.length);
+
+    return rawKey;
+  }
+
+  private Object getPrefix() {
+    if (!prefixLoaded) {
+      final int prefixSize = getIntValue(PREFIX_OFFSET);
+      if (prefixSize > 0) {
+        // encrypted prefix has the same layout as encrypted key, size of the prefix is followed by its content
+        prefix = readKey(encryption == null ? PREFIX_OFFSET + OIntegerSerializer.INT_SIZE : PREFIX_OFFSET);
+      }
+
+      prefixLoaded = true;
+    }
+
+    return prefix;
+  }
+
+  @SuppressWarnings("unchecked")
+  private K addPrefix(final K storedKey) {
+    if (!prefixCompression) {
+      return storedKey;
+    }
+
+    return (K) OKeyPrefix.addPrefix(getPrefix(), storedKey);
+  }
+
+  @SuppressWarnings("unchecked")
+  private K stripPrefix(final K key, final Object prefix) {
+    return (K) OKeyPrefix.stripPrefix(key, prefix);
+  }
+
+  /**
+   * Makes sure that prefix of the page is a prefix of passed in key, page is rebuilt with shorter prefix if needed.
+   *
+   * @return <code>false</code> if entries of the page do not fit into the page with shorter prefix, page is not changed in such
+   * case.
+   */
+  private boolean fitPrefix(final K key) {
+    final Object prefix = getPrefix();
+    if (OKeyPrefix.startsWith(key, prefix)) {
+      return true;
+    }
+
+    final int size = size();
+    final List<K> keys = new ArrayList<>(size);
+    final List<byte[]> links = new ArrayList<>(size);
+
+    readEntries(size, keys, links);
+
+    return rebuild(keys, links, OKeyPrefix.commonPrefix(prefix, key));
+  }
+
+  private Object commonPrefix(final List<K> keys) {
+    if (keys.isEmpty()) {
+      return null;
+    }
+
+    // keys are sorted, so common prefix of the first and last keys is common prefix of all keys
+    return OKeyPrefix.commonPrefix(keys.get(0), keys.get(keys.size() - 1));
+  }
+
+  /**
+   * Reads first entries of the page as full keys and bytes which follow (leaf) or precede (non leaf) keys in entries.
+   */
+  private void readEntries(final int count, final List<K> keys, final List<byte[]> links) {
+    for (int i = 0; i < count; i++) {
+      int entryPosition = getEntryPosition(i);
+
+      if (isLeaf) {
+        keys.add(addPrefix(readKey(entryPosition)));
+        links.add(getBinaryValue(entryPosition + getKeySize(entryPosition), RID_SIZE));
+      } else {
+        links.add(getBinaryValue(entryPosition, 2 * OIntegerSerializer.INT_SIZE));
+
+        entryPosition += 2 * OIntegerSerializer.INT_SIZE;
+        keys.add(addPrefix(readKey(entryPosition)));
+      }
+    }
+  }
+
+  private void parseRawEntry(final byte[] rawEntry, final List<K> keys, final List<byte[]> links) {
+    final int keyOffset = isLeaf ? 0 : 2 * OIntegerSerializer.INT_SIZE;
+
+    final K key;
+    final int keySize;
+    if (encryption == null) {
+      key = keySerializer.deserializeNativeObject(rawEntry, keyOffset);
+      keySize = keySerializer.getObjectSizeNative(rawEntry, keyOffset);
     } else {
-      final int encryptedValue = getIntValue(entryPosition);
-      entryPosition += OIntegerSerializer.INT_SIZE + encryptedValue;
+      final int encryptedSize = OIntegerSerializer.INSTANCE.deserializeNative(rawEntry, keyOffset);
+      final byte[] encryptedKey = Arrays
+          .copyOfRange(rawEntry, keyOffset + OIntegerSerializer.INT_SIZE, keyOffset + OIntegerSerializer.INT_SIZE + encryptedSize);
+
+      key = keySerializer.deserializeNativeObject(encryption.decrypt(encryptedKey), 0);
+      keySize = OIntegerSerializer.INT_SIZE + encryptedSize;
     }
 
-    setBinaryValue(entryPosition, value);
+    keys.add(key);
+
+    if (isLeaf) {
+      links.add(Arrays.copyOfRange(rawEntry, keySize, rawEntry.length));
+    } else {
+      links.add(Arrays.copyOf(rawEntry, keyOffset));
+    }
+  }
+
+  /**
+   * Rewrites content of prefix compressed page using passed in prefix.
+   *
+   * @return <code>false</code> if entries do not fit into the page, page is not changed in such case.
+   */
+  private boolean rebuild(final List<K> keys, final List<byte[]> links, final Object newPrefix) {
+    final byte[] rawPrefix;
+    if (newPrefix == null) {
+      rawPrefix = new byte[0];
+    } else {
+      @SuppressWarnings("unchecked")
+      final K prefixKey = (K) newPrefix;
+      final byte[] serializedPrefix = serializeKey(prefixKey, OKeyPrefix.prefixTypes(keyTypes, newPrefix));
+
+      // size of the prefix is stored before the prefix anyway, so encrypted prefix is stored without own size
+      rawPrefix = encryption == null ?
+          serializedPrefix :
+          Arrays.copyOfRange(serializedPrefix, OIntegerSerializer.INT_SIZE, serializedPrefix.length);
+    }
+
+    final OType[] suffixTypes = OKeyPrefix.suffixTypes(keyTypes, newPrefix);
+    final List<byte[]> rawEntries = new ArrayList<>(keys.size());
+
+    final int newPositionsArrayOffset = PREFIX_OFFSET + OIntegerSerializer.INT_SIZE + rawPrefix.length;
+    int pageSize = newPositionsArrayOffset + keys.size() * OIntegerSerializer.INT_SIZE;
+
+    for (int i = 0; i < keys.size(); i++) {
+      final byte[] rawKey = serializeKey(stripPrefix(keys.get(i), newPrefix), suffixTypes);
+      final byte[] rawEntry = isLeaf ? concat(rawKey, links.get(i)) : concat(links.get(i), rawKey);
+
+      pageSize += rawEntry.length;
+      if (pageSize > MAX_PAGE_SIZE_BYTES) {
+        return false;
+      }
+
+      rawEntries.add(rawEntry);
+    }
+
+    setIntValue(PREFIX_OFFSET, rawPrefix.length);
+    if (rawPrefix.length > 0) {
+      setBinaryValue(PREFIX_OFFSET + OIntegerSerializer.INT_SIZE, rawPrefix);
+    }
+
+    positionsArrayOffset = newPositionsArrayOffset;
+    prefix = newPrefix;
+    prefixLoaded = true;
+
+    setIntValue(FREE_POINTER_OFFSET, MAX_PAGE_SIZE_BYTES);
+
+    for (int i = 0; i < rawEntries.size(); i++) {
+      appendRawEntry(i, rawEntries.get(i));
+    }
+
+    setIntValue(SIZE_OFFSET, rawEntries.size());
+
+    return true;
+  }
+
+  private static byte[] concat(final byte[] first, final byte[] second) {
+    final byte[] result = new byte[first.length + second.length];
+    System.arraycopy(first, 0, result, 0, first.length);
+    System.arraycopy(second, 0, result, first.length, second.length);
+    return result;
   }
 
   void setLeftSibling(final long pageIndex) {
@@ -212,6 +212,18 @@ public final class ODirectMemoryOnlyDiskCache extends OAbstractWriteCache implem
     return cacheEntry;
   }
 
+  @Override
+  public final OCacheEntry loadForRead(final long fileId, final long pageIndex, final boolean checkPinnedPages,
+      final OWriteCache writeCache, final int pageCount, final boolean verifyChecksums, final boolean scan) {
+    //all pages are in memory
+    return loadForRead(fileId, pageIndex, checkPinnedPages, writeCache, pageCount, verifyChecksums);
+  }
+
+  @Override
+  public final void prefetch(final long fileId, final long startPageIndex, final int pageCount, final OWriteCache writeCache) {
+    //all pages are in memory
+  }
+
   private OCacheEntry doLoad(final long fileId, final long pageIndex) {
     final OSessionStoragePerformanceStatistic sessionStoragePerformanceStatistic = performanceStatisticManager
         .getSessionPerformanceStatistic();
@@ -0,0 +1,83 @@
+package com.orientechnologies.common.collection;
+
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class OLongLongHashMapTest {
+  @Test
+  public void testPutAndGet() {
+    final OLongLongHashMap map = new OLongLongHashMap(4, -1);
+
+    Assert.assertTrue(map.isEmpty());
+    Assert.assertEquals(-1, map.get(42));
+    Assert.assertFalse(map.containsKey(42));
+
+    Assert.assertEquals(-1, map.put(42, 1));
+    Assert.assertEquals(1, map.put(42, 2));
+    Assert.assertEquals(2, map.get(42));
+    Assert.assertTrue(map.containsKey(42));
+
+    Assert.assertFalse(map.putIfAbsent(42, 3));
+    Assert.assertEquals(2, map.get(42));
+    Assert.assertTrue(map.putIfAbsent(0, 3));
+    Assert.assertEquals(3, map.get(0));
+
+    // THE VALUE WHICH MARKS ABSENT KEYS CAN BE STORED AS WELL
+    Assert.assertTrue(map.putIfAbsent(-42, -1));
+    Assert.assertTrue(map.containsKey(-42));
+
+    Assert.assertEquals(3, map.size());
+
+    map.clear();
+    Assert.assertEquals(0, map.size());
+    Assert.assertFalse(map.containsKey(42));
+  }
+
+  @Test
+  public void testRehash() {
+    final OLongLongHashMap map = new OLongLongHashMap(0, Long.MIN_VALUE);
+    final Map<Long, Long> expected = new HashMap<>();
+
+    final Random random = new Random(42);
+    for (int i = 0; i < 100000; i++) {
+      final long key = i % 2 == 0 ? random.nextLong() : random.nextInt(1000);
+      if (key == Long.MIN_VALUE) {
+        continue;
+      }
+
+      final Long previous = expected.put(key, (long) i);
+      Assert.assertEquals(previous == null ? Long.MIN_VALUE : previous, map.put(key, i));
+    }
+
+    Assert.assertEquals(expected.size(), map.size());
+    for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+      Assert.assertEquals(entry.getValue().longValue(), map.get(entry.getKey()));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testReservedKey() {
+    new OLongLongHashMap(4, -1).put(Long.MIN_VALUE, 1);
+  }
+
+  @Test
+  public void testPackedRecordIds() {
+    final ORID[] rids = { new ORecordId(0, 0), new ORecordId(12, 42), new ORecordId(ORID.CLUSTER_MAX, (1L << 47) - 1),
+        new ORecordId(-1, -1), new ORecordId(-2, -(1L << 47)), new ORecordId(5, -2) };
+
+    final OLongLongHashMap map = new OLongLongHashMap(rids.length, Long.MIN_VALUE);
+    for (int i = 0; i < rids.length; i++) {
+      final long packed = ORecordId.pack(rids[i]);
+      Assert.assertNotEquals(Long.MIN_VALUE, packed);
+      Assert.assertEquals(rids[i], ORecordId.unpack(packed));
+      Assert.assertTrue(map.putIfAbsent(packed, i));
+    }
+    Assert.assertEquals(rids.length, map.size());
+  }
+}
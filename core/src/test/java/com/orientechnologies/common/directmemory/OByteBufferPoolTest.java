@@ -15,6 +15,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class OByteBufferPoolTest {
@@ -157,6 +158,126 @@ public class OByteBufferPoolTest {
     byteBufferPool.checkMemoryLeaks();
   }
 
+  @Test
+  public void testByteBufferAllocationThreadCache() throws Exception {
+    final ODirectMemoryAllocator allocator = new ODirectMemoryAllocator();
+    final OByteBufferPool byteBufferPool = new OByteBufferPool(42, allocator, 8, 2);
+
+    final List<OPointer> pointers = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      pointers.add(byteBufferPool.acquireDirect(false));
+    }
+
+    Assert.assertEquals(0, byteBufferPool.getPoolSize());
+    Assert.assertEquals(8 * 42, allocator.getMemoryConsumption());
+
+    // thread cache keeps up to 4 pages, the rest is returned to the shared pool by batches of 2 pages
+    for (int i = 0; i < 4; i++) {
+      byteBufferPool.release(pointers.remove(pointers.size() - 1));
+    }
+
+    Assert.assertEquals(4, byteBufferPool.getPoolSize());
+    Assert.assertEquals(0, byteBufferPool.getSharedPoolSize());
+    Assert.assertArrayEquals(new int[] { 4 }, byteBufferPool.getThreadCacheSizes());
+
+    for (int i = 0; i < 4; i++) {
+      byteBufferPool.release(pointers.remove(pointers.size() - 1));
+    }
+
+    Assert.assertEquals(8, byteBufferPool.getPoolSize());
+    Assert.assertEquals(4, byteBufferPool.getSharedPoolSize());
+    Assert.assertArrayEquals(new long[] { 2 }, byteBufferPool.getThreadCacheReturns());
+    Assert.assertEquals(8 * 42, allocator.getMemoryConsumption());
+
+    // pages are taken from the thread cache first and then from the shared pool without new allocations
+    for (int i = 0; i < 8; i++) {
+      final OPointer pointer = byteBufferPool.acquireDirect(true);
+      assertBufferIsClear(pointer.getNativeByteBuffer());
+      pointers.add(pointer);
+    }
+
+    Assert.assertEquals(0, byteBufferPool.getPoolSize());
+    Assert.assertArrayEquals(new long[] { 2 }, byteBufferPool.getThreadCacheRefills());
+    Assert.assertEquals(8 * 42, allocator.getMemoryConsumption());
+
+    // pages released by the other thread are available to this one through the shared pool, pages which do not fit into the
+    // limit of the pool together with the pages cached by the threads are freed
+    final ExecutorService executorService = Executors.newSingleThreadExecutor();
+    executorService.submit(() -> {
+      for (OPointer pointer : pointers) {
+        byteBufferPool.release(pointer);
+      }
+    }).get();
+    executorService.shutdown();
+    Assert.assertTrue(executorService.awaitTermination(1, TimeUnit.MINUTES));
+    pointers.clear();
+
+    Assert.assertEquals(2, byteBufferPool.getSharedPoolSize());
+    Assert.assertEquals(6, byteBufferPool.getPoolSize());
+    Assert.assertEquals(6 * 42, allocator.getMemoryConsumption());
+
+    pointers.add(byteBufferPool.acquireDirect(false));
+    Assert.assertEquals(6 * 42, allocator.getMemoryConsumption());
+    Assert.assertEquals(0, byteBufferPool.getSharedPoolSize());
+
+    byteBufferPool.release(pointers.remove(0));
+
+    // pages cached by the dead thread are freed once the new thread is registered
+    final ExecutorService nextExecutorService = Executors.newSingleThreadExecutor();
+    nextExecutorService.submit(() -> byteBufferPool.release(byteBufferPool.acquireDirect(false))).get();
+    nextExecutorService.shutdown();
+    Assert.assertTrue(nextExecutorService.awaitTermination(1, TimeUnit.MINUTES));
+
+    Assert.assertEquals(3, byteBufferPool.getPoolSize());
+    Assert.assertEquals(3 * 42, allocator.getMemoryConsumption());
+
+    byteBufferPool.clear();
+
+    Assert.assertEquals(0, allocator.getMemoryConsumption());
+    Assert.assertEquals(0, byteBufferPool.getPoolSize());
+
+    byteBufferPool.checkMemoryLeaks();
+  }
+
+  @Test
+  public void testClearWithLiveThreadCache() throws Exception {
+    final ODirectMemoryAllocator allocator = new ODirectMemoryAllocator();
+    final OByteBufferPool byteBufferPool = new OByteBufferPool(42, allocator, 8, 2);
+
+    final ExecutorService executorService = Executors.newSingleThreadExecutor();
+    try {
+      executorService.submit(() -> {
+        final OPointer pointer = byteBufferPool.acquireDirect(false);
+        byteBufferPool.release(pointer);
+      }).get();
+
+      Assert.assertEquals(1, byteBufferPool.getPoolSize());
+
+      // page cached by the live thread is not freed by the other thread
+      byteBufferPool.clear();
+      Assert.assertEquals(42, allocator.getMemoryConsumption());
+
+      // but it is freed by the owner on the next access to the pool
+      executorService.submit(() -> {
+        final OPointer pointer = byteBufferPool.acquireDirect(false);
+        Assert.assertEquals(42, allocator.getMemoryConsumption());
+        byteBufferPool.release(pointer);
+      }).get();
+
+      Assert.assertEquals(1, byteBufferPool.getPoolSize());
+    } finally {
+      executorService.shutdown();
+      Assert.assertTrue(executorService.awaitTermination(1, TimeUnit.MINUTES));
+    }
+
+    byteBufferPool.clear();
+
+    Assert.assertEquals(0, allocator.getMemoryConsumption());
+    Assert.assertEquals(0, byteBufferPool.getPoolSize());
+
+    byteBufferPool.checkMemoryLeaks();
+  }
+
   @Test
   @Ignore
   public void mtTest() throws Exception {
@@ -0,0 +1,189 @@
+package com.orientechnologies.orient.core.encryption;
+
+import com.orientechnologies.common.io.OFileUtils;
+import com.orientechnologies.orient.core.db.ODatabaseSession;
+import com.orientechnologies.orient.core.db.ODatabaseType;
+import com.orientechnologies.orient.core.db.OrientDB;
+import com.orientechnologies.orient.core.db.OrientDBConfig;
+import com.orientechnologies.orient.core.db.OrientDBConfigBuilder;
+import com.orientechnologies.orient.core.exception.ODatabaseException;
+import com.orientechnologies.orient.core.exception.OSecurityException;
+import com.orientechnologies.orient.core.sql.executor.OResultSet;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static com.orientechnologies.orient.core.config.OGlobalConfiguration.STORAGE_ENCRYPTION_KEY;
+import static com.orientechnologies.orient.core.config.OGlobalConfiguration.STORAGE_PAGE_ENCRYPTION;
+import static com.orientechnologies.orient.core.config.OGlobalConfiguration.USE_WAL;
+
+public class OPageEncryptionTest {
+  private static final String DB_NAME = "testPageEncryptedDatabase";
+  private static final String KEY     = "T1JJRU5UREJfSVNfQ09PTA==";
+  private static final String SECRET  = "page-encryption-secret-value";
+
+  @Test
+  public void testCryptIsReversibleAndDependsOnPage() {
+    final OPageEncryption encryption = OPageEncryption.create(KEY, OPageEncryption.generateSalt());
+
+    final byte[] content = new byte[4096];
+    new Random(42).nextBytes(content);
+
+    final ByteBuffer buffer = ByteBuffer.allocateDirect(content.length);
+    buffer.put(content);
+
+    encryption.crypt(1, 1, 1, buffer, 28, content.length - 28);
+    final byte[] encrypted = toArray(buffer);
+    Assert.assertArrayEquals(Arrays.copyOf(content, 28), Arrays.copyOf(encrypted, 28));
+    Assert.assertFalse(Arrays.equals(content, encrypted));
+
+    final ByteBuffer otherPage = ByteBuffer.allocateDirect(content.length);
+    otherPage.put(content);
+    encryption.crypt(2, 1, 1, otherPage, 28, content.length - 28);
+    Assert.assertFalse(Arrays.equals(encrypted, toArray(otherPage)));
+
+    final ByteBuffer otherVersion = ByteBuffer.allocateDirect(content.length);
+    otherVersion.put(content);
+    encryption.crypt(1, 1, 2, otherVersion, 28, content.length - 28);
+    Assert.assertFalse(Arrays.equals(encrypted, toArray(otherVersion)));
+
+    final ByteBuffer otherSegment = ByteBuffer.allocateDirect(content.length);
+    otherSegment.put(content);
+    encryption.crypt(1, 2, 1, otherSegment, 28, content.length - 28);
+    Assert.assertFalse(Arrays.equals(encrypted, toArray(otherSegment)));
+
+    encryption.crypt(1, 1, 1, buffer, 28, content.length - 28);
+    Assert.assertArrayEquals(content, toArray(buffer));
+  }
+
+  @Test
+  public void testKeyStreamIsNotReusedForDifferentVersions() {
+    final OPageEncryption encryption = OPageEncryption.create(KEY, OPageEncryption.generateSalt());
+
+    // versions which differ only in the high bits of the segment or of the position
+    final long[][] versions = { { 0, 0 }, { 1L << 62, 0 }, { 0, 1L << 47 }, { 1L << 62, 1L << 47 },
+        { 0, OPageEncryption.MAX_POSITION }, { -1, 0 } };
+
+    final Set<String> keyStreams = new HashSet<>();
+    for (final long[] version : versions) {
+      // encryption of zeros is the key stream itself
+      final ByteBuffer buffer = ByteBuffer.allocateDirect(64);
+      encryption.crypt(1, version[0], version[1], buffer, 0, buffer.capacity());
+      Assert.assertTrue(keyStreams.add(Arrays.toString(toArray(buffer))));
+    }
+  }
+
+  @Test
+  public void testPageEncryptionRequiresWAL() {
+    final String buildDirectory = System.getProperty("buildDirectory", ".");
+    final File dbDirectory = new File(buildDirectory, DB_NAME);
+    OFileUtils.deleteRecursively(dbDirectory);
+
+    final OrientDBConfigBuilder builder = OrientDBConfig.builder();
+    builder.addConfig(STORAGE_ENCRYPTION_KEY, KEY);
+    builder.addConfig(STORAGE_PAGE_ENCRYPTION, true);
+    builder.addConfig(USE_WAL, false);
+
+    final OrientDB orientDB = new OrientDB("embedded:" + buildDirectory, builder.build());
+    try {
+      orientDB.create(DB_NAME, ODatabaseType.PLOCAL);
+      Assert.fail();
+    } catch (final ODatabaseException e) {
+      // expected
+    } finally {
+      orientDB.close();
+      OFileUtils.deleteRecursively(dbDirectory);
+    }
+  }
+
+  @Test(expected = OSecurityException.class)
+  public void testWrongKeyIsDetected() {
+    final byte[] salt = OPageEncryption.generateSalt();
+    final byte[] keyCheck = OPageEncryption.create(KEY, salt).keyCheck();
+
+    OPageEncryption.create("T1JJRU5UREJfSVNfQ09PTF9TT19DT09MX1NPX0NPT0w=", salt).verifyKeyCheck(keyCheck);
+  }
+
+  @Test
+  public void testPageEncryptedDatabase() throws IOException {
+    final String buildDirectory = System.getProperty("buildDirectory", ".");
+    final File dbDirectory = new File(buildDirectory, DB_NAME);
+    OFileUtils.deleteRecursively(dbDirectory);
+
+    OrientDB orientDB = new OrientDB("embedded:" + buildDirectory, config(KEY, true));
+    try {
+      orientDB.create(DB_NAME, ODatabaseType.PLOCAL);
+      try (ODatabaseSession db = orientDB.open(DB_NAME, "admin", "admin")) {
+        db.command("create class TestEncryption");
+        for (int i = 0; i < 1000; i++) {
+          db.command("insert into TestEncryption set name = '" + SECRET + i + "'");
+        }
+      }
+      orientDB.close();
+
+      // neither data files nor WAL segments contain the values of the records
+      try (final Stream<Path> files = Files.list(dbDirectory.toPath())) {
+        files.filter(Files::isRegularFile).forEach(path -> {
+          try {
+            final String content = new String(Files.readAllBytes(path), StandardCharsets.ISO_8859_1);
+            Assert.assertFalse(path.toString(), content.contains(SECRET));
+          } catch (final IOException e) {
+            throw new IllegalStateException(e);
+          }
+        });
+      }
+
+      orientDB = new OrientDB("embedded:" + buildDirectory, config(KEY, false));
+      try (ODatabaseSession db = orientDB.open(DB_NAME, "admin", "admin")) {
+        try (OResultSet result = db.query("select from TestEncryption where name = ?", SECRET + 10)) {
+          Assert.assertEquals(1, result.stream().count());
+        }
+        try (OResultSet result = db.query("select from TestEncryption")) {
+          Assert.assertEquals(1000, result.stream().count());
+        }
+      }
+      orientDB.close();
+
+      orientDB = new OrientDB("embedded:" + buildDirectory, config("T1JJRU5UREJfSVNfQ09PTF9TT19DT09MX1NPX0NPT0w=", false));
+      try {
+        orientDB.open(DB_NAME, "admin", "admin");
+        Assert.fail();
+      } catch (final OSecurityException e) {
+        // expected
+      }
+      orientDB.close();
+    } finally {
+      orientDB = new OrientDB("embedded:" + buildDirectory, config(KEY, false));
+      if (orientDB.exists(DB_NAME)) {
+        orientDB.drop(DB_NAME);
+      }
+      orientDB.close();
+    }
+  }
+
+  private static OrientDBConfig config(final String key, final boolean pageEncryption) {
+    final OrientDBConfigBuilder builder = OrientDBConfig.builder();
+    builder.addConfig(STORAGE_ENCRYPTION_KEY, key);
+    builder.addConfig(STORAGE_PAGE_ENCRYPTION, pageEncryption);
+    return builder.build();
+  }
+
+  private static byte[] toArray(final ByteBuffer buffer) {
+    final byte[] result = new byte[buffer.capacity()];
+    final ByteBuffer duplicate = buffer.duplicate();
+    duplicate.position(0);
+    duplicate.get(result);
+    return result;
+  }
+}
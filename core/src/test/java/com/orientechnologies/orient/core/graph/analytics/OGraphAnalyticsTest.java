@@ -0,0 +1,245 @@
+package com.orientechnologies.orient.core.graph.analytics;
+
+import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
+import com.orientechnologies.orient.core.db.ODatabaseSession;
+import com.orientechnologies.orient.core.db.ODatabaseType;
+import com.orientechnologies.orient.core.db.OrientDB;
+import com.orientechnologies.orient.core.db.OrientDBConfig;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.exception.OCommandExecutionException;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.record.OVertex;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.executor.OResultSet;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class OGraphAnalyticsTest {
+  private OrientDB         orientDB;
+  private ODatabaseSession db;
+
+  /**
+   * two triangles of <code>Knows</code> edges linked by the <code>Likes</code> edge and a vertex without edges
+   */
+  private ORID[] vertices = new ORID[7];
+
+  @Before
+  public void setUp() {
+    orientDB = new OrientDB("embedded:", OrientDBConfig.defaultConfig());
+    orientDB.create("OGraphAnalyticsTest", ODatabaseType.MEMORY);
+    db = orientDB.open("OGraphAnalyticsTest", "admin", "admin");
+
+    db.createVertexClass("Person");
+    db.createEdgeClass("Knows");
+    db.createEdgeClass("Likes");
+
+    final OVertex[] people = new OVertex[vertices.length];
+    for (int i = 0; i < people.length; i++) {
+      people[i] = db.newVertex("Person");
+      people[i].setProperty("name", "p" + i);
+      people[i].save();
+    }
+
+    db.newEdge(people[0], people[1], "Knows").save();
+    db.newEdge(people[1], people[2], "Knows").save();
+    db.newEdge(people[2], people[0], "Knows").save();
+    db.newEdge(people[3], people[4], "Knows").save();
+    db.newEdge(people[4], people[5], "Knows").save();
+    db.newEdge(people[5], people[3], "Knows").save();
+    db.newEdge(people[2], people[3], "Likes").save();
+
+    for (int i = 0; i < people.length; i++) {
+      vertices[i] = people[i].getIdentity();
+    }
+  }
+
+  @After
+  public void tearDown() {
+    db.close();
+    orientDB.drop("OGraphAnalyticsTest");
+    orientDB.close();
+  }
+
+  @Test
+  public void testSnapshot() {
+    final OGraphSnapshot all = OGraphSnapshot.create((ODatabaseDocumentInternal) db, 4, "Person");
+    Assert.assertEquals(7, all.getVertexCount());
+    Assert.assertEquals(7, all.getEdgeCount());
+
+    final OGraphSnapshot knows = OGraphSnapshot.create((ODatabaseDocumentInternal) db, 4, "Person", "Knows");
+    Assert.assertEquals(7, knows.getVertexCount());
+    Assert.assertEquals(6, knows.getEdgeCount());
+
+    for (ORID vertex : vertices) {
+      final int index = all.indexOf(vertex);
+      Assert.assertTrue(index >= 0);
+      Assert.assertEquals(vertex, all.getIdentity(index));
+    }
+
+    Assert.assertEquals(2, all.getOutDegree(all.indexOf(vertices[2])));
+    Assert.assertEquals(2, all.getInDegree(all.indexOf(vertices[3])));
+    Assert.assertEquals(1, knows.getInDegree(knows.indexOf(vertices[3])));
+    Assert.assertEquals(0, all.getOutDegree(all.indexOf(vertices[6])));
+  }
+
+  @Test
+  public void testPageRank() {
+    final OGraphSnapshot graph = OGraphSnapshot.create((ODatabaseDocumentInternal) db, 4, "Person", "Knows");
+
+    final OPageRank pageRank = new OPageRank(0.85, 100, 1e-10);
+    final double[] ranks = pageRank.compute(graph);
+    Assert.assertTrue(pageRank.getIterations() > 1);
+
+    double sum = 0;
+    for (double rank : ranks) {
+      sum += rank;
+    }
+    Assert.assertEquals(1.0, sum, 1e-9);
+
+    final double triangleRank = ranks[graph.indexOf(vertices[0])];
+    for (int i = 1; i < 6; i++) {
+      Assert.assertEquals(triangleRank, ranks[graph.indexOf(vertices[i])], 1e-9);
+    }
+    Assert.assertTrue(triangleRank > ranks[graph.indexOf(vertices[6])]);
+  }
+
+  @Test
+  public void testConnectedComponents() {
+    final OGraphSnapshot knows = OGraphSnapshot.create((ODatabaseDocumentInternal) db, 4, "Person", "Knows");
+    final OConnectedComponents connectedComponents = new OConnectedComponents();
+    int[] components = connectedComponents.compute(knows);
+
+    Assert.assertEquals(3, connectedComponents.getComponentCount());
+    assertSameGroup(knows, components, 0, 1, 2);
+    assertSameGroup(knows, components, 3, 4, 5);
+    Assert.assertNotEquals(components[knows.indexOf(vertices[0])], components[knows.indexOf(vertices[3])]);
+
+    final OGraphSnapshot all = OGraphSnapshot.create((ODatabaseDocumentInternal) db, 4, "Person");
+    components = connectedComponents.compute(all);
+
+    Assert.assertEquals(2, connectedComponents.getComponentCount());
+    assertSameGroup(all, components, 0, 1, 2, 3, 4, 5);
+
+    final int isolated = all.indexOf(vertices[6]);
+    Assert.assertEquals(isolated, components[isolated]);
+  }
+
+  @Test
+  public void testLabelPropagation() {
+    final OGraphSnapshot graph = OGraphSnapshot.create((ODatabaseDocumentInternal) db, 4, "Person", "Knows");
+    final OLabelPropagation labelPropagation = new OLabelPropagation();
+    final int[] labels = labelPropagation.compute(graph);
+
+    Assert.assertTrue(labelPropagation.getIterations() < OLabelPropagation.DEFAULT_MAX_ITERATIONS);
+    assertSameGroup(graph, labels, 0, 1, 2);
+    assertSameGroup(graph, labels, 3, 4, 5);
+    Assert.assertNotEquals(labels[graph.indexOf(vertices[0])], labels[graph.indexOf(vertices[3])]);
+  }
+
+  @Test
+  public void testSQLFunctions() {
+    try (OResultSet result = db.command("select connectedComponents('Person', {edgeTypeNames: 'Knows', batchSize: 2})")) {
+      Assert.assertTrue(result.hasNext());
+      result.next();
+    }
+
+    final ORID component = component(0);
+    Assert.assertNotNull(component);
+    Assert.assertEquals(component, component(1));
+    Assert.assertEquals(component, component(2));
+    Assert.assertNotEquals(component, component(3));
+    Assert.assertEquals(vertices[6], component(6));
+
+    try (OResultSet result = db.command("select pageRank('Person', {writeProperty: 'rank'})")) {
+      Assert.assertTrue(result.hasNext());
+      result.next();
+    }
+
+    double sum = 0;
+    try (OResultSet result = db.query("select rank from Person")) {
+      while (result.hasNext()) {
+        sum += result.next().<Number>getProperty("rank").doubleValue();
+      }
+    }
+    Assert.assertEquals(1.0, sum, 1e-6);
+  }
+
+  @Test
+  public void testSQLFunctionsAreCommands() {
+    try (OResultSet result = db.query("select pageRank('Person')")) {
+      result.hasNext();
+      Assert.fail();
+    } catch (OCommandExecutionException e) {
+      // WRITING FUNCTIONS ARE NOT ALLOWED IN QUERIES
+    }
+
+    try (OResultSet result = db.query("select from (select pageRank('Person'))")) {
+      result.hasNext();
+      Assert.fail();
+    } catch (OCommandExecutionException e) {
+      // NOR IN THEIR SUB-QUERIES
+    }
+
+    try (OResultSet result = db.command("select pageRank('Person') from Person")) {
+      result.hasNext();
+      Assert.fail();
+    } catch (OCommandExecutionException e) {
+      // THE WHOLE CLASS IS NOT PROCESSED AGAIN FOR EVERY RECORD
+    }
+
+    try (OResultSet result = db.query("select from Person where pageRank is not null")) {
+      Assert.assertFalse(result.hasNext());
+    }
+  }
+
+  @Test
+  public void testWriteRetriesConcurrentlyModifiedBatch() {
+    final OGraphSnapshot graph = OGraphSnapshot.create((ODatabaseDocumentInternal) db, 1, "Person");
+    final int changed = graph.indexOf(vertices[0]);
+    final AtomicBoolean modified = new AtomicBoolean();
+
+    graph.write((ODatabaseDocumentInternal) db, "index", vertex -> {
+      if (vertex == changed && modified.compareAndSet(false, true)) {
+        // THE VERTEX IS CHANGED AFTER IT IS LOADED BY THE BATCH, SO THE BATCH FAILS ON COMMIT
+        final Thread thread = new Thread(() -> {
+          try (ODatabaseSession session = orientDB.open("OGraphAnalyticsTest", "admin", "admin")) {
+            final ODocument person = session.load(vertices[0]);
+            person.field("name", "changed");
+            person.save();
+          }
+        });
+        thread.start();
+        try {
+          thread.join();
+        } catch (InterruptedException e) {
+          throw new IllegalStateException(e);
+        }
+      }
+      return vertex;
+    }, 100);
+
+    Assert.assertTrue(modified.get());
+    final ODocument person = db.load(vertices[0]);
+    Assert.assertEquals("changed", person.field("name"));
+    Assert.assertEquals(changed, (int) person.<Integer>field("index"));
+    for (ORID vertex : vertices) {
+      Assert.assertEquals(graph.indexOf(vertex), (int) db.<ODocument>load(vertex).<Integer>field("index"));
+    }
+  }
+
+  private ORID component(final int person) {
+    final OIdentifiable component = ((ODocument) db.load(vertices[person])).field("component");
+    return component != null ? component.getIdentity() : null;
+  }
+
+  private void assertSameGroup(final OGraphSnapshot graph, final int[] groups, final int... people) {
+    final int group = groups[graph.indexOf(vertices[people[0]])];
+    for (int person : people) {
+      Assert.assertEquals(group, groups[graph.indexOf(vertices[person])]);
+    }
+  }
+}
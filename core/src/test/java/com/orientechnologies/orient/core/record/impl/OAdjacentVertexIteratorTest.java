@@ -0,0 +1,153 @@
+package com.orientechnologies.orient.core.record.impl;
+
+import com.orientechnologies.orient.core.db.ODatabaseSession;
+import com.orientechnologies.orient.core.db.ODatabaseType;
+import com.orientechnologies.orient.core.db.OrientDB;
+import com.orientechnologies.orient.core.db.OrientDBConfig;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.record.ODirection;
+import com.orientechnologies.orient.core.record.OEdge;
+import com.orientechnologies.orient.core.record.OVertex;
+import com.orientechnologies.orient.core.sql.executor.OResult;
+import com.orientechnologies.orient.core.sql.executor.OResultSet;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class OAdjacentVertexIteratorTest {
+  private OrientDB         orientDB;
+  private ODatabaseSession session;
+
+  private OVertex a;
+  private OVertex b;
+  private OVertex c;
+  private OVertex d;
+  private OEdge   knows;
+
+  @Before
+  public void before() {
+    orientDB = new OrientDB("embedded:", OrientDBConfig.defaultConfig());
+    orientDB.create("OAdjacentVertexIteratorTest", ODatabaseType.MEMORY);
+    session = orientDB.open("OAdjacentVertexIteratorTest", "admin", "admin");
+
+    session.createVertexClass("Person");
+    session.createEdgeClass("Knows");
+    session.createClass("KnowsWell", "Knows");
+    session.createEdgeClass("Likes");
+
+    a = session.newVertex("Person");
+    a.setProperty("name", "a");
+    a.save();
+    b = session.newVertex("Person").save();
+    c = session.newVertex("Person").save();
+    d = session.newVertex("Person").save();
+
+    knows = session.newEdge(a, b, "Knows").save();
+    session.newEdge(a, c, "KnowsWell").save();
+    session.newEdge(d, a, "Likes").save();
+  }
+
+  @After
+  public void after() {
+    session.close();
+    orientDB.drop("OAdjacentVertexIteratorTest");
+    orientDB.close();
+  }
+
+  @Test
+  public void testAdjacentVertices() {
+    final ODocument vertex = session.load(a.getIdentity());
+
+    Assert.assertEquals(set(b, c), identities(vertex, ODirection.OUT));
+    Assert.assertEquals(set(d), identities(vertex, ODirection.IN));
+    Assert.assertEquals(set(b, c, d), identities(vertex, ODirection.BOTH));
+
+    // labels include subclasses of the edge classes
+    Assert.assertEquals(set(b, c), identities(vertex, ODirection.OUT, "Knows"));
+    Assert.assertEquals(set(c), identities(vertex, ODirection.OUT, "KnowsWell"));
+    Assert.assertEquals(set(d), identities(vertex, ODirection.BOTH, "Likes"));
+    Assert.assertEquals(set(b, c, d), identities(vertex, ODirection.BOTH, "E"));
+    Assert.assertEquals(set(), identities(vertex, ODirection.IN, "Knows"));
+
+    Assert.assertEquals(2, OAdjacentVertexIterator.size(vertex, ODirection.OUT));
+    Assert.assertEquals(1, OAdjacentVertexIterator.size(vertex, ODirection.BOTH, "Likes"));
+  }
+
+  @Test
+  public void testEdgeIdentity() {
+    final Map<ORID, ORID> edges = new HashMap<>();
+    final OAdjacentVertexIterator iterator = new OAdjacentVertexIterator(session.load(a.getIdentity()), ODirection.OUT, "Knows");
+    while (iterator.hasNext()) {
+      final ORID vertex = iterator.next();
+      edges.put(vertex, iterator.getEdgeIdentity());
+    }
+
+    Assert.assertEquals(2, edges.size());
+    Assert.assertEquals(knows.getIdentity(), edges.get(b.getIdentity()));
+    Assert.assertNotNull(edges.get(c.getIdentity()));
+    Assert.assertNotEquals(knows.getIdentity(), edges.get(c.getIdentity()));
+  }
+
+  @Test
+  public void testLightweightEdges() {
+    final OVertex e = session.newVertex("Person");
+    final OVertex f = session.newVertex("Person");
+
+    final List<OVertex> out = new ArrayList<>();
+    out.add(f);
+    e.setProperty("out_Knows", out);
+    final List<OVertex> in = new ArrayList<>();
+    in.add(e);
+    f.setProperty("in_Knows", in);
+    session.save(e);
+
+    final OAdjacentVertexIterator iterator = new OAdjacentVertexIterator(session.load(e.getIdentity()), ODirection.OUT);
+    Assert.assertTrue(iterator.hasNext());
+    Assert.assertEquals(f.getIdentity(), iterator.next());
+    Assert.assertNull(iterator.getEdgeIdentity());
+    Assert.assertFalse(iterator.hasNext());
+  }
+
+  @Test
+  public void testProjectionOfAdjacentVertices() {
+    try (OResultSet result = session.query("select out('Knows') as friends from Person where name = 'a'")) {
+      final OResult item = result.next();
+      final Collection<?> friends = item.getProperty("friends");
+      Assert.assertEquals(set(b, c), new HashSet<>(friends));
+    }
+
+    try (OResultSet result = session.query("select out('Knows').size() as friends from Person where name = 'a'")) {
+      Assert.assertEquals(2, ((Number) result.next().getProperty("friends")).intValue());
+    }
+
+    try (OResultSet result = session.query("select expand(both()) from Person where name = 'a'")) {
+      final Set<ORID> neighbors = new HashSet<>();
+      result.stream().forEach(item -> neighbors.add(item.getIdentity().get()));
+      Assert.assertEquals(set(b, c, d), neighbors);
+    }
+  }
+
+  private static Set<ORID> identities(final ODocument vertex, final ODirection direction, final String... labels) {
+    final Set<ORID> result = new HashSet<>();
+    for (ORID rid : new OAdjacentVerticesIterable(vertex, direction, labels).identities()) {
+      Assert.assertTrue(result.add(rid));
+    }
+    return result;
+  }
+
+  private static Set<ORID> set(final OVertex... vertices) {
+    final Set<ORID> result = new HashSet<>();
+    Arrays.stream(vertices).forEach(vertex -> result.add(vertex.getIdentity()));
+    return result;
+  }
+}
@@ -0,0 +1,128 @@
+package com.orientechnologies.orient.core.record.impl;
+
+import com.orientechnologies.orient.core.db.ODatabaseSession;
+import com.orientechnologies.orient.core.db.ODatabaseType;
+import com.orientechnologies.orient.core.db.OrientDB;
+import com.orientechnologies.orient.core.db.OrientDBConfig;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.ODirection;
+import com.orientechnologies.orient.core.record.OEdge;
+import com.orientechnologies.orient.core.record.OVertex;
+import com.orientechnologies.orient.core.sql.executor.OResultSet;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class OVertexCentricIndexesTest {
+  private static final int FOLLOWERS = 50;
+
+  private OrientDB         orientDB;
+  private ODatabaseSession session;
+
+  private OClass  follows;
+  private OVertex hub;
+  private OVertex follower;
+
+  @Before
+  public void before() {
+    orientDB = new OrientDB("embedded:", OrientDBConfig.defaultConfig());
+    orientDB.create("OVertexCentricIndexesTest", ODatabaseType.MEMORY);
+    session = orientDB.open("OVertexCentricIndexesTest", "admin", "admin");
+
+    session.createVertexClass("Person");
+    follows = session.createEdgeClass("Follows");
+    follows.createProperty("ts", OType.LONG);
+    session.createClass("FollowsClosely", "Follows");
+
+    hub = session.newVertex("Person");
+    hub.setProperty("name", "hub");
+    hub.save();
+
+    // EDGES ARE CREATED IN THE ORDER WHICH DIFFERS FROM THE ORDER OF THE TIMESTAMPS
+    for (int i = 0; i < FOLLOWERS; i++) {
+      follower = session.newVertex("Person").save();
+      final OEdge edge = session.newEdge(follower, hub, i % 5 == 0 ? "FollowsClosely" : "Follows");
+      edge.setProperty("ts", (long) ((i * 7) % FOLLOWERS));
+      edge.save();
+    }
+  }
+
+  @After
+  public void after() {
+    session.close();
+    orientDB.drop("OVertexCentricIndexesTest");
+    orientDB.close();
+  }
+
+  @Test
+  public void testRangeWithIndex() {
+    Assert.assertNull(OVertexCentricIndexes.getIndex(follows, ODirection.IN, "ts"));
+    OVertexCentricIndexes.createIndex(follows, ODirection.IN, "ts");
+    Assert.assertNotNull(OVertexCentricIndexes.getIndex(follows, ODirection.IN, "ts"));
+    Assert.assertNull(OVertexCentricIndexes.getIndex(follows, ODirection.OUT, "ts"));
+
+    assertRange(hub.getEdges(ODirection.IN, "Follows", "ts", 10, 19, true), 10, 19);
+    assertRange(hub.getEdges(ODirection.IN, "Follows", "ts", 10, 19, false), 19, 10);
+    assertRange(hub.getEdges(ODirection.IN, "Follows", "ts", 45, null, true), 45, FOLLOWERS - 1);
+    assertRange(hub.getEdges(ODirection.IN, "Follows", "ts", null, 4, false), 4, 0);
+    assertRange(OVertexCentricIndexes.getEdges(hub, ODirection.IN, "Follows", "ts", 10, false, 15, false, true), 11, 14);
+
+    // INDEX OF THE SUPER CLASS IS USED, EDGES OF THE OTHER CLASSES ARE SKIPPED
+    for (OEdge edge : hub.getEdges(ODirection.IN, "FollowsClosely", "ts", null, null, true)) {
+      Assert.assertEquals("FollowsClosely", edge.getSchemaType().get().getName());
+    }
+
+    final OEdge edge = session.newEdge(session.newVertex("Person").save(), hub, "Follows");
+    edge.setProperty("ts", 100L);
+    edge.save();
+    assertRange(hub.getEdges(ODirection.IN, "Follows", "ts", 100, null, true), 100, 100);
+  }
+
+  @Test
+  public void testRangeWithoutIndex() {
+    assertRange(hub.getEdges(ODirection.IN, "Follows", "ts", 10, 19, true), 10, 19);
+    assertRange(hub.getEdges(ODirection.IN, "Follows", "ts", 10, 19, false), 19, 10);
+    assertRange(OVertexCentricIndexes.getEdges(hub, ODirection.IN, "Follows", "ts", 10, false, 15, false, true), 11, 14);
+    assertRange(hub.getEdges(ODirection.BOTH, "Follows", "ts", 48, null, true), 48, FOLLOWERS - 1);
+  }
+
+  @Test
+  public void testMatch() {
+    OVertexCentricIndexes.createIndex(follows, ODirection.IN, "ts");
+    OVertexCentricIndexes.createIndex(follows, ODirection.OUT, "ts");
+
+    try (OResultSet result = session.query(
+        "MATCH {class: Person, as: hub, where: (name = 'hub')}.inE('Follows'){as: e, where: (ts >= 40 and ts < 45)}.outV(){as: f} RETURN e.ts as ts")) {
+      final List<Long> timestamps = new ArrayList<>();
+      while (result.hasNext()) {
+        timestamps.add(result.next().getProperty("ts"));
+      }
+      timestamps.sort(null);
+      Assert.assertEquals(5, timestamps.size());
+      Assert.assertEquals(40L, (long) timestamps.get(0));
+      Assert.assertEquals(44L, (long) timestamps.get(4));
+    }
+
+    try (OResultSet result = session.query(
+        "MATCH {class: Person, as: f, where: (name is null)}.outE('Follows'){as: e, where: (ts = 7)}.inV(){as: hub} RETURN f")) {
+      Assert.assertTrue(result.hasNext());
+      result.next();
+      Assert.assertFalse(result.hasNext());
+    }
+  }
+
+  private static void assertRange(final Iterable<OEdge> edges, final long first, final long last) {
+    final long step = first <= last ? 1 : -1;
+    long expected = first;
+    for (OEdge edge : edges) {
+      Assert.assertEquals(expected, (long) edge.<Long>getProperty("ts"));
+      expected += step;
+    }
+    Assert.assertEquals(last + step, expected);
+  }
+}
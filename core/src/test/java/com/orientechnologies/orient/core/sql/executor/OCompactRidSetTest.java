@@ -0,0 +1,96 @@
+package com.orientechnologies.orient.core.sql.executor;
+
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+public class OCompactRidSetTest {
+
+  @Test
+  public void testPut() {
+    OCompactRidSet set = new OCompactRidSet();
+    ORID rid = new ORecordId(12, 100);
+    Assert.assertFalse(set.contains(rid));
+    Assert.assertTrue(set.add(rid));
+    Assert.assertFalse(set.add(rid));
+    Assert.assertTrue(set.contains(rid));
+    Assert.assertFalse(set.contains(new ORecordId(12, 101)));
+    Assert.assertFalse(set.contains(new ORecordId(11, 100)));
+    Assert.assertEquals(1, set.size());
+    Assert.assertTrue(set.remove(rid));
+    Assert.assertFalse(set.contains(rid));
+    Assert.assertTrue(set.isEmpty());
+    set.close();
+  }
+
+  @Test
+  public void testDenseChunk() {
+    OCompactRidSet set = new OCompactRidSet();
+    try {
+      // more than 4096 positions in the same chunk of 2^16, stored as a bitmap
+      for (long i = 0; i < 20000; i += 2) {
+        Assert.assertTrue(set.add(new ORecordId(5, i)));
+      }
+      Assert.assertEquals(10000, set.size());
+      for (long i = 0; i < 20000; i++) {
+        Assert.assertEquals(i % 2 == 0, set.contains(new ORecordId(5, i)));
+      }
+      Assert.assertFalse(set.add(new ORecordId(5, 400)));
+      Assert.assertTrue(set.remove(new ORecordId(5, 400)));
+      Assert.assertFalse(set.contains(new ORecordId(5, 400)));
+      Assert.assertEquals(9999, set.size());
+    } finally {
+      set.close();
+    }
+    Assert.assertTrue(set.isEmpty());
+    Assert.assertFalse(set.contains(new ORecordId(5, 0)));
+  }
+
+  @Test
+  public void testIterator() {
+    Set<ORID> control = new HashSet<>();
+    OCompactRidSet set = new OCompactRidSet();
+    try {
+      long[] positions = { 0, 1, 63, 64, 65535, 65536, 70000, ((long) Integer.MAX_VALUE) * 63 };
+      for (int cluster = 0; cluster < 20; cluster += 3) {
+        for (long position : positions) {
+          ORID rid = new ORecordId(cluster, position);
+          set.add(rid);
+          control.add(rid);
+        }
+      }
+      for (long i = 100000; i < 110000; i++) {
+        ORID rid = new ORecordId(7, i);
+        set.add(rid);
+        control.add(rid);
+      }
+      Assert.assertEquals(control.size(), set.size());
+
+      Iterator<ORID> iterator = set.iterator();
+      ORID previous = null;
+      while (iterator.hasNext()) {
+        ORID next = iterator.next();
+        Assert.assertTrue(control.remove(next));
+        if (previous != null) {
+          Assert.assertTrue(previous.compareTo(next) < 0);
+        }
+        previous = next;
+      }
+      Assert.assertTrue(control.isEmpty());
+    } finally {
+      set.close();
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegative() {
+    OCompactRidSet set = new OCompactRidSet();
+    Assert.assertFalse(set.contains(new ORecordId(-1, -1)));
+    set.add(new ORecordId(-1, -1));
+  }
+}
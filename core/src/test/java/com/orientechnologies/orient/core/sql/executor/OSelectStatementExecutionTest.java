@@ -1,5 +1,6 @@
 package com.orientechnologies.orient.core.sql.executor;
 
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
 import com.orientechnologies.orient.core.db.ODatabaseSession;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocument;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
@@ -3910,4 +3911,420 @@ public class OSelectStatementExecutionTest {
     }
   }
 
+  @Test
+  public void testParallelClassScan() {
+    String className = "testParallelClassScan";
+
+    db.getMetadata().getSchema().createClass(className, 8);
+    for (int i = 0; i < 1000; i++) {
+      ODocument doc = db.newInstance(className);
+      doc.setProperty("val", i);
+      doc.save();
+    }
+
+    try (OResultSet result = db.query("select from " + className + " where val >= 500 parallel")) {
+      OInternalExecutionPlan plan = (OInternalExecutionPlan) result.getExecutionPlan().get();
+      Assert.assertTrue(plan.getSteps().get(0) instanceof ParallelExecStep);
+      Assert.assertTrue(((ParallelExecStep) plan.getSteps().get(0)).isConcurrent());
+      Set<Integer> values = new HashSet<>();
+      while (result.hasNext()) {
+        int val = result.next().getProperty("val");
+        Assert.assertTrue(val >= 500);
+        values.add(val);
+      }
+      Assert.assertEquals(500, values.size());
+    }
+
+    try (OResultSet result = db.query("select from " + className + " limit 10 parallel")) {
+      for (int i = 0; i < 10; i++) {
+        Assert.assertTrue(result.hasNext());
+        result.next();
+      }
+      Assert.assertFalse(result.hasNext());
+    }
+  }
+
+  @Test
+  public void testParallelClassScanInTransaction() {
+    String className = "testParallelClassScanInTransaction";
+
+    db.getMetadata().getSchema().createClass(className, 4);
+    for (int i = 0; i < 100; i++) {
+      ODocument doc = db.newInstance(className);
+      doc.setProperty("val", i);
+      doc.save();
+    }
+
+    String query = "select from " + className + " where val >= 50 parallel";
+    try (OResultSet result = db.query(query)) {
+      Assert.assertEquals(50, result.stream().count());
+    }
+
+    // THE PLAN OF THE SAME STATEMENT IS REUSED IN THE TRANSACTION, UNCOMMITTED RECORDS HAVE TO BE RETURNED
+    db.begin();
+    try {
+      for (int i = 100; i < 110; i++) {
+        ODocument doc = db.newInstance(className);
+        doc.setProperty("val", i);
+        doc.save();
+      }
+
+      try (OResultSet result = db.query(query)) {
+        Set<Integer> values = new HashSet<>();
+        while (result.hasNext()) {
+          values.add(result.next().getProperty("val"));
+        }
+        Assert.assertEquals(60, values.size());
+        Assert.assertTrue(values.contains(105));
+      }
+    } finally {
+      db.rollback();
+    }
+  }
+
+  @Test
+  public void testParallelGroupBy() {
+    String className = "testParallelGroupBy";
+
+    db.getMetadata().getSchema().createClass(className, 8);
+    for (int i = 0; i < 1000; i++) {
+      ODocument doc = db.newInstance(className);
+      doc.setProperty("type", "type" + (i % 3));
+      doc.setProperty("val", i);
+      doc.save();
+    }
+
+    String projections = "type, count(*) as cnt, sum(val) as s, avg(val) as a, min(val) as mn, max(val) as mx, variance(val) as v, "
+        + "median(val) as md";
+    Map<String, OResult> serial = new HashMap<>();
+    try (OResultSet result = db.query("select " + projections + " from " + className + " group by type")) {
+      while (result.hasNext()) {
+        OResult item = result.next();
+        serial.put(item.getProperty("type"), item);
+      }
+    }
+    Assert.assertEquals(3, serial.size());
+
+    try (OResultSet result = db.query("select " + projections + " from " + className + " group by type parallel")) {
+      OInternalExecutionPlan plan = (OInternalExecutionPlan) result.getExecutionPlan().get();
+      Assert.assertTrue(plan.getSteps().stream().anyMatch(
+          x -> x instanceof AggregateProjectionCalculationStep
+              && ((AggregateProjectionCalculationStep) x).getMode() == AggregateProjectionCalculationStep.Mode.COMBINE));
+      int count = 0;
+      while (result.hasNext()) {
+        OResult item = result.next();
+        OResult expected = serial.get(item.getProperty("type"));
+        Assert.assertNotNull(expected);
+        Assert.assertEquals((Object) expected.getProperty("cnt"), item.getProperty("cnt"));
+        Assert.assertEquals((Object) expected.getProperty("s"), item.getProperty("s"));
+        Assert.assertEquals((Object) expected.getProperty("a"), item.getProperty("a"));
+        Assert.assertEquals((Object) expected.getProperty("mn"), item.getProperty("mn"));
+        Assert.assertEquals((Object) expected.getProperty("mx"), item.getProperty("mx"));
+        Assert.assertEquals((Double) expected.getProperty("v"), (Double) item.getProperty("v"), 0.0001);
+        Assert.assertEquals((Object) expected.getProperty("md"), item.getProperty("md"));
+        count++;
+      }
+      Assert.assertEquals(3, count);
+    }
+
+    try (OResultSet result = db.query("select count(*) as cnt from " + className + " where val < 0 parallel")) {
+      Assert.assertTrue(result.hasNext());
+      Assert.assertEquals(0L, (long) result.next().getProperty("cnt"));
+      Assert.assertFalse(result.hasNext());
+    }
+  }
+
+  @Test
+  public void testParallelClassScanWithLet() {
+    String className = "testParallelClassScanWithLet";
+
+    db.getMetadata().getSchema().createClass(className, 4);
+    for (int i = 0; i < 100; i++) {
+      ODocument doc = db.newInstance(className);
+      doc.setProperty("val", i);
+      doc.save();
+    }
+
+    try (OResultSet result = db.query("select from " + className + " let $a = val * 2 where $a < 20 parallel")) {
+      int count = 0;
+      while (result.hasNext()) {
+        result.next();
+        count++;
+      }
+      Assert.assertEquals(10, count);
+    }
+  }
+
+  @Test
+  public void testOrderByWithSpill() {
+    String className = "testOrderByWithSpill";
+    db.getMetadata().getSchema().createClass(className);
+    for (int i = 0; i < 1000; i++) {
+      ODocument doc = db.newInstance(className);
+      doc.setProperty("val", (i * 7) % 1000);
+      doc.setProperty("name", "n" + i);
+      doc.save();
+    }
+
+    Object oldMaxInMemory = OGlobalConfiguration.QUERY_ORDER_BY_MAX_IN_MEMORY.getValue();
+    OGlobalConfiguration.QUERY_ORDER_BY_MAX_IN_MEMORY.setValue(100);
+    try {
+      try (OResultSet result = db.query("select from " + className + " order by val desc")) {
+        for (int i = 999; i >= 0; i--) {
+          Assert.assertTrue(result.hasNext());
+          OResult item = result.next();
+          Assert.assertTrue(item.isElement());
+          Assert.assertEquals(i, (int) item.getProperty("val"));
+        }
+        Assert.assertFalse(result.hasNext());
+      }
+
+      try (OResultSet result = db.query("select val, name, [val, name] as list from " + className + " order by val")) {
+        for (int i = 0; i < 1000; i++) {
+          Assert.assertTrue(result.hasNext());
+          OResult item = result.next();
+          Assert.assertEquals(i, (int) item.getProperty("val"));
+          Assert.assertNotNull(item.getProperty("name"));
+          Assert.assertEquals(2, ((List) item.getProperty("list")).size());
+        }
+        Assert.assertFalse(result.hasNext());
+      }
+    } finally {
+      OGlobalConfiguration.QUERY_ORDER_BY_MAX_IN_MEMORY.setValue(oldMaxInMemory);
+    }
+  }
+
+  @Test
+  public void testLetHashJoin() {
+    String outerClass = "testLetHashJoinOuter";
+    String innerClass = "testLetHashJoinInner";
+    db.getMetadata().getSchema().createClass(outerClass);
+    db.getMetadata().getSchema().createClass(innerClass);
+    for (int i = 0; i < 300; i++) {
+      ODocument doc = db.newInstance(outerClass);
+      doc.setProperty("key", i % 100);
+      doc.save();
+    }
+    for (int i = 0; i < 200; i++) {
+      ODocument doc = db.newInstance(innerClass);
+      doc.setProperty("ikey", (long) (i % 50));
+      doc.setProperty("flag", i % 2 == 0);
+      doc.save();
+    }
+
+    String query = "select key, $a.size() as n from " + outerClass + " let $a = (select from " + innerClass
+        + " where ikey = $parent.$current.key and flag = true)";
+
+    Object oldMinimum = OGlobalConfiguration.QUERY_HASH_JOIN_MINIMUM_RECORDS.getValue();
+    Object oldMaxInMemory = OGlobalConfiguration.QUERY_HASH_JOIN_MAX_IN_MEMORY.getValue();
+    OGlobalConfiguration.QUERY_HASH_JOIN_MINIMUM_RECORDS.setValue(100);
+    try {
+      for (int maxInMemory : new int[] { 500000, 10 }) {
+        OGlobalConfiguration.QUERY_HASH_JOIN_MAX_IN_MEMORY.setValue(maxInMemory);
+        try (OResultSet result = db.query(query)) {
+          OInternalExecutionPlan plan = (OInternalExecutionPlan) result.getExecutionPlan().get();
+          Assert.assertTrue(plan.getSteps().stream().anyMatch(x -> x instanceof HashJoinStep));
+          int count = 0;
+          while (result.hasNext()) {
+            OResult item = result.next();
+            int key = item.getProperty("key");
+            Assert.assertEquals(key < 50 && key % 2 == 0 ? 4 : 0, (int) item.getProperty("n"));
+            count++;
+          }
+          Assert.assertEquals(300, count);
+        }
+      }
+
+      OGlobalConfiguration.QUERY_HASH_JOIN_MINIMUM_RECORDS.setValue(1000);
+      try (OResultSet result = db.query(query)) {
+        OInternalExecutionPlan plan = (OInternalExecutionPlan) result.getExecutionPlan().get();
+        Assert.assertTrue(plan.getSteps().stream().anyMatch(x -> x instanceof LetQueryStep));
+        Assert.assertEquals(300, result.stream().count());
+      }
+    } finally {
+      OGlobalConfiguration.QUERY_HASH_JOIN_MINIMUM_RECORDS.setValue(oldMinimum);
+      OGlobalConfiguration.QUERY_HASH_JOIN_MAX_IN_MEMORY.setValue(oldMaxInMemory);
+    }
+  }
+
+  @Test
+  public void testLetHashJoinMixedKeyTypes() {
+    String outerClass = "testLetHashJoinMixedOuter";
+    String innerClass = "testLetHashJoinMixedInner";
+    db.getMetadata().getSchema().createClass(outerClass);
+    db.getMetadata().getSchema().createClass(innerClass);
+    List<ORID> outerRids = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      ODocument doc = db.newInstance(outerClass);
+      doc.setProperty("score", (double) (i % 20));
+      doc.save();
+      outerRids.add(doc.getIdentity());
+    }
+    for (int i = 0; i < 200; i++) {
+      ODocument doc = db.newInstance(innerClass);
+      int ref = i % 20;
+      // KEYS OF DIFFERENT TYPES, THAT THE EQUALITY OPERATOR CONVERTS TO THE TYPE OF THE LEFT OPERAND
+      switch (i % 4) {
+      case 0:
+        doc.setProperty("ref", ref);
+        break;
+      case 1:
+        doc.setProperty("ref", ref + ".0");
+        break;
+      case 2:
+        doc.setProperty("ref", String.valueOf(ref));
+        break;
+      default:
+        doc.setProperty("ref", (long) ref);
+      }
+      ORID link = outerRids.get(i);
+      doc.setProperty("link", i % 2 == 0 ? link.toString() : link);
+      doc.save();
+    }
+
+    String[] queries = new String[] {
+        "select score, $a.size() as n from " + outerClass + " let $a = (select from " + innerClass
+            + " where $parent.$current.score = ref)",
+        "select score, $a.size() as n from " + outerClass + " let $a = (select from " + innerClass
+            + " where $parent.$current.@rid = link)" };
+
+    Object oldMinimum = OGlobalConfiguration.QUERY_HASH_JOIN_MINIMUM_RECORDS.getValue();
+    Object oldMaxInMemory = OGlobalConfiguration.QUERY_HASH_JOIN_MAX_IN_MEMORY.getValue();
+    try {
+      for (String query : queries) {
+        OGlobalConfiguration.QUERY_HASH_JOIN_MINIMUM_RECORDS.setValue(1000);
+        List<String> expected = sortedRows(query, LetQueryStep.class);
+        Assert.assertTrue(expected.stream().anyMatch(x -> !x.endsWith(" 0")));
+
+        OGlobalConfiguration.QUERY_HASH_JOIN_MINIMUM_RECORDS.setValue(100);
+        for (int maxInMemory : new int[] { 500000, 10 }) {
+          OGlobalConfiguration.QUERY_HASH_JOIN_MAX_IN_MEMORY.setValue(maxInMemory);
+          Assert.assertEquals(expected, sortedRows(query, HashJoinStep.class));
+        }
+      }
+    } finally {
+      OGlobalConfiguration.QUERY_HASH_JOIN_MINIMUM_RECORDS.setValue(oldMinimum);
+      OGlobalConfiguration.QUERY_HASH_JOIN_MAX_IN_MEMORY.setValue(oldMaxInMemory);
+    }
+  }
+
+  private List<String> sortedRows(String query, Class<?> letStep) {
+    List<String> rows = new ArrayList<>();
+    try (OResultSet result = db.query(query)) {
+      OInternalExecutionPlan plan = (OInternalExecutionPlan) result.getExecutionPlan().get();
+      Assert.assertTrue(plan.getSteps().stream().anyMatch(letStep::isInstance));
+      while (result.hasNext()) {
+        OResult item = result.next();
+        rows.add(item.getProperty("score") + " " + item.getProperty("n"));
+      }
+    }
+    rows.sort(null);
+    return rows;
+  }
+
+  @Test
+  public void testOrderByTopK() {
+    String className = "testOrderByTopK";
+    db.getMetadata().getSchema().createClass(className);
+    for (int i = 0; i < 1000; i++) {
+      ODocument doc = db.newInstance(className);
+      doc.setProperty("val", i % 10);
+      doc.setProperty("seq", i);
+      doc.save();
+    }
+
+    try (OResultSet result = db.query("select from " + className + " order by val skip 5 limit 20")) {
+      for (int i = 0; i < 20; i++) {
+        Assert.assertTrue(result.hasNext());
+        OResult item = result.next();
+        Assert.assertEquals(0, (int) item.getProperty("val"));
+        Assert.assertEquals((i + 5) * 10, (int) item.getProperty("seq"));
+      }
+      Assert.assertFalse(result.hasNext());
+    }
+  }
+
+
+  @Test
+  public void testDistinctOffHeap() {
+    String className = "testDistinctOffHeap";
+
+    db.getMetadata().getSchema().createClass(className);
+    for (int i = 0; i < 1000; i++) {
+      ODocument doc = db.newInstance(className);
+      doc.setProperty("name", "name" + (i % 100));
+      doc.setProperty("tags", Arrays.asList("a", "b" + (i % 100)));
+      doc.save();
+    }
+
+    Object oldMaxInMemory = OGlobalConfiguration.QUERY_DISTINCT_OFF_HEAP_THRESHOLD.getValue();
+    Object oldMaxMemory = OGlobalConfiguration.QUERY_DISTINCT_MAX_MEMORY.getValue();
+    try {
+      OGlobalConfiguration.QUERY_DISTINCT_OFF_HEAP_THRESHOLD.setValue(10);
+      for (long maxMemory : new long[] { 64 * 1024 * 1024, 0 }) {
+        OGlobalConfiguration.QUERY_DISTINCT_MAX_MEMORY.setValue(maxMemory);
+        try (OResultSet result = db.query("select distinct name, tags from " + className)) {
+          Set<String> names = new HashSet<>();
+          while (result.hasNext()) {
+            OResult item = result.next();
+            Assert.assertTrue(names.add(item.getProperty("name")));
+            Assert.assertEquals("b" + ((String) item.getProperty("name")).substring(4), ((List) item.getProperty("tags")).get(1));
+          }
+          Assert.assertEquals(100, names.size());
+        }
+      }
+    } finally {
+      OGlobalConfiguration.QUERY_DISTINCT_OFF_HEAP_THRESHOLD.setValue(oldMaxInMemory);
+      OGlobalConfiguration.QUERY_DISTINCT_MAX_MEMORY.setValue(oldMaxMemory);
+    }
+  }
+
+  @Test
+  public void testBatchFilter() {
+    String className = "testBatchFilter";
+
+    OClass clazz = db.getMetadata().getSchema().createClass(className);
+    clazz.createProperty("num", OType.INTEGER);
+    clazz.createProperty("price", OType.DOUBLE);
+    clazz.createProperty("name", OType.STRING);
+    clazz.createProperty("code", OType.STRING).setCollate("ci");
+    for (int i = 0; i < 1000; i++) {
+      ODocument doc = db.newInstance(className);
+      if (i % 10 != 0) {
+        doc.setProperty("num", i);
+      }
+      doc.setProperty("price", i / 2.0);
+      doc.setProperty("name", "name" + (i % 7));
+      doc.setProperty("code", i % 2 == 0 ? "AB" : "ab");
+      doc.setProperty("flag", i % 3 == 0);
+      doc.setProperty("other", (long) i);
+      doc.save();
+    }
+
+    // projections are not records, they are always filtered without the binary evaluation
+    String reference = "select from (select num, price, name, flag, other from " + className + ") where ";
+    String[] conditions = { "num > 500", "num >= 500 and num < 600", "num = 123", "num <> 123", "num != 123", "500 < num",
+        "num > 499.5", "price = 100.5", "price <= 10", "price < num", "name = 'name3' and num <= 100", "name > 'name4'",
+        "flag = true and other < 100", "other = 50", "num = 123.0", "num > 10 and name like 'name1%'", "num > :minNum" };
+    Map<String, Object> params = new HashMap<>();
+    params.put("minNum", 500);
+    for (String condition : conditions) {
+      Assert.assertEquals(condition, count(reference + condition, params),
+          count("select from " + className + " where " + condition, params));
+    }
+    Assert.assertEquals(450, count("select from " + className + " where num > 500", params));
+    Assert.assertEquals(1000, count("select from " + className + " where code = 'AB'", params));
+    Assert.assertEquals(900, count("select from " + className + " where code = 'AB' and num > -1 and flag = flag", params));
+  }
+
+  private long count(String query, Map<String, Object> params) {
+    try (OResultSet result = db.query(query, params)) {
+      long count = 0;
+      while (result.hasNext()) {
+        result.next();
+        count++;
+      }
+      return count;
+    }
+  }
 }
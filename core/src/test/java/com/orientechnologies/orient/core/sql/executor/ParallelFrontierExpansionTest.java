@@ -0,0 +1,144 @@
+package com.orientechnologies.orient.core.sql.executor;
+
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocument;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.record.OVertex;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+public class ParallelFrontierExpansionTest {
+  private static final int VERTICES = 300;
+
+  static ODatabaseDocument db;
+
+  @BeforeClass
+  public static void beforeClass() {
+    db = new ODatabaseDocumentTx("memory:ParallelFrontierExpansionTest");
+    db.create();
+
+    db.createVertexClass("ParallelV");
+    db.createEdgeClass("ParallelE");
+
+    List<OVertex> vertices = new ArrayList<>();
+    for (int i = 0; i < VERTICES; i++) {
+      OVertex vertex = db.newVertex("ParallelV");
+      vertex.setProperty("name", i);
+      vertices.add(vertex.save());
+    }
+
+    Random random = new Random(42);
+    for (OVertex vertex : vertices) {
+      for (int i = 0; i < 3; i++) {
+        db.newEdge(vertex, vertices.get(random.nextInt(VERTICES)), "ParallelE").save();
+      }
+    }
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    db.close();
+  }
+
+  @Test
+  public void testBreadthFirstTraverse() {
+    String query = "traverse out() from (select from ParallelV where name = 0) while $depth < 5 strategy BREADTH_FIRST";
+
+    List<String> sequential = execute(query, 0);
+    Assert.assertTrue(sequential.size() > 100);
+    Assert.assertEquals(sequential, execute(query, 2));
+  }
+
+  @Test
+  public void testBreadthFirstTraverseWhileCondition() {
+    String query = "traverse out() from (select from ParallelV where name < 3) while name % 5 <> 0 maxdepth 6 strategy BREADTH_FIRST";
+
+    Assert.assertEquals(execute(query, 0), execute(query, 2));
+  }
+
+  @Test
+  public void testBreadthFirstTraverseWithLimit() {
+    String query = "traverse out() from (select from ParallelV where name = 0) strategy BREADTH_FIRST";
+
+    List<String> sequential = execute(query, 0);
+    Assert.assertEquals(sequential.subList(0, 50), execute(query + " limit 50", 2));
+  }
+
+  @Test
+  public void testBreadthFirstTraverseDuplicates() {
+    db.createVertexClass("ParallelDupV");
+    List<OVertex> vertices = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      OVertex vertex = db.newVertex("ParallelDupV");
+      vertex.setProperty("name", i);
+      vertices.add(vertex.save());
+    }
+    // PARALLEL EDGES, A DIAMOND AND A CYCLE
+    db.newEdge(vertices.get(0), vertices.get(1), "ParallelE").save();
+    db.newEdge(vertices.get(0), vertices.get(1), "ParallelE").save();
+    db.newEdge(vertices.get(0), vertices.get(2), "ParallelE").save();
+    db.newEdge(vertices.get(1), vertices.get(3), "ParallelE").save();
+    db.newEdge(vertices.get(2), vertices.get(3), "ParallelE").save();
+    db.newEdge(vertices.get(3), vertices.get(4), "ParallelE").save();
+    db.newEdge(vertices.get(4), vertices.get(0), "ParallelE").save();
+
+    String roots = vertices.get(0).getIdentity() + ", " + vertices.get(0).getIdentity() + ", " + vertices.get(1).getIdentity();
+    String query = "traverse out() from [" + roots + "] strategy BREADTH_FIRST";
+
+    List<String> sequential = execute(query, 0);
+    Assert.assertEquals(5, sequential.size());
+    Assert.assertEquals(5, new HashSet<>(sequential).size());
+    Assert.assertEquals(sequential, execute(query, 2));
+  }
+
+  @Test
+  public void testMatchWhile() {
+    String query = "match {class: ParallelV, where: (name = 0)}.out('ParallelE'){while: ($depth < 4), where: (name % 2 = 0), "
+        + "as: x, depthAlias: d} return x.name as name, d";
+
+    List<String> recursive = execute(query, 0);
+    Assert.assertTrue(recursive.size() > 10);
+    Assert.assertEquals(recursive, execute(query, Integer.MAX_VALUE));
+    Assert.assertEquals(recursive, execute(query, 2));
+  }
+
+  @Test
+  public void testMatchMaxDepth() {
+    String query = "match {class: ParallelV, where: (name < 2)}.out('ParallelE'){maxDepth: 3, as: x, pathAlias: p} "
+        + "return x.name as name, p";
+
+    Assert.assertEquals(execute(query, 0), execute(query, 2));
+  }
+
+  /**
+   * @return rows of the query as strings, in the order of the result set
+   */
+  private static List<String> execute(String query, int threshold) {
+    int oldThreshold = OGlobalConfiguration.QUERY_PARALLEL_TRAVERSE_THRESHOLD.getValueAsInteger();
+    OGlobalConfiguration.QUERY_PARALLEL_TRAVERSE_THRESHOLD.setValue(threshold);
+    try {
+      List<String> rows = new ArrayList<>();
+      try (OResultSet result = db.query(query)) {
+        while (result.hasNext()) {
+          OResult item = result.next();
+          StringBuilder row = new StringBuilder();
+          for (String property : item.getPropertyNames()) {
+            row.append(property).append('=').append((Object) item.getProperty(property)).append(';');
+          }
+          row.append(item.getMetadata("$depth"));
+          rows.add(row.toString());
+        }
+      }
+      return rows;
+    } finally {
+      OGlobalConfiguration.QUERY_PARALLEL_TRAVERSE_THRESHOLD.setValue(oldThreshold);
+    }
+  }
+}
@@ -0,0 +1,48 @@
+package com.orientechnologies.orient.core.sql.executor;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+public class ParallelWorkersTest {
+
+  @Test
+  public void testAllItemsProcessedOnce() {
+    AtomicIntegerArray processed = new AtomicIntegerArray(1000);
+    ParallelWorkers.forEach(null, processed.length(), 4, database -> processed::incrementAndGet);
+
+    for (int i = 0; i < processed.length(); i++) {
+      Assert.assertEquals(1, processed.get(i));
+    }
+  }
+
+  @Test
+  public void testNestedExecution() {
+    // EVERY THREAD OF THE POOL WAITS FOR NESTED WORK, WHICH HAS TO BE EXECUTED ON THE SAME THREAD
+    int parallelism = Runtime.getRuntime().availableProcessors() * 2;
+    AtomicInteger processed = new AtomicInteger();
+    ParallelWorkers.forEach(null, parallelism * 4, parallelism,
+        database -> item -> ParallelWorkers.forEach(null, 100, parallelism, nested -> nestedItem -> processed.incrementAndGet()));
+
+    Assert.assertEquals(parallelism * 4 * 100, processed.get());
+  }
+
+  @Test
+  public void testFailure() {
+    AtomicInteger processed = new AtomicInteger();
+    try {
+      ParallelWorkers.forEach(null, 1000, 4, database -> item -> {
+        if (item == 10) {
+          throw new IllegalStateException("failure of item " + item);
+        }
+        processed.incrementAndGet();
+      });
+      Assert.fail();
+    } catch (IllegalStateException e) {
+      Assert.assertEquals("failure of item 10", e.getMessage());
+    }
+    Assert.assertTrue(processed.get() < 1000);
+  }
+}
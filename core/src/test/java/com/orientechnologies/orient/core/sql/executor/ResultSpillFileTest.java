@@ -0,0 +1,69 @@
+package com.orientechnologies.orient.core.sql.executor;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocument;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Iterator;
+
+public class ResultSpillFileTest {
+  private ODatabaseDocument db;
+
+  @Before
+  public void before() {
+    db = new ODatabaseDocumentTx("memory:ResultSpillFileTest");
+    db.create();
+  }
+
+  @After
+  public void after() {
+    db.drop();
+  }
+
+  @Test
+  public void testReadBack() {
+    ResultSpillFile spill = new ResultSpillFile();
+    try {
+      for (int i = 0; i < 100; i++) {
+        OResultInternal item = new OResultInternal();
+        item.setProperty("val", i);
+        spill.write(item);
+      }
+      Assert.assertEquals(100, spill.size());
+
+      Iterator<OResult> iterator = spill.iterator();
+      for (int i = 0; i < 100; i++) {
+        Assert.assertTrue(iterator.hasNext());
+        Assert.assertEquals((Integer) i, iterator.next().getProperty("val"));
+      }
+      Assert.assertFalse(iterator.hasNext());
+    } finally {
+      spill.close();
+    }
+  }
+
+  @Test
+  public void testCloseWithOpenReaders() {
+    ResultSpillFile spill = new ResultSpillFile();
+    File file = spill.getFile();
+    for (int i = 0; i < 100; i++) {
+      OResultInternal item = new OResultInternal();
+      item.setProperty("val", i);
+      spill.write(item);
+    }
+
+    // READERS WHICH ARE NOT CONSUMED TO THE END ARE CLOSED WITH THE FILE
+    Iterator<OResult> first = spill.iterator();
+    first.next();
+    Iterator<OResult> second = spill.iterator();
+    second.next();
+    Assert.assertTrue(file.exists());
+
+    spill.close();
+    Assert.assertFalse(file.exists());
+  }
+}
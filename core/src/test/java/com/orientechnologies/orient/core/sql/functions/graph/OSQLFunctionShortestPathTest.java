@@ -163,4 +163,47 @@ public class OSQLFunctionShortestPathTest {
 
     Assert.assertEquals(0, result.size());
   }
+
+  @Test
+  public void testParallel() throws Exception {
+    // THE FRONTIER OF THE MIDDLE VERTICES IS LARGE ENOUGH TO BE EXPANDED CONCURRENTLY
+    final OVertex source = graph.newVertex().save();
+    final OVertex destination = graph.newVertex().save();
+    final OVertex first = graph.newVertex().save();
+    final OVertex second = graph.newVertex().save();
+    graph.newEdge(first, second).save();
+    graph.newEdge(second, destination).save();
+
+    OVertex middleOnPath = null;
+    OVertex farOnPath = null;
+    for (int i = 0; i < 1500; i++) {
+      final OVertex middle = graph.newVertex().save();
+      final OVertex far = graph.newVertex().save();
+      graph.newEdge(source, middle).save();
+      graph.newEdge(middle, far).save();
+
+      if (i == 777) {
+        graph.newEdge(far, first).save();
+        middleOnPath = middle;
+        farOnPath = far;
+      }
+    }
+
+    final Map<String, Object> additionalParams = new HashMap<String, Object>();
+    additionalParams.put(OSQLFunctionShortestPath.PARAM_PARALLEL, true);
+    final List<ORID> result = function
+        .execute(null, null, null, new Object[] { source, destination, null, null, additionalParams }, new OBasicCommandContext());
+
+    Assert.assertEquals(6, result.size());
+    Assert.assertEquals(source.getIdentity(), result.get(0));
+    Assert.assertEquals(middleOnPath.getIdentity(), result.get(1));
+    Assert.assertEquals(farOnPath.getIdentity(), result.get(2));
+    Assert.assertEquals(first.getIdentity(), result.get(3));
+    Assert.assertEquals(second.getIdentity(), result.get(4));
+    Assert.assertEquals(destination.getIdentity(), result.get(5));
+
+    // THE CURRENT DATABASE IS STILL USABLE AFTER THE WORKERS ARE DONE
+    Assert.assertEquals(result, new OSQLFunctionShortestPath()
+        .execute(null, null, null, new Object[] { source, destination }, new OBasicCommandContext()));
+  }
 }
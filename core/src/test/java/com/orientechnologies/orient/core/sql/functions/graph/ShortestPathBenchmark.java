@@ -0,0 +1,182 @@
+package com.orientechnologies.orient.core.sql.functions.graph;
+
+import com.orientechnologies.orient.core.command.OBasicCommandContext;
+import com.orientechnologies.orient.core.db.ODatabaseSession;
+import com.orientechnologies.orient.core.db.ODatabaseType;
+import com.orientechnologies.orient.core.db.OrientDB;
+import com.orientechnologies.orient.core.db.OrientDBConfig;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.record.ODirection;
+import com.orientechnologies.orient.core.record.OVertex;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Compares {@link OSQLFunctionShortestPath}, which keeps the state of the search in primitive maps of packed record ids, with the
+ * previous implementation based on loaded vertices and {@link HashSet}/{@link HashMap} of record ids, which is reproduced by
+ * {@link #hashBasedShortestPath(OVertex, OVertex)}.
+ */
+public class ShortestPathBenchmark {
+  private static final int VERTICES          = 100000;
+  private static final int EDGES_PER_VERTEX  = 4;
+  private static final int PATHS             = 200;
+  private static final int WARMUP_ITERATIONS = 3;
+  private static final int ITERATIONS        = 5;
+
+  public static void main(String[] args) throws Exception {
+    new ShortestPathBenchmark().benchmark();
+  }
+
+  public void benchmark() throws Exception {
+    try (OrientDB orientDB = new OrientDB("embedded:", OrientDBConfig.defaultConfig())) {
+      orientDB.create("ShortestPathBenchmark", ODatabaseType.MEMORY);
+      try (ODatabaseSession session = orientDB.open("ShortestPathBenchmark", "admin", "admin")) {
+        final List<OVertex> vertices = createGraph(session);
+
+        final Random random = new Random(42);
+        final List<OVertex[]> paths = new ArrayList<>();
+        for (int i = 0; i < PATHS; i++) {
+          paths.add(new OVertex[] { vertices.get(random.nextInt(vertices.size())), vertices.get(random.nextInt(vertices.size())) });
+        }
+
+        final Map<String, Object> parallel = new HashMap<>();
+        parallel.put(OSQLFunctionShortestPath.PARAM_PARALLEL, true);
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+          runHashBased(paths);
+          runPacked(paths, null);
+          runPacked(paths, parallel);
+        }
+
+        long hashBased = 0;
+        long packed = 0;
+        long packedParallel = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+          hashBased += runHashBased(paths);
+          packed += runPacked(paths, null);
+          packedParallel += runPacked(paths, parallel);
+        }
+
+        System.out.println("Average time of " + PATHS + " shortest paths in graph of " + VERTICES + " vertices");
+        System.out.println("HashSet/HashMap of loaded vertices : " + (hashBased / ITERATIONS / 1000000) + " ms.");
+        System.out.println("Packed record ids                  : " + (packed / ITERATIONS / 1000000) + " ms.");
+        System.out.println("Packed record ids, parallel        : " + (packedParallel / ITERATIONS / 1000000) + " ms.");
+      } finally {
+        orientDB.drop("ShortestPathBenchmark");
+      }
+    }
+  }
+
+  private static List<OVertex> createGraph(final ODatabaseSession session) {
+    session.createVertexClass("Node");
+    session.createEdgeClass("Link");
+
+    final List<OVertex> vertices = new ArrayList<>(VERTICES);
+    for (int i = 0; i < VERTICES; i++) {
+      vertices.add(session.newVertex("Node").save());
+    }
+
+    final Random random = new Random(17);
+    for (OVertex vertex : vertices) {
+      for (int i = 0; i < EDGES_PER_VERTEX; i++) {
+        session.newEdge(vertex, vertices.get(random.nextInt(VERTICES)), "Link").save();
+      }
+    }
+    return vertices;
+  }
+
+  private long runPacked(final List<OVertex[]> paths, final Map<String, Object> options) {
+    final long start = System.nanoTime();
+    for (OVertex[] path : paths) {
+      new OSQLFunctionShortestPath()
+          .execute(null, null, null, new Object[] { path[0], path[1], "both", null, options }, new OBasicCommandContext());
+    }
+    return System.nanoTime() - start;
+  }
+
+  private long runHashBased(final List<OVertex[]> paths) {
+    final long start = System.nanoTime();
+    for (OVertex[] path : paths) {
+      hashBasedShortestPath(path[0], path[1]);
+    }
+    return System.nanoTime() - start;
+  }
+
+  /**
+   * Bidirectional search as it was implemented before the state of the search was moved to primitive collections.
+   */
+  private static List<ORID> hashBasedShortestPath(final OVertex source, final OVertex destination) {
+    if (source.equals(destination)) {
+      return Collections.singletonList(source.getIdentity());
+    }
+
+    ArrayDeque<OVertex> queueLeft = new ArrayDeque<>();
+    ArrayDeque<OVertex> queueRight = new ArrayDeque<>();
+    final Set<ORID> leftVisited = new HashSet<>();
+    final Set<ORID> rightVisited = new HashSet<>();
+    final Map<ORID, ORID> previouses = new HashMap<>();
+    final Map<ORID, ORID> nexts = new HashMap<>();
+
+    queueLeft.add(source);
+    leftVisited.add(source.getIdentity());
+    queueRight.add(destination);
+    rightVisited.add(destination.getIdentity());
+
+    while (!queueLeft.isEmpty() && !queueRight.isEmpty()) {
+      final boolean fromLeft = queueLeft.size() <= queueRight.size();
+      final ArrayDeque<OVertex> queue = fromLeft ? queueLeft : queueRight;
+      final Set<ORID> visited = fromLeft ? leftVisited : rightVisited;
+      final Set<ORID> oppositeVisited = fromLeft ? rightVisited : leftVisited;
+      final Map<ORID, ORID> links = fromLeft ? previouses : nexts;
+
+      final ArrayDeque<OVertex> nextLevelQueue = new ArrayDeque<>();
+      while (!queue.isEmpty()) {
+        final OVertex current = queue.poll();
+        for (OVertex neighbor : current.getVertices(ODirection.BOTH)) {
+          final ORID neighborIdentity = neighbor.getIdentity();
+
+          if (oppositeVisited.contains(neighborIdentity)) {
+            links.put(neighborIdentity, current.getIdentity());
+            return computePath(previouses, nexts, neighborIdentity);
+          }
+          if (visited.add(neighborIdentity)) {
+            links.put(neighborIdentity, current.getIdentity());
+            nextLevelQueue.offer(neighbor);
+          }
+        }
+      }
+
+      if (fromLeft) {
+        queueLeft = nextLevelQueue;
+      } else {
+        queueRight = nextLevelQueue;
+      }
+    }
+    return Collections.emptyList();
+  }
+
+  private static List<ORID> computePath(final Map<ORID, ORID> previouses, final Map<ORID, ORID> nexts, final ORID meeting) {
+    final List<ORID> result = new ArrayList<>();
+
+    ORID current = meeting;
+    while (current != null) {
+      result.add(0, current);
+      current = previouses.get(current);
+    }
+
+    current = nexts.get(meeting);
+    while (current != null) {
+      result.add(current);
+      current = nexts.get(current);
+    }
+    return result;
+  }
+}
@@ -90,4 +90,19 @@ public class OSQLFunctionVarianceTest {
       }
     }.mergeDistributedResult(results));
   }
+
+  @Test
+  public void testCombine() {
+    variance.execute(null, null, null, new Object[] { 4 }, null);
+    variance.execute(null, null, null, new Object[] { 7 }, null);
+
+    OSQLFunctionVariance partial = new OSQLFunctionVariance();
+    partial.execute(null, null, null, new Object[] { 15 }, null);
+    partial.execute(null, null, null, new Object[] { 3 }, null);
+
+    variance.combine(partial);
+    variance.combine(new OSQLFunctionVariance());
+
+    assertEquals(22.1875, (Double) variance.getResult(), 0.000001);
+  }
 }
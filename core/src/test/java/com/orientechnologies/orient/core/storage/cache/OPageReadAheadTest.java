@@ -0,0 +1,68 @@
+package com.orientechnologies.orient.core.storage.cache;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+public class OPageReadAheadTest {
+  private final List<String> requests = new ArrayList<>();
+
+  private final OReadCache readCache = (OReadCache) Proxy
+      .newProxyInstance(OReadCache.class.getClassLoader(), new Class[] { OReadCache.class }, (proxy, method, args) -> {
+        Assert.assertEquals("prefetch", method.getName());
+        requests.add(args[0] + ":" + args[1] + "+" + args[2]);
+        return null;
+      });
+
+  @Test
+  public void testForward() {
+    final OPageReadAhead readAhead = new OPageReadAhead(readCache, null, 7, 20);
+
+    readAhead.pageAccessed(5);
+    readAhead.pageAccessed(5);
+    Assert.assertTrue(requests.isEmpty());
+
+    readAhead.pageAccessed(6);
+    Assert.assertEquals(1, requests.size());
+    Assert.assertEquals("7:7+20", requests.get(0));
+
+    for (int i = 7; i < 17; i++) {
+      readAhead.pageAccessed(i);
+    }
+    Assert.assertEquals(1, requests.size());
+
+    // half of the pages are consumed, only the missing pages are requested
+    readAhead.pageAccessed(17);
+    Assert.assertEquals(2, requests.size());
+    Assert.assertEquals("7:27+11", requests.get(1));
+  }
+
+  @Test
+  public void testBackward() {
+    final OPageReadAhead readAhead = new OPageReadAhead(readCache, null, 7, 20);
+
+    readAhead.pageAccessed(100);
+    readAhead.pageAccessed(99);
+    Assert.assertEquals(1, requests.size());
+    Assert.assertEquals("7:79+20", requests.get(0));
+
+    readAhead.pageAccessed(89);
+    readAhead.pageAccessed(88);
+    Assert.assertEquals(2, requests.size());
+    Assert.assertEquals("7:68+11", requests.get(1));
+  }
+
+  @Test
+  public void testRandomAccess() {
+    final OPageReadAhead readAhead = new OPageReadAhead(readCache, null, 7, 20);
+
+    readAhead.pageAccessed(5);
+    readAhead.pageAccessed(500);
+    readAhead.pageAccessed(50);
+    readAhead.pageAccessed(5000);
+    Assert.assertTrue(requests.isEmpty());
+  }
+}
@@ -155,6 +155,79 @@ public class AsyncReadCacheTestIT {
     readCache.assertSize();
   }
 
+  @Test
+  public void testPrefetch() throws Exception {
+    final int pageSize = 4 * 1024;
+
+    final ODirectMemoryAllocator allocator = new ODirectMemoryAllocator();
+    final OByteBufferPool byteBufferPool = new OByteBufferPool(pageSize, allocator, 256);
+
+    final AsyncReadCache readCache = new AsyncReadCache(byteBufferPool, 1024 * 1024, pageSize, true);
+    final OWriteCache writeCache = new MockedWriteCache(byteBufferPool);
+
+    readCache.prefetch(1, 10, 1, writeCache);
+
+    final long end = System.currentTimeMillis() + 10000;
+    while (readCache.getUsedMemory() == 0 && System.currentTimeMillis() < end) {
+      Thread.sleep(10);
+    }
+    Assert.assertEquals(pageSize, readCache.getUsedMemory());
+
+    // page is already cached, it is not loaded again
+    readCache.prefetch(1, 10, 1, writeCache);
+
+    final OCacheEntry cacheEntry = readCache.loadForRead(1, 10, false, writeCache, 1, true);
+    Assert.assertEquals(10, cacheEntry.getPageIndex());
+    readCache.releaseFromRead(cacheEntry, writeCache);
+    Assert.assertEquals(100, readCache.hitRate());
+
+    readCache.assertSize();
+    readCache.assertConsistency();
+
+    readCache.clear();
+    Assert.assertEquals(0, readCache.getUsedMemory());
+    Assert.assertEquals(0, allocator.getMemoryConsumption() - byteBufferPool.getPoolSize() * pageSize);
+  }
+
+  @Test
+  public void testScanDoesNotEvictWorkingSet() {
+    final int pageSize = 4 * 1024;
+
+    final ODirectMemoryAllocator allocator = new ODirectMemoryAllocator();
+    final OByteBufferPool byteBufferPool = new OByteBufferPool(pageSize, allocator, 256);
+
+    final AsyncReadCache readCache = new AsyncReadCache(byteBufferPool, 1024 * 1024, pageSize, true);
+    final OWriteCache writeCache = new MockedWriteCache(byteBufferPool);
+
+    for (int n = 0; n < 2; n++) {
+      for (int i = 0; i < 100; i++) {
+        final OCacheEntry cacheEntry = readCache.loadForRead(1, i, false, writeCache, 1, true);
+        readCache.releaseFromRead(cacheEntry, writeCache);
+      }
+    }
+
+    // full scan of a file which is much bigger than the cache
+    for (int i = 0; i < 10_000; i++) {
+      final OCacheEntry cacheEntry = readCache.loadForRead(2, i, false, writeCache, 1, true, true);
+      readCache.releaseFromRead(cacheEntry, writeCache);
+    }
+
+    for (int i = 0; i < 100; i++) {
+      final OCacheEntry cacheEntry = readCache.loadForRead(1, i, false, writeCache, 1, true);
+      readCache.releaseFromRead(cacheEntry, writeCache);
+    }
+
+    Assert.assertEquals(66, readCache.hitRate());
+    Assert.assertEquals(0, readCache.scanHitRate());
+
+    readCache.assertSize();
+    readCache.assertConsistency();
+
+    readCache.clear();
+    Assert.assertEquals(0, readCache.getUsedMemory());
+    Assert.assertEquals(0, allocator.getMemoryConsumption() - byteBufferPool.getPoolSize() * pageSize);
+  }
+
   private static final class PageWriter implements Callable<Void> {
     private final int         fileLimit;
     private final int         pageLimit;
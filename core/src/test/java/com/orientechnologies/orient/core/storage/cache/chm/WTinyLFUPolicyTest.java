@@ -654,6 +654,75 @@ public class WTinyLFUPolicyTest {
     clearPointers(wTinyLFU);
   }
 
+  @Test
+  public void testScan() {
+    ODirectMemoryAllocator memoryAllocator = new ODirectMemoryAllocator();
+    OByteBufferPool pool = new OByteBufferPool(1, memoryAllocator, 0);
+
+    ConcurrentHashMap<PageKey, OCacheEntry> data = new ConcurrentHashMap<>();
+    Admittor admittor = mock(Admittor.class);
+
+    AtomicInteger cacheSize = new AtomicInteger();
+    WTinyLFUPolicy wTinyLFU = new WTinyLFUPolicy(data, admittor, cacheSize, 5);
+    wTinyLFU.setMaxSize(100);
+
+    OCacheEntry[] cacheEntries = new OCacheEntry[22];
+    OCachePointer[] cachePointers = new OCachePointer[22];
+
+    generateEntries(cacheEntries, cachePointers, pool);
+
+    for (int i = 0; i < 10; i++) {
+      cacheSize.incrementAndGet();
+      data.put(new PageKey(1, i), cacheEntries[i]);
+      wTinyLFU.onAdd(cacheEntries[i]);
+    }
+
+    for (int i = 10; i < 20; i++) {
+      cacheSize.incrementAndGet();
+      data.put(new PageKey(1, i), cacheEntries[i]);
+      wTinyLFU.onScanAdd(cacheEntries[i]);
+    }
+
+    // only the last pages of the scan are kept, the other pages are not touched
+    Assert.assertEquals(15, cacheSize.get());
+    Assert.assertEquals(10, toArray(wTinyLFU.eden()).length);
+    Assert.assertArrayEquals(new OCacheEntry[] { cacheEntries[19], cacheEntries[18], cacheEntries[17], cacheEntries[16],
+        cacheEntries[15] }, toArray(wTinyLFU.scan()));
+    for (int i = 10; i < 15; i++) {
+      Assert.assertFalse(data.containsKey(new PageKey(1, i)));
+    }
+    wTinyLFU.assertSize();
+    wTinyLFU.assertConsistency();
+
+    // page read by a regular query is moved to the eden
+    wTinyLFU.onAccess(cacheEntries[17]);
+    Assert.assertSame(cacheEntries[17], wTinyLFU.eden().next());
+    Assert.assertArrayEquals(new OCacheEntry[] { cacheEntries[19], cacheEntries[18], cacheEntries[16], cacheEntries[15] },
+        toArray(wTinyLFU.scan()));
+
+    // page which is in use is not evicted
+    cacheEntries[15].acquireEntry();
+
+    for (int i = 20; i < 22; i++) {
+      cacheSize.incrementAndGet();
+      data.put(new PageKey(1, i), cacheEntries[i]);
+      wTinyLFU.onScanAdd(cacheEntries[i]);
+    }
+
+    cacheEntries[15].releaseEntry();
+
+    Assert.assertArrayEquals(new OCacheEntry[] { cacheEntries[15], cacheEntries[21], cacheEntries[20], cacheEntries[19],
+        cacheEntries[18] }, toArray(wTinyLFU.scan()));
+    Assert.assertFalse(data.containsKey(new PageKey(1, 16)));
+
+    Assert.assertEquals(16, cacheSize.get());
+    wTinyLFU.assertSize();
+    wTinyLFU.assertConsistency();
+
+    Assert.assertEquals(16, memoryAllocator.getMemoryConsumption());
+    clearPointers(wTinyLFU);
+  }
+
   private static OCacheEntry[] toArray(Iterator<OCacheEntry> iterator) {
     final List<OCacheEntry> entries = new ArrayList<>();
     while (iterator.hasNext()) {
@@ -679,6 +748,7 @@ public class WTinyLFUPolicyTest {
     clearQueue(policy.eden());
     clearQueue(policy.probation());
     clearQueue(policy.protection());
+    clearQueue(policy.scan());
   }
 
   private static void clearQueue(final Iterator<OCacheEntry> iterator) {
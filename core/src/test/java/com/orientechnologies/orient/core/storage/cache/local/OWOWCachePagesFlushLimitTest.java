@@ -0,0 +1,84 @@
+package com.orientechnologies.orient.core.storage.cache.local;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class OWOWCachePagesFlushLimitTest {
+  private static final int  PAGE_SIZE      = 64 * 1024;
+  private static final long FLUSH_INTERVAL = 100;
+  private static final long MAX_PAGES      = 1000;
+
+  @Test
+  public void testNothingToFlush() {
+    final TreeMap<Long, Set<Integer>> dirtyPages = new TreeMap<>();
+    Assert.assertEquals(0, limit(100, dirtyPages, 10, 4, 0));
+
+    // changes of the active segment do not move the checkpoint
+    dirtyPages.put(10L, pages(50));
+    Assert.assertEquals(0, limit(100, dirtyPages, 10, 4, 0));
+  }
+
+  @Test
+  public void testRateIsScaledByLag() {
+    final TreeMap<Long, Set<Integer>> dirtyPages = new TreeMap<>();
+    dirtyPages.put(9L, pages(50));
+    dirtyPages.put(10L, pages(50));
+
+    Assert.assertEquals(25, limit(100, dirtyPages, 10, 4, 0));
+
+    dirtyPages.put(7L, pages(50));
+    Assert.assertEquals(75, limit(100, dirtyPages, 10, 4, 0));
+    Assert.assertEquals(100, limit(100, dirtyPages, 10, 3, 0));
+  }
+
+  @Test
+  public void testAtLeastOnePageIsFlushed() {
+    final TreeMap<Long, Set<Integer>> dirtyPages = new TreeMap<>();
+    dirtyPages.put(9L, pages(50));
+
+    Assert.assertEquals(1, limit(0, dirtyPages, 10, 4, 0));
+    Assert.assertEquals(1, limit(0.1, dirtyPages, 10, 4, 0));
+  }
+
+  @Test
+  public void testExcessPagesAreFlushedWithinSecond() {
+    final TreeMap<Long, Set<Integer>> dirtyPages = new TreeMap<>();
+    dirtyPages.put(2L, pages(300));
+    dirtyPages.put(5L, pages(200));
+    dirtyPages.put(8L, pages(1000));
+
+    // pages of segments 2 and 5 exceed the target lag, 10 runs of the flush per second
+    Assert.assertEquals(50, limit(0, dirtyPages, 10, 4, 0));
+
+    // rate scaled by the lag is bigger than the excess pages
+    Assert.assertEquals(160, limit(80, dirtyPages, 10, 4, 0));
+  }
+
+  @Test
+  public void testLimits() {
+    final TreeMap<Long, Set<Integer>> dirtyPages = new TreeMap<>();
+    dirtyPages.put(1L, pages(100));
+
+    Assert.assertEquals(MAX_PAGES, limit(10_000, dirtyPages, 10, 4, 0));
+
+    // 10 megabytes per second are 160 pages, 16 pages per run of the flush
+    Assert.assertEquals(16, limit(10_000, dirtyPages, 10, 4, 10));
+    Assert.assertEquals(1, limit(10_000, dirtyPages, 10, 4, 1));
+  }
+
+  private static int limit(final double dirtyPagesRate, final TreeMap<Long, Set<Integer>> dirtyPages, final long endSegment,
+      final int targetCheckpointLag, final int flushBandwidth) {
+    return OWOWCache
+        .calculatePagesFlushLimit(dirtyPagesRate, dirtyPages, endSegment, targetCheckpointLag, FLUSH_INTERVAL, MAX_PAGES,
+            flushBandwidth, PAGE_SIZE);
+  }
+
+  private static Set<Integer> pages(final int count) {
+    return IntStream.range(0, count).boxed().collect(Collectors.toSet());
+  }
+}
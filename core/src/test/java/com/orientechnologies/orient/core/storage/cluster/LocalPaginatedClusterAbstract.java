@@ -1,5 +1,8 @@
 package com.orientechnologies.orient.core.storage.cluster;
 
+import com.orientechnologies.common.serialization.types.OByteSerializer;
+import com.orientechnologies.common.serialization.types.OIntegerSerializer;
+import com.orientechnologies.common.serialization.types.OLongSerializer;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
 import com.orientechnologies.orient.core.exception.OPaginatedClusterException;
 import com.orientechnologies.orient.core.storage.OPhysicalPosition;
@@ -24,6 +27,13 @@ import java.util.Set;
 import java.util.TreeMap;
 
 public abstract class LocalPaginatedClusterAbstract {
+  /**
+   * Size of the record type, the content size, the first entry flag and the pointer to the next entry, which are stored in the
+   * cluster page together with the content of the record.
+   */
+  private static final int ENTRY_OVERHEAD =
+      2 * OByteSerializer.BYTE_SIZE + OIntegerSerializer.INT_SIZE + OLongSerializer.LONG_SIZE;
+
   protected static String              buildDirectory;
   protected static OPaginatedCluster   paginatedCluster;
   public static    ODatabaseDocumentTx databaseDocumentTx;
@@ -98,6 +108,58 @@ public abstract class LocalPaginatedClusterAbstract {
     Assert.assertEquals(rawBuffer.recordType, 1);
   }
 
+  @Test
+  public void testReadRecordsAroundSinglePageLimit() throws IOException {
+    // THE LARGEST RECORD WHICH IS STORED IN A SINGLE PAGE AND THE SMALLEST ONE WHICH SPANS TWO PAGES
+    final int singlePageLimit = OClusterPage.MAX_RECORD_SIZE - ENTRY_OVERHEAD;
+    final Random random = new Random();
+
+    final Map<Long, byte[]> records = new HashMap<>();
+    for (int size : new int[] { 0, 1, singlePageLimit - 2, singlePageLimit - 1, singlePageLimit, singlePageLimit + 1,
+        2 * singlePageLimit, 2 * singlePageLimit + 1 }) {
+      final byte[] record = new byte[size];
+      random.nextBytes(record);
+
+      final OPhysicalPosition physicalPosition = paginatedCluster.createRecord(record, 1, (byte) 2, null);
+      records.put(physicalPosition.clusterPosition, record);
+    }
+
+    for (Map.Entry<Long, byte[]> entry : records.entrySet()) {
+      final ORawBuffer rawBuffer = paginatedCluster.readRecord(entry.getKey(), false);
+      Assert.assertNotNull(rawBuffer);
+
+      Assert.assertEquals(rawBuffer.version, 1);
+      Assertions.assertThat(rawBuffer.buffer).isEqualTo(entry.getValue());
+      Assert.assertEquals(rawBuffer.recordType, 2);
+    }
+  }
+
+  @Test
+  public void testUpdateRecordAroundSinglePageLimit() throws IOException {
+    // UPDATE FILLS THE FIRST PAGE COMPLETELY, SO RECORD OF EXACTLY THIS SIZE IS STORED IN A SINGLE PAGE TOO
+    final int singlePageLimit = OClusterPage.MAX_RECORD_SIZE - ENTRY_OVERHEAD;
+    final Random random = new Random();
+
+    final OPhysicalPosition physicalPosition = paginatedCluster.createRecord(new byte[] { 1, 2, 3 }, 1, (byte) 1, null);
+
+    int recordVersion = 1;
+    for (int size : new int[] { singlePageLimit - 1, singlePageLimit, singlePageLimit + 1, singlePageLimit, 2 * singlePageLimit,
+        10, singlePageLimit + 1, 0 }) {
+      final byte[] record = new byte[size];
+      random.nextBytes(record);
+
+      recordVersion++;
+      paginatedCluster.updateRecord(physicalPosition.clusterPosition, record, recordVersion, (byte) (recordVersion % 3));
+
+      final ORawBuffer rawBuffer = paginatedCluster.readRecord(physicalPosition.clusterPosition, false);
+      Assert.assertNotNull(rawBuffer);
+
+      Assert.assertEquals(rawBuffer.version, recordVersion);
+      Assertions.assertThat(rawBuffer.buffer).isEqualTo(record);
+      Assert.assertEquals(rawBuffer.recordType, recordVersion % 3);
+    }
+  }
+
   @Test
   public void testAddManySmallRecords() throws IOException {
     final int records = 10000;
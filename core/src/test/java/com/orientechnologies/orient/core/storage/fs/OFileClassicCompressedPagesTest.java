@@ -0,0 +1,186 @@
+package com.orientechnologies.orient.core.storage.fs;
+
+import com.orientechnologies.common.io.OFileUtils;
+import com.orientechnologies.common.io.OIOException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+public class OFileClassicCompressedPagesTest {
+  private static final int PAGE_SIZE = 64 * 1024;
+
+  private Path         directory;
+  private OFileClassic file;
+
+  @Before
+  public void before() throws IOException {
+    String buildDirectory = System.getProperty("buildDirectory", ".");
+    directory = Paths.get(buildDirectory).resolve("OFileClassicCompressedPagesTest");
+    OFileUtils.deleteRecursively(directory.toFile());
+    directory.toFile().mkdirs();
+
+    file = new OFileClassic(directory.resolve("test.pcl"), true, PAGE_SIZE);
+    file.create();
+  }
+
+  @After
+  public void after() throws IOException {
+    file.delete();
+    OFileUtils.deleteRecursively(directory.toFile());
+  }
+
+  @Test
+  public void testReadWrittenPages() throws IOException {
+    Assert.assertTrue(file.isCompressed());
+    Assert.assertFalse(file.isMemoryMapped());
+
+    writePages(0, 16);
+    Assert.assertEquals(16 * PAGE_SIZE, file.getFileSize());
+
+    for (int i = 0; i < 16; i++) {
+      assertPage(readPage(i), i);
+    }
+
+    ByteBuffer[] buffers = new ByteBuffer[3];
+    for (int i = 0; i < buffers.length; i++) {
+      buffers[i] = ByteBuffer.allocateDirect(PAGE_SIZE);
+    }
+    file.read(PAGE_SIZE, buffers, false);
+    for (int i = 0; i < buffers.length; i++) {
+      assertPage(buffers[i], i + 1);
+    }
+
+    file.synch();
+    // pages are compressible, so file is smaller than its content
+    Assert.assertTrue(Files.size(directory.resolve("test.pcl")) < 16 * PAGE_SIZE);
+  }
+
+  @Test
+  public void testNotWrittenAndIncompressiblePages() throws IOException {
+    file.allocateSpace(2 * PAGE_SIZE);
+
+    ByteBuffer page = readPage(1);
+    for (int i = 0; i < PAGE_SIZE; i++) {
+      Assert.assertEquals(0, page.get(i));
+    }
+
+    ByteBuffer random = ByteBuffer.allocateDirect(PAGE_SIZE);
+    byte[] content = new byte[PAGE_SIZE];
+    new Random(42).nextBytes(content);
+    random.put(content);
+    random.position(0);
+    file.write(0, random);
+
+    page = readPage(0);
+    for (int i = 0; i < PAGE_SIZE; i++) {
+      Assert.assertEquals(content[i], page.get(i));
+    }
+  }
+
+  @Test
+  public void testOverwriteAndReopen() throws IOException {
+    writePages(0, 8);
+
+    for (int n = 0; n < 3; n++) {
+      for (int i = 0; i < 8; i++) {
+        ByteBuffer page = ByteBuffer.allocateDirect(PAGE_SIZE);
+        fill(page, i + 100 * n);
+        file.write((long) i * PAGE_SIZE, page);
+      }
+      file.synch();
+    }
+
+    file.close();
+    file.open();
+
+    Assert.assertTrue(file.isCompressed());
+    Assert.assertEquals(8 * PAGE_SIZE, file.getFileSize());
+    for (int i = 0; i < 8; i++) {
+      assertPage(readPage(i), i + 200);
+    }
+  }
+
+  @Test
+  public void testShrink() throws IOException {
+    writePages(0, 4);
+
+    file.shrink(2 * PAGE_SIZE);
+    Assert.assertEquals(2 * PAGE_SIZE, file.getFileSize());
+    assertPage(readPage(1), 1);
+
+    try {
+      file.read(PAGE_SIZE, new ByteBuffer[] { ByteBuffer.allocateDirect(PAGE_SIZE), ByteBuffer.allocateDirect(PAGE_SIZE) },
+          true);
+      Assert.fail();
+    } catch (EOFException e) {
+      // ok
+    }
+
+    writePages(2, 1);
+    assertPage(readPage(2), 2);
+
+    file.close();
+    file.open();
+
+    Assert.assertEquals(3 * PAGE_SIZE, file.getFileSize());
+    assertPage(readPage(2), 2);
+  }
+
+  @Test
+  public void testRawAccessIsRejected() throws IOException {
+    writePages(0, 1);
+
+    try {
+      file.read(0, new byte[16], 16, 0);
+      Assert.fail();
+    } catch (OIOException e) {
+      // ok
+    }
+
+    try {
+      file.writeInt(0, 42);
+      Assert.fail();
+    } catch (OIOException e) {
+      // ok
+    }
+
+    assertPage(readPage(0), 0);
+  }
+
+  private void writePages(int firstPage, int pages) throws IOException {
+    file.allocateSpace(pages * PAGE_SIZE);
+    for (int i = firstPage; i < firstPage + pages; i++) {
+      ByteBuffer page = ByteBuffer.allocateDirect(PAGE_SIZE);
+      fill(page, i);
+      file.write((long) i * PAGE_SIZE, page);
+    }
+  }
+
+  private ByteBuffer readPage(int pageIndex) throws IOException {
+    ByteBuffer page = ByteBuffer.allocateDirect(PAGE_SIZE);
+    file.read((long) pageIndex * PAGE_SIZE, page, true);
+    return page;
+  }
+
+  private static void fill(ByteBuffer page, int seed) {
+    for (int i = 0; i < PAGE_SIZE; i++) {
+      page.put(i, (byte) (seed * 31 + i / 64));
+    }
+    page.position(0);
+  }
+
+  private static void assertPage(ByteBuffer page, int seed) {
+    for (int i = 0; i < PAGE_SIZE; i++) {
+      Assert.assertEquals((byte) (seed * 31 + i / 64), page.get(i));
+    }
+  }
+}
@@ -0,0 +1,145 @@
+package com.orientechnologies.orient.core.storage.fs;
+
+import com.orientechnologies.common.io.OFileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+public class OFileClassicMemoryMappedTest {
+  private static final int PAGE_SIZE = 4096;
+
+  private Path         directory;
+  private OFileClassic file;
+
+  @Before
+  public void before() throws IOException {
+    String buildDirectory = System.getProperty("buildDirectory", ".");
+    directory = Paths.get(buildDirectory).resolve("OFileClassicMemoryMappedTest");
+    OFileUtils.deleteRecursively(directory.toFile());
+    directory.toFile().mkdirs();
+
+    file = new OFileClassic(directory.resolve("test.pcl"), true);
+    file.create();
+  }
+
+  @After
+  public void after() throws IOException {
+    file.delete();
+    OFileUtils.deleteRecursively(directory.toFile());
+  }
+
+  @Test
+  public void testReadWrittenPages() throws IOException {
+    Assert.assertTrue(file.isMemoryMapped());
+
+    writePages(0, 4);
+    for (int i = 0; i < 4; i++) {
+      assertPage(readPage(i), i);
+    }
+
+    ByteBuffer[] buffers = new ByteBuffer[3];
+    for (int i = 0; i < buffers.length; i++) {
+      buffers[i] = ByteBuffer.allocateDirect(PAGE_SIZE);
+    }
+    file.read(PAGE_SIZE, buffers, false);
+    for (int i = 0; i < buffers.length; i++) {
+      assertPage(buffers[i], i + 1);
+    }
+  }
+
+  @Test
+  public void testGrowAndOverwrite() throws IOException {
+    writePages(0, 2);
+    assertPage(readPage(1), 1);
+
+    // the file grows after it has been mapped
+    writePages(2, 2);
+    assertPage(readPage(3), 3);
+
+    // changes made through the channel are visible through the mapping
+    ByteBuffer page = ByteBuffer.allocateDirect(PAGE_SIZE);
+    fill(page, 10);
+    file.write(0, page);
+    assertPage(readPage(0), 10);
+
+    file.remap();
+    assertPage(readPage(0), 10);
+    assertPage(readPage(3), 3);
+  }
+
+  @Test
+  public void testShrink() throws IOException {
+    writePages(0, 4);
+    assertPage(readPage(3), 3);
+
+    file.shrink(2 * PAGE_SIZE);
+    Assert.assertEquals(2 * PAGE_SIZE, file.getFileSize());
+    assertPage(readPage(1), 1);
+
+    // the part beyond the end of the file is filled with zeros
+    ByteBuffer[] buffers = { ByteBuffer.allocateDirect(PAGE_SIZE), ByteBuffer.allocateDirect(PAGE_SIZE) };
+    fill(buffers[1], 7);
+    file.read(PAGE_SIZE, buffers, false);
+    assertPage(buffers[0], 1);
+    for (int i = 0; i < PAGE_SIZE; i++) {
+      Assert.assertEquals(0, buffers[1].get(i));
+    }
+
+    try {
+      file.read(PAGE_SIZE, new ByteBuffer[] { ByteBuffer.allocateDirect(PAGE_SIZE), ByteBuffer.allocateDirect(PAGE_SIZE) },
+          true);
+      Assert.fail();
+    } catch (EOFException e) {
+      // ok
+    }
+
+    writePages(2, 1);
+    assertPage(readPage(2), 2);
+  }
+
+  @Test
+  public void testReopen() throws IOException {
+    writePages(0, 3);
+    file.close();
+    file.open();
+
+    Assert.assertTrue(file.isMemoryMapped());
+    assertPage(readPage(2), 2);
+  }
+
+  private void writePages(int firstPage, int pages) throws IOException {
+    file.allocateSpace(pages * PAGE_SIZE);
+    for (int i = firstPage; i < firstPage + pages; i++) {
+      ByteBuffer page = ByteBuffer.allocateDirect(PAGE_SIZE);
+      fill(page, i);
+      file.write((long) i * PAGE_SIZE, page);
+    }
+  }
+
+  private ByteBuffer readPage(int pageIndex) throws IOException {
+    ByteBuffer page = ByteBuffer.allocateDirect(PAGE_SIZE);
+    file.read((long) pageIndex * PAGE_SIZE, page, true);
+    return page;
+  }
+
+  private static void fill(ByteBuffer page, int seed) {
+    for (int i = 0; i < PAGE_SIZE; i++) {
+      page.put(i, (byte) (seed * 31 + i));
+    }
+    page.position(0);
+  }
+
+  private static void assertPage(ByteBuffer page, int seed) {
+    for (int i = 0; i < PAGE_SIZE; i++) {
+      Assert.assertEquals((byte) (seed * 31 + i), page.get(i));
+    }
+  }
+}
@@ -0,0 +1,231 @@
+package com.orientechnologies.orient.core.storage.impl.local;
+
+import com.orientechnologies.common.io.OFileUtils;
+import com.orientechnologies.orient.core.config.OGlobalConfiguration;
+import com.orientechnologies.orient.core.db.ODatabase;
+import com.orientechnologies.orient.core.db.ODatabaseDocumentInternal;
+import com.orientechnologies.orient.core.db.ODatabaseSession;
+import com.orientechnologies.orient.core.db.ODatabaseType;
+import com.orientechnologies.orient.core.db.OrientDB;
+import com.orientechnologies.orient.core.db.OrientDBConfig;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.storage.disk.OLocalPaginatedStorage;
+import com.orientechnologies.orient.core.storage.impl.local.paginated.wal.OAtomicUnitEndRecord;
+import com.orientechnologies.orient.core.storage.impl.local.paginated.wal.OAtomicUnitStartRecord;
+import com.orientechnologies.orient.core.storage.impl.local.paginated.wal.OLogSequenceNumber;
+import com.orientechnologies.orient.core.storage.impl.local.paginated.wal.OOperationUnitId;
+import com.orientechnologies.orient.core.storage.impl.local.paginated.wal.OUpdatePageRecord;
+import com.orientechnologies.orient.core.storage.impl.local.paginated.wal.OWALPageBrokenException;
+import com.orientechnologies.orient.core.storage.impl.local.paginated.wal.OWriteAheadLog;
+import com.orientechnologies.orient.core.storage.impl.local.paginated.wal.cas.OWriteableWALRecord;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Restore replays changes which are already applied to the storage, so the content of the pages is the same once the whole log is
+ * replayed.
+ */
+public class OAbstractPaginatedStorageRestoreTest {
+  private static final String DB_NAME = OAbstractPaginatedStorageRestoreTest.class.getSimpleName();
+  private static final int    RECORDS = 2000;
+
+  private Path                   buildPath;
+  private OrientDB               orientDB;
+  private ODatabaseSession       session;
+  private OLocalPaginatedStorage storage;
+
+  private int restoreThreads;
+  private int restoreBatchSize;
+
+  @Before
+  public void before() throws IOException {
+    restoreThreads = OGlobalConfiguration.WAL_RESTORE_THREADS.getValueAsInteger();
+    restoreBatchSize = OGlobalConfiguration.WAL_RESTORE_BATCH_SIZE.getValueAsInteger();
+    OGlobalConfiguration.WAL_RESTORE_THREADS.setValue(4);
+    OGlobalConfiguration.WAL_RESTORE_BATCH_SIZE.setValue(64);
+
+    buildPath = Paths.get(System.getProperty("buildDirectory", ".")).toAbsolutePath();
+    Files.createDirectories(buildPath);
+    OFileUtils.deleteRecursively(buildPath.resolve(DB_NAME).toFile());
+
+    final OrientDBConfig config = OrientDBConfig.builder().addAttribute(ODatabase.ATTRIBUTES.MINIMUMCLUSTERS, 1).build();
+    orientDB = new OrientDB("embedded:" + buildPath, config);
+    orientDB.create(DB_NAME, ODatabaseType.PLOCAL, config);
+
+    session = orientDB.open(DB_NAME, "admin", "admin", config);
+    session.getMetadata().getSchema().createClass("RestoreTest");
+    storage = (OLocalPaginatedStorage) ((ODatabaseDocumentInternal) session).getStorage();
+  }
+
+  @After
+  public void after() {
+    session.close();
+    orientDB.drop(DB_NAME);
+    orientDB.close();
+    OFileUtils.deleteRecursively(buildPath.resolve(DB_NAME).toFile());
+
+    OGlobalConfiguration.WAL_RESTORE_THREADS.setValue(restoreThreads);
+    OGlobalConfiguration.WAL_RESTORE_BATCH_SIZE.setValue(restoreBatchSize);
+  }
+
+  @Test
+  public void testRestoreBySeveralWorkers() throws IOException {
+    final OWriteAheadLog writeAheadLog = storage.getWALInstance();
+    final OLogSequenceNumber startLsn = flushedEnd(writeAheadLog);
+
+    final Map<ORID, Integer> values = insertRecords();
+    final OLogSequenceNumber endLsn = flushedEnd(writeAheadLog);
+
+    final OLogSequenceNumber restoredLsn = storage.restoreFrom(startLsn, writeAheadLog);
+    Assert.assertNotNull(restoredLsn);
+    Assert.assertTrue(restoredLsn.compareTo(endLsn) >= 0);
+
+    assertRecords(values);
+  }
+
+  @Test
+  public void testRestoreStopsAtBrokenPage() throws IOException {
+    final OWriteAheadLog writeAheadLog = storage.getWALInstance();
+    final OLogSequenceNumber startLsn = flushedEnd(writeAheadLog);
+
+    final Map<ORID, Integer> values = insertRecords();
+    flushedEnd(writeAheadLog);
+
+    // changes of the first batches are still queued to the workers when the broken page is found
+    final List<OLogSequenceNumber> batchEnds = new CopyOnWriteArrayList<>();
+    final AtomicInteger batches = new AtomicInteger();
+    final OWriteAheadLog brokenLog = wrap(writeAheadLog, (method, records) -> {
+      if (method.equals("next") && batches.incrementAndGet() > 3) {
+        throw new OWALPageBrokenException("WAL page is broken");
+      }
+
+      if (!records.isEmpty()) {
+        batchEnds.add(records.get(records.size() - 1).getLsn());
+      }
+      return records;
+    });
+
+    final OLogSequenceNumber restoredLsn = storage.restoreFrom(startLsn, brokenLog);
+    Assert.assertEquals(4, batchEnds.size());
+    Assert.assertEquals(batchEnds.get(3), restoredLsn);
+    Assert.assertFalse(Files.exists(storage.getStoragePath().resolve("wal_backup")));
+
+    // the rest of the changes is applied by the next restore
+    Assert.assertNotNull(storage.restoreFrom(startLsn, writeAheadLog));
+    assertRecords(values);
+  }
+
+  @Test
+  public void testWorkerFailureBeforeBrokenPage() throws IOException {
+    final long fileId = storage.getWriteCache().fileIdByName("restoretest.pcl");
+    Assert.assertTrue(fileId >= 0);
+
+    final OOperationUnitId unitId = OOperationUnitId.generateId();
+    // changes of the page are absent, so the worker which applies them fails
+    final List<OWriteableWALRecord> records = Arrays
+        .asList(new OAtomicUnitStartRecord(true, unitId), new OUpdatePageRecord(0, fileId, unitId, null),
+            new OAtomicUnitEndRecord(unitId, false, null));
+    for (int i = 0; i < records.size(); i++) {
+      records.get(i).setLsn(new OLogSequenceNumber(0, i));
+    }
+
+    final OWriteAheadLog brokenLog = wrap(storage.getWALInstance(), (method, read) -> {
+      if (method.equals("next")) {
+        throw new OWALPageBrokenException("WAL page is broken");
+      }
+      return records;
+    });
+
+    Assert.assertEquals(records.get(2).getLsn(), storage.restoreFrom(records.get(0).getLsn(), brokenLog));
+
+    // failure of the worker is handled as any other failure of the restore, which backs up WAL
+    final Path backupPath = storage.getStoragePath().resolve("wal_backup");
+    Assert.assertTrue(Files.exists(backupPath));
+    try (final Stream<Path> backups = Files.list(backupPath)) {
+      Assert.assertTrue(backups.findAny().isPresent());
+    }
+  }
+
+  private interface BatchFilter {
+    List<OWriteableWALRecord> filter(String method, List<OWriteableWALRecord> records);
+  }
+
+  /**
+   * @return write ahead log which passes batches of records read by <code>read()</code> and <code>next()</code> through the
+   * filter
+   */
+  private static OWriteAheadLog wrap(final OWriteAheadLog writeAheadLog, final BatchFilter filter) {
+    final Class<?>[] interfaces = { OWriteAheadLog.class };
+    return (OWriteAheadLog) Proxy.newProxyInstance(OWriteAheadLog.class.getClassLoader(), interfaces, (proxy, method, args) -> {
+      final Object result;
+      try {
+        result = method.invoke(writeAheadLog, args);
+      } catch (final InvocationTargetException e) {
+        throw e.getCause();
+      }
+
+      if (method.getName().equals("read") || method.getName().equals("next")) {
+        @SuppressWarnings("unchecked")
+        final List<OWriteableWALRecord> records = (List<OWriteableWALRecord>) result;
+        return filter.filter(method.getName(), records);
+      }
+      return result;
+    });
+  }
+
+  private static OLogSequenceNumber flushedEnd(final OWriteAheadLog writeAheadLog) {
+    writeAheadLog.flush();
+    return writeAheadLog.end();
+  }
+
+  private Map<ORID, Integer> insertRecords() {
+    final Map<ORID, Integer> values = new HashMap<>();
+    final char[] payload = new char[256];
+
+    for (int i = 0; i < RECORDS; i++) {
+      Arrays.fill(payload, (char) ('a' + i % 26));
+
+      final ODocument document = new ODocument("RestoreTest");
+      document.field("value", i);
+      document.field("payload", new String(payload));
+      document.save();
+
+      // several changes of the same page have to be applied in order
+      if (i % 3 == 0) {
+        document.field("value", -i);
+        document.save();
+      }
+
+      values.put(document.getIdentity(), document.field("value"));
+    }
+
+    return values;
+  }
+
+  private void assertRecords(final Map<ORID, Integer> values) {
+    session.getLocalCache().clear();
+
+    for (final Map.Entry<ORID, Integer> entry : values.entrySet()) {
+      final ODocument document = session.load(entry.getKey());
+      Assert.assertNotNull(document);
+      Assert.assertEquals(entry.getValue(), document.field("value"));
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package com.orientechnologies.orient.core.storage.impl.local.paginated.wal.cas;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class OGroupCommitStatisticTest {
+  @Test
+  public void testNoDelayWithoutStatistic() {
+    final OGroupCommitStatistic statistic = new OGroupCommitStatistic(2_000_000);
+
+    Assert.assertEquals(0, statistic.delay());
+    Assert.assertEquals(-1, statistic.latencyPercentile(50));
+    Assert.assertEquals(-1, statistic.averageBatchSize());
+  }
+
+  @Test
+  public void testNoDelayForRareCommits() {
+    final OGroupCommitStatistic statistic = new OGroupCommitStatistic(2_000_000);
+
+    // one commit per 10 ms, fsync takes 1 ms, nobody is going to join the group
+    for (int i = 0; i < 10; i++) {
+      statistic.onArrival(i * 10_000_000L);
+      statistic.onFlush(1_000_000, 1);
+    }
+
+    Assert.assertEquals(0, statistic.delay());
+  }
+
+  @Test
+  public void testDelayForFrequentCommits() {
+    final OGroupCommitStatistic statistic = new OGroupCommitStatistic(2_000_000);
+
+    // one commit per 10 us, fsync takes 1 ms
+    for (int i = 0; i < 10; i++) {
+      statistic.onArrival(i * 10_000L);
+      statistic.onFlush(1_000_000, 100);
+    }
+
+    Assert.assertEquals(500_000, statistic.delay());
+    Assert.assertEquals(100, statistic.averageBatchSize());
+  }
+
+  @Test
+  public void testDelayIsLimited() {
+    final OGroupCommitStatistic statistic = new OGroupCommitStatistic(100_000);
+
+    for (int i = 0; i < 10; i++) {
+      statistic.onArrival(i * 10_000L);
+      statistic.onFlush(1_000_000, 100);
+    }
+
+    Assert.assertEquals(100_000, statistic.delay());
+  }
+
+  @Test
+  public void testLatencyPercentiles() {
+    final OGroupCommitStatistic statistic = new OGroupCommitStatistic(2_000_000);
+
+    for (int i = 0; i < 99; i++) {
+      statistic.onCommit(100_000);
+    }
+    statistic.onCommit(10_000_000);
+
+    Assert.assertEquals(128, statistic.latencyPercentile(50));
+    Assert.assertEquals(128, statistic.latencyPercentile(99));
+    Assert.assertEquals(16384, statistic.latencyPercentile(100));
+  }
+}
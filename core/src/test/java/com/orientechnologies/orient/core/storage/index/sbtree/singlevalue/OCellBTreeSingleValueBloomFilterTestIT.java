@@ -0,0 +1,137 @@
+package com.orientechnologies.orient.core.storage.index.sbtree.singlevalue;
+
+import com.orientechnologies.common.io.OFileUtils;
+import com.orientechnologies.common.serialization.types.OUTF8Serializer;
+import com.orientechnologies.orient.core.db.ODatabaseInternal;
+import com.orientechnologies.orient.core.db.ODatabaseSession;
+import com.orientechnologies.orient.core.db.ODatabaseType;
+import com.orientechnologies.orient.core.db.OrientDB;
+import com.orientechnologies.orient.core.db.OrientDBConfig;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.storage.impl.local.OAbstractPaginatedStorage;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+public class OCellBTreeSingleValueBloomFilterTestIT {
+  private OrientDB                  orientDB;
+  private OAbstractPaginatedStorage storage;
+
+  private String dbName;
+
+  @Before
+  public void before() {
+    final String buildDirectory = System.getProperty("buildDirectory", ".") + File.separator
+        + OCellBTreeSingleValueBloomFilterTestIT.class.getSimpleName();
+
+    dbName = "localSingleBTreeBloomFilterTest";
+    final File dbDirectory = new File(buildDirectory, dbName);
+    OFileUtils.deleteRecursively(dbDirectory);
+
+    orientDB = new OrientDB("plocal:" + buildDirectory, OrientDBConfig.defaultConfig());
+    orientDB.create(dbName, ODatabaseType.PLOCAL);
+
+    final ODatabaseSession databaseDocumentTx = orientDB.open(dbName, "admin", "admin");
+    storage = (OAbstractPaginatedStorage) ((ODatabaseInternal) databaseDocumentTx).getStorage();
+  }
+
+  @After
+  public void afterMethod() {
+    orientDB.drop(dbName);
+    orientDB.close();
+  }
+
+  @Test
+  public void testPutGetRemove() throws Exception {
+    final OCellBTreeSingleValue<String> tree = new OCellBTreeSingleValue<>("filterBTree", ".sbt", ".nbt", ".bfl", storage);
+    tree.create(OUTF8Serializer.INSTANCE, null, 1, null, false, true);
+
+    final NavigableMap<String, ORID> keyValues = new TreeMap<>();
+    // enough keys to grow the filter several times
+    for (int i = 0; i < 300_000; i++) {
+      final String key = "key" + i;
+
+      tree.put(key, new ORecordId(i % 32000, i));
+      keyValues.put(key, new ORecordId(i % 32000, i));
+    }
+
+    assertPresent(tree, keyValues);
+    assertAbsent(tree);
+
+    final Iterator<String> keys = keyValues.keySet().iterator();
+    int counter = 0;
+    while (keys.hasNext()) {
+      final String key = keys.next();
+      if (counter % 2 == 0) {
+        Assert.assertEquals(keyValues.get(key), tree.remove(key));
+        keys.remove();
+      }
+      counter++;
+    }
+
+    Assert.assertNull(tree.remove("absent0"));
+
+    assertPresent(tree, keyValues);
+    assertAbsent(tree);
+
+    tree.close();
+    tree.load("filterBTree", 1, null, OUTF8Serializer.INSTANCE, null);
+
+    assertPresent(tree, keyValues);
+    assertAbsent(tree);
+
+    tree.clear();
+    for (final String key : keyValues.keySet()) {
+      Assert.assertNull(tree.get(key));
+    }
+
+    tree.put("key1", new ORecordId(1, 1));
+    Assert.assertEquals(new ORecordId(1, 1), tree.get("key1"));
+  }
+
+  @Test
+  public void testBulkLoad() throws Exception {
+    final OCellBTreeSingleValue<String> tree = new OCellBTreeSingleValue<>("filterBulkBTree", ".sbt", ".nbt", ".bfl", storage);
+    tree.create(OUTF8Serializer.INSTANCE, null, 1, null, true, true);
+
+    final NavigableMap<String, ORID> keyValues = new TreeMap<>();
+    for (int i = 0; i < 300_000; i++) {
+      keyValues.put("key" + i, new ORecordId(i % 32000, i));
+    }
+
+    Assert.assertEquals(keyValues.size(), tree.bulkLoad(keyValues.entrySet().iterator()));
+
+    assertPresent(tree, keyValues);
+    assertAbsent(tree);
+
+    for (int i = 0; i < 100_000; i++) {
+      tree.put("added" + i, new ORecordId(1, i));
+      keyValues.put("added" + i, new ORecordId(1, i));
+    }
+
+    assertPresent(tree, keyValues);
+    assertAbsent(tree);
+  }
+
+  private static void assertPresent(final OCellBTreeSingleValue<String> tree, final NavigableMap<String, ORID> keyValues) {
+    Assert.assertEquals(keyValues.size(), tree.size());
+
+    for (final Map.Entry<String, ORID> entry : keyValues.entrySet()) {
+      Assert.assertEquals(entry.getValue(), tree.get(entry.getKey()));
+    }
+  }
+
+  private static void assertAbsent(final OCellBTreeSingleValue<String> tree) {
+    for (int i = 0; i < 100_000; i++) {
+      Assert.assertNull(tree.get("absent" + i));
+    }
+  }
+}
@@ -0,0 +1,228 @@
+package com.orientechnologies.orient.core.storage.index.sbtree.singlevalue;
+
+import com.orientechnologies.common.io.OFileUtils;
+import com.orientechnologies.common.serialization.types.OIntegerSerializer;
+import com.orientechnologies.common.serialization.types.OUTF8Serializer;
+import com.orientechnologies.orient.core.db.ODatabaseInternal;
+import com.orientechnologies.orient.core.db.ODatabaseSession;
+import com.orientechnologies.orient.core.db.ODatabaseType;
+import com.orientechnologies.orient.core.db.OrientDB;
+import com.orientechnologies.orient.core.db.OrientDBConfig;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.storage.impl.local.OAbstractPaginatedStorage;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+
+public class OCellBTreeSingleValueBulkLoadTestIT {
+  private OrientDB                  orientDB;
+  private OAbstractPaginatedStorage storage;
+
+  private String dbName;
+
+  @Before
+  public void before() {
+    final String buildDirectory = System.getProperty("buildDirectory", ".") + File.separator
+        + OCellBTreeSingleValueBulkLoadTestIT.class.getSimpleName();
+
+    dbName = "localSingleBTreeBulkLoadTest";
+    final File dbDirectory = new File(buildDirectory, dbName);
+    OFileUtils.deleteRecursively(dbDirectory);
+
+    orientDB = new OrientDB("plocal:" + buildDirectory, OrientDBConfig.defaultConfig());
+    orientDB.create(dbName, ODatabaseType.PLOCAL);
+
+    final ODatabaseSession databaseDocumentTx = orientDB.open(dbName, "admin", "admin");
+    storage = (OAbstractPaginatedStorage) ((ODatabaseInternal) databaseDocumentTx).getStorage();
+  }
+
+  @After
+  public void afterMethod() {
+    orientDB.drop(dbName);
+    orientDB.close();
+  }
+
+  @Test
+  public void testBulkLoadIntegerKeys() throws Exception {
+    final OCellBTreeSingleValue<Integer> tree = new OCellBTreeSingleValue<>("bulkBTree", ".sbt", ".nbt", storage);
+    tree.create(OIntegerSerializer.INSTANCE, null, 1, null);
+
+    final NavigableMap<Integer, ORID> keyValues = new TreeMap<>();
+    for (int i = 0; i < 1_000_000; i++) {
+      keyValues.put(i * 2, new ORecordId(i % 32000, i));
+    }
+
+    Assert.assertEquals(keyValues.size(), tree.bulkLoad(keyValues.entrySet().iterator()));
+    Assert.assertEquals(keyValues.size(), tree.size());
+
+    assertTree(tree, keyValues);
+
+    Assert.assertNull(tree.get(1));
+    Assert.assertNull(tree.get(-1));
+
+    for (int i = 0; i < 10_000; i++) {
+      tree.put(i * 200 + 1, new ORecordId(1, i));
+      keyValues.put(i * 200 + 1, new ORecordId(1, i));
+    }
+
+    for (int i = 0; i < 10_000; i++) {
+      Assert.assertEquals(keyValues.remove(i * 100), tree.remove(i * 100));
+    }
+
+    assertTree(tree, keyValues);
+
+    tree.close();
+    tree.load("bulkBTree", 1, null, OIntegerSerializer.INSTANCE, null);
+
+    assertTree(tree, keyValues);
+  }
+
+  @Test
+  public void testBulkLoadPrefixCompressedKeys() throws Exception {
+    final OCellBTreeSingleValue<String> tree = new OCellBTreeSingleValue<>("bulkUrlBTree", ".sbt", ".nbt", storage);
+    tree.create(OUTF8Serializer.INSTANCE, null, 1, null, true);
+
+    final long seed = System.nanoTime();
+    final String message = "seed : " + seed;
+    final Random random = new Random(seed);
+
+    final NavigableMap<String, ORID> keyValues = new TreeMap<>();
+    while (keyValues.size() < 200_000) {
+      final int val = random.nextInt(Integer.MAX_VALUE);
+      keyValues.put("https://www.example.com/catalog/products/" + (val % 100) + "/item?id=" + val, new ORecordId(val % 32000, val));
+    }
+
+    Assert.assertEquals(message, keyValues.size(), tree.bulkLoad(keyValues.entrySet().iterator()));
+    assertTree(message, tree, keyValues);
+
+    final Iterator<String> keys = keyValues.keySet().iterator();
+    int counter = 0;
+    while (keys.hasNext()) {
+      final String key = keys.next();
+      if (counter % 3 == 0) {
+        Assert.assertNotNull(message, tree.remove(key));
+        keys.remove();
+      }
+      counter++;
+    }
+
+    assertTree(message, tree, keyValues);
+  }
+
+  @Test
+  public void testBulkLoadSkipsDuplicatesAndRejectsUnsortedKeys() throws Exception {
+    final OCellBTreeSingleValue<Integer> tree = new OCellBTreeSingleValue<>("bulkSmallBTree", ".sbt", ".nbt", storage);
+    tree.create(OIntegerSerializer.INSTANCE, null, 1, null);
+
+    final Iterator<Map.Entry<Integer, ORID>> entries = Arrays.<Map.Entry<Integer, ORID>>asList(
+        new AbstractMap.SimpleImmutableEntry<>(1, new ORecordId(1, 1)),
+        new AbstractMap.SimpleImmutableEntry<>(1, new ORecordId(1, 2)),
+        new AbstractMap.SimpleImmutableEntry<>(2, new ORecordId(1, 3))).iterator();
+
+    Assert.assertEquals(2, tree.bulkLoad(entries));
+    Assert.assertEquals(2, tree.size());
+    Assert.assertEquals(new ORecordId(1, 1), tree.get(1));
+    Assert.assertEquals(new ORecordId(1, 3), tree.get(2));
+
+    final OCellBTreeSingleValue<Integer> unsortedTree = new OCellBTreeSingleValue<>("bulkUnsortedBTree", ".sbt", ".nbt", storage);
+    unsortedTree.create(OIntegerSerializer.INSTANCE, null, 1, null);
+
+    final Iterator<Map.Entry<Integer, ORID>> unsortedEntries = Arrays.<Map.Entry<Integer, ORID>>asList(
+        new AbstractMap.SimpleImmutableEntry<>(2, new ORecordId(1, 1)),
+        new AbstractMap.SimpleImmutableEntry<>(1, new ORecordId(1, 2))).iterator();
+
+    try {
+      unsortedTree.bulkLoad(unsortedEntries);
+      Assert.fail();
+    } catch (OCellBTreeSingleValueException e) {
+      Assert.assertTrue(true);
+    }
+
+    Assert.assertEquals(0, unsortedTree.size());
+    Assert.assertNull(unsortedTree.get(2));
+  }
+
+  @Test
+  public void testPagesOfFailedBulkLoadAreReused() throws Exception {
+    final OCellBTreeSingleValue<Integer> tree = new OCellBTreeSingleValue<>("bulkFailedBTree", ".sbt", ".nbt", storage);
+    tree.create(OIntegerSerializer.INSTANCE, null, 1, null);
+
+    final int failAt = 500_000;
+    final Iterator<Map.Entry<Integer, ORID>> brokenEntries = new Iterator<Map.Entry<Integer, ORID>>() {
+      private int next;
+
+      @Override
+      public boolean hasNext() {
+        return true;
+      }
+
+      @Override
+      public Map.Entry<Integer, ORID> next() {
+        if (next == failAt) {
+          throw new IllegalStateException("Source of entries is broken");
+        }
+
+        final int key = next++;
+        return new AbstractMap.SimpleImmutableEntry<>(key, new ORecordId(key % 32000, key));
+      }
+    };
+
+    try {
+      tree.bulkLoad(brokenEntries);
+      Assert.fail();
+    } catch (IllegalStateException e) {
+      Assert.assertTrue(true);
+    }
+
+    Assert.assertEquals(0, tree.size());
+    Assert.assertNull(tree.get(0));
+
+    final long fileId = storage.getWriteCache().fileIdByName("bulkFailedBTree.sbt");
+    final long pagesAfterFailure = storage.getWriteCache().getFilledUpTo(fileId);
+    // pages of all operations but the failed one were committed
+    Assert.assertTrue(pagesAfterFailure > 256);
+
+    final NavigableMap<Integer, ORID> keyValues = new TreeMap<>();
+    for (int i = 0; i < failAt; i++) {
+      keyValues.put(i, new ORecordId(i % 32000, i));
+    }
+
+    Assert.assertEquals(keyValues.size(), tree.bulkLoad(keyValues.entrySet().iterator()));
+    assertTree(tree, keyValues);
+
+    // the same entries are written into the pages which were filled by the failed load
+    Assert.assertTrue(storage.getWriteCache().getFilledUpTo(fileId) < 2 * pagesAfterFailure);
+  }
+
+  private static <K> void assertTree(final OCellBTreeSingleValue<K> tree, final NavigableMap<K, ORID> keyValues) {
+    assertTree(null, tree, keyValues);
+  }
+
+  private static <K> void assertTree(final String message, final OCellBTreeSingleValue<K> tree,
+      final NavigableMap<K, ORID> keyValues) {
+    Assert.assertEquals(message, keyValues.size(), tree.size());
+    Assert.assertEquals(message, keyValues.firstKey(), tree.firstKey());
+    Assert.assertEquals(message, keyValues.lastKey(), tree.lastKey());
+
+    for (final Map.Entry<K, ORID> entry : keyValues.entrySet()) {
+      Assert.assertEquals(message, entry.getValue(), tree.get(entry.getKey()));
+    }
+
+    final OCellBTreeSingleValue.OSBTreeKeyCursor<K> cursor = tree.keyCursor();
+    for (final K key : keyValues.keySet()) {
+      Assert.assertEquals(message, key, cursor.next(-1));
+    }
+    Assert.assertNull(message, cursor.next(-1));
+  }
+}
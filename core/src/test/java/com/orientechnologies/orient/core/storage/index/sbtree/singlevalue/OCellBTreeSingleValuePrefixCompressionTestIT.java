@@ -0,0 +1,141 @@
+package com.orientechnologies.orient.core.storage.index.sbtree.singlevalue;
+
+import com.orientechnologies.common.io.OFileUtils;
+import com.orientechnologies.common.serialization.types.OUTF8Serializer;
+import com.orientechnologies.orient.core.db.ODatabaseInternal;
+import com.orientechnologies.orient.core.db.ODatabaseSession;
+import com.orientechnologies.orient.core.db.ODatabaseType;
+import com.orientechnologies.orient.core.db.OrientDB;
+import com.orientechnologies.orient.core.db.OrientDBConfig;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.index.OCompositeKey;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.serialization.serializer.binary.impl.index.OCompositeKeySerializer;
+import com.orientechnologies.orient.core.storage.impl.local.OAbstractPaginatedStorage;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+
+public class OCellBTreeSingleValuePrefixCompressionTestIT {
+  private OrientDB                  orientDB;
+  private OAbstractPaginatedStorage storage;
+
+  private String dbName;
+
+  @Before
+  public void before() {
+    final String buildDirectory = System.getProperty("buildDirectory", ".") + File.separator
+        + OCellBTreeSingleValuePrefixCompressionTestIT.class.getSimpleName();
+
+    dbName = "localSingleBTreePrefixTest";
+    final File dbDirectory = new File(buildDirectory, dbName);
+    OFileUtils.deleteRecursively(dbDirectory);
+
+    orientDB = new OrientDB("plocal:" + buildDirectory, OrientDBConfig.defaultConfig());
+    orientDB.create(dbName, ODatabaseType.PLOCAL);
+
+    final ODatabaseSession databaseDocumentTx = orientDB.open(dbName, "admin", "admin");
+    storage = (OAbstractPaginatedStorage) ((ODatabaseInternal) databaseDocumentTx).getStorage();
+  }
+
+  @After
+  public void afterMethod() {
+    orientDB.drop(dbName);
+    orientDB.close();
+  }
+
+  @Test
+  public void testUrlKeys() throws Exception {
+    final OCellBTreeSingleValue<String> tree = new OCellBTreeSingleValue<>("urlBTree", ".sbt", ".nbt", storage);
+    tree.create(OUTF8Serializer.INSTANCE, null, 1, null, true);
+
+    final int keysCount = 200_000;
+    final long seed = System.nanoTime();
+    final String message = "seed : " + seed;
+    final Random random = new Random(seed);
+
+    final NavigableMap<String, ORID> keyValues = new TreeMap<>();
+    while (keyValues.size() < keysCount) {
+      final int val = random.nextInt(Integer.MAX_VALUE);
+      final String key = "https://www.example.com/catalog/products/" + (val % 100) + "/item?id=" + val;
+
+      tree.put(key, new ORecordId(val % 32000, val));
+      keyValues.put(key, new ORecordId(val % 32000, val));
+    }
+
+    Assert.assertEquals(message, keyValues.firstKey(), tree.firstKey());
+    Assert.assertEquals(message, keyValues.lastKey(), tree.lastKey());
+
+    final Iterator<Map.Entry<String, ORID>> iterator = keyValues.entrySet().iterator();
+    int counter = 0;
+    while (iterator.hasNext()) {
+      final Map.Entry<String, ORID> entry = iterator.next();
+      Assert.assertEquals(message, entry.getValue(), tree.get(entry.getKey()));
+
+      if (counter % 3 == 0) {
+        Assert.assertEquals(message, entry.getValue(), tree.remove(entry.getKey()));
+        iterator.remove();
+      }
+
+      counter++;
+    }
+
+    Assert.assertNull(message, tree.get("https://www.example.com/"));
+    Assert.assertNull(message, tree.get("ftp://example.com"));
+
+    final OCellBTreeSingleValue.OSBTreeKeyCursor<String> cursor = tree.keyCursor();
+    for (final String key : keyValues.keySet()) {
+      Assert.assertEquals(message, key, cursor.next(-1));
+    }
+    Assert.assertNull(message, cursor.next(-1));
+
+    tree.close();
+    tree.load("urlBTree", 1, null, OUTF8Serializer.INSTANCE, null);
+
+    for (final Map.Entry<String, ORID> entry : keyValues.entrySet()) {
+      Assert.assertEquals(message, entry.getValue(), tree.get(entry.getKey()));
+    }
+  }
+
+  @Test
+  public void testCompositeKeys() throws Exception {
+    final OCellBTreeSingleValue<OCompositeKey> tree = new OCellBTreeSingleValue<>("compositeBTree", ".sbt", ".nbt", storage);
+    tree.create(OCompositeKeySerializer.INSTANCE, new OType[] { OType.STRING, OType.INTEGER }, 2, null, true);
+
+    final int tenants = 10;
+    final int keysPerTenant = 20_000;
+
+    for (int id = 0; id < keysPerTenant; id++) {
+      for (int tenant = 0; tenant < tenants; tenant++) {
+        tree.put(new OCompositeKey("tenant" + tenant, id), new ORecordId(tenant, id));
+      }
+    }
+
+    for (int tenant = 0; tenant < tenants; tenant++) {
+      for (int id = 0; id < keysPerTenant; id++) {
+        Assert.assertEquals(new ORecordId(tenant, id), tree.get(new OCompositeKey("tenant" + tenant, id)));
+      }
+    }
+
+    Assert.assertNull(tree.get(new OCompositeKey("tenant" + tenants, 0)));
+
+    final OCellBTreeSingleValue.OSBTreeCursor<OCompositeKey, ORID> cursor = tree
+        .iterateEntriesBetween(new OCompositeKey("tenant3"), true, new OCompositeKey("tenant3"), true, true);
+
+    for (int id = 0; id < keysPerTenant; id++) {
+      final Map.Entry<OCompositeKey, ORID> entry = cursor.next(-1);
+      Assert.assertEquals(new OCompositeKey("tenant3", id), entry.getKey());
+      Assert.assertEquals(new ORecordId(3, id), entry.getValue());
+    }
+    Assert.assertNull(cursor.next(-1));
+  }
+}
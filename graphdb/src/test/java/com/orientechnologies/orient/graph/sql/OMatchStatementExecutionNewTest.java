@@ -2059,6 +2059,51 @@ public class OMatchStatementExecutionNewTest {
     result.close();
   }
 
+  @Test
+  public void testHashJoinOnMatchedProperty() {
+    String classA = "testHashJoinOnMatchedPropertyA";
+    String classB = "testHashJoinOnMatchedPropertyB";
+    db.createVertexClass(classA);
+    db.createVertexClass(classB);
+    for (int i = 0; i < 20; i++) {
+      OVertex v = db.newVertex(classA);
+      v.setProperty("name", "a" + i);
+      v.setProperty("code", i % 10);
+      v.save();
+    }
+    for (int i = 0; i < 10; i++) {
+      OVertex v = db.newVertex(classB);
+      v.setProperty("name", "b" + i);
+      v.setProperty("code", (long) i);
+      v.save();
+    }
+
+    String query = "MATCH {class:" + classA + ", as:a}, {class:" + classB + ", as:b, where:(code = $matched.a.code)} "
+        + "RETURN a.code as aCode, b.code as bCode";
+    OResultSet result = db.query(query);
+    Assert.assertTrue(result.getExecutionPlan().get().prettyPrint(0, 2).contains("HASH JOIN"));
+    int count = 0;
+    while (result.hasNext()) {
+      OResult item = result.next();
+      Assert.assertEquals(((Number) item.getProperty("aCode")).longValue(), (long) item.getProperty("bCode"));
+      count++;
+    }
+    Assert.assertEquals(20, count);
+    result.close();
+
+    query = "MATCH {class:" + classA + ", as:a}, {class:" + classB + ", as:b, where:(name <> 'b3' and code = $matched.a.code)} "
+        + "RETURN a.code as aCode, b.code as bCode";
+    result = db.query(query);
+    count = 0;
+    while (result.hasNext()) {
+      OResult item = result.next();
+      Assert.assertNotEquals(3L, (long) item.getProperty("bCode"));
+      count++;
+    }
+    Assert.assertEquals(18, count);
+    result.close();
+  }
+
   private OResultSet getManagedPathElements(String managerName) {
     StringBuilder query = new StringBuilder();
     query.append("  match {class:Employee, as:boss, where: (name = '" + managerName + "')}");